@@ -0,0 +1,134 @@
+package com.bestseller.demo.plugin;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kernel function dispatch through the registry compared with a reflective lookup per call, and registry calls
+ * of the real plugin functions compared with the equalsIgnoreCase chain the registry replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelFunctionDispatchBenchmark {
+
+    private static final String[][] CALLS = {
+        {"ItemPlugin", "getItemInfo", "item-001"},
+        {"itemplugin", "SEARCHITEMSBYCATEGORY", "Apparel"},
+        {"StockPlugin", "getStockInfo", "item-002"},
+        {"StockPlugin", "checkAvailability", "item-003"},
+        {"TrackingPlugin", "getTrackingInfo", "TRK-2025-001"},
+        {"trackingPlugin", "getDeliveryStatus", "TRK-2025-002"}
+    };
+
+    private ItemPlugin itemPlugin;
+    private StockPlugin stockPlugin;
+    private TrackingPlugin trackingPlugin;
+    private Map<String, Object> plugins;
+    private KernelFunctionRegistry registry;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        DemoDataStore dataStore = new DemoDataStore();
+        FunctionResultCache cache = new FunctionResultCache(
+            new FunctionCacheProperties(false, Duration.ZERO, Map.of(), 0), new SimpleMeterRegistry());
+        itemPlugin = new ItemPlugin(dataStore, cache);
+        stockPlugin = new StockPlugin(dataStore, cache);
+        trackingPlugin = new TrackingPlugin(dataStore, cache);
+        plugins = Map.of("itemplugin", itemPlugin, "stockplugin", stockPlugin, "trackingplugin", trackingPlugin,
+            "pingplugin", new PingPlugin());
+        registry = KernelFunctionRegistry.scan(Map.of("ItemPlugin", itemPlugin, "StockPlugin", stockPlugin,
+            "TrackingPlugin", trackingPlugin, "PingPlugin", new PingPlugin()));
+    }
+
+    /**
+     * Dispatch alone, through a function that returns its argument.
+     */
+    @Benchmark
+    public String registryDispatch() {
+        return registry.find("pingPlugin", "PING").invoke(nextCall()[2]);
+    }
+
+    @Benchmark
+    public String reflectiveDispatch() throws ReflectiveOperationException {
+        Object plugin = plugins.get("pingPlugin".toLowerCase());
+        for (Method method : plugin.getClass().getMethods()) {
+            if (method.getName().equalsIgnoreCase("PING")) {
+                return (String) method.invoke(plugin, nextCall()[2]);
+            }
+        }
+        throw new IllegalStateException("ping not found");
+    }
+
+    @Benchmark
+    public String registryCall() {
+        String[] call = nextCall();
+        return registry.find(call[0], call[1]).invoke(call[2]);
+    }
+
+    /**
+     * The routing {@code SemanticKernelService.invokeKernelFunction} used before the registry.
+     */
+    @Benchmark
+    public String chainCall() {
+        String[] call = nextCall();
+        String pluginName = call[0];
+        String functionName = call[1];
+        if (pluginName.equalsIgnoreCase("ItemPlugin")) {
+            if (functionName.equalsIgnoreCase("getItemInfo")) {
+                return itemPlugin.getItemInfo(call[2]);
+            } else if (functionName.equalsIgnoreCase("searchItemsByCategory")) {
+                return itemPlugin.searchItemsByCategory(call[2]);
+            }
+        } else if (pluginName.equalsIgnoreCase("StockPlugin")) {
+            if (functionName.equalsIgnoreCase("getStockInfo")) {
+                return stockPlugin.getStockInfo(call[2]);
+            } else if (functionName.equalsIgnoreCase("checkAvailability")) {
+                return stockPlugin.checkAvailability(call[2]);
+            }
+        } else if (pluginName.equalsIgnoreCase("TrackingPlugin")) {
+            if (functionName.equalsIgnoreCase("getTrackingInfo")) {
+                return trackingPlugin.getTrackingInfo(call[2]);
+            } else if (functionName.equalsIgnoreCase("getDeliveryStatus")) {
+                return trackingPlugin.getDeliveryStatus(call[2]);
+            }
+        }
+        return "Unknown function: " + functionName;
+    }
+
+    private String[] nextCall() {
+        next = next + 1 == CALLS.length ? 0 : next + 1;
+        return CALLS[next];
+    }
+
+    public static class PingPlugin {
+
+        @DefineKernelFunction(name = "ping", description = "Returns its argument")
+        public String ping(@KernelFunctionParameter(name = "value", description = "Any value") String value) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ChatEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Many turns at once, each run timing how long all of them take.
+ * <ul>
+ *   <li>{@code streamedConversations}: 200 conversations of five streamed turns against a 50 ms model</li>
+ *   <li>{@code blockingSessions}: 1000 sessions at once against a 200 ms model and a data source taking 20 ms per
+ *       lookup, each blocking a request thread for its turn as in the servlet container; on Tomcat's 200 platform
+ *       threads or on a virtual thread per request, with the tool calls of a round one after another or side by
+ *       side</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChatLoadBenchmark {
+
+    @Benchmark
+    public long streamedConversations(Conversations state) {
+        return Flux.range(0, Conversations.CONVERSATIONS)
+            .flatMap(conversation -> Flux.range(0, Conversations.TURNS).concatMap(turn -> {
+                String message = ScriptedChat.MESSAGES.get((conversation + turn) % ScriptedChat.MESSAGES.size());
+                return state.chat.service.chatStream("load-" + conversation, message).last();
+            }), Conversations.CONVERSATIONS)
+            .filter(event -> event.equals(ChatEvent.done()))
+            .count()
+            .block();
+    }
+
+    @Benchmark
+    public int blockingSessions(Sessions state) throws InterruptedException, ExecutionException {
+        int answered = 0;
+        try (ExecutorService requestThreads = state.threads.equals("virtual")
+            ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(200)) {
+            List<Future<String>> turns = IntStream.range(0, Sessions.SESSIONS)
+                .mapToObj(session -> requestThreads.submit(() -> state.chat.service.chat(
+                    ScriptedChat.MESSAGES.get(session % ScriptedChat.MESSAGES.size())).block()))
+                .toList();
+            for (Future<String> turn : turns) {
+                answered += turn.get() != null ? 1 : 0;
+            }
+        }
+        return answered;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Conversations {
+
+        static final int CONVERSATIONS = 200;
+        static final int TURNS = 5;
+
+        ScriptedChat chat;
+
+        @Setup
+        public void setUp() {
+            chat = new ScriptedChat(new DemoDataStore(), Duration.ofMillis(50), Duration.ofMillis(1), true, true);
+        }
+
+        @TearDown
+        public void tearDown() {
+            chat.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sessions {
+
+        static final int SESSIONS = 1000;
+
+        @Param({"platform", "virtual"})
+        public String threads;
+
+        @Param({"false", "true"})
+        public boolean parallel;
+
+        ScriptedChat chat;
+
+        @Setup
+        public void setUp() {
+            chat = new ScriptedChat(ScriptedChat.slowDataSource(Duration.ofMillis(20)), Duration.ofMillis(200),
+                Duration.ZERO, false, parallel);
+        }
+
+        @TearDown
+        public void tearDown() {
+            chat.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.ConversationProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ChatEvent;
+import com.bestseller.demo.session.ConversationStore;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application's own share of a chat turn, without a model's latency in the way: building the kernel, a
+ * plugin function call, the prompt history of a long conversation, and complete turns answered and streamed.
+ * Run with {@code -prof gc} for what they allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatTurnBenchmark {
+
+    private ScriptedChat chat;
+    private ConversationStore.Window window;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // No model latency and no result cache, so every turn runs its plugin functions
+        chat = new ScriptedChat(new DemoDataStore(), Duration.ZERO, Duration.ZERO, false, true);
+        // A conversation long enough to fill the window with recent turns and facts of older ones
+        ConversationStore conversation = new ConversationStore(new ConversationProperties(
+            DataSize.ofMegabytes(64), Duration.ofMinutes(30), 6, 20, 160, 2000), new SimpleMeterRegistry());
+        for (int i = 0; i < 20; i++) {
+            String message = ScriptedChat.MESSAGES.get(i % ScriptedChat.MESSAGES.size());
+            conversation.record("c1", message, chat.service.chat(message).block(), Map.of(
+                new FunctionResultCache.Call("TrackingPlugin", "getDeliveryStatus", "TRK-2025-00" + i), "In Transit"));
+        }
+        window = conversation.window("c1", 100);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chat.close();
+    }
+
+    @Benchmark
+    public Kernel kernel() {
+        return chat.kernel();
+    }
+
+    @Benchmark
+    public String functionCall() {
+        return chat.registry.find("StockPlugin", "getStockInfo").invoke("item-00" + (1 + nextIndex() % 5));
+    }
+
+    @Benchmark
+    public ChatHistory history() {
+        return SemanticKernelService.history(window, nextMessage());
+    }
+
+    @Benchmark
+    public String turn() {
+        return chat.service.chat(nextMessage()).block();
+    }
+
+    @Benchmark
+    public List<ChatEvent> streamedTurn() {
+        return chat.service.chatStream(nextMessage()).collectList().block();
+    }
+
+    private String nextMessage() {
+        return ScriptedChat.MESSAGES.get(nextIndex() % ScriptedChat.MESSAGES.size());
+    }
+
+    private int nextIndex() {
+        next = next == Integer.MAX_VALUE ? 0 : next + 1;
+        return next;
+    }
+}
@@ -0,0 +1,121 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.cache.ResponseCache;
+import com.bestseller.demo.config.ConversationProperties;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.config.ResponseCacheProperties;
+import com.bestseller.demo.config.ScriptedChatProperties;
+import com.bestseller.demo.config.ToolCallProperties;
+import com.bestseller.demo.data.DemoDataSource;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.model.TrackingInfo;
+import com.bestseller.demo.plugin.ItemPlugin;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.bestseller.demo.plugin.StockPlugin;
+import com.bestseller.demo.plugin.TrackingPlugin;
+import com.bestseller.demo.session.ConversationStore;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.plugin.KernelPluginFactory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The chat flow of the demo against the scripted chat completion service, wired as {@code SemanticKernelConfig}
+ * wires it, for the benchmarks of this package.
+ */
+final class ScriptedChat implements AutoCloseable {
+
+    static final List<String> MESSAGES = List.of(
+        "Tell me about item-001 and whether it is in stock",
+        "Where is my parcel TRK-2025-001?",
+        "Compare item-002 with item-003",
+        "Hello, what can you do?");
+
+    final KernelFunctionRegistry registry;
+    final ScriptedChatCompletionService chatCompletion;
+    final SemanticKernelService service;
+    private final Map<String, Object> plugins = new LinkedHashMap<>();
+    private final ToolCallExecutor toolCallExecutor;
+
+    /**
+     * @param dataSource        where the plugins look up items, stock and shipments
+     * @param latency           time one model round trip takes
+     * @param tokenInterval     time between streamed tokens
+     * @param caching           whether the function result cache is on
+     * @param parallelToolCalls whether the calls of a round run side by side
+     */
+    ScriptedChat(DemoDataSource dataSource, Duration latency, Duration tokenInterval, boolean caching,
+                 boolean parallelToolCalls) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FunctionResultCache functionCache = new FunctionResultCache(
+            new FunctionCacheProperties(caching, Duration.ofSeconds(30), Map.of(), 10_000), meterRegistry);
+        plugins.put("ItemPlugin", new ItemPlugin(dataSource, functionCache));
+        plugins.put("StockPlugin", new StockPlugin(dataSource, functionCache));
+        plugins.put("TrackingPlugin", new TrackingPlugin(dataSource, functionCache));
+        registry = KernelFunctionRegistry.scan(plugins);
+        chatCompletion = new ScriptedChatCompletionService(
+            new ScriptedChatProperties(true, latency, tokenInterval, List.of()), registry);
+        toolCallExecutor = new ToolCallExecutor(
+            new ToolCallProperties(parallelToolCalls, Duration.ofSeconds(30)), meterRegistry);
+        DemoDataStore dataStore = new DemoDataStore();
+        service = new SemanticKernelService(
+            kernel(),
+            registry,
+            functionCache,
+            toolCallExecutor,
+            new ResponseCache(new ResponseCacheProperties(false, 0.8, Duration.ofMinutes(10), 1000), dataStore,
+                meterRegistry),
+            new ConversationStore(new ConversationProperties(
+                DataSize.ofMegabytes(64), Duration.ofMinutes(30), 6, 20, 160, 2000), meterRegistry),
+            dataSource,
+            new ChatMetrics(meterRegistry)
+        );
+    }
+
+    /**
+     * The kernel as {@code SemanticKernelConfig} builds it.
+     */
+    Kernel kernel() {
+        Kernel.Builder builder = Kernel.builder().withAIService(ChatCompletionService.class, chatCompletion);
+        plugins.forEach((name, plugin) -> builder.withPlugin(KernelPluginFactory.createFromObject(plugin, name)));
+        return builder.build();
+    }
+
+    @Override
+    public void close() {
+        toolCallExecutor.close();
+    }
+
+    /**
+     * The demo data, each lookup answered after the latency, like a remote API without prefetching.
+     */
+    static DemoDataSource slowDataSource(Duration latency) {
+        DemoDataStore dataStore = new DemoDataStore();
+        return new DemoDataSource() {
+            @Override
+            public Mono<ItemInfo> findItem(String itemId) {
+                return Mono.delay(latency).then(dataStore.findItem(itemId));
+            }
+
+            @Override
+            public Mono<StockInfo> findStock(String itemId) {
+                return Mono.delay(latency).then(dataStore.findStock(itemId));
+            }
+
+            @Override
+            public Mono<TrackingInfo> findTracking(String trackingNo) {
+                return Mono.delay(latency).then(dataStore.findTracking(trackingNo));
+            }
+        };
+    }
+}
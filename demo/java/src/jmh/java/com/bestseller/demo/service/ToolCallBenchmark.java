@@ -0,0 +1,51 @@
+package com.bestseller.demo.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A turn that asks for item info and stock of two items, four calls in one round against a data source taking
+ * 50 ms per lookup, with the calls run one after another and side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ToolCallBenchmark {
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ScriptedChat chat;
+
+    @Setup
+    public void setUp() {
+        chat = new ScriptedChat(ScriptedChat.slowDataSource(Duration.ofMillis(50)), Duration.ZERO, Duration.ZERO,
+            false, parallel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chat.close();
+    }
+
+    @Benchmark
+    public String turn() {
+        return chat.service.chat("Compare item-002 with item-003").block();
+    }
+}
@@ -0,0 +1,75 @@
+package com.bestseller.demo.session;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.ConversationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the prompt window of a conversation after few and after many turns, which should cost the same, and
+ * recording turns into a store holding 10,000 conversations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversationStoreBenchmark {
+
+    private static final String ANSWER = "Tracking number TRK-2025-001 is In Transit. Current location: "
+        + "Distribution Center. Estimated delivery: 2025-10-28.";
+
+    @Param({"10", "1000"})
+    public int turns;
+
+    private ConversationStore store;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        store = new ConversationStore(
+            new ConversationProperties(DataSize.ofMegabytes(512), Duration.ofMinutes(30), 6, 20, 160, 2000),
+            new SimpleMeterRegistry(), System::nanoTime);
+        for (int session = 0; session < 10_000; session++) {
+            for (int i = 0; i < 20; i++) {
+                store.record("conversation-" + session, "where is TRK-2025-00" + (i % 10) + "? (" + session + ")",
+                    ANSWER + " " + i, results(i));
+            }
+        }
+        for (int i = 0; i < turns; i++) {
+            store.record("long", "where is TRK-2025-" + i + "?", ANSWER, results(i));
+        }
+    }
+
+    @Benchmark
+    public ConversationStore.Window window() {
+        return store.window("long", 100);
+    }
+
+    @Benchmark
+    public void record() {
+        next = next + 1 == 10_000 ? 0 : next + 1;
+        store.record("conversation-" + next, "where is TRK-2025-001?", ANSWER, results(next));
+    }
+
+    private static Map<FunctionResultCache.Call, String> results(int i) {
+        return Map.of(new FunctionResultCache.Call("TrackingPlugin", "getDeliveryStatus",
+            String.format("TRK-2025-%03d", i)), "status " + i);
+    }
+}
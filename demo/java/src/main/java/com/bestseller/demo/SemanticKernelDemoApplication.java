@@ -2,6 +2,7 @@ package com.bestseller.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Main application class for BESTSELLER Semantic Kernel Demo.
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * to create AI-powered plugins for item, stock, and tracking information.
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SemanticKernelDemoApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,331 @@
+package com.bestseller.demo.cache;
+
+import com.bestseller.demo.config.FunctionCacheProperties;
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes plugin function results in two tiers.
+ * <p>
+ * The turn tier holds every result computed during one chat turn, so the model gets the same answer each time
+ * it asks again within the turn, whatever the function's TTL. The shared tier keeps results across requests for
+ * the function's TTL ({@code demo.function-cache.ttl}); plugins drop entries when {@code DemoDataStore} reports a
+ * change of the record they were built from.
+ * <p>
+ * The current turn is a thread local. {@link #TURN_KEY} is registered with the context-propagation library, so a
+ * turn written into the Reactor context of a chat pipeline is also current while the kernel runs the model's
+ * tool calls on other threads.
+ */
+@Component
+public class FunctionResultCache {
+
+    public static final String TURN_KEY = "demo.function-cache.turn";
+
+    private static final ThreadLocal<Turn> CURRENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(TURN_KEY, CURRENT::get, CURRENT::set,
+            CURRENT::remove);
+    }
+
+    private final FunctionCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Entry> shared = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, Metrics> metrics = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+
+    public FunctionResultCache(FunctionCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.invalidations = meterRegistry.counter("demo.function.cache.invalidations");
+        Gauge.builder("demo.function.cache.entries", shared, Map::size)
+            .description("Plugin function results shared between requests")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts a chat turn. Put it into the Reactor context under {@link #TURN_KEY}, or make it current on this
+     * thread with {@link Turn#bind()}.
+     */
+    public Turn newTurn() {
+        return new Turn();
+    }
+
+    /**
+     * Returns the cached result of {@code plugin.function(argument)} or computes it. Arguments are compared
+     * exactly: the data store's lookups are case-sensitive and the answers quote the argument back, so folding
+     * case or whitespace would hand out answers to a different question.
+     */
+    public String get(String plugin, String function, String argument, Supplier<String> compute) {
+        Turn turn = CURRENT.get();
+        if (turn == null) {
+            return lookup(null, plugin, function, argument, compute);
+        }
+        Call call = new Call(plugin, function, argument);
+        turn.called(call);
+        long started = turn.started();
+        String result = null;
+        try {
+            result = lookup(turn, plugin, function, argument, compute);
+            return result;
+        } finally {
+            turn.returned(call, result, started);
+        }
+    }
+
+    private String lookup(Turn turn, String plugin, String function, String argument, Supplier<String> compute) {
+        if (!properties.enabled()) {
+            return compute.get();
+        }
+        Key key = new Key(plugin, function, argument);
+        Metrics counters = metrics.computeIfAbsent(plugin + "." + function, name -> new Metrics(plugin, function));
+        if (turn != null) {
+            String result = turn.results.get(key);
+            if (result != null) {
+                counters.turnHits.increment();
+                return result;
+            }
+        }
+
+        long ttl = properties.ttl(plugin, function).toNanos();
+        Entry entry = ttl > 0 ? shared.get(key) : null;
+        String result;
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            counters.sharedHits.increment();
+            result = entry.result;
+        } else {
+            counters.misses.increment();
+            AtomicLong generation = generations.computeIfAbsent(plugin, name -> new AtomicLong());
+            long before = generation.get();
+            result = compute.get();
+            if (ttl > 0 && result != null && generation.get() == before) {
+                share(key, new Entry(result, System.nanoTime() + ttl));
+            }
+        }
+        if (turn != null && result != null) {
+            turn.results.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Drops the shared results of the plugin's functions that were called with the given argument (all of the
+     * plugin's results when it is null), and keeps results still being computed from being shared.
+     */
+    public void invalidate(String plugin, String argument) {
+        generations.computeIfAbsent(plugin, name -> new AtomicLong()).incrementAndGet();
+        invalidations.increment();
+        shared.keySet().removeIf(key -> key.plugin().equals(plugin)
+            && (argument == null || argument.equals(key.argument())));
+    }
+
+    /**
+     * Drops all shared results.
+     */
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        shared.clear();
+    }
+
+    private void share(Key key, Entry entry) {
+        if (shared.size() >= properties.maxEntries()) {
+            long now = System.nanoTime();
+            shared.values().removeIf(existing -> existing.expiresAt - now <= 0);
+            if (shared.size() >= properties.maxEntries()) {
+                return;
+            }
+        }
+        shared.put(key, entry);
+    }
+
+    /**
+     * Results of one chat turn.
+     */
+    public static final class Turn {
+
+        private final Map<Key, String> results = new ConcurrentHashMap<>();
+        private final Set<String> arguments = ConcurrentHashMap.newKeySet();
+        private final Set<String> plugins = ConcurrentHashMap.newKeySet();
+        private final Map<Call, String> returned = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicLong functionNanos = new AtomicLong();
+        private final AtomicLong deadline = new AtomicLong();
+        private int running;
+        private long busySince;
+        private long busyNanos;
+        private volatile Consumer<Call> listener;
+
+        private Turn() {
+        }
+
+        /**
+         * Registers a listener that is told about every plugin function call of the turn before it runs, on the
+         * calling thread, including calls answered from the cache.
+         */
+        public Turn onCall(Consumer<Call> listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Makes this turn current on the calling thread until the returned scope is closed.
+         */
+        public Scope bind() {
+            Turn previous = CURRENT.get();
+            CURRENT.set(this);
+            return () -> {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            };
+        }
+
+        public int size() {
+            return results.size();
+        }
+
+        /**
+         * Arguments of the plugin functions called during the turn, also while caching is disabled.
+         */
+        public Set<String> arguments() {
+            return Set.copyOf(arguments);
+        }
+
+        /**
+         * Plugins whose functions were called during the turn.
+         */
+        public Set<String> plugins() {
+            return Set.copyOf(plugins);
+        }
+
+        /**
+         * Results of the plugin functions called during the turn, in the order they returned.
+         */
+        public Map<Call, String> returned() {
+            synchronized (returned) {
+                return new LinkedHashMap<>(returned);
+            }
+        }
+
+        /**
+         * Plugin function calls made during the turn, including repeated ones answered from the turn's results.
+         */
+        public int calls() {
+            return calls.get();
+        }
+
+        /**
+         * Time the turn's plugin function calls took, summed over calls that ran concurrently.
+         */
+        public long functionNanos() {
+            return functionNanos.get();
+        }
+
+        /**
+         * Time during which at least one of the turn's plugin function calls was running.
+         */
+        public synchronized long busyNanos() {
+            return running > 0 ? busyNanos + System.nanoTime() - busySince : busyNanos;
+        }
+
+        /**
+         * The {@link System#nanoTime()} by which the turn's function calls are due: the budget from the first time
+         * this is asked for, so that later rounds of calls get what the earlier ones left.
+         */
+        public long deadline(Duration budget) {
+            long proposed = System.nanoTime() + budget.toNanos();
+            long current = deadline.compareAndExchange(0, proposed);
+            return current == 0 ? proposed : current;
+        }
+
+        private synchronized long started() {
+            long now = System.nanoTime();
+            if (running++ == 0) {
+                busySince = now;
+            }
+            return now;
+        }
+
+        private void returned(Call call, String result, long started) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                if (--running == 0) {
+                    busyNanos += now - busySince;
+                }
+            }
+            functionNanos.addAndGet(now - started);
+            if (result != null) {
+                returned.put(call, result);
+            }
+        }
+
+        private void called(Call call) {
+            calls.incrementAndGet();
+            plugins.add(call.plugin());
+            if (call.argument() != null) {
+                arguments.add(call.argument());
+            }
+            Consumer<Call> current = listener;
+            if (current != null) {
+                current.accept(call);
+            }
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * A plugin function call made during a turn.
+     */
+    public record Call(String plugin, String function, String argument) {
+    }
+
+    private record Key(String plugin, String function, String argument) {
+    }
+
+    private record Entry(String result, long expiresAt) {
+    }
+
+    private final class Metrics {
+
+        private final Counter turnHits;
+        private final Counter sharedHits;
+        private final Counter misses;
+
+        private Metrics(String plugin, String function) {
+            this.turnHits = counter(plugin, function, "turn-hit");
+            this.sharedHits = counter(plugin, function, "shared-hit");
+            this.misses = counter(plugin, function, "miss");
+        }
+
+        private Counter counter(String plugin, String function, String result) {
+            return Counter.builder("demo.function.cache.requests")
+                .description("Plugin function calls by cache outcome")
+                .tag("plugin", plugin)
+                .tag("function", function)
+                .tag("result", result)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.bestseller.demo.cache;
+
+import com.bestseller.demo.config.ResponseCacheProperties;
+import com.bestseller.demo.data.DemoDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches chat answers for prompts that ask the same thing in other words.
+ * <p>
+ * A prompt is reduced to the item IDs and tracking numbers it names, and to its remaining words, lower-cased,
+ * without filler words and with a few synonyms folded together ("where is TRK-2025-001?" and "track
+ * TRK-2025-001 please" both become {@code track #trk}). A cached answer is only considered for a prompt that names
+ * exactly the same IDs; among those, the words are compared by a MinHash signature over character trigrams,
+ * whose matching positions estimate the Jaccard similarity of the two prompts' trigram sets.
+ * <p>
+ * An answer depends on the IDs in its prompt and on the arguments of the plugin functions the model called for
+ * it. When the {@link DemoDataSource} reports a change of one of those records the answer is dropped; answers
+ * that called a function with anything else, such as a category search, are dropped on every change. With a source
+ * that does not report changes, answers that used stock or shipment data are not cached at all, since they would
+ * go stale unnoticed; other answers rely on the TTL.
+ */
+@Component
+public class ResponseCache {
+
+    private static final int HASHES = 128;
+
+    /**
+     * Answers kept per set of IDs; the oldest goes first, so no lookup scans more than this many signatures.
+     */
+    private static final int ANSWERS_PER_ENTITIES = 32;
+
+    private static final Pattern ITEM_ID = Pattern.compile("\\bitem-\\d+\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRACKING_NO = Pattern.compile("\\btrk-\\d{4}-\\d+\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Plugins reading data that changes all the time: stock levels and shipment statuses.
+     */
+    private static final Set<String> LIVE_PLUGINS = Set.of("StockPlugin", "TrackingPlugin");
+
+    private static final Set<String> FILLER_WORDS = Set.of(
+        "a", "an", "the", "is", "are", "was", "be", "of", "for", "to", "in", "on", "at", "it", "this", "that",
+        "i", "me", "my", "you", "your", "we", "our", "can", "could", "would", "will", "do", "does", "did",
+        "please", "thanks", "thank", "hi", "hello", "hey", "there", "what", "how", "tell", "show", "give",
+        "about", "info", "information", "details", "know", "want", "like", "need", "check", "currently", "now"
+    );
+
+    private static final Map<String, String> SYNONYMS = Map.ofEntries(
+        Map.entry("where", "track"), Map.entry("tracking", "track"), Map.entry("status", "track"),
+        Map.entry("shipment", "track"), Map.entry("package", "track"), Map.entry("parcel", "track"),
+        Map.entry("delivery", "track"), Map.entry("delivered", "track"), Map.entry("arrive", "track"),
+        Map.entry("available", "stock"), Map.entry("availability", "stock"), Map.entry("inventory", "stock"),
+        Map.entry("cost", "price"), Map.entry("costs", "price"), Map.entry("much", "price"),
+        Map.entry("product", "item"), Map.entry("products", "item"), Map.entry("items", "item")
+    );
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = mix(i + 1L);
+        }
+    }
+
+    private final ResponseCacheProperties properties;
+    private final boolean changesReported;
+    private final Map<String, ArrayDeque<Entry>> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public ResponseCache(ResponseCacheProperties properties, DemoDataSource dataSource, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.changesReported = dataSource.reportsChanges();
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.invalidations = meterRegistry.counter("demo.response.cache.invalidations");
+        Gauge.builder("demo.response.cache.entries", size, AtomicInteger::get)
+            .description("Cached chat answers")
+            .register(meterRegistry);
+        dataSource.onChange(change -> invalidate(entry -> entry.broad() || entry.keys().contains(change.key())));
+    }
+
+    /**
+     * Normalizes a chat message for {@link #find} and {@link #put}.
+     */
+    public Prompt prompt(String message) {
+        Set<String> entities = new TreeSet<>();
+        String text = extract(TRACKING_NO, " #trk ", extract(ITEM_ID, " #item ", message, entities), entities);
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).replaceAll("'s\\b", "").split("[^a-z0-9#]+")) {
+            String canonical = SYNONYMS.getOrDefault(word, word);
+            if (!canonical.isEmpty() && !FILLER_WORDS.contains(canonical)) {
+                words.add(canonical);
+            }
+        }
+        String normalized = String.join(" ", words);
+        return new Prompt(normalized, Set.copyOf(entities), String.join(",", entities), signature(normalized),
+            version.get());
+    }
+
+    /**
+     * Returns the cached answer to the most similar prompt naming the same IDs, or null.
+     */
+    public String find(Prompt prompt) {
+        if (!properties.enabled() || !prompt.cacheable()) {
+            return null;
+        }
+        ArrayDeque<Entry> bucket = buckets.get(prompt.bucket);
+        String best = null;
+        if (bucket != null) {
+            long now = System.nanoTime();
+            double bestSimilarity = properties.similarity();
+            synchronized (bucket) {
+                for (Iterator<Entry> entries = bucket.iterator(); entries.hasNext(); ) {
+                    Entry entry = entries.next();
+                    if (entry.expiresAt() - now <= 0) {
+                        entries.remove();
+                        size.decrementAndGet();
+                        continue;
+                    }
+                    double similarity = similarity(prompt.signature, entry.signature());
+                    if (similarity >= bestSimilarity) {
+                        bestSimilarity = similarity;
+                        best = entry.answer();
+                    }
+                }
+            }
+        }
+        (best != null ? hits : misses).increment();
+        return best;
+    }
+
+    /**
+     * Caches the answer to a prompt, unless the data store changed since the prompt was created, or the answer
+     * used live data the data source does not report changes of.
+     *
+     * @param arguments arguments of the plugin functions called while answering
+     * @param plugins   plugins whose functions were called while answering
+     */
+    public void put(Prompt prompt, String answer, Collection<String> arguments, Collection<String> plugins) {
+        if (!properties.enabled() || !prompt.cacheable() || answer == null) {
+            return;
+        }
+        if (!changesReported && plugins.stream().anyMatch(LIVE_PLUGINS::contains)) {
+            return;
+        }
+        Set<String> keys = new HashSet<>(prompt.entities());
+        boolean broad = false;
+        for (String argument : arguments) {
+            String key = entity(argument);
+            if (key != null) {
+                keys.add(key);
+            } else {
+                broad = true;
+            }
+        }
+        if (size.get() >= properties.maxEntries()) {
+            remove(entry -> false);
+            if (size.get() >= properties.maxEntries()) {
+                return;
+            }
+        }
+        Entry entry = new Entry(prompt.signature, answer, Set.copyOf(keys), broad,
+            System.nanoTime() + properties.ttl().toNanos());
+        ArrayDeque<Entry> bucket = buckets.computeIfAbsent(prompt.bucket, name -> new ArrayDeque<>());
+        synchronized (bucket) {
+            // Invalidations bump the version before they take the bucket locks, so an answer built from data
+            // that changed meanwhile is either refused here or removed right after
+            if (version.get() != prompt.version) {
+                return;
+            }
+            if (bucket.size() >= ANSWERS_PER_ENTITIES) {
+                bucket.removeFirst();
+                size.decrementAndGet();
+            }
+            bucket.addLast(entry);
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops all cached answers.
+     */
+    public void clear() {
+        invalidate(entry -> true);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void invalidate(Predicate<Entry> stale) {
+        version.incrementAndGet();
+        invalidations.increment();
+        remove(stale);
+    }
+
+    /**
+     * Removes the expired entries and those matching the predicate.
+     */
+    private void remove(Predicate<Entry> stale) {
+        long now = System.nanoTime();
+        for (ArrayDeque<Entry> bucket : buckets.values()) {
+            synchronized (bucket) {
+                for (Iterator<Entry> entries = bucket.iterator(); entries.hasNext(); ) {
+                    Entry entry = entries.next();
+                    if (entry.expiresAt() - now <= 0 || stale.test(entry)) {
+                        entries.remove();
+                        size.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private static String extract(Pattern pattern, String placeholder, String message, Set<String> entities) {
+        Matcher matcher = pattern.matcher(message);
+        StringBuilder text = new StringBuilder();
+        while (matcher.find()) {
+            entities.add(entity(matcher.group()));
+            matcher.appendReplacement(text, placeholder);
+        }
+        return matcher.appendTail(text).toString();
+    }
+
+    /**
+     * The data store key an item ID or tracking number is saved under, or null for anything else.
+     */
+    private static String entity(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (ITEM_ID.matcher(trimmed).matches()) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+        if (TRACKING_NO.matcher(trimmed).matches()) {
+            return trimmed.toUpperCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static int[] signature(String normalized) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        String padded = " " + normalized + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long trigram = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            for (int j = 0; j < HASHES; j++) {
+                int hash = (int) (mix(trigram ^ SEEDS[j]) >>> 33);
+                if (hash < signature[j]) {
+                    signature[j] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("demo.response.cache.requests")
+            .description("Chat messages by response cache outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * A normalized chat message.
+     */
+    public static final class Prompt {
+
+        private final String normalized;
+        private final Set<String> entities;
+        private final String bucket;
+        private final int[] signature;
+        private final long version;
+
+        private Prompt(String normalized, Set<String> entities, String bucket, int[] signature, long version) {
+            this.normalized = normalized;
+            this.entities = entities;
+            this.bucket = bucket;
+            this.signature = signature;
+            this.version = version;
+        }
+
+        /**
+         * The remaining words, with IDs replaced by {@code #item} and {@code #trk}.
+         */
+        public String normalized() {
+            return normalized;
+        }
+
+        /**
+         * The item IDs and tracking numbers, as the data store keys them.
+         */
+        public Set<String> entities() {
+            return entities;
+        }
+
+        /**
+         * Greetings and other messages with no words left would all match each other, so they are not cached.
+         */
+        boolean cacheable() {
+            return !normalized.isEmpty();
+        }
+    }
+
+    private record Entry(int[] signature, String answer, Set<String> keys, boolean broad, long expiresAt) {
+    }
+}
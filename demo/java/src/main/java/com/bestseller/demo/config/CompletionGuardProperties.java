@@ -0,0 +1,40 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the guard in front of the Azure OpenAI client.
+ *
+ * @param enabled           whether model requests go through the guard
+ * @param maxConcurrent     model requests in flight at most
+ * @param interactiveQueue  interactive requests waiting for a permit at most; more are rejected
+ * @param batchQueue        batch requests waiting for a permit at most; more are rejected
+ * @param interactiveWait   time an interactive request waits for a permit before it is rejected
+ * @param batchWait         time a batch request waits for a permit before it is rejected
+ * @param tokensPerMinute   tokens-per-minute quota of the deployment; zero disables rate limiting
+ * @param requestsPerMinute requests-per-minute quota of the deployment; zero derives it from
+ *                          {@code tokensPerMinute} the way Azure OpenAI does, 6 per 1000 tokens
+ * @param completionTokens  tokens a request is expected to generate, added to its prompt for the quota
+ * @param maxAttempts       attempts per request, including the first, for throttled or failed requests
+ * @param retryBase         shortest pause before a retry
+ * @param retryCap          longest pause before a retry, unless the service asks for a longer one
+ */
+@ConfigurationProperties(prefix = "demo.completion-guard")
+public record CompletionGuardProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("8") int maxConcurrent,
+    @DefaultValue("50") int interactiveQueue,
+    @DefaultValue("500") int batchQueue,
+    @DefaultValue("10s") Duration interactiveWait,
+    @DefaultValue("2m") Duration batchWait,
+    @DefaultValue("0") int tokensPerMinute,
+    @DefaultValue("0") int requestsPerMinute,
+    @DefaultValue("500") int completionTokens,
+    @DefaultValue("4") int maxAttempts,
+    @DefaultValue("500ms") Duration retryBase,
+    @DefaultValue("20s") Duration retryCap
+) {
+}
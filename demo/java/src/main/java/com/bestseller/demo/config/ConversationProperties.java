@@ -0,0 +1,29 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the multi-turn conversation store.
+ *
+ * @param maxMemory   estimated memory all conversations may take together; the least recently used ones are
+ *                    dropped beyond it
+ * @param idleTimeout conversations without a message for this long are dropped
+ * @param recentTurns number of most recent exchanges kept word for word and sent with each message
+ * @param maxFacts    number of summarized function results kept per conversation from older exchanges
+ * @param factLength  characters a function result is cut to when summarized
+ * @param tokenBudget estimated prompt tokens per message, including the system prompt and the new message
+ */
+@ConfigurationProperties(prefix = "demo.conversations")
+public record ConversationProperties(
+    @DefaultValue("64MB") DataSize maxMemory,
+    @DefaultValue("30m") Duration idleTimeout,
+    @DefaultValue("6") int recentTurns,
+    @DefaultValue("20") int maxFacts,
+    @DefaultValue("160") int factLength,
+    @DefaultValue("2000") int tokenBudget
+) {
+}
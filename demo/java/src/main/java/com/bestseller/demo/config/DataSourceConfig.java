@@ -0,0 +1,39 @@
+package com.bestseller.demo.config;
+
+import com.bestseller.demo.data.ApiDataSource;
+import com.bestseller.demo.data.DemoDataSource;
+import com.bestseller.demo.data.DemoDataStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Chooses where the plugins read their data from.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    /**
+     * Creates the plugins' data source: the BESTSELLER API at {@code demo.data-source.base-url}, or the in-memory
+     * demo data while it is not set.
+     *
+     * @return the data source the plugins and caches use
+     */
+    @Bean
+    @Primary
+    public DemoDataSource demoDataSource(DataSourceProperties properties, DemoDataStore dataStore,
+                                         WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        if (properties.baseUrl().isBlank()) {
+            logger.info("Plugins read the in-memory demo data");
+            return dataStore;
+        }
+        logger.info("Plugins read from the BESTSELLER API at {}", properties.baseUrl());
+        return new ApiDataSource(properties, webClientBuilder, meterRegistry);
+    }
+}
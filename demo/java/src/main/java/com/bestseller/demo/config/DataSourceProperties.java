@@ -0,0 +1,34 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the data the plugins read.
+ *
+ * @param baseUrl        base URL of a BESTSELLER API including {@code /v1}; the in-memory demo data is used while
+ *                       it is empty
+ * @param maxConnections pooled connections to the API
+ * @param maxIdleTime    idle time after which a pooled connection is closed
+ * @param connectTimeout timeout for opening a connection
+ * @param timeout        timeout for a response, including the wait for a pooled connection
+ * @param batchDelay     time an item or stock lookup waits for others to share its request
+ * @param maxBatch       item IDs per request at most; the API accepts 100
+ * @param prefetchTtl    time records prefetched for a chat turn are kept for its function calls
+ * @param staleEntries   records kept to answer from when the API fails or times out
+ */
+@ConfigurationProperties(prefix = "demo.data-source")
+public record DataSourceProperties(
+    @DefaultValue("") String baseUrl,
+    @DefaultValue("50") int maxConnections,
+    @DefaultValue("30s") Duration maxIdleTime,
+    @DefaultValue("1s") Duration connectTimeout,
+    @DefaultValue("2s") Duration timeout,
+    @DefaultValue("2ms") Duration batchDelay,
+    @DefaultValue("100") int maxBatch,
+    @DefaultValue("5s") Duration prefetchTtl,
+    @DefaultValue("10000") int staleEntries
+) {
+}
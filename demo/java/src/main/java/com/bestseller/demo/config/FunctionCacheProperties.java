@@ -0,0 +1,36 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for the result cache in front of the plugin functions.
+ *
+ * @param enabled    whether results are cached at all
+ * @param defaultTtl how long a result is shared between requests when {@code ttl} has no entry for its function
+ * @param ttl        shared lifetime per {@code Plugin.function} or per {@code Plugin}; zero keeps results only
+ *                   for the current chat turn
+ * @param maxEntries upper bound on shared results; new results are not shared while the cache is full
+ */
+@ConfigurationProperties(prefix = "demo.function-cache")
+public record FunctionCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("30s") Duration defaultTtl,
+    @DefaultValue Map<String, Duration> ttl,
+    @DefaultValue("10000") int maxEntries
+) {
+
+    /**
+     * Shared lifetime of results of the given function.
+     */
+    public Duration ttl(String plugin, String function) {
+        Duration ttl = this.ttl.get(plugin + "." + function);
+        if (ttl == null) {
+            ttl = this.ttl.get(plugin);
+        }
+        return ttl != null ? ttl : defaultTtl;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the cache of chat answers in front of the chat completion service.
+ *
+ * @param enabled    whether answers are cached at all
+ * @param similarity estimated Jaccard similarity of the normalized prompts, between 0 and 1, from which a cached
+ *                   answer is reused for a prompt that names the same item IDs and tracking numbers
+ * @param ttl        how long an answer is reused when none of the data it was built from changes
+ * @param maxEntries upper bound on cached answers; new answers are not cached while the cache is full
+ */
+@ConfigurationProperties(prefix = "demo.response-cache")
+public record ResponseCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("0.8") double similarity,
+    @DefaultValue("10m") Duration ttl,
+    @DefaultValue("1000") int maxEntries
+) {
+}
@@ -0,0 +1,35 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for the scripted chat completion service that stands in for Azure OpenAI, e.g. to measure the
+ * application's own overhead offline.
+ *
+ * @param enabled       whether the kernel uses the scripted service instead of Azure OpenAI
+ * @param latency       time one model round trip takes; a message that calls functions takes two
+ * @param tokenInterval time between streamed tokens
+ * @param script        function calls per message pattern; the built-in script for the demo's item IDs and
+ *                      tracking numbers is used while it is empty
+ */
+@ConfigurationProperties(prefix = "demo.scripted-chat")
+public record ScriptedChatProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("800ms") Duration latency,
+    @DefaultValue("20ms") Duration tokenInterval,
+    @DefaultValue List<Step> script
+) {
+
+    /**
+     * Functions called for every match of the pattern in the user's message, in order.
+     *
+     * @param pattern   case-insensitive regular expression; the matched text is the functions' argument
+     * @param functions {@code Plugin.function} names
+     */
+    public record Step(String pattern, List<String> functions) {
+    }
+}
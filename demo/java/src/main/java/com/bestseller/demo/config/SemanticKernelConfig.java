@@ -3,20 +3,30 @@ package com.bestseller.demo.config;
 import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.policy.FixedDelayOptions;
+import com.azure.core.http.policy.RetryOptions;
 import com.bestseller.demo.plugin.ItemPlugin;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
 import com.bestseller.demo.plugin.StockPlugin;
 import com.bestseller.demo.plugin.TrackingPlugin;
+import com.bestseller.demo.resilience.CompletionGuard;
+import com.bestseller.demo.resilience.CompletionGuardPolicy;
+import com.bestseller.demo.service.ScriptedChatCompletionService;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatCompletion;
-import com.microsoft.semantickernel.plugin.KernelPlugin;
 import com.microsoft.semantickernel.plugin.KernelPluginFactory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Configuration class for Microsoft Semantic Kernel.
  * Sets up Azure OpenAI connection and creates the Kernel instance.
@@ -38,52 +48,99 @@ public class SemanticKernelConfig {
     /**
      * Creates a Kernel instance configured with Azure OpenAI and plugins.
      * The Kernel is the central orchestration point for Semantic Kernel operations.
+     * With {@code demo.scripted-chat.enabled} the kernel uses a {@link ScriptedChatCompletionService} instead,
+     * which needs no Azure OpenAI resource and asks for scripted function calls.
+     * Either way the kernel only offers its functions to the model: {@code SemanticKernelService} runs the calls
+     * the model asks for.
+     * Every request to Azure OpenAI goes through the {@link CompletionGuard} unless
+     * {@code demo.completion-guard.enabled} is off.
      *
      * @return configured Kernel instance
      */
     @Bean
-    public Kernel kernel(ItemPlugin itemPlugin, StockPlugin stockPlugin, TrackingPlugin trackingPlugin) {
+    public Kernel kernel(ItemPlugin itemPlugin, StockPlugin stockPlugin, TrackingPlugin trackingPlugin,
+                         KernelFunctionRegistry kernelFunctionRegistry, ScriptedChatProperties scriptedChat,
+                         CompletionGuardProperties guardProperties, CompletionGuard completionGuard) {
+        ChatCompletionService chatCompletionService;
+        if (scriptedChat.enabled()) {
+            logger.info("Initializing Semantic Kernel with the scripted chat completion service");
+            chatCompletionService = new ScriptedChatCompletionService(scriptedChat, kernelFunctionRegistry);
+        } else {
+            chatCompletionService = azureOpenAiChatCompletion(guardProperties.enabled() ? completionGuard : null);
+        }
+
+        // Build the Kernel with the chat completion service and one kernel plugin per plugin bean
+        Kernel.Builder builder = Kernel.builder()
+            .withAIService(ChatCompletionService.class, chatCompletionService);
+        Map<String, Object> plugins = plugins(itemPlugin, stockPlugin, trackingPlugin);
+        plugins.forEach((name, plugin) -> builder.withPlugin(KernelPluginFactory.createFromObject(plugin, name)));
+        Kernel kernel = builder.build();
+
+        logger.info("Semantic Kernel initialized with {} plugins", plugins.size());
+        return kernel;
+    }
+
+    private ChatCompletionService azureOpenAiChatCompletion(CompletionGuard completionGuard) {
         logger.info("Initializing Semantic Kernel with Azure OpenAI");
         logger.info("Endpoint: {}", azureOpenAiEndpoint);
         logger.info("Deployment: {}", deploymentName);
 
-        // Create Azure OpenAI Async Client
-        OpenAIAsyncClient client = new OpenAIClientBuilder()
+        // Create Azure OpenAI Async Client; with the guard, each model request takes a permit and its share of
+        // the quotas, and throttled and failed requests are retried by the guard instead of the client
+        OpenAIClientBuilder clientBuilder = new OpenAIClientBuilder()
             .endpoint(azureOpenAiEndpoint)
-            .credential(new AzureKeyCredential(azureOpenAiApiKey))
-            .buildAsyncClient();
+            .credential(new AzureKeyCredential(azureOpenAiApiKey));
+        if (completionGuard != null) {
+            clientBuilder
+                .retryOptions(new RetryOptions(new FixedDelayOptions(0, Duration.ZERO)))
+                .addPolicy(new CompletionGuardPolicy(completionGuard));
+        }
+        OpenAIAsyncClient client = clientBuilder.buildAsyncClient();
 
         // Create Azure OpenAI Chat Completion service
-        ChatCompletionService chatCompletionService = OpenAIChatCompletion.builder()
+        return OpenAIChatCompletion.builder()
             .withOpenAIAsyncClient(client)
             .withModelId(deploymentName)
             .build();
+    }
 
-        // Create kernel plugins
-        KernelPlugin itemKernelPlugin = KernelPluginFactory.createFromObject(
-            itemPlugin,
-            "ItemPlugin"
-        );
-        
-        KernelPlugin stockKernelPlugin = KernelPluginFactory.createFromObject(
-            stockPlugin,
-            "StockPlugin"
-        );
-        
-        KernelPlugin trackingKernelPlugin = KernelPluginFactory.createFromObject(
-            trackingPlugin,
-            "TrackingPlugin"
-        );
-
-        // Build and return the Kernel with the chat completion service and plugins
-        Kernel kernel = Kernel.builder()
-            .withAIService(ChatCompletionService.class, chatCompletionService)
-            .withPlugin(itemKernelPlugin)
-            .withPlugin(stockKernelPlugin)
-            .withPlugin(trackingKernelPlugin)
-            .build();
-            
-        logger.info("Semantic Kernel initialized with {} plugins", 3);
-        return kernel;
+    /**
+     * Creates the bulkhead, rate limiter and retry in front of the model deployment. It reads status and
+     * {@code Retry-After} from the responses the Azure client receives.
+     *
+     * @return guard for model requests
+     */
+    @Bean
+    public CompletionGuard completionGuard(CompletionGuardProperties properties, MeterRegistry meterRegistry) {
+        logger.info("Model requests: {} concurrent, {} tokens per minute", properties.maxConcurrent(),
+            properties.tokensPerMinute() > 0 ? properties.tokensPerMinute() : "unlimited");
+        return new CompletionGuard(properties, CompletionGuardPolicy::failure, meterRegistry);
+    }
+
+    /**
+     * Creates the dispatch table used for direct function invocation, from the same plugins as the kernel.
+     *
+     * @return registry of the plugins' kernel functions
+     */
+    @Bean
+    public KernelFunctionRegistry kernelFunctionRegistry(ItemPlugin itemPlugin, StockPlugin stockPlugin,
+                                                         TrackingPlugin trackingPlugin) {
+        KernelFunctionRegistry registry = KernelFunctionRegistry.scan(
+            plugins(itemPlugin, stockPlugin, trackingPlugin));
+        logger.info("Registered kernel functions: {}", registry.functions().keySet());
+        return registry;
+    }
+
+    /**
+     * The plugins by the name the kernel and the direct-invoke endpoint know them under.
+     * A new plugin only has to be added here.
+     */
+    private static Map<String, Object> plugins(ItemPlugin itemPlugin, StockPlugin stockPlugin,
+                                               TrackingPlugin trackingPlugin) {
+        Map<String, Object> plugins = new LinkedHashMap<>();
+        plugins.put("ItemPlugin", itemPlugin);
+        plugins.put("StockPlugin", stockPlugin);
+        plugins.put("TrackingPlugin", trackingPlugin);
+        return plugins;
     }
 }
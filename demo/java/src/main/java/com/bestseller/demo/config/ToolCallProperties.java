@@ -0,0 +1,21 @@
+package com.bestseller.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for running the plugin functions the model asks for in one round.
+ *
+ * @param parallel whether the calls of a round run concurrently, each on its own virtual thread, rather than
+ *                 one after another
+ * @param deadline time the function calls of a chat turn may take together, counted from its first call; calls
+ *                 still running then are cancelled and answered with a note that they timed out
+ */
+@ConfigurationProperties(prefix = "demo.tool-calls")
+public record ToolCallProperties(
+    @DefaultValue("true") boolean parallel,
+    @DefaultValue("5s") Duration deadline
+) {
+}
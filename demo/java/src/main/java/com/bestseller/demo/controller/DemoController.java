@@ -1,10 +1,23 @@
 package com.bestseller.demo.controller;
 
+import com.bestseller.demo.model.ChatEvent;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.bestseller.demo.resilience.CompletionRejectedException;
+import com.bestseller.demo.resilience.Priority;
 import com.bestseller.demo.service.SemanticKernelService;
+import com.bestseller.demo.session.ConversationStore;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * REST controller demonstrating Semantic Kernel function calling.
@@ -14,10 +27,17 @@ import java.util.Map;
 @RequestMapping("/api/demo")
 public class DemoController {
 
+    private static final String CONVERSATION_ID_HEADER = "X-Conversation-Id";
+
     private final SemanticKernelService semanticKernelService;
+    private final KernelFunctionRegistry functionRegistry;
+    private final ConversationStore conversationStore;
 
-    public DemoController(SemanticKernelService semanticKernelService) {
+    public DemoController(SemanticKernelService semanticKernelService, KernelFunctionRegistry functionRegistry,
+                          ConversationStore conversationStore) {
         this.semanticKernelService = semanticKernelService;
+        this.functionRegistry = functionRegistry;
+        this.conversationStore = conversationStore;
     }
 
     /**
@@ -51,10 +71,16 @@ public class DemoController {
     /**
      * Demonstrates chat-based interaction with automatic function calling.
      * The AI will automatically call the appropriate kernel functions based on the user's message.
+     * A message continues the conversation given by {@code conversationId}, as started by
+     * {@link #startConversation()}, and the ID is returned with the answer; without one the message is answered on
+     * its own and nothing of it is kept. Requests with {@code "priority": "batch"} wait behind interactive ones
+     * for the model.
      * 
      * Example request body:
      * {
-     *   "message": "Tell me about item-001"
+     *   "message": "Tell me about item-001",
+     *   "conversationId": "optional, from a previous answer",
+     *   "priority": "optional, interactive (default) or batch"
      * }
      *
      * @param request the chat request with user message
@@ -69,11 +95,97 @@ public class DemoController {
             )));
         }
 
-        return semanticKernelService.chat(userMessage)
-            .map(response -> ResponseEntity.ok(Map.of(
-                "userMessage", userMessage,
-                "aiResponse", response
+        Priority priority;
+        try {
+            priority = Priority.parse(request.get("priority"));
+        } catch (IllegalArgumentException e) {
+            return reactor.core.publisher.Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage()
             )));
+        }
+
+        String conversationId = conversationId(request);
+        return semanticKernelService.chat(conversationId, userMessage)
+            .map(response -> {
+                Map<String, String> body = new LinkedHashMap<>();
+                if (conversationId != null) {
+                    body.put("conversationId", conversationId);
+                }
+                body.put("userMessage", userMessage);
+                body.put("aiResponse", response);
+                return ResponseEntity.ok(body);
+            })
+            .contextWrite(Context.of(Priority.KEY, priority));
+    }
+
+    /**
+     * Answers a chat message shed by the {@code CompletionGuard} with 503 and a {@code Retry-After}, so clients
+     * back off instead of reading the rejection as the AI's answer.
+     */
+    @ExceptionHandler(CompletionRejectedException.class)
+    public ResponseEntity<Map<String, String>> rejected(CompletionRejectedException e) {
+        long seconds = Math.max(1, (e.retryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+            .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * Streams the chat answer as server-sent events while the model generates it.
+     * Events are named after their type: {@code function_call} whenever the AI calls a kernel function,
+     * {@code token} for each piece of the answer, then {@code done}, or {@code error} if the answer failed.
+     * With Azure OpenAI the answer is a single {@code token}: only the scripted chat service streams tokens.
+     * Events are written as fast as the client reads them, and the completion is cancelled when the
+     * client disconnects. The conversation and the priority are handled as for {@code /chat}; the ID of a
+     * conversation is returned in the {@code X-Conversation-Id} header.
+     *
+     * Example request body:
+     * {
+     *   "message": "Where is TRK-2025-001?",
+     *   "conversationId": "optional, from a previous answer"
+     * }
+     *
+     * @param request the chat request with user message
+     * @return Flux of server-sent chat events
+     */
+    @PostMapping(path = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<ChatEvent>>> chatStream(@RequestBody Map<String, String> request) {
+        String userMessage = request.get("message");
+        if (userMessage == null || userMessage.isBlank()) {
+            return ResponseEntity.badRequest().body(Flux.just(event(ChatEvent.error("Message is required"))));
+        }
+        Priority priority;
+        try {
+            priority = Priority.parse(request.get("priority"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Flux.just(event(ChatEvent.error(e.getMessage()))));
+        }
+
+        String conversationId = conversationId(request);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (conversationId != null) {
+            response.header(CONVERSATION_ID_HEADER, conversationId);
+        }
+        return response.body(semanticKernelService.chatStream(conversationId, userMessage)
+                .map(DemoController::event)
+                .contextWrite(Context.of(Priority.KEY, priority)));
+    }
+
+    /**
+     * Starts a conversation. Nothing is kept until the first message is sent with the returned ID.
+     */
+    @PostMapping("/chat/conversations")
+    public ResponseEntity<Map<String, String>> startConversation() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("conversationId", UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Ends a conversation and frees what the server kept of it.
+     */
+    @DeleteMapping("/chat/{conversationId}")
+    public ResponseEntity<Void> endConversation(@PathVariable String conversationId) {
+        conversationStore.remove(conversationId);
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -94,26 +206,37 @@ public class DemoController {
     public ResponseEntity<Map<String, Object>> info() {
         return ResponseEntity.ok(Map.of(
             "description", "BESTSELLER Semantic Kernel Demo",
-            "plugins", Map.of(
-                "ItemPlugin", new String[]{
-                    "getItemInfo - Get detailed item information by ID",
-                    "searchItemsByCategory - Search items by category"
-                },
-                "StockPlugin", new String[]{
-                    "getStockInfo - Get stock information by item ID",
-                    "checkAvailability - Check if item is available"
-                },
-                "TrackingPlugin", new String[]{
-                    "getTrackingInfo - Get tracking information by tracking number",
-                    "getDeliveryStatus - Get delivery status by tracking number"
-                }
-            ),
+            "plugins", plugins(),
             "endpoints", Map.of(
                 "invokeFunction", "GET /api/demo/function/{pluginName}/{functionName}?parameter={value}",
-                "chat", "POST /api/demo/chat with body: {\"message\": \"your question\"}",
+                "chat", "POST /api/demo/chat with body: {\"message\": \"your question\"}, "
+                    + "optionally with \"conversationId\" and \"priority\": \"batch\"",
+                "chatStream", "POST /api/demo/chat/stream with the same body, answered as server-sent events",
+                "startConversation", "POST /api/demo/chat/conversations, answered with a conversationId",
+                "endConversation", "DELETE /api/demo/chat/{conversationId}",
                 "health", "GET /api/demo/health",
                 "info", "GET /api/demo/info"
             )
         ));
     }
+
+    /**
+     * The conversation the request continues, or null for a one-off message.
+     */
+    private static String conversationId(Map<String, String> request) {
+        String conversationId = request.get("conversationId");
+        return conversationId == null || conversationId.isBlank() ? null : conversationId;
+    }
+
+    private static ServerSentEvent<ChatEvent> event(ChatEvent event) {
+        return ServerSentEvent.builder(event).event(event.type()).build();
+    }
+
+    private Map<String, String[]> plugins() {
+        Map<String, String[]> plugins = new LinkedHashMap<>();
+        functionRegistry.functions().forEach((plugin, functions) -> plugins.put(plugin, functions.stream()
+            .map(function -> function.name() + " - " + function.description())
+            .toArray(String[]::new)));
+        return plugins;
+    }
 }
@@ -0,0 +1,42 @@
+package com.bestseller.demo.controller;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Returns the trace ID of every request in the {@code X-Trace-Id} header. The same ID is in the log lines of the
+ * request and, as exemplar, on the chat histograms scraped from {@code /actuator/prometheus}, so a slow or
+ * expensive answer a client reports can be found in both.
+ * <p>
+ * Spring Boot's server observation starts the trace before this filter runs; a request with a W3C
+ * {@code traceparent} header continues the caller's trace.
+ */
+@Component
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    public TraceIdFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            response.setHeader(TRACE_ID_HEADER, span.context().traceId());
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,325 @@
+package com.bestseller.demo.data;
+
+import com.bestseller.demo.config.DataSourceProperties;
+import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.model.TrackingInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads items, stock and shipments from a BESTSELLER API with a non-blocking {@link WebClient}.
+ * <p>
+ * Requests share a pool of keep-alive connections. Item and stock lookups are batched: a lookup waits
+ * {@code batch-delay} for others to join it, and the batch is sent as one {@code GET /products?ids=...}, which
+ * answers with both the item and its stock summed over all warehouses. A chat turn {@linkplain #prefetch prefetches}
+ * the items and shipments its message names while the model is still thinking, and the function calls of the
+ * turn find those records loaded for {@code prefetch-ttl}.
+ * <p>
+ * Every request is bounded by {@code timeout}. When a request fails or times out, the last record the API
+ * returned for the key is used instead; without one the lookup fails with {@link DataUnavailableException}.
+ * The API does not report changes, so {@link #onChange} listeners are never called and {@link #reportsChanges} is
+ * false.
+ */
+public class ApiDataSource implements DemoDataSource, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiDataSource.class);
+
+    private static final Pattern ITEM_ID = Pattern.compile("\\bitem-\\d+\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRACKING_NO = Pattern.compile("\\btrk-\\d{4}-\\d+\\b", Pattern.CASE_INSENSITIVE);
+
+    private final DataSourceProperties properties;
+    private final ConnectionProvider connections;
+    private final WebClient webClient;
+    private final Map<String, Loaded<Product>> products = new ConcurrentHashMap<>();
+    private final Map<String, Loaded<TrackingInfo>> shipments = new ConcurrentHashMap<>();
+    private final Map<String, Product> staleProducts = new ConcurrentHashMap<>();
+    private final Map<String, TrackingInfo> staleShipments = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizes;
+    private final Counter staleFallbacks;
+    private final Counter unavailable;
+    private Batch pending;
+
+    public ApiDataSource(DataSourceProperties properties, WebClient.Builder webClient, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.connections = ConnectionProvider.builder("demo-data-source")
+            .maxConnections(properties.maxConnections())
+            .maxIdleTime(properties.maxIdleTime())
+            .evictInBackground(properties.maxIdleTime())
+            .pendingAcquireTimeout(properties.timeout())
+            .build();
+        HttpClient httpClient = HttpClient.create(connections)
+            .keepAlive(true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.connectTimeout().toMillis())
+            .responseTimeout(properties.timeout());
+        this.webClient = webClient
+            .baseUrl(properties.baseUrl())
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+        this.meterRegistry = meterRegistry;
+        this.batchSizes = DistributionSummary.builder("demo.data.source.batch.size")
+            .description("Item IDs per products request")
+            .register(meterRegistry);
+        this.staleFallbacks = fallbacks(meterRegistry, "stale");
+        this.unavailable = fallbacks(meterRegistry, "unavailable");
+    }
+
+    @Override
+    public Mono<ItemInfo> findItem(String itemId) {
+        return product(itemId).map(Product::item);
+    }
+
+    @Override
+    public Mono<StockInfo> findStock(String itemId) {
+        return product(itemId).flatMap(product -> {
+            if (product.stock() != null) {
+                return Mono.just(product.stock());
+            }
+            // The API answered with the item but its stock did not answer in time
+            Product stale = staleProducts.get(itemId);
+            return stale != null && stale.stock() != null
+                ? fallback(stale.stock(), itemId)
+                : unavailable("Stock information", itemId, null);
+        });
+    }
+
+    @Override
+    public Mono<TrackingInfo> findTracking(String trackingNo) {
+        long now = System.nanoTime();
+        Loaded<TrackingInfo> loaded = load(shipments, trackingNo, now, () -> request(trackingNo).cache());
+        return loaded.value().onErrorResume(e -> {
+            shipments.remove(trackingNo, loaded);
+            TrackingInfo stale = staleShipments.get(trackingNo);
+            return stale != null ? fallback(stale, trackingNo) : unavailable("Tracking information", trackingNo, e);
+        });
+    }
+
+    @Override
+    public void prefetch(String message) {
+        for (Matcher matcher = ITEM_ID.matcher(message); matcher.find(); ) {
+            product(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        for (Matcher matcher = TRACKING_NO.matcher(message); matcher.find(); ) {
+            findTracking(matcher.group().toUpperCase(Locale.ROOT)).subscribe(shipment -> { }, error -> { });
+        }
+    }
+
+    /**
+     * Closes the pooled connections.
+     */
+    @Override
+    public void close() {
+        connections.dispose();
+    }
+
+    private Mono<Product> product(String itemId) {
+        long now = System.nanoTime();
+        Loaded<Product> loaded = load(products, itemId, now, () -> join(itemId));
+        return loaded.value().onErrorResume(e -> {
+            products.remove(itemId, loaded);
+            Product stale = staleProducts.get(itemId);
+            return stale != null ? fallback(stale, itemId) : unavailable("Item information", itemId, e);
+        });
+    }
+
+    private <T> Loaded<T> load(Map<String, Loaded<T>> loaded, String key, long now, Supplier<Mono<T>> lookup) {
+        if (loaded.size() >= properties.staleEntries()) {
+            loaded.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        }
+        long expiresAt = now + properties.prefetchTtl().toNanos();
+        return loaded.compute(key, (k, current) ->
+            current != null && current.expiresAt() - now > 0 ? current : new Loaded<>(lookup.get(), expiresAt));
+    }
+
+    /**
+     * Adds the item to the pending batch, starting one if there is none.
+     */
+    private Mono<Product> join(String itemId) {
+        Batch batch;
+        boolean full;
+        synchronized (this) {
+            batch = pending;
+            if (batch == null) {
+                Batch started = new Batch();
+                pending = started;
+                Schedulers.parallel().schedule(() -> send(started), properties.batchDelay().toNanos(),
+                    TimeUnit.NANOSECONDS);
+                batch = started;
+            }
+            batch.itemIds.add(itemId);
+            full = batch.itemIds.size() >= properties.maxBatch();
+        }
+        if (full) {
+            send(batch);
+        }
+        return batch.result.asMono().flatMap(found -> Mono.justOrEmpty(found.get(itemId)));
+    }
+
+    private void send(Batch batch) {
+        List<String> itemIds;
+        synchronized (this) {
+            if (pending == batch) {
+                pending = null;
+            }
+            if (batch.sent) {
+                return;
+            }
+            batch.sent = true;
+            itemIds = new ArrayList<>(batch.itemIds);
+        }
+        batchSizes.record(itemIds.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        webClient.get()
+            .uri(uri -> uri.path("/products").queryParam("ids", String.join(",", itemIds)).build())
+            .retrieve()
+            .bodyToFlux(ProductResponse.class)
+            .collect(Collectors.toMap(ProductResponse::itemId, ProductResponse::toProduct, (a, b) -> a))
+            .timeout(properties.timeout())
+            .subscribe(
+                found -> {
+                    sample.stop(requests("products", "success"));
+                    found.forEach((itemId, product) -> keep(staleProducts, itemId, product));
+                    batch.result.tryEmitValue(found);
+                },
+                error -> {
+                    sample.stop(requests("products", outcome(error)));
+                    logger.warn("Products request for {} failed: {}", itemIds, error.toString());
+                    batch.result.tryEmitError(error);
+                });
+    }
+
+    private Mono<TrackingInfo> request(String trackingNo) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return webClient.get()
+            .uri("/track/{trackingNo}", trackingNo)
+            .retrieve()
+            .bodyToMono(TrackingResponse.class)
+            .map(TrackingResponse::toTrackingInfo)
+            .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+            .timeout(properties.timeout())
+            .doOnSuccess(shipment -> {
+                sample.stop(requests("track", "success"));
+                if (shipment != null) {
+                    keep(staleShipments, trackingNo, shipment);
+                }
+            })
+            .doOnError(error -> {
+                sample.stop(requests("track", outcome(error)));
+                logger.warn("Tracking request for {} failed: {}", trackingNo, error.toString());
+            });
+    }
+
+    private <T> void keep(Map<String, T> stale, String key, T value) {
+        if (stale.size() < properties.staleEntries() || stale.containsKey(key)) {
+            stale.put(key, value);
+        }
+    }
+
+    private <T> Mono<T> fallback(T stale, String key) {
+        logger.info("Answering {} from the last known record", key);
+        staleFallbacks.increment();
+        return Mono.just(stale);
+    }
+
+    private <T> Mono<T> unavailable(String what, String key, Throwable cause) {
+        unavailable.increment();
+        String message = what + " for " + key + " is temporarily unavailable, please try again shortly";
+        return Mono.error(new DataUnavailableException(message, cause));
+    }
+
+    private Timer requests(String endpoint, String outcome) {
+        return Timer.builder("demo.data.source.requests")
+            .description("Requests to the BESTSELLER API")
+            .tag("endpoint", endpoint)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static String outcome(Throwable error) {
+        return error instanceof TimeoutException ? "timeout" : "error";
+    }
+
+    private static Counter fallbacks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("demo.data.source.fallbacks")
+            .description("Lookups the API did not answer, by what was answered instead")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Item IDs waiting to be sent together, and the products the API returned for them.
+     */
+    private static final class Batch {
+
+        private final Set<String> itemIds = new LinkedHashSet<>();
+        private final Sinks.One<Map<String, Product>> result = Sinks.one();
+        private boolean sent;
+    }
+
+    private record Loaded<T>(Mono<T> value, long expiresAt) {
+    }
+
+    /**
+     * An item with its stock; the stock is null when it did not answer in time.
+     */
+    private record Product(ItemInfo item, StockInfo stock) {
+    }
+
+    private record ProductResponse(String itemId, ItemResponse item, StockResponse stock) {
+
+        Product toProduct() {
+            StockInfo stockInfo = stock == null ? null : new StockInfo(itemId, stock.inStock(), stock.quantity(),
+                stock.warehouses() == null ? "" : stock.warehouses().stream()
+                    .map(WarehouseResponse::warehouse)
+                    .collect(Collectors.joining(", ")));
+            return new Product(
+                new ItemInfo(itemId, item.name(), item.price(), item.description(), item.category()), stockInfo);
+        }
+    }
+
+    private record ItemResponse(String name, BigDecimal price, String description, String category) {
+    }
+
+    private record StockResponse(boolean inStock, int quantity, List<WarehouseResponse> warehouses) {
+    }
+
+    private record WarehouseResponse(String warehouse) {
+    }
+
+    private record TrackingResponse(String trackingNo, String status, String currentLocation,
+                                    String estimatedDelivery) {
+
+        TrackingInfo toTrackingInfo() {
+            return new TrackingInfo(trackingNo, status, currentLocation, estimatedDelivery);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bestseller.demo.data;
+
+/**
+ * A data source could not answer a lookup in time and had no earlier answer to fall back on. The message is
+ * phrased for the model, which passes it on to the user.
+ */
+public class DataUnavailableException extends RuntimeException {
+
+    public DataUnavailableException(String message) {
+        super(message);
+    }
+
+    public DataUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,90 @@
+package com.bestseller.demo.data;
+
+import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.model.TrackingInfo;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Where the plugins read items, stock and shipments from: the in-memory {@link DemoDataStore}, or
+ * {@link ApiDataSource} when {@code demo.data-source.base-url} points at a BESTSELLER API.
+ * <p>
+ * Lookups are asynchronous and complete empty when the record does not exist. They fail with
+ * {@link DataUnavailableException} when the source cannot answer and has no earlier answer to fall back on.
+ */
+public interface DemoDataSource {
+
+    Mono<ItemInfo> findItem(String itemId);
+
+    Mono<StockInfo> findStock(String itemId);
+
+    Mono<TrackingInfo> findTracking(String trackingNo);
+
+    /**
+     * Starts loading the items, stock and shipments a chat message names, so the functions the model calls while
+     * answering it find them loaded. Sources whose lookups are immediate ignore this.
+     */
+    default void prefetch(String message) {
+    }
+
+    /**
+     * Registers a listener that is called after every change of a record, on the thread that made it. Sources
+     * that cannot tell when their records change never call it.
+     */
+    default void onChange(Consumer<DemoDataStore.Change> listener) {
+    }
+
+    /**
+     * Whether {@link #onChange} listeners hear of every change, so that answers built from the records can be
+     * kept until one of them changes.
+     */
+    default boolean reportsChanges() {
+        return false;
+    }
+
+    /**
+     * Waits for a lookup from a plugin function, which returns its answer synchronously. The tool call threads
+     * may wait, bounded by the source's timeout; usually the lookup is already complete because the turn
+     * prefetched it. A non-blocking thread, such as an event loop, never waits: it only gets a lookup that
+     * completes right away.
+     *
+     * @throws DataUnavailableException if the source cannot answer, or not without blocking a non-blocking thread
+     */
+    static <T> Optional<T> await(Mono<T> lookup) {
+        CompletableFuture<T> result = lookup.toFuture();
+        if (!result.isDone() && Schedulers.isInNonBlockingThread()) {
+            result.cancel(false);
+            throw new DataUnavailableException("The data is still loading, please ask again in a moment");
+        }
+        try {
+            return Optional.ofNullable(result.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DataUnavailableException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataUnavailableException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Runs a plugin function and answers with the reason instead when the data it needs is unavailable. The
+     * function result cache only sees the exception, so the reason is not cached.
+     */
+    static String unlessUnavailable(Supplier<String> function) {
+        try {
+            return function.get();
+        } catch (DataUnavailableException e) {
+            return e.getMessage();
+        }
+    }
+}
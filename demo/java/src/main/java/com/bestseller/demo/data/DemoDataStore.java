@@ -3,23 +3,31 @@ package com.bestseller.demo.data;
 import com.bestseller.demo.model.ItemInfo;
 import com.bestseller.demo.model.StockInfo;
 import com.bestseller.demo.model.TrackingInfo;
+import com.bestseller.demo.profiling.KernelFunctionCalls;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Static data store for demo purposes.
  * In a real application, this would be replaced with database access.
+ * It is the plugins' data source unless {@code demo.data-source.base-url} is set; its lookups complete
+ * immediately.
  */
 @Component
-public class DemoDataStore {
+public class DemoDataStore implements DemoDataSource {
 
-    private final Map<String, ItemInfo> items = new HashMap<>();
-    private final Map<String, StockInfo> stockInfo = new HashMap<>();
-    private final Map<String, TrackingInfo> trackingInfo = new HashMap<>();
+    private final Map<String, ItemInfo> items = new ConcurrentHashMap<>();
+    private final Map<String, StockInfo> stockInfo = new ConcurrentHashMap<>();
+    private final Map<String, TrackingInfo> trackingInfo = new ConcurrentHashMap<>();
+    private final List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
 
     public DemoDataStore() {
         initializeData();
@@ -70,14 +78,71 @@ public class DemoDataStore {
     }
 
     public Optional<ItemInfo> findItemById(String itemId) {
-        return Optional.ofNullable(items.get(itemId));
+        return KernelFunctionCalls.data(() -> Optional.ofNullable(items.get(itemId)));
     }
 
     public Optional<StockInfo> findStockByItemId(String itemId) {
-        return Optional.ofNullable(stockInfo.get(itemId));
+        return KernelFunctionCalls.data(() -> Optional.ofNullable(stockInfo.get(itemId)));
     }
 
     public Optional<TrackingInfo> findTrackingByNumber(String trackingNo) {
-        return Optional.ofNullable(trackingInfo.get(trackingNo));
+        return KernelFunctionCalls.data(() -> Optional.ofNullable(trackingInfo.get(trackingNo)));
+    }
+
+    @Override
+    public Mono<ItemInfo> findItem(String itemId) {
+        return Mono.justOrEmpty(items.get(itemId));
+    }
+
+    @Override
+    public Mono<StockInfo> findStock(String itemId) {
+        return Mono.justOrEmpty(stockInfo.get(itemId));
+    }
+
+    @Override
+    public Mono<TrackingInfo> findTracking(String trackingNo) {
+        return Mono.justOrEmpty(trackingInfo.get(trackingNo));
+    }
+
+    public void saveItem(ItemInfo item) {
+        items.put(item.itemId(), item);
+        publish(new Change(Kind.ITEM, item.itemId()));
+    }
+
+    public void saveStock(StockInfo stock) {
+        stockInfo.put(stock.itemId(), stock);
+        publish(new Change(Kind.STOCK, stock.itemId()));
+    }
+
+    public void saveTracking(TrackingInfo tracking) {
+        trackingInfo.put(tracking.trackingNo(), tracking);
+        publish(new Change(Kind.TRACKING, tracking.trackingNo()));
+    }
+
+    @Override
+    public void onChange(Consumer<Change> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean reportsChanges() {
+        return true;
+    }
+
+    private void publish(Change change) {
+        listeners.forEach(listener -> listener.accept(change));
+    }
+
+    public enum Kind {
+        ITEM, STOCK, TRACKING
+    }
+
+    /**
+     * A record of the given kind was created or replaced.
+     *
+     * @param kind the kind of record
+     * @param key  the item ID or tracking number
+     */
+    public record Change(Kind kind, String key) {
     }
 }
@@ -0,0 +1,38 @@
+package com.bestseller.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One event of a streamed chat answer; {@code type} is also the server-sent event name.
+ * <ul>
+ *   <li>{@code function_call}: the model called {@code plugin.function(argument)}</li>
+ *   <li>{@code token}: the next piece of the answer in {@code text}</li>
+ *   <li>{@code done}: the answer is complete</li>
+ *   <li>{@code error}: the answer failed; {@code text} holds the reason</li>
+ * </ul>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatEvent(
+    String type,
+    String text,
+    String plugin,
+    String function,
+    String argument
+) {
+
+    public static ChatEvent functionCall(String plugin, String function, String argument) {
+        return new ChatEvent("function_call", null, plugin, function, argument);
+    }
+
+    public static ChatEvent token(String text) {
+        return new ChatEvent("token", text, null, null, null);
+    }
+
+    public static ChatEvent done() {
+        return new ChatEvent("done", null, null, null, null);
+    }
+
+    public static ChatEvent error(String message) {
+        return new ChatEvent("error", message, null, null, null);
+    }
+}
@@ -1,11 +1,16 @@
 package com.bestseller.demo.plugin;
 
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.data.DemoDataSource;
 import com.bestseller.demo.data.DemoDataStore;
 import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.profiling.KernelFunctionCalls;
 import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Semantic Kernel plugin for item information retrieval.
  * This plugin provides functions that can be called by the kernel to get item details.
@@ -13,10 +18,17 @@ import org.springframework.stereotype.Component;
 @Component
 public class ItemPlugin {
 
-    private final DemoDataStore dataStore;
+    private final DemoDataSource dataSource;
+    private final FunctionResultCache cache;
 
-    public ItemPlugin(DemoDataStore dataStore) {
-        this.dataStore = dataStore;
+    public ItemPlugin(DemoDataSource dataSource, FunctionResultCache cache) {
+        this.dataSource = dataSource;
+        this.cache = cache;
+        dataSource.onChange(change -> {
+            if (change.kind() == DemoDataStore.Kind.ITEM) {
+                cache.invalidate("ItemPlugin", change.key());
+            }
+        });
     }
 
     /**
@@ -35,21 +47,22 @@ public class ItemPlugin {
             description = "The unique identifier for the item (e.g., 'item-001')"
         ) String itemId
     ) {
-        return dataStore.findItemById(itemId)
-            .map(item -> String.format("""
-                Item ID: %s
-                Name: %s
-                Price: $%.2f
-                Category: %s
-                Description: %s
-                """.stripTrailing(),
-                item.itemId(),
-                item.name(),
-                item.price(),
-                item.category(),
-                item.description()
-            ))
-            .orElse("Item not found with ID: " + itemId);
+        return KernelFunctionCalls.record("ItemPlugin", "getItemInfo", itemId, () -> DemoDataSource.unlessUnavailable(
+            () -> cache.get("ItemPlugin", "getItemInfo", itemId, () -> findItem(itemId)
+                    .map(item -> String.format("""
+                        Item ID: %s
+                        Name: %s
+                        Price: $%.2f
+                        Category: %s
+                        Description: %s
+                        """.stripTrailing(),
+                        item.itemId(),
+                        item.name(),
+                        item.price(),
+                        item.category(),
+                        item.description()
+                    ))
+                    .orElse("Item not found with ID: " + itemId))));
     }
 
     /**
@@ -68,13 +81,20 @@ public class ItemPlugin {
             description = "The category to search for (e.g., 'Apparel', 'Footwear')"
         ) String category
     ) {
-        // In this simple demo, we'll just return info about known categories
-        if (category.equalsIgnoreCase("Apparel")) {
-            return "Found items in Apparel category: Classic T-Shirt (item-001), Denim Jeans (item-002)";
-        } else if (category.equalsIgnoreCase("Footwear")) {
-            return "Found items in Footwear category: Running Shoes (item-003)";
-        } else {
-            return "No items found in category: " + category;
-        }
+        return KernelFunctionCalls.record("ItemPlugin", "searchItemsByCategory", category,
+            () -> cache.get("ItemPlugin", "searchItemsByCategory", category, () -> {
+                // In this simple demo, we'll just return info about known categories
+                if (category.equalsIgnoreCase("Apparel")) {
+                    return "Found items in Apparel category: Classic T-Shirt (item-001), Denim Jeans (item-002)";
+                } else if (category.equalsIgnoreCase("Footwear")) {
+                    return "Found items in Footwear category: Running Shoes (item-003)";
+                } else {
+                    return "No items found in category: " + category;
+                }
+            }));
+    }
+
+    private Optional<ItemInfo> findItem(String itemId) {
+        return KernelFunctionCalls.data(() -> DemoDataSource.await(dataSource.findItem(itemId)));
     }
 }
@@ -0,0 +1,263 @@
+package com.bestseller.demo.plugin;
+
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Dispatch table for the {@code @DefineKernelFunction} methods of the plugin beans.
+ * <p>
+ * The plugins are scanned once: every kernel function becomes a {@link MethodHandle} bound to its plugin
+ * instance (spread over an argument array when it takes several parameters), together with a converter per
+ * parameter from the string value a caller supplies to the declared parameter type. The functions are kept in a
+ * map keyed by the lower-cased plugin and function name, so a dispatch costs one lookup, the conversions and
+ * the call itself, with no reflection.
+ */
+public final class KernelFunctionRegistry {
+
+    private final Map<String, BoundFunction> functions;
+    private final Set<String> plugins;
+
+    private KernelFunctionRegistry(Map<String, BoundFunction> functions, Set<String> plugins) {
+        this.functions = functions;
+        this.plugins = plugins;
+    }
+
+    /**
+     * Builds the table from plugin instances keyed by plugin name.
+     *
+     * @throws IllegalArgumentException if a function cannot be bound, e.g. because a parameter has an
+     *                                  unsupported type or two functions share a name
+     */
+    public static KernelFunctionRegistry scan(Map<String, Object> plugins) {
+        Map<String, BoundFunction> functions = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        plugins.forEach((pluginName, plugin) -> {
+            names.add(normalize(pluginName));
+            for (Method method : plugin.getClass().getMethods()) {
+                DefineKernelFunction definition = method.getAnnotation(DefineKernelFunction.class);
+                if (definition == null || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String functionName = definition.name().isEmpty() ? method.getName() : definition.name();
+                BoundFunction function = bind(pluginName, functionName, definition.description(), plugin, method);
+                if (functions.putIfAbsent(key(pluginName, functionName), function) != null) {
+                    throw new IllegalArgumentException("Duplicate kernel function " + pluginName + "." + functionName);
+                }
+            }
+        });
+        return new KernelFunctionRegistry(Map.copyOf(functions), Set.copyOf(names));
+    }
+
+    /**
+     * Returns the function, or null when the plugin or the function is unknown.
+     */
+    public BoundFunction find(String pluginName, String functionName) {
+        return functions.get(key(pluginName, functionName));
+    }
+
+    public boolean hasPlugin(String pluginName) {
+        return plugins.contains(normalize(pluginName));
+    }
+
+    /**
+     * All registered functions, grouped by plugin in name order.
+     */
+    public Map<String, List<BoundFunction>> functions() {
+        Map<String, List<BoundFunction>> byPlugin = new LinkedHashMap<>();
+        functions.values().stream()
+            .sorted((a, b) -> key(a.plugin(), a.name()).compareTo(key(b.plugin(), b.name())))
+            .forEach(function -> byPlugin.computeIfAbsent(function.plugin(), p -> new ArrayList<>()).add(function));
+        return Collections.unmodifiableMap(byPlugin);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BoundFunction bind(String pluginName, String functionName, String description, Object plugin,
+                                      Method method) {
+        Parameter[] parameters = method.getParameters();
+        List<String> parameterNames = new ArrayList<>(parameters.length);
+        List<Function<String, Object>> converters = new ArrayList<>(parameters.length);
+        for (Parameter parameter : parameters) {
+            KernelFunctionParameter annotation = parameter.getAnnotation(KernelFunctionParameter.class);
+            parameterNames.add(annotation != null ? annotation.name() : parameter.getName());
+            converters.add(converter(parameter.getType(), pluginName + "." + functionName));
+        }
+        MethodHandle handle;
+        try {
+            // (Object)Object for the common single-parameter case, (Object[])Object otherwise
+            handle = MethodHandles.lookup().unreflect(method)
+                .bindTo(plugin)
+                .asType(MethodType.genericMethodType(parameters.length));
+            if (parameters.length != 1) {
+                handle = handle.asSpreader(Object[].class, parameters.length);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot bind kernel function " + pluginName + "." + functionName, e);
+        }
+        return new BoundFunction(pluginName, functionName, description, List.copyOf(parameterNames),
+            converters.toArray(Function[]::new), handle);
+    }
+
+    private static Function<String, Object> converter(Class<?> type, String function) {
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer::valueOf;
+        }
+        if (type == long.class || type == Long.class) {
+            return Long::valueOf;
+        }
+        if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean::valueOf;
+        }
+        if (type.isEnum()) {
+            Map<String, Object> constants = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(normalize(((Enum<?>) constant).name()), constant);
+            }
+            return value -> {
+                Object constant = constants.get(normalize(value));
+                if (constant == null) {
+                    throw new IllegalArgumentException("'" + value + "' is not one of " + constants.keySet());
+                }
+                return constant;
+            };
+        }
+        throw new IllegalArgumentException("Unsupported parameter type " + type.getName() + " in " + function);
+    }
+
+    private static String key(String pluginName, String functionName) {
+        return normalize(pluginName) + '.' + normalize(functionName);
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A kernel function bound to its plugin instance.
+     */
+    public static final class BoundFunction {
+
+        private final String plugin;
+        private final String name;
+        private final String description;
+        private final List<String> parameters;
+        private final Function<String, Object>[] converters;
+        private final MethodHandle handle;
+
+        private BoundFunction(String plugin, String name, String description, List<String> parameters,
+                              Function<String, Object>[] converters, MethodHandle handle) {
+            this.plugin = plugin;
+            this.name = name;
+            this.description = description;
+            this.parameters = parameters;
+            this.converters = converters;
+            this.handle = handle;
+        }
+
+        public String plugin() {
+            return plugin;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String description() {
+            return description;
+        }
+
+        public List<String> parameters() {
+            return parameters;
+        }
+
+        /**
+         * Invokes the function with its arguments in declaration order.
+         *
+         * @throws IllegalArgumentException if the number of arguments is wrong or one cannot be converted
+         */
+        public String invoke(String... arguments) {
+            if (arguments.length == 1 && converters.length == 1) {
+                return invoke(arguments[0]);
+            }
+            if (arguments.length != converters.length) {
+                throw new IllegalArgumentException(plugin + "." + name + " expects " + converters.length
+                    + " argument(s) " + parameters + " but got " + arguments.length);
+            }
+            Object[] values = new Object[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                try {
+                    values[i] = converters[i].apply(arguments[i]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid value for " + parameters.get(i) + ": "
+                        + e.getMessage(), e);
+                }
+            }
+            try {
+                return result((Object) handle.invokeExact(values));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Invokes a single-parameter function.
+         */
+        public String invoke(String argument) {
+            if (converters.length != 1) {
+                return invoke(new String[] {argument});
+            }
+            Object value;
+            try {
+                value = converters[0].apply(argument);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value for " + parameters.get(0) + ": " + e.getMessage(), e);
+            }
+            try {
+                return result((Object) handle.invokeExact(value));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Invokes the function with arguments given by parameter name; missing arguments are passed as null.
+         */
+        public String invoke(Map<String, String> arguments) {
+            String[] ordered = new String[parameters.size()];
+            for (int i = 0; i < ordered.length; i++) {
+                ordered[i] = arguments.get(parameters.get(i));
+            }
+            return invoke(ordered);
+        }
+
+        private static String result(Object result) {
+            return result == null ? null : result.toString();
+        }
+    }
+}
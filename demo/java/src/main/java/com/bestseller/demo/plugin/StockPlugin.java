@@ -1,11 +1,16 @@
 package com.bestseller.demo.plugin;
 
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.data.DemoDataSource;
 import com.bestseller.demo.data.DemoDataStore;
 import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.profiling.KernelFunctionCalls;
 import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Semantic Kernel plugin for stock information retrieval.
  * This plugin provides functions that can be called by the kernel to get stock details.
@@ -13,10 +18,17 @@ import org.springframework.stereotype.Component;
 @Component
 public class StockPlugin {
 
-    private final DemoDataStore dataStore;
+    private final DemoDataSource dataSource;
+    private final FunctionResultCache cache;
 
-    public StockPlugin(DemoDataStore dataStore) {
-        this.dataStore = dataStore;
+    public StockPlugin(DemoDataSource dataSource, FunctionResultCache cache) {
+        this.dataSource = dataSource;
+        this.cache = cache;
+        dataSource.onChange(change -> {
+            if (change.kind() == DemoDataStore.Kind.STOCK) {
+                cache.invalidate("StockPlugin", change.key());
+            }
+        });
     }
 
     /**
@@ -35,15 +47,16 @@ public class StockPlugin {
             description = "The unique identifier for the item (e.g., 'item-001')"
         ) String itemId
     ) {
-        return dataStore.findStockByItemId(itemId)
-            .map(stock -> String.format(
-                "Item ID: %s, In Stock: %s, Quantity: %d, Warehouse: %s",
-                stock.itemId(),
-                stock.inStock() ? "Yes" : "No",
-                stock.quantity(),
-                stock.warehouse()
-            ))
-            .orElse("Stock information not found for item ID: " + itemId);
+        return KernelFunctionCalls.record("StockPlugin", "getStockInfo", itemId, () -> DemoDataSource.unlessUnavailable(
+            () -> cache.get("StockPlugin", "getStockInfo", itemId, () -> findStock(itemId)
+                    .map(stock -> String.format(
+                        "Item ID: %s, In Stock: %s, Quantity: %d, Warehouse: %s",
+                        stock.itemId(),
+                        stock.inStock() ? "Yes" : "No",
+                        stock.quantity(),
+                        stock.warehouse()
+                    ))
+                    .orElse("Stock information not found for item ID: " + itemId))));
     }
 
     /**
@@ -62,10 +75,16 @@ public class StockPlugin {
             description = "The unique identifier for the item (e.g., 'item-001')"
         ) String itemId
     ) {
-        return dataStore.findStockByItemId(itemId)
-            .map(stock -> stock.inStock()
-                ? String.format("Yes, %s is available with %d units in stock", itemId, stock.quantity())
-                : String.format("No, %s is currently out of stock", itemId))
-            .orElse("Cannot check availability - item not found: " + itemId);
+        return KernelFunctionCalls.record("StockPlugin", "checkAvailability", itemId,
+            () -> DemoDataSource.unlessUnavailable(() -> cache.get("StockPlugin", "checkAvailability", itemId,
+                () -> findStock(itemId)
+                    .map(stock -> stock.inStock()
+                        ? String.format("Yes, %s is available with %d units in stock", itemId, stock.quantity())
+                        : String.format("No, %s is currently out of stock", itemId))
+                    .orElse("Cannot check availability - item not found: " + itemId))));
+    }
+
+    private Optional<StockInfo> findStock(String itemId) {
+        return KernelFunctionCalls.data(() -> DemoDataSource.await(dataSource.findStock(itemId)));
     }
 }
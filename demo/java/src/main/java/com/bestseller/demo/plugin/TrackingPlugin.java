@@ -1,11 +1,16 @@
 package com.bestseller.demo.plugin;
 
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.data.DemoDataSource;
 import com.bestseller.demo.data.DemoDataStore;
 import com.bestseller.demo.model.TrackingInfo;
+import com.bestseller.demo.profiling.KernelFunctionCalls;
 import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Semantic Kernel plugin for tracking information retrieval.
  * This plugin provides functions that can be called by the kernel to get shipment tracking details.
@@ -13,10 +18,17 @@ import org.springframework.stereotype.Component;
 @Component
 public class TrackingPlugin {
 
-    private final DemoDataStore dataStore;
+    private final DemoDataSource dataSource;
+    private final FunctionResultCache cache;
 
-    public TrackingPlugin(DemoDataStore dataStore) {
-        this.dataStore = dataStore;
+    public TrackingPlugin(DemoDataSource dataSource, FunctionResultCache cache) {
+        this.dataSource = dataSource;
+        this.cache = cache;
+        dataSource.onChange(change -> {
+            if (change.kind() == DemoDataStore.Kind.TRACKING) {
+                cache.invalidate("TrackingPlugin", change.key());
+            }
+        });
     }
 
     /**
@@ -35,15 +47,17 @@ public class TrackingPlugin {
             description = "The tracking number for the shipment (e.g., 'TRK-2025-001')"
         ) String trackingNo
     ) {
-        return dataStore.findTrackingByNumber(trackingNo)
-            .map(tracking -> String.format(
-                "Tracking Number: %s, Status: %s, Current Location: %s, Estimated Delivery: %s",
-                tracking.trackingNo(),
-                tracking.status(),
-                tracking.currentLocation(),
-                tracking.estimatedDelivery()
-            ))
-            .orElse("Tracking information not found for tracking number: " + trackingNo);
+        return KernelFunctionCalls.record("TrackingPlugin", "getTrackingInfo", trackingNo,
+            () -> DemoDataSource.unlessUnavailable(() -> cache.get("TrackingPlugin", "getTrackingInfo", trackingNo,
+                () -> findTracking(trackingNo)
+                    .map(tracking -> String.format(
+                        "Tracking Number: %s, Status: %s, Current Location: %s, Estimated Delivery: %s",
+                        tracking.trackingNo(),
+                        tracking.status(),
+                        tracking.currentLocation(),
+                        tracking.estimatedDelivery()
+                    ))
+                    .orElse("Tracking information not found for tracking number: " + trackingNo))));
     }
 
     /**
@@ -62,18 +76,24 @@ public class TrackingPlugin {
             description = "The tracking number for the shipment (e.g., 'TRK-2025-001')"
         ) String trackingNo
     ) {
-        return dataStore.findTrackingByNumber(trackingNo)
-            .map(tracking -> {
-                if (tracking.status().equalsIgnoreCase("Delivered")) {
-                    return String.format("Your package has been delivered to: %s", tracking.currentLocation());
-                } else {
-                    return String.format("Your package is %s. Current location: %s. Expected delivery: %s",
-                        tracking.status(),
-                        tracking.currentLocation(),
-                        tracking.estimatedDelivery()
-                    );
-                }
-            })
-            .orElse("Cannot get delivery status - tracking number not found: " + trackingNo);
+        return KernelFunctionCalls.record("TrackingPlugin", "getDeliveryStatus", trackingNo,
+            () -> DemoDataSource.unlessUnavailable(() -> cache.get("TrackingPlugin", "getDeliveryStatus", trackingNo,
+                () -> findTracking(trackingNo)
+                    .map(tracking -> {
+                        if (tracking.status().equalsIgnoreCase("Delivered")) {
+                            return String.format("Your package has been delivered to: %s", tracking.currentLocation());
+                        } else {
+                            return String.format("Your package is %s. Current location: %s. Expected delivery: %s",
+                                tracking.status(),
+                                tracking.currentLocation(),
+                                tracking.estimatedDelivery()
+                            );
+                        }
+                    })
+                    .orElse("Cannot get delivery status - tracking number not found: " + trackingNo))));
+    }
+
+    private Optional<TrackingInfo> findTracking(String trackingNo) {
+        return KernelFunctionCalls.data(() -> DemoDataSource.await(dataSource.findTracking(trackingNo)));
     }
 }
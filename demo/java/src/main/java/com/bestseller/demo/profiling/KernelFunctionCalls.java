@@ -0,0 +1,99 @@
+package com.bestseller.demo.profiling;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records {@link KernelFunctionEvent}s and the {@code demo.kernel.function{plugin,function,outcome}} timer around
+ * plugin functions. The plugins are not Spring-aware, so the timer goes to the global registry, which Spring Boot
+ * adds its registries to.
+ * <p>
+ * Plugin functions run synchronously on the calling thread, so the data store time of the current
+ * invocation is collected in a thread local: lookups wrapped in {@link #data} add to the innermost
+ * {@link #record} on the same thread. Without an active recording both wrappers just run the call.
+ */
+public final class KernelFunctionCalls {
+
+    private static final ThreadLocal<DataTime> CURRENT = new ThreadLocal<>();
+
+    private static final Meter.MeterProvider<Timer> CALLS = Timer.builder("demo.kernel.function")
+        .description("Plugin function calls, whether by the model or through the demo API")
+        .publishPercentileHistogram()
+        .withRegistry(Metrics.globalRegistry);
+
+    private KernelFunctionCalls() {
+    }
+
+    public static String record(String plugin, String function, String resourceKey, Supplier<String> call) {
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            String result = event(plugin, function, resourceKey, call);
+            outcome = "success";
+            return result;
+        } finally {
+            CALLS.withTags("plugin", plugin, "function", function, "outcome", outcome)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String event(String plugin, String function, String resourceKey, Supplier<String> call) {
+        KernelFunctionEvent event = new KernelFunctionEvent();
+        if (!event.isEnabled()) {
+            return call.get();
+        }
+        DataTime outer = CURRENT.get();
+        DataTime data = new DataTime();
+        CURRENT.set(data);
+        String outcome = "error";
+        event.begin();
+        try {
+            String result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            event.error = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+            if (event.shouldCommit()) {
+                event.plugin = plugin;
+                event.function = function;
+                event.resourceKey = resourceKey;
+                event.dataTime = data.nanos;
+                event.dataCalls = data.calls;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    public static <T> T data(Supplier<T> lookup) {
+        DataTime data = CURRENT.get();
+        if (data == null) {
+            return lookup.get();
+        }
+        long started = System.nanoTime();
+        try {
+            return lookup.get();
+        } finally {
+            data.nanos += System.nanoTime() - started;
+            data.calls++;
+        }
+    }
+
+    private static final class DataTime {
+
+        private long nanos;
+        private int calls;
+    }
+}
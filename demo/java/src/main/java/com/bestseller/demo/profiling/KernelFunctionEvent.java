@@ -0,0 +1,47 @@
+package com.bestseller.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event spanning one kernel function invocation, whether called by the model or through the demo API.
+ */
+@Name(KernelFunctionEvent.NAME)
+@Label("Kernel Function")
+@Category({"BESTSELLER", "Semantic Kernel"})
+@Description("An invocation of an ItemPlugin, StockPlugin or TrackingPlugin function")
+@StackTrace(false)
+class KernelFunctionEvent extends Event {
+
+    static final String NAME = "com.bestseller.demo.KernelFunction";
+
+    @Label("Plugin")
+    String plugin;
+
+    @Label("Function")
+    String function;
+
+    @Label("Resource Key")
+    @Description("Item ID, category or tracking number the function was called with")
+    String resourceKey;
+
+    @Label("Data Time")
+    @Description("Time spent in data store lookups")
+    @Timespan(Timespan.NANOSECONDS)
+    long dataTime;
+
+    @Label("Data Calls")
+    int dataCalls;
+
+    @Label("Outcome")
+    @Description("success or error")
+    String outcome;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,317 @@
+package com.bestseller.demo.resilience;
+
+import com.bestseller.demo.config.CompletionGuardProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Protects the model deployment, and the application, from bursts of chat traffic. The Azure client sends each
+ * of its HTTP requests through it with a {@link CompletionGuardPolicy}.
+ * <ul>
+ *   <li>Bulkhead: at most {@code max-concurrent} requests are in flight. Others wait in their {@link Priority}
+ *       lane, interactive ones always ahead of batch ones; a request is rejected with
+ *       {@link CompletionRejectedException} when its lane is full or it waited longer than the lane allows, so
+ *       a burst is shed quickly instead of piling up.</li>
+ *   <li>Rate limit: a request that got a permit waits until the tokens-per-minute and requests-per-minute
+ *       quotas of the deployment have room for it. The buckets allow ten seconds' worth at once, the window
+ *       Azure OpenAI evaluates its quotas over.</li>
+ *   <li>Retry: throttled (429), timed out and failed (5xx, I/O errors) requests are retried after a pause with
+ *       decorrelated jitter, and no earlier than the service's {@code Retry-After}; after a 429 every other
+ *       request waits for it as well. Each attempt queues for a permit again.</li>
+ * </ul>
+ * Meters: {@code demo.completion.queue{lane}} and {@code demo.completion.in.flight},
+ * {@code demo.completion.shed{lane,reason}}, {@code demo.completion.retries{status}} and
+ * {@code demo.completion.wait{lane}}, the time from queueing to sending.
+ */
+public class CompletionGuard {
+
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final Set<Integer> RETRYABLE = Set.of(408, 429, 500, 502, 503, 504);
+
+    private final CompletionGuardProperties properties;
+    private final Function<Throwable, Failure> classifier;
+    private final TokenBucket tokens;
+    private final TokenBucket requests;
+    private final AtomicLong pausedUntil = new AtomicLong(System.nanoTime());
+    private final Object lock = new Object();
+    private final Map<Priority, Deque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private int inFlight;
+    private final MeterRegistry meterRegistry;
+    private final Map<Priority, Timer> waits = new EnumMap<>(Priority.class);
+
+    /**
+     * @param classifier tells the HTTP status and {@code Retry-After} of an error of the guarded client, or
+     *                   returns null for errors that are not HTTP responses
+     */
+    public CompletionGuard(CompletionGuardProperties properties, Function<Throwable, Failure> classifier,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.classifier = classifier;
+        this.meterRegistry = meterRegistry;
+        long now = System.nanoTime();
+        int requestsPerMinute = properties.requestsPerMinute() > 0
+            ? properties.requestsPerMinute() : properties.tokensPerMinute() * 6 / 1000;
+        this.tokens = properties.tokensPerMinute() > 0
+            ? new TokenBucket(properties.tokensPerMinute(), BURST_NANOS, now) : null;
+        this.requests = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute, BURST_NANOS, now) : null;
+
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            Gauge.builder("demo.completion.queue", this, guard -> guard.queued(priority))
+                .description("Model requests waiting for a permit")
+                .tag("lane", priority.tag())
+                .register(meterRegistry);
+            waits.put(priority, Timer.builder("demo.completion.wait")
+                .description("Time model requests waited for a permit and the quota")
+                .tag("lane", priority.tag())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        Gauge.builder("demo.completion.in.flight", this, CompletionGuard::inFlight)
+            .description("Model requests in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Sends a request through the guard; its permit is held until the request's Mono completes.
+     *
+     * @param promptTokens estimated tokens of the prompt, for the tokens-per-minute quota
+     * @param request      creates the request; called again for every attempt
+     * @throws CompletionRejectedException through the returned Mono when the request is shed
+     */
+    public <T> Mono<T> call(Priority priority, int promptTokens, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            AtomicLong pause = new AtomicLong(properties.retryBase().toNanos());
+            return attempt(priority, promptTokens + properties.completionTokens(), request)
+                .retryWhen(Retry.from(signals -> signals.concatMap(
+                    signal -> retry(signal.failure(), signal.totalRetries(), pause))));
+        });
+    }
+
+    private <T> Mono<T> attempt(Priority priority, int tokenCount, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            long queued = System.nanoTime();
+            return Mono.usingWhen(acquire(priority), permit -> {
+                long wait = reserve(tokenCount);
+                Mono<T> send = Mono.defer(() -> {
+                    waits.get(priority).record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                    return request.get();
+                });
+                return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).then(send) : send;
+            }, permit -> Mono.fromRunnable(permit::release));
+        });
+    }
+
+    private Mono<Long> retry(Throwable error, long retries, AtomicLong pause) {
+        Failure failure = error instanceof CompletionRejectedException ? null : failure(error);
+        if (failure == null || retries + 1 >= properties.maxAttempts()) {
+            return Mono.error(error);
+        }
+        // Decorrelated jitter: anywhere between the base and three times the previous pause
+        long base = properties.retryBase().toNanos();
+        long next = Math.min(properties.retryCap().toNanos(),
+            ThreadLocalRandom.current().nextLong(base, Math.max(base + 1, pause.get() * 3)));
+        pause.set(next);
+        long delay = next;
+        if (failure.retryAfter() != null) {
+            long retryAfter = failure.retryAfter().toNanos();
+            delay = Math.max(delay, retryAfter);
+            if (failure.status() == 429) {
+                long until = System.nanoTime() + retryAfter;
+                pausedUntil.accumulateAndGet(until, (current, later) -> later - current > 0 ? later : current);
+            }
+        }
+        Counter.builder("demo.completion.retries")
+            .description("Model requests retried, by the status of the failed attempt")
+            .tag("status", failure.status() > 0 ? String.valueOf(failure.status()) : "io")
+            .register(meterRegistry)
+            .increment();
+        return Mono.delay(Duration.ofNanos(delay));
+    }
+
+    /**
+     * The retryable failure in the error's cause chain, or null.
+     */
+    private Failure failure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            Failure failure = classifier.apply(cause);
+            if (failure != null) {
+                return RETRYABLE.contains(failure.status()) ? failure : null;
+            }
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return new Failure(0, null);
+            }
+        }
+        return null;
+    }
+
+    private long reserve(int tokenCount) {
+        long now = System.nanoTime();
+        long wait = pausedUntil.get() - now;
+        if (tokens != null) {
+            wait = Math.max(wait, tokens.reserve(tokenCount, now));
+        }
+        if (requests != null) {
+            wait = Math.max(wait, requests.reserve(1, now));
+        }
+        return wait;
+    }
+
+    private Mono<Permit> acquire(Priority priority) {
+        Mono<Permit> permit = Mono.create(sink -> {
+            Permit granted = null;
+            synchronized (lock) {
+                if (inFlight < properties.maxConcurrent()) {
+                    inFlight++;
+                    granted = new Permit();
+                } else {
+                    Deque<Waiter> queue = queues.get(priority);
+                    if (queue.size() < capacity(priority)) {
+                        Waiter waiter = new Waiter(sink);
+                        queue.add(waiter);
+                        sink.onCancel(() -> cancel(priority, waiter));
+                        return;
+                    }
+                }
+            }
+            if (granted != null) {
+                sink.success(granted);
+            } else {
+                sink.error(shed(priority, "queue-full"));
+            }
+        });
+        Duration wait = priority == Priority.INTERACTIVE ? properties.interactiveWait() : properties.batchWait();
+        return permit.timeout(wait).onErrorMap(TimeoutException.class, e -> shed(priority, "timeout"));
+    }
+
+    private void cancel(Priority priority, Waiter waiter) {
+        synchronized (lock) {
+            if (queues.get(priority).remove(waiter)) {
+                return;
+            }
+        }
+        // Granted while being cancelled
+        if (waiter.permit != null) {
+            waiter.permit.release();
+        }
+    }
+
+    private CompletionRejectedException shed(Priority priority, String reason) {
+        Counter.builder("demo.completion.shed")
+            .description("Model requests rejected by the bulkhead")
+            .tag("lane", priority.tag())
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+        return new CompletionRejectedException("The assistant is busy, please try again shortly",
+            properties.retryBase());
+    }
+
+    private int capacity(Priority priority) {
+        return priority == Priority.INTERACTIVE ? properties.interactiveQueue() : properties.batchQueue();
+    }
+
+    private int queued(Priority priority) {
+        synchronized (lock) {
+            return queues.get(priority).size();
+        }
+    }
+
+    private int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    /**
+     * Status and requested pause of a failed request.
+     *
+     * @param status     HTTP status, or 0 for a request that got no response
+     * @param retryAfter pause the service asked for, or null
+     */
+    public record Failure(int status, Duration retryAfter) {
+
+        /**
+         * Builds a failure from the response headers Azure OpenAI sends: {@code retry-after-ms} and the standard
+         * {@code Retry-After} in seconds or as HTTP date; either may be null.
+         */
+        public static Failure of(int status, String retryAfterMs, String retryAfter) {
+            try {
+                if (retryAfterMs != null) {
+                    return new Failure(status, Duration.ofMillis(Long.parseLong(retryAfterMs.trim())));
+                }
+                if (retryAfter != null) {
+                    String value = retryAfter.trim();
+                    if (value.chars().allMatch(Character::isDigit)) {
+                        return new Failure(status, Duration.ofSeconds(Long.parseLong(value)));
+                    }
+                    Duration until = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                    return new Failure(status, until.isNegative() ? Duration.ZERO : until);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                // An unreadable header leaves the pause to the jitter
+            }
+            return new Failure(status, null);
+        }
+    }
+
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            Waiter next;
+            Permit handoff;
+            synchronized (lock) {
+                next = queues.get(Priority.INTERACTIVE).poll();
+                if (next == null) {
+                    next = queues.get(Priority.BATCH).poll();
+                }
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+                handoff = new Permit();
+                next.permit = handoff;
+            }
+            next.sink.success(handoff);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private Permit permit;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.bestseller.demo.resilience;
+
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.util.BinaryData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends every request of an Azure client through a {@link CompletionGuard}, in the lane the Reactor context
+ * names under {@link Priority#KEY}. Each model request takes its own permit and its own share of the quotas,
+ * its prompt estimated from the size of the request body, and gives the permit back when the response arrives.
+ * Responses with a retryable status are sent again by the guard, no earlier than their {@code Retry-After};
+ * once the attempts are used up the last response is handed to the client, which fails on it as usual. Error
+ * responses are read in full and closed as they arrive, so the ones retried give their connection back.
+ */
+public class CompletionGuardPolicy implements HttpPipelinePolicy {
+
+    private final CompletionGuard guard;
+
+    public CompletionGuardPolicy(CompletionGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+        int promptTokens = tokens(context.getHttpRequest());
+        // The client serializes the request body into replayable BinaryData, so every attempt can send it again
+        return Mono.deferContextual(reactorContext -> guard.call(
+                reactorContext.getOrDefault(Priority.KEY, Priority.INTERACTIVE), promptTokens,
+                () -> next.clone().process().flatMap(CompletionGuardPolicy::failOnError)))
+            .onErrorResume(ErrorResponse.class, e -> Mono.just(e.response));
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+        return HttpPipelinePosition.PER_CALL;
+    }
+
+    /**
+     * Classifier for the {@link CompletionGuard}: the status and {@code Retry-After} of a response this policy
+     * received, or null for other errors.
+     */
+    public static CompletionGuard.Failure failure(Throwable error) {
+        if (error instanceof ErrorResponse e) {
+            return CompletionGuard.Failure.of(e.response.getStatusCode(),
+                e.response.getHeaderValue("retry-after-ms"), e.response.getHeaderValue("Retry-After"));
+        }
+        return null;
+    }
+
+    private static Mono<HttpResponse> failOnError(HttpResponse response) {
+        if (response.getStatusCode() < 400) {
+            return Mono.just(response);
+        }
+        // Closed before the guard decides to retry, once read: the client still gets the body of the last one
+        return Mono.using(() -> response, r -> r.getBodyAsByteArray().defaultIfEmpty(new byte[0]), HttpResponse::close)
+            .flatMap(body -> Mono.error(new ErrorResponse(new ReadResponse(response, body))));
+    }
+
+    private static int tokens(HttpRequest request) {
+        BinaryData body = request.getBodyAsBinaryData();
+        Long length = body != null ? body.getLength() : null;
+        return length != null ? (int) Math.min(Integer.MAX_VALUE, (length + 3) / 4) : 0;
+    }
+
+    /**
+     * An error response, passed through the guard as an error so that it can be retried.
+     */
+    private static final class ErrorResponse extends RuntimeException {
+
+        private final transient HttpResponse response;
+
+        ErrorResponse(HttpResponse response) {
+            super("HTTP " + response.getStatusCode(), null, false, false);
+            this.response = response;
+        }
+    }
+
+    /**
+     * An error response read into memory, detached from the connection it came on.
+     */
+    private static final class ReadResponse extends HttpResponse {
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        ReadResponse(HttpResponse response, byte[] body) {
+            super(response.getRequest());
+            this.status = response.getStatusCode();
+            this.headers = response.getHeaders();
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return headers.getValue(HttpHeaderName.fromString(name));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(ByteBuffer.wrap(body).asReadOnlyBuffer()));
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray() {
+            return Mono.just(body);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString() {
+            return getBodyAsString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset) {
+            return Mono.fromSupplier(() -> new String(body, charset));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bestseller.demo.resilience;
+
+import java.time.Duration;
+
+/**
+ * A model request was shed by the {@link CompletionGuard} because its lane was full or it waited too long for a
+ * permit. It was never sent, so the caller may try again after {@link #retryAfter()}.
+ */
+public class CompletionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CompletionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bestseller.demo.resilience;
+
+import java.util.Locale;
+
+/**
+ * Lane a model request waits in when all permits of the {@link CompletionGuard} are taken. Interactive requests
+ * are always dispatched before batch requests.
+ */
+public enum Priority {
+
+    INTERACTIVE,
+    BATCH;
+
+    /**
+     * Reactor context key of the priority of a chat turn's model requests; they are interactive without it.
+     */
+    public static final String KEY = "demo.completion.priority";
+
+    /**
+     * Parses a request's priority case-insensitively; null is interactive.
+     *
+     * @throws IllegalArgumentException if the value is neither {@code interactive} nor {@code batch}
+     */
+    public static Priority parse(String value) {
+        if (value == null) {
+            return INTERACTIVE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Priority must be interactive or batch, not '" + value + "'");
+        }
+    }
+
+    String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
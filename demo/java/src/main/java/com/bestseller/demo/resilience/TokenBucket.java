@@ -0,0 +1,36 @@
+package com.bestseller.demo.resilience;
+
+/**
+ * Token bucket that hands out reservations: a caller takes what it needs right away, possibly driving the bucket
+ * into debt, and is told how long to wait until the debt is refilled. Callers are thereby served in the order they
+ * reserve, and a request larger than the bucket still goes through after waiting for its share.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double perNano;
+    private double available;
+    private long updated;
+
+    /**
+     * @param perMinute  what the bucket refills per minute
+     * @param burstNanos how much of that may be taken at once, as time of refill
+     * @param now        current {@link System#nanoTime()}
+     */
+    TokenBucket(double perMinute, long burstNanos, long now) {
+        this.perNano = perMinute / 60e9;
+        this.capacity = perNano * burstNanos;
+        this.available = capacity;
+        this.updated = now;
+    }
+
+    /**
+     * Takes the amount and returns the nanoseconds to wait before using it.
+     */
+    synchronized long reserve(double amount, long now) {
+        available = Math.min(capacity, available + (now - updated) * perNano);
+        updated = now;
+        available -= amount;
+        return available < 0 ? (long) Math.ceil(-available / perNano) : 0;
+    }
+}
@@ -0,0 +1,211 @@
+package com.bestseller.demo.service;
+
+import com.azure.ai.openai.models.CompletionsUsage;
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.session.ConversationStore;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatMessageContent;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.contextvariables.ContextVariable;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Meters of the chat pipeline: what a turn costs in tokens and function calls, and where its time goes.
+ * <ul>
+ *   <li>{@code demo.chat.turns{mode,outcome}}: duration of a whole turn; mode is {@code chat} or {@code stream},
+ *       outcome {@code success}, {@code cached}, {@code rejected}, {@code error} or {@code cancelled}</li>
+ *   <li>{@code demo.chat.phase{phase}}: {@code prepare} (conversation window, caches, prompt), {@code model}
+ *       (the completion, including its wait in the {@code CompletionGuard}, without the functions it called),
+ *       {@code functions} (time during which plugin functions ran; calls running side by side count once) and
+ *       {@code record} (caching the answer and adding it to the conversation)</li>
+ *   <li>{@code demo.chat.tokens{type,source}}: prompt and completion tokens of every model request of a turn;
+ *       source {@code reported} for the usage the completion service reported in the reply's metadata, or
+ *       {@code estimated} where it reported none</li>
+ *   <li>{@code demo.chat.function.calls}: plugin function calls per turn answered by the model</li>
+ * </ul>
+ * Estimates count the messages of the request and the reply like the conversation's token budget, see
+ * {@link ConversationStore#tokens}; they miss the function definitions and message framing the model also reads.
+ */
+@Component
+public class ChatMetrics {
+
+    private final Meter.MeterProvider<Timer> turns;
+    private final Timer prepare;
+    private final Timer model;
+    private final Timer functions;
+    private final Timer record;
+    private final Counter reportedPromptTokens;
+    private final Counter reportedCompletionTokens;
+    private final Counter estimatedPromptTokens;
+    private final Counter estimatedCompletionTokens;
+    private final DistributionSummary functionCalls;
+
+    public ChatMetrics(MeterRegistry meterRegistry) {
+        this.turns = Timer.builder("demo.chat.turns")
+            .description("Chat turns by outcome")
+            .publishPercentileHistogram()
+            .withRegistry(meterRegistry);
+        this.prepare = phase("prepare", meterRegistry);
+        this.model = phase("model", meterRegistry);
+        this.functions = phase("functions", meterRegistry);
+        this.record = phase("record", meterRegistry);
+        this.reportedPromptTokens = tokens("prompt", "reported", meterRegistry);
+        this.reportedCompletionTokens = tokens("completion", "reported", meterRegistry);
+        this.estimatedPromptTokens = tokens("prompt", "estimated", meterRegistry);
+        this.estimatedCompletionTokens = tokens("completion", "estimated", meterRegistry);
+        this.functionCalls = DistributionSummary.builder("demo.chat.function.calls")
+            .description("Plugin function calls per chat turn")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts timing a turn.
+     *
+     * @param mode {@code chat} or {@code stream}
+     */
+    public Sample start(String mode) {
+        return new Sample(mode);
+    }
+
+    private static Timer phase(String phase, MeterRegistry meterRegistry) {
+        return Timer.builder("demo.chat.phase")
+            .description("Time spent per phase of a chat turn")
+            .tag("phase", phase)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Counter tokens(String type, String source, MeterRegistry meterRegistry) {
+        return Counter.builder("demo.chat.tokens")
+            .description("Tokens exchanged with the model")
+            .tag("type", type)
+            .tag("source", source)
+            .register(meterRegistry);
+    }
+
+    private static int estimate(String text) {
+        return text != null ? ConversationStore.tokens(text) : 0;
+    }
+
+    /**
+     * Timing of one chat turn. The phases are marked in order; a turn answered from the response cache or failed
+     * skips the remaining ones. Only the first {@link #finished} counts, since a stream may be cancelled while it
+     * completes.
+     */
+    public final class Sample {
+
+        private final String mode;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile long prompted;
+        private volatile long completed;
+
+        private Sample(String mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * The prompt is ready and goes to the model.
+         */
+        public void prompted() {
+            prompted = System.nanoTime();
+            prepare.record(prompted - started, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * A request with the history goes to the model; its tokens are counted when {@link Round#finished}.
+         */
+        public Round request(ChatHistory history) {
+            long tokens = 0;
+            for (ChatMessageContent<?> message : history.getMessages()) {
+                tokens += estimate(message.getContent());
+            }
+            return new Round(tokens);
+        }
+
+        /**
+         * The model answered, having called the functions recorded in the function cache's turn.
+         */
+        public void completed(FunctionResultCache.Turn turn) {
+            completed = System.nanoTime();
+            long functionNanos = turn.busyNanos();
+            functions.record(functionNanos, TimeUnit.NANOSECONDS);
+            model.record(Math.max(0, completed - prompted - functionNanos), TimeUnit.NANOSECONDS);
+            functionCalls.record(turn.calls());
+        }
+
+        /**
+         * The turn is over.
+         *
+         * @param outcome {@code success}, {@code cached}, {@code rejected}, {@code error} or {@code cancelled}
+         */
+        public void finished(String outcome) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (completed != 0 && outcome.equals("success")) {
+                record.record(now - completed, TimeUnit.NANOSECONDS);
+            }
+            turns.withTags("mode", mode, "outcome", outcome).record(now - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Token count of one model request: the usage the service reported in the metadata of its reply, or an
+     * estimate of the request's messages and the reply where there is none.
+     */
+    public final class Round {
+
+        private final long promptEstimate;
+        private long completionEstimate;
+        private CompletionsUsage usage;
+
+        private Round(long promptEstimate) {
+            this.promptEstimate = promptEstimate;
+        }
+
+        /**
+         * The model sent the reply, or a piece of it when streaming.
+         */
+        public void replied(ChatMessageContent<?> reply) {
+            if (reply.getMetadata() != null && reply.getMetadata().getUsage() != null) {
+                usage = reply.getMetadata().getUsage();
+            }
+            completionEstimate += estimate(reply.getContent());
+            if (reply instanceof OpenAIChatMessageContent<?> openAi && openAi.getToolCall() != null) {
+                for (OpenAIFunctionToolCall toolCall : openAi.getToolCall()) {
+                    completionEstimate += estimate(toolCall.getPluginName()) + estimate(toolCall.getFunctionName());
+                    if (toolCall.getArguments() != null) {
+                        for (ContextVariable<?> argument : toolCall.getArguments().values()) {
+                            completionEstimate += argument != null ? estimate(argument.toPromptString()) : 0;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * The reply is complete, or the request was cancelled after it was sent.
+         */
+        public void finished() {
+            if (usage != null) {
+                reportedPromptTokens.increment(usage.getPromptTokens());
+                reportedCompletionTokens.increment(usage.getCompletionTokens());
+            } else {
+                estimatedPromptTokens.increment(promptEstimate);
+                estimatedCompletionTokens.increment(completionEstimate);
+            }
+        }
+    }
+}
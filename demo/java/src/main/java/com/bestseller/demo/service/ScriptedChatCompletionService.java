@@ -0,0 +1,171 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.config.ScriptedChatProperties;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatMessageContent;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunctionArguments;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chat completion service that replays scripted function calls instead of asking a model, so the chat flow runs
+ * offline and deterministically.
+ * <p>
+ * It answers like Azure OpenAI with Semantic Kernel's automatic function calling turned off. Every match of a
+ * script step's pattern in the last user message asks for the step's functions with the matched text, all in one
+ * reply carrying {@link OpenAIFunctionToolCall}s; {@link SemanticKernelService} then runs them like a model's tool
+ * calls and sends their results back. The answer to those results is the results in call order, or a fixed
+ * greeting when nothing matched. Each model round trip, the one deciding on the calls and the one writing the
+ * answer, takes the configured latency; with zero latency the turn runs on the subscribing thread except for its
+ * function calls.
+ */
+public class ScriptedChatCompletionService implements ChatCompletionService, StreamingChatCompletion {
+
+    static final String GREETING = "I can help with product information, stock availability and tracking shipments.";
+
+    /**
+     * Looks up items and their stock, and shipments, by the IDs the system prompt tells the model about.
+     */
+    static final List<ScriptedChatProperties.Step> DEFAULT_SCRIPT = List.of(
+        new ScriptedChatProperties.Step("item-\\d+", List.of("ItemPlugin.getItemInfo", "StockPlugin.getStockInfo")),
+        new ScriptedChatProperties.Step("TRK-\\d{4}-\\d+", List.of("TrackingPlugin.getDeliveryStatus")));
+
+    private final List<Step> script;
+    private final Duration latency;
+    private final Duration tokenInterval;
+
+    /**
+     * @throws IllegalArgumentException if the script names a function the registry does not know
+     */
+    public ScriptedChatCompletionService(ScriptedChatProperties properties, KernelFunctionRegistry functions) {
+        List<ScriptedChatProperties.Step> steps = properties.script().isEmpty()
+            ? DEFAULT_SCRIPT : properties.script();
+        this.script = steps.stream().map(step -> Step.of(step, functions)).toList();
+        this.latency = properties.latency();
+        this.tokenInterval = properties.tokenInterval();
+    }
+
+    @Override
+    public Mono<List<ChatMessageContent<?>>> getChatMessageContentsAsync(
+        ChatHistory chatHistory,
+        Kernel kernel,
+        InvocationContext invocationContext
+    ) {
+        return afterLatency(Mono.fromSupplier(() -> List.of(reply(chatHistory))));
+    }
+
+    @Override
+    public Mono<List<ChatMessageContent<?>>> getChatMessageContentsAsync(
+        String prompt,
+        Kernel kernel,
+        InvocationContext invocationContext
+    ) {
+        ChatHistory chatHistory = new ChatHistory();
+        chatHistory.addUserMessage(prompt);
+        return getChatMessageContentsAsync(chatHistory, kernel, invocationContext);
+    }
+
+    @Override
+    public Flux<ChatMessageContent<?>> streamChatMessageContentsAsync(
+        ChatHistory chatHistory,
+        Kernel kernel,
+        InvocationContext invocationContext
+    ) {
+        return afterLatency(Mono.fromSupplier(() -> reply(chatHistory))).flatMapMany(reply -> {
+            if (reply.getContent() == null) {
+                return Flux.just(reply);
+            }
+            Flux<String> tokens = Flux.fromArray(reply.getContent().split("(?<= )"));
+            return (tokenInterval.isZero() ? tokens : tokens.delayElements(tokenInterval))
+                .map(token -> new ChatMessageContent<>(AuthorRole.ASSISTANT, token));
+        });
+    }
+
+    @Override
+    public String getModelId() {
+        return "scripted";
+    }
+
+    @Override
+    public String getServiceId() {
+        return "scripted";
+    }
+
+    /**
+     * Answers the function results the history ends with, or else asks for the calls the last message names.
+     */
+    private ChatMessageContent<?> reply(ChatHistory chatHistory) {
+        List<ChatMessageContent<?>> messages = chatHistory.getMessages();
+        int results = messages.size();
+        while (results > 0 && messages.get(results - 1).getAuthorRole() == AuthorRole.TOOL) {
+            results--;
+        }
+        if (messages.isEmpty()) {
+            return new ChatMessageContent<>(AuthorRole.ASSISTANT, GREETING);
+        }
+        if (results < messages.size()) {
+            List<String> answer = messages.subList(results, messages.size()).stream()
+                .map(ChatMessageContent::getContent)
+                .toList();
+            return new ChatMessageContent<>(AuthorRole.ASSISTANT, String.join(" ", answer));
+        }
+
+        List<OpenAIFunctionToolCall> toolCalls = toolCalls(messages.get(messages.size() - 1).getContent());
+        if (toolCalls.isEmpty()) {
+            return new ChatMessageContent<>(AuthorRole.ASSISTANT, GREETING);
+        }
+        return new OpenAIChatMessageContent<>(AuthorRole.ASSISTANT, null, getModelId(), null, null, null, toolCalls);
+    }
+
+    private List<OpenAIFunctionToolCall> toolCalls(String message) {
+        List<OpenAIFunctionToolCall> toolCalls = new ArrayList<>();
+        for (Step step : script) {
+            Matcher matcher = step.pattern().matcher(message);
+            while (matcher.find()) {
+                for (KernelFunctionRegistry.BoundFunction function : step.functions()) {
+                    KernelFunctionArguments arguments = KernelFunctionArguments.builder()
+                        .withVariable(function.parameters().get(0), matcher.group())
+                        .build();
+                    toolCalls.add(new OpenAIFunctionToolCall("call-" + (toolCalls.size() + 1), function.plugin(),
+                        function.name(), arguments));
+                }
+            }
+        }
+        return toolCalls;
+    }
+
+    private <T> Mono<T> afterLatency(Mono<T> next) {
+        return latency.isZero() ? next : Mono.delay(latency).then(next);
+    }
+
+    private record Step(Pattern pattern, List<KernelFunctionRegistry.BoundFunction> functions) {
+
+        static Step of(ScriptedChatProperties.Step step, KernelFunctionRegistry registry) {
+            List<KernelFunctionRegistry.BoundFunction> functions = step.functions().stream()
+                .map(name -> {
+                    int dot = name.indexOf('.');
+                    KernelFunctionRegistry.BoundFunction function = dot < 0
+                        ? null : registry.find(name.substring(0, dot), name.substring(dot + 1));
+                    if (function == null) {
+                        throw new IllegalArgumentException("Unknown kernel function in chat script: " + name);
+                    }
+                    return function;
+                })
+                .toList();
+            return new Step(Pattern.compile(step.pattern(), Pattern.CASE_INSENSITIVE), functions);
+        }
+    }
+}
@@ -1,18 +1,41 @@
 package com.bestseller.demo.service;
 
-import com.bestseller.demo.plugin.ItemPlugin;
-import com.bestseller.demo.plugin.StockPlugin;
-import com.bestseller.demo.plugin.TrackingPlugin;
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.cache.ResponseCache;
+import com.bestseller.demo.data.DemoDataSource;
+import com.bestseller.demo.model.ChatEvent;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.bestseller.demo.resilience.CompletionRejectedException;
+import com.bestseller.demo.resilience.Priority;
+import com.bestseller.demo.session.ConversationStore;
 import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatMessageContent;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.orchestration.FunctionResultMetadata;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
 import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.orchestration.ToolCallBehavior;
 import com.microsoft.semantickernel.plugin.KernelPlugin;
 import com.microsoft.semantickernel.plugin.KernelPluginFactory;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
 import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service demonstrating how to use Semantic Kernel with plugins.
@@ -23,28 +46,53 @@ public class SemanticKernelService {
 
     private static final Logger logger = LoggerFactory.getLogger(SemanticKernelService.class);
 
+    private static final String SYSTEM_PROMPT =
+        "You are a helpful assistant for BESTSELLER that can help users with product information, " +
+        "stock availability, and tracking shipments. Use the available functions to retrieve " +
+        "accurate information. When users ask about items, use IDs like 'item-001', 'item-002', " +
+        "or 'item-003'. For tracking, use numbers like 'TRK-2025-001' or 'TRK-2025-002'.";
+
+    /**
+     * Model round trips per turn that may ask for function calls; the same limit Semantic Kernel applies to its
+     * own automatic function calling.
+     */
+    private static final int MAX_TOOL_ROUNDS = 5;
+
     private final Kernel kernel;
-    private final ItemPlugin itemPlugin;
-    private final StockPlugin stockPlugin;
-    private final TrackingPlugin trackingPlugin;
+    private final KernelFunctionRegistry functionRegistry;
+    private final FunctionResultCache functionCache;
+    private final ToolCallExecutor toolCallExecutor;
+    private final ResponseCache responseCache;
+    private final ConversationStore conversations;
+    private final DemoDataSource dataSource;
+    private final ChatMetrics metrics;
 
     public SemanticKernelService(
         Kernel kernel,
-        ItemPlugin itemPlugin,
-        StockPlugin stockPlugin,
-        TrackingPlugin trackingPlugin
+        KernelFunctionRegistry functionRegistry,
+        FunctionResultCache functionCache,
+        ToolCallExecutor toolCallExecutor,
+        ResponseCache responseCache,
+        ConversationStore conversations,
+        DemoDataSource dataSource,
+        ChatMetrics metrics
     ) {
         this.kernel = kernel;
-        this.itemPlugin = itemPlugin;
-        this.stockPlugin = stockPlugin;
-        this.trackingPlugin = trackingPlugin;
+        this.functionRegistry = functionRegistry;
+        this.functionCache = functionCache;
+        this.toolCallExecutor = toolCallExecutor;
+        this.responseCache = responseCache;
+        this.conversations = conversations;
+        this.dataSource = dataSource;
+        this.metrics = metrics;
         
         logger.info("SemanticKernelService initialized with kernel and plugins");
     }
 
     /**
      * Demonstrates invoking a specific kernel function directly.
-     * For simplicity in this demo, we directly call the plugin methods.
+     * Plugin and function names are resolved case-insensitively through the {@link KernelFunctionRegistry}
+     * and the parameter is converted to the type the function declares.
      *
      * @param pluginName the name of the plugin
      * @param functionName the name of the function
@@ -53,37 +101,15 @@ public class SemanticKernelService {
      */
     public String invokeKernelFunction(String pluginName, String functionName, String parameter) {
         try {
-            logger.info("Invoking kernel function: {}.{} with parameter: {}", 
+            logger.info("Invoking kernel function: {}.{} with parameter: {}",
                 pluginName, functionName, parameter);
 
             String result;
-            
-            // For demo simplicity, route to the appropriate plugin method
-            // In a real scenario with AI, the LLM would automatically choose the right function
-            if (pluginName.equalsIgnoreCase("ItemPlugin")) {
-                if (functionName.equalsIgnoreCase("getItemInfo")) {
-                    result = itemPlugin.getItemInfo(parameter);
-                } else if (functionName.equalsIgnoreCase("searchItemsByCategory")) {
-                    result = itemPlugin.searchItemsByCategory(parameter);
-                } else {
-                    result = "Unknown function: " + functionName;
-                }
-            } else if (pluginName.equalsIgnoreCase("StockPlugin")) {
-                if (functionName.equalsIgnoreCase("getStockInfo")) {
-                    result = stockPlugin.getStockInfo(parameter);
-                } else if (functionName.equalsIgnoreCase("checkAvailability")) {
-                    result = stockPlugin.checkAvailability(parameter);
-                } else {
-                    result = "Unknown function: " + functionName;
-                }
-            } else if (pluginName.equalsIgnoreCase("TrackingPlugin")) {
-                if (functionName.equalsIgnoreCase("getTrackingInfo")) {
-                    result = trackingPlugin.getTrackingInfo(parameter);
-                } else if (functionName.equalsIgnoreCase("getDeliveryStatus")) {
-                    result = trackingPlugin.getDeliveryStatus(parameter);
-                } else {
-                    result = "Unknown function: " + functionName;
-                }
+            KernelFunctionRegistry.BoundFunction function = functionRegistry.find(pluginName, functionName);
+            if (function != null) {
+                result = function.invoke(parameter);
+            } else if (functionRegistry.hasPlugin(pluginName)) {
+                result = "Unknown function: " + functionName;
             } else {
                 result = "Unknown plugin: " + pluginName;
             }
@@ -98,63 +124,334 @@ public class SemanticKernelService {
     }
 
     /**
-     * Demonstrates using the kernel with chat completion and automatic function calling.
-     * Note: This requires proper Azure OpenAI configuration with function calling support.
+     * Answers a message outside of any conversation.
      *
      * @param userMessage the user's message/query
      * @return Mono containing the AI's response
+     * @see #chat(String, String)
      */
     public reactor.core.publisher.Mono<String> chat(String userMessage) {
+        return chat(null, userMessage);
+    }
+
+    /**
+     * Demonstrates using the kernel with chat completion and function calling.
+     * The kernel's functions are offered to the model, but Semantic Kernel does not invoke them: the function
+     * calls of each model round come back here and run side by side on the {@link ToolCallExecutor}, and their
+     * results go back to the model until it answers.
+     * Every chat message is one turn of the {@link FunctionResultCache}: functions the model calls
+     * repeatedly while answering it run once.
+     * The prompt carries the recent exchanges of the conversation and summaries of older function results, as far
+     * as they fit into the token budget of the {@link ConversationStore}.
+     * The first message of a conversation is answered from the {@link ResponseCache} without calling the model
+     * when it asks the same as an earlier one about the same items or shipments, as long as none of the data the
+     * answer used has changed; later messages may refer to earlier ones and always go to the model.
+     * Items and shipments the message names are loaded from the {@link DemoDataSource} while the model answers.
+     * Tokens, function calls and the time spent per phase of the turn are recorded in {@link ChatMetrics}.
+     * The model request waits in the {@link Priority} lane given in the subscriber's context under
+     * {@link Priority#KEY}, interactive by default.
+     * Note: This requires proper Azure OpenAI configuration with function calling support.
+     *
+     * @param conversationId the conversation the message belongs to, or null for a one-off message
+     * @param userMessage the user's message/query
+     * @return Mono containing the AI's response, or failing with {@link CompletionRejectedException} when the
+     *         model request was shed because too many are waiting
+     */
+    public reactor.core.publisher.Mono<String> chat(String conversationId, String userMessage) {
         logger.info("Processing chat message: {}", userMessage);
 
+        ChatMetrics.Sample sample = metrics.start("chat");
+        ConversationStore.Window window = window(conversationId, userMessage);
+        ResponseCache.Prompt prompt = window.isEmpty() ? responseCache.prompt(userMessage) : null;
+        String cached = prompt != null ? responseCache.find(prompt) : null;
+        if (cached != null) {
+            logger.info("AI response from cache for: {}", prompt.normalized());
+            record(conversationId, userMessage, cached, Map.of());
+            sample.finished("cached");
+            return reactor.core.publisher.Mono.just(cached);
+        }
+
         try {
             ChatCompletionService chatService = kernel.getService(ChatCompletionService.class);
-            ChatHistory history = new ChatHistory();
-            
-            // Add system message to guide the AI
-            history.addSystemMessage(
-                "You are a helpful assistant for BESTSELLER that can help users with product information, " +
-                "stock availability, and tracking shipments. Use the available functions to retrieve " +
-                "accurate information. When users ask about items, use IDs like 'item-001', 'item-002', " +
-                "or 'item-003'. For tracking, use numbers like 'TRK-2025-001' or 'TRK-2025-002'."
-            );
-            
-            // Add user message
-            history.addUserMessage(userMessage);
-
-            // Create invocation context with auto-invoke enabled
-            var executionSettings = PromptExecutionSettings.builder()
-                .withTemperature(0.7)
-                .build();
-
-            var invocationContext = InvocationContext.builder()
-                .withPromptExecutionSettings(executionSettings)
-                .build();
+            ChatHistory history = history(window, userMessage);
+            InvocationContext invocationContext = invocationContext();
+            dataSource.prefetch(userMessage);
+            sample.prompted();
 
             // Get chat completion reactively
-            return chatService.getChatMessageContentsAsync(
-                    history,
-                    kernel,
-                    invocationContext
-                )
-                .map(response -> {
-                    String aiResponse = response.get(0).getContent();
+            FunctionResultCache.Turn turn = functionCache.newTurn();
+            return complete(chatService, history, invocationContext, sample, false, 1)
+                .collect(Collectors.joining())
+                .map(aiResponse -> {
                     logger.info("AI response: {}", aiResponse);
                     return aiResponse;
                 })
-                .onErrorResume(e -> {
+                .doOnNext(aiResponse -> {
+                    sample.completed(turn);
+                    answered(conversationId, userMessage, prompt, aiResponse, turn);
+                    sample.finished("success");
+                })
+                .doOnError(CompletionRejectedException.class, e -> {
+                    logger.warn("Chat message rejected: {}", e.getMessage());
+                    sample.finished("rejected");
+                })
+                .onErrorResume(e -> !(e instanceof CompletionRejectedException), e -> {
                     logger.error("Error processing chat message", e);
+                    sample.finished("error");
                     return reactor.core.publisher.Mono.just(
                         "Error processing your request: " + e.getMessage() + 
                         ". Note: This feature requires proper Azure OpenAI configuration."
                     );
-                });
+                })
+                .doOnCancel(() -> sample.finished("cancelled"))
+                .contextWrite(Context.of(FunctionResultCache.TURN_KEY, turn));
         } catch (Exception e) {
             logger.error("Error initializing chat service", e);
+            sample.finished("error");
             return reactor.core.publisher.Mono.just(
                 "Error initializing chat service: " + e.getMessage() + 
                 ". Note: This feature requires proper Azure OpenAI configuration."
             );
         }
     }
+
+    /**
+     * Streams the answer to a message outside of any conversation.
+     *
+     * @param userMessage the user's message/query
+     * @return Flux of chat events, ending with {@code done} or {@code error}
+     * @see #chatStream(String, String)
+     */
+    public Flux<ChatEvent> chatStream(String userMessage) {
+        return chatStream(null, userMessage);
+    }
+
+    /**
+     * Streams the answer to a chat message: a {@code function_call} event for every plugin function the model
+     * calls, the answer as {@code token} events and a final {@code done}, or an {@code error} event. The
+     * conversation and the caches are used as in {@link #chat(String, String)}.
+     * <p>
+     * Demand from the subscriber is passed on to the completion service, and cancelling the returned flux, e.g.
+     * because the client disconnected, cancels the completion. Only services implementing
+     * {@link StreamingChatCompletion} produce more than one token; for others, Azure OpenAI among them, the
+     * answer is one token sent once it is complete. A model request shed by the {@code CompletionGuard} ends the
+     * stream with an {@code error} event.
+     *
+     * @param conversationId the conversation the message belongs to, or null for a one-off message
+     * @param userMessage the user's message/query
+     * @return Flux of chat events, ending with {@code done} or {@code error}
+     */
+    public Flux<ChatEvent> chatStream(String conversationId, String userMessage) {
+        logger.info("Streaming chat message: {}", userMessage);
+
+        ChatMetrics.Sample sample = metrics.start("stream");
+        ConversationStore.Window window = window(conversationId, userMessage);
+        ResponseCache.Prompt prompt = window.isEmpty() ? responseCache.prompt(userMessage) : null;
+        String cached = prompt != null ? responseCache.find(prompt) : null;
+        if (cached != null) {
+            logger.info("AI response from cache for: {}", prompt.normalized());
+            record(conversationId, userMessage, cached, Map.of());
+            sample.finished("cached");
+            return Flux.just(ChatEvent.token(cached), ChatEvent.done());
+        }
+
+        ChatCompletionService chatService;
+        try {
+            chatService = kernel.getService(ChatCompletionService.class);
+        } catch (Exception e) {
+            logger.error("Error initializing chat service", e);
+            sample.finished("error");
+            return Flux.just(ChatEvent.error("Error initializing chat service: " + e.getMessage()));
+        }
+        ChatHistory history = history(window, userMessage);
+        InvocationContext invocationContext = invocationContext();
+        dataSource.prefetch(userMessage);
+        sample.prompted();
+
+        // Function calls are reported from the threads the ToolCallExecutor runs them on
+        Sinks.Many<ChatEvent> functionCalls = Sinks.many().unicast().onBackpressureBuffer();
+        FunctionResultCache.Turn turn = functionCache.newTurn().onCall(call -> functionCalls.emitNext(
+            ChatEvent.functionCall(call.plugin(), call.function(), call.argument()),
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100))));
+
+        StringBuilder answer = new StringBuilder();
+        Flux<ChatEvent> tokenEvents = complete(chatService, history, invocationContext, sample, true, 1)
+            .doOnNext(answer::append)
+            .map(ChatEvent::token)
+            .doFinally(signal -> functionCalls.tryEmitComplete());
+
+        return Flux.merge(functionCalls.asFlux(), tokenEvents)
+            .concatWith(Mono.fromSupplier(() -> {
+                logger.info("AI response: {}", answer);
+                sample.completed(turn);
+                answered(conversationId, userMessage, prompt, answer.toString(), turn);
+                sample.finished("success");
+                return ChatEvent.done();
+            }))
+            .onErrorResume(e -> {
+                logger.error("Error streaming chat message", e);
+                sample.finished(e instanceof CompletionRejectedException ? "rejected" : "error");
+                return Mono.just(ChatEvent.error("Error processing your request: " + e.getMessage()));
+            })
+            .doOnCancel(() -> {
+                logger.info("Chat stream cancelled by the client");
+                sample.finished("cancelled");
+            })
+            .contextWrite(Context.of(FunctionResultCache.TURN_KEY, turn));
+    }
+
+    /**
+     * Asks the model until it answers rather than calls functions. A reply asking for function calls is added to
+     * the history together with one tool message per call, and the history goes back to the model; calls of
+     * unknown functions are answered with a note instead of failing the turn.
+     *
+     * @param sample the turn's metrics, which count the tokens of every round
+     * @param stream whether to stream the answer when the service implements {@link StreamingChatCompletion}
+     * @param round  the model round trip, starting at 1
+     * @return the answer in pieces
+     */
+    private Flux<String> complete(ChatCompletionService chatService, ChatHistory history,
+                                  InvocationContext invocationContext, ChatMetrics.Sample sample, boolean stream,
+                                  int round) {
+        ChatMetrics.Round tokens = sample.request(history);
+        Flux<ChatMessageContent<?>> replies = stream && chatService instanceof StreamingChatCompletion streaming
+            ? streaming.streamChatMessageContentsAsync(history, kernel, invocationContext)
+            : chatService.getChatMessageContentsAsync(history, kernel, invocationContext)
+                .flatMapIterable(messages -> messages.isEmpty()
+                    ? List.of()
+                    : List.of(messages.get(messages.size() - 1)));
+        // The guard sheds requests inside the Azure client, which may wrap the rejection
+        replies = replies.onErrorMap(SemanticKernelService::rejection)
+            .doOnNext(tokens::replied)
+            .doFinally(signal -> {
+                if (signal != SignalType.ON_ERROR) {
+                    tokens.finished();
+                }
+            });
+        // One reply at a time, so that demand for tokens reaches the service unchanged
+        return replies.concatMap(reply -> {
+            List<OpenAIFunctionToolCall> toolCalls = toolCalls(reply);
+            if (toolCalls.isEmpty()) {
+                return Mono.justOrEmpty(reply.getContent()).flux();
+            }
+            if (round == MAX_TOOL_ROUNDS) {
+                return Flux.error(new IllegalStateException(
+                    "The model still called functions after " + MAX_TOOL_ROUNDS + " rounds"));
+            }
+            history.addMessage(reply);
+            return invokeToolCalls(history, toolCalls)
+                .thenMany(Flux.defer(
+                    () -> complete(chatService, history, invocationContext, sample, stream, round + 1)));
+        }, 1);
+    }
+
+    private static Throwable rejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CompletionRejectedException rejected) {
+                return rejected;
+            }
+        }
+        return error;
+    }
+
+    private Mono<Void> invokeToolCalls(ChatHistory history, List<OpenAIFunctionToolCall> toolCalls) {
+        List<KernelFunctionRegistry.BoundFunction> functions = new ArrayList<>(toolCalls.size());
+        List<ToolCallExecutor.Call> calls = new ArrayList<>(toolCalls.size());
+        for (OpenAIFunctionToolCall toolCall : toolCalls) {
+            KernelFunctionRegistry.BoundFunction function =
+                functionRegistry.find(toolCall.getPluginName(), toolCall.getFunctionName());
+            functions.add(function);
+            if (function != null) {
+                calls.add(new ToolCallExecutor.Call(function, arguments(toolCall)));
+            }
+        }
+        return toolCallExecutor.invokeAll(calls)
+            .doOnNext(results -> {
+                int next = 0;
+                for (int i = 0; i < toolCalls.size(); i++) {
+                    OpenAIFunctionToolCall toolCall = toolCalls.get(i);
+                    String result = functions.get(i) != null
+                        ? results.get(next++)
+                        : "Unknown function: " + toolCall.getPluginName() + "." + toolCall.getFunctionName();
+                    history.addMessage(new ChatMessageContent<>(AuthorRole.TOOL, result, null, null, null,
+                        FunctionResultMetadata.build(toolCall.getId())));
+                }
+            })
+            .then();
+    }
+
+    private static List<OpenAIFunctionToolCall> toolCalls(ChatMessageContent<?> reply) {
+        if (reply instanceof OpenAIChatMessageContent<?> openAiReply && openAiReply.getToolCall() != null) {
+            return openAiReply.getToolCall();
+        }
+        return List.of();
+    }
+
+    private static Map<String, String> arguments(OpenAIFunctionToolCall toolCall) {
+        Map<String, String> arguments = new HashMap<>();
+        if (toolCall.getArguments() != null) {
+            toolCall.getArguments().forEach((name, value) ->
+                arguments.put(name, value != null ? value.toPromptString() : null));
+        }
+        return arguments;
+    }
+
+    private ConversationStore.Window window(String conversationId, String userMessage) {
+        if (conversationId == null) {
+            return ConversationStore.Window.EMPTY;
+        }
+        int reservedTokens = ConversationStore.tokens(SYSTEM_PROMPT) + ConversationStore.tokens(userMessage);
+        return conversations.window(conversationId, reservedTokens);
+    }
+
+    private void answered(String conversationId, String userMessage, ResponseCache.Prompt prompt, String answer,
+                          FunctionResultCache.Turn turn) {
+        if (prompt != null) {
+            responseCache.put(prompt, answer, turn.arguments(), turn.plugins());
+        }
+        record(conversationId, userMessage, answer, turn.returned());
+    }
+
+    private void record(String conversationId, String userMessage, String answer,
+                        Map<FunctionResultCache.Call, String> functionResults) {
+        if (conversationId != null) {
+            conversations.record(conversationId, userMessage, answer, functionResults);
+        }
+    }
+
+    static ChatHistory history(ConversationStore.Window window, String userMessage) {
+        ChatHistory history = new ChatHistory();
+
+        // Add system message to guide the AI
+        history.addSystemMessage(SYSTEM_PROMPT);
+
+        // Add what the conversation established so far, oldest first
+        if (!window.facts().isEmpty()) {
+            StringBuilder facts = new StringBuilder("Function results from earlier in this conversation:");
+            for (int i = window.facts().size() - 1; i >= 0; i--) {
+                facts.append("\n- ").append(window.facts().get(i));
+            }
+            history.addSystemMessage(facts.toString());
+        }
+        for (ConversationStore.Exchange exchange : window.turns()) {
+            history.addUserMessage(exchange.userMessage());
+            history.addAssistantMessage(exchange.answer());
+        }
+
+        // Add user message
+        history.addUserMessage(userMessage);
+        return history;
+    }
+
+    private static InvocationContext invocationContext() {
+        // Offer the kernel's functions to the model, but return its function calls instead of invoking them
+        var executionSettings = PromptExecutionSettings.builder()
+            .withTemperature(0.7)
+            .build();
+
+        return InvocationContext.builder()
+            .withPromptExecutionSettings(executionSettings)
+            .withToolCallBehavior(ToolCallBehavior.allowAllKernelFunctions(false))
+            .build();
+    }
 }
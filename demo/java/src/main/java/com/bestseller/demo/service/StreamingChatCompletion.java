@@ -0,0 +1,29 @@
+package com.bestseller.demo.service;
+
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Implemented by chat completion services that can stream the answer while it is generated.
+ * <p>
+ * The {@code ChatCompletionService} of Semantic Kernel 1.1 only returns complete answers; for a service that
+ * does not implement this interface {@link SemanticKernelService#chatStream} sends the answer as a single token
+ * once it is complete. Only {@link ScriptedChatCompletionService} implements it: Azure OpenAI answers are not
+ * streamed, which would take an implementation on {@code OpenAIAsyncClient.getChatCompletionsStream}.
+ */
+public interface StreamingChatCompletion {
+
+    /**
+     * Streams the reply to the history: the answer in pieces, or a message carrying the function calls the model
+     * asks for, which {@link SemanticKernelService} runs before asking again. The returned flux must honor demand
+     * and stop generating when it is cancelled.
+     */
+    Flux<ChatMessageContent<?>> streamChatMessageContentsAsync(
+        ChatHistory chatHistory,
+        Kernel kernel,
+        InvocationContext invocationContext
+    );
+}
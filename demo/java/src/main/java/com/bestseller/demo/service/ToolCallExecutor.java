@@ -0,0 +1,122 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.ToolCallProperties;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the plugin function calls the model asks for in one round. The calls of a round are independent of each
+ * other, so each runs on its own virtual thread and the round takes as long as its slowest call rather than the
+ * sum of them; a call blocked on the data source holds no platform thread while it waits.
+ * <p>
+ * The calls run in the chat turn of the subscriber's Reactor context ({@link FunctionResultCache#TURN_KEY}), and
+ * together they have the turn's deadline ({@code demo.tool-calls.deadline}). A call still running at the
+ * deadline is interrupted and answered with a note saying so, so that the model can answer with what the other
+ * calls returned instead of the whole turn failing. Timed out calls are counted as
+ * {@code demo.chat.function.timeouts{plugin,function}}.
+ */
+@Component
+public class ToolCallExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolCallExecutor.class);
+
+    private final ToolCallProperties properties;
+    private final ExecutorService executor;
+    private final Scheduler scheduler;
+    private final Meter.MeterProvider<Counter> timeouts;
+
+    public ToolCallExecutor(ToolCallProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tool-call-", 0).factory());
+        this.scheduler = Schedulers.fromExecutorService(executor, "tool-calls");
+        this.timeouts = Counter.builder("demo.chat.function.timeouts")
+            .description("Plugin function calls cancelled at the deadline of their chat turn")
+            .withRegistry(meterRegistry);
+    }
+
+    /**
+     * Runs the calls, concurrently unless {@code demo.tool-calls.parallel} is off.
+     *
+     * @return the results in the order of the calls; fails when a function fails
+     */
+    public Mono<List<String>> invokeAll(List<Call> calls) {
+        if (calls.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return Mono.deferContextual(context -> {
+            FunctionResultCache.Turn turn = context.getOrDefault(FunctionResultCache.TURN_KEY, null);
+            long deadline = turn != null
+                ? turn.deadline(properties.deadline())
+                : System.nanoTime() + properties.deadline().toNanos();
+            return Flux.fromIterable(calls)
+                .flatMapSequential(call -> invoke(call, turn, deadline), properties.parallel() ? calls.size() : 1)
+                .collectList();
+        });
+    }
+
+    private Mono<String> invoke(Call call, FunctionResultCache.Turn turn, long deadline) {
+        // Deferred so that a call waiting for its turn in a sequential round gets what is left of the deadline
+        return Mono.defer(() -> Mono.fromCallable(() -> run(call, turn))
+            .subscribeOn(scheduler)
+            .timeout(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())),
+                Mono.fromSupplier(() -> timedOut(call))));
+    }
+
+    private static String run(Call call, FunctionResultCache.Turn turn) {
+        try (FunctionResultCache.Scope scope = turn != null ? turn.bind() : () -> { }) {
+            return String.valueOf(call.function().invoke(call.arguments()));
+        }
+    }
+
+    private String timedOut(Call call) {
+        String function = call.function().plugin() + "." + call.function().name();
+        logger.warn("Function call {}({}) cancelled at the turn's deadline", function, call.argumentList());
+        timeouts.withTags("plugin", call.function().plugin(), "function", call.function().name()).increment();
+        return function + "(" + call.argumentList() + ") did not answer in time.";
+    }
+
+    /**
+     * Interrupts calls still running.
+     */
+    @Override
+    public void close() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    /**
+     * A function call the model asked for.
+     *
+     * @param function  the called function
+     * @param arguments its arguments by parameter name
+     */
+    public record Call(KernelFunctionRegistry.BoundFunction function, Map<String, String> arguments) {
+
+        /**
+         * The arguments in the order the function declares its parameters, for messages.
+         */
+        String argumentList() {
+            return function.parameters().stream()
+                .map(arguments::get)
+                .map(String::valueOf)
+                .collect(Collectors.joining(", "));
+        }
+    }
+}
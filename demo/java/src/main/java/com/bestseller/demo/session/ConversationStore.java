@@ -0,0 +1,296 @@
+package com.bestseller.demo.session;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.ConversationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Multi-turn conversations, keyed by conversation ID.
+ * <p>
+ * A conversation keeps its last {@code recent-turns} exchanges word for word. When an exchange drops out of
+ * them, only the results of the plugin functions called for it are kept, cut to {@code fact-length} characters,
+ * and at most {@code max-facts} of those, newest first. Every conversation therefore has a bounded size however
+ * long it runs, and {@link #window} picks from it what fits into the token budget of the next message.
+ * <p>
+ * The store itself is bounded by an estimate of the memory the conversations take: beyond
+ * {@code max-memory} the least recently used ones are dropped, as are conversations idle for longer than
+ * {@code idle-timeout}. Conversations are kept in access order, so both evictions take them from the head and
+ * run on every access; one lock guards the store, and no operation holds it for more than one conversation's
+ * worth of work.
+ */
+@Component
+public class ConversationStore {
+
+    /**
+     * Estimated overhead of a string, an exchange or a map entry, on top of its characters.
+     */
+    private static final int OBJECT_BYTES = 48;
+
+    private final ConversationProperties properties;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(64, 0.75f, true);
+    private final Counter idleEvictions;
+    private final Counter memoryEvictions;
+    private long bytes;
+
+    @Autowired
+    public ConversationStore(ConversationProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    ConversationStore(ConversationProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.idleEvictions = evictions(meterRegistry, "idle");
+        this.memoryEvictions = evictions(meterRegistry, "memory");
+        Gauge.builder("demo.conversations.active", this, ConversationStore::size)
+            .description("Conversations in the store")
+            .register(meterRegistry);
+        Gauge.builder("demo.conversations.memory", this, ConversationStore::memory)
+            .description("Estimated memory taken by the stored conversations")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns what of the conversation to send with its next message: the most recent exchanges and then the
+     * newest summarized function results that fit into the token budget, after the tokens reserved for the
+     * system prompt and the message itself. An unknown conversation has an empty window.
+     */
+    public Window window(String conversationId, int reservedTokens) {
+        synchronized (conversations) {
+            long now = clock.getAsLong();
+            evictIdle(now);
+            Conversation conversation = conversations.get(conversationId);
+            if (conversation == null) {
+                return Window.EMPTY;
+            }
+            conversation.lastUsed = now;
+
+            int budget = properties.tokenBudget() - reservedTokens;
+            List<Exchange> turns = new ArrayList<>();
+            List<String> facts = new ArrayList<>();
+            boolean full = false;
+            for (Iterator<Exchange> exchanges = conversation.recent.descendingIterator(); exchanges.hasNext(); ) {
+                Exchange exchange = exchanges.next();
+                int tokens = tokens(exchange.userMessage()) + tokens(exchange.answer());
+                if (!full && tokens <= budget) {
+                    budget -= tokens;
+                    turns.add(0, exchange);
+                } else {
+                    // Older exchanges that do not fit contribute their facts like the ones no longer kept
+                    full = true;
+                    exchange.facts().forEach(fact -> facts.add(fact.toString()));
+                }
+            }
+            List<Fact> olderFacts = new ArrayList<>(conversation.facts.values());
+            for (int i = olderFacts.size() - 1; i >= 0; i--) {
+                facts.add(olderFacts.get(i).toString());
+            }
+            List<String> window = new ArrayList<>();
+            for (String fact : facts) {
+                int tokens = tokens(fact);
+                if (tokens > budget || window.size() == properties.maxFacts()) {
+                    break;
+                }
+                budget -= tokens;
+                window.add(fact);
+            }
+            return new Window(List.copyOf(turns), List.copyOf(window));
+        }
+    }
+
+    /**
+     * Appends an exchange to the conversation, creating it if needed.
+     *
+     * @param functionResults results of the plugin functions called while answering
+     */
+    public void record(String conversationId, String userMessage, String answer,
+                       Map<FunctionResultCache.Call, String> functionResults) {
+        List<Fact> facts = new ArrayList<>(functionResults.size());
+        functionResults.forEach((call, result) -> facts.add(new Fact(
+            call.plugin() + "." + call.function() + "(" + call.argument() + ")", shorten(result))));
+        Exchange exchange = new Exchange(userMessage, answer, List.copyOf(facts));
+        synchronized (conversations) {
+            long now = clock.getAsLong();
+            evictIdle(now);
+            Conversation conversation = conversations.get(conversationId);
+            if (conversation == null) {
+                conversation = new Conversation(OBJECT_BYTES + bytes(conversationId));
+                conversations.put(conversationId, conversation);
+            } else {
+                bytes -= conversation.bytes;
+            }
+            conversation.add(exchange, properties);
+            conversation.lastUsed = now;
+            bytes += conversation.bytes;
+
+            // The conversation just used is the most recent one and is never dropped here
+            long maxBytes = properties.maxMemory().toBytes();
+            for (Iterator<Conversation> eldest = conversations.values().iterator();
+                 bytes > maxBytes && conversations.size() > 1; ) {
+                bytes -= eldest.next().bytes;
+                eldest.remove();
+                memoryEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops a conversation.
+     */
+    public void remove(String conversationId) {
+        synchronized (conversations) {
+            Conversation conversation = conversations.remove(conversationId);
+            if (conversation != null) {
+                bytes -= conversation.bytes;
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (conversations) {
+            return conversations.size();
+        }
+    }
+
+    /**
+     * Estimated memory taken by the stored conversations, in bytes.
+     */
+    public long memory() {
+        synchronized (conversations) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Estimates the tokens of a text at four characters per token, the usual ratio for English with GPT models.
+     */
+    public static int tokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    private void evictIdle(long now) {
+        long idleNanos = properties.idleTimeout().toNanos();
+        for (Iterator<Conversation> eldest = conversations.values().iterator(); eldest.hasNext(); ) {
+            Conversation conversation = eldest.next();
+            if (now - conversation.lastUsed < idleNanos) {
+                return;
+            }
+            bytes -= conversation.bytes;
+            eldest.remove();
+            idleEvictions.increment();
+        }
+    }
+
+    private String shorten(String result) {
+        return result.length() <= properties.factLength()
+            ? result
+            : result.substring(0, properties.factLength()) + "...";
+    }
+
+    private static long bytes(String text) {
+        return OBJECT_BYTES + 2L * text.length();
+    }
+
+    private static Counter evictions(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("demo.conversations.evictions")
+            .description("Conversations dropped from the store")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    /**
+     * What of a conversation goes into the prompt of its next message.
+     *
+     * @param turns the most recent exchanges, oldest first
+     * @param facts summarized function results of older exchanges, newest first
+     */
+    public record Window(List<Exchange> turns, List<String> facts) {
+
+        public static final Window EMPTY = new Window(List.of(), List.of());
+
+        public boolean isEmpty() {
+            return turns.isEmpty() && facts.isEmpty();
+        }
+    }
+
+    /**
+     * One message of the user and the answer to it.
+     *
+     * @param facts summaries of the plugin function results the answer was built from
+     */
+    public record Exchange(String userMessage, String answer, List<Fact> facts) {
+
+        long bytes() {
+            long bytes = OBJECT_BYTES + ConversationStore.bytes(userMessage) + ConversationStore.bytes(answer);
+            for (Fact fact : facts) {
+                bytes += fact.bytes();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * A plugin function result, cut to {@code fact-length} characters.
+     *
+     * @param call the function and its argument, {@code Plugin.function(argument)}
+     */
+    public record Fact(String call, String result) {
+
+        long bytes() {
+            return OBJECT_BYTES + ConversationStore.bytes(call) + ConversationStore.bytes(result);
+        }
+
+        @Override
+        public String toString() {
+            return call + ": " + result;
+        }
+    }
+
+    private static final class Conversation {
+
+        private final ArrayDeque<Exchange> recent = new ArrayDeque<>();
+        private final LinkedHashMap<String, Fact> facts = new LinkedHashMap<>();
+        private long lastUsed;
+        private long bytes;
+
+        Conversation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        void add(Exchange exchange, ConversationProperties properties) {
+            recent.addLast(exchange);
+            bytes += exchange.bytes();
+            while (recent.size() > properties.recentTurns()) {
+                Exchange older = recent.removeFirst();
+                bytes -= older.bytes();
+                for (Fact fact : older.facts()) {
+                    // A newer result of the same call replaces the older one
+                    Fact replaced = facts.remove(fact.call());
+                    if (replaced != null) {
+                        bytes -= replaced.bytes();
+                    }
+                    facts.put(fact.call(), fact);
+                    bytes += fact.bytes();
+                }
+            }
+            for (Iterator<Fact> eldest = facts.values().iterator(); facts.size() > properties.maxFacts(); ) {
+                bytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bestseller.demo.cache;
+
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.plugin.ItemPlugin;
+import com.bestseller.demo.plugin.StockPlugin;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the two-tier plugin function cache.
+ */
+class FunctionResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FunctionResultCache cache;
+    private DemoDataStore dataStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new FunctionResultCache(new FunctionCacheProperties(true, Duration.ofSeconds(30),
+            Map.of("ItemPlugin", Duration.ofMinutes(10), "StockPlugin.getStockInfo", Duration.ZERO), 100),
+            meterRegistry);
+        dataStore = new DemoDataStore();
+    }
+
+    @Test
+    void testGet_SharesResultsWithinTtl() {
+        AtomicInteger computed = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("answer", cache.get("ItemPlugin", "getItemInfo", "item-001", () -> {
+                computed.incrementAndGet();
+                return "answer";
+            }));
+        }
+
+        assertEquals(1, computed.get());
+        assertEquals(2, requests("ItemPlugin", "shared-hit"));
+        assertEquals(1, requests("ItemPlugin", "miss"));
+    }
+
+    @Test
+    void testGet_ZeroTtlIsOnlyReusedWithinTheTurn() {
+        StockPlugin stockPlugin = new StockPlugin(dataStore, cache);
+        String first = stockPlugin.getStockInfo("item-001");
+        stockPlugin.getStockInfo("item-001");
+        assertEquals(2, requests("StockPlugin", "miss"));
+
+        FunctionResultCache.Turn turn = cache.newTurn();
+        try (FunctionResultCache.Scope scope = turn.bind()) {
+            stockPlugin.getStockInfo("item-001");
+            dataStore.saveStock(new StockInfo("item-001", true, 3, "Main Warehouse"));
+            // The model sees one consistent answer for the rest of the turn
+            assertEquals(first, stockPlugin.getStockInfo("item-001"));
+        }
+
+        assertEquals(1, turn.size());
+        assertEquals(1, requests("StockPlugin", "turn-hit"));
+        assertTrue(stockPlugin.getStockInfo("item-001").contains("Quantity: 3"));
+    }
+
+    @Test
+    void testDataStoreChange_InvalidatesOnlyTheChangedRecord() {
+        StockPlugin stockPlugin = new StockPlugin(dataStore, cache);
+        ItemPlugin itemPlugin = new ItemPlugin(dataStore, cache);
+        assertTrue(stockPlugin.checkAvailability("item-001").contains("150 units"));
+        stockPlugin.checkAvailability("item-002");
+        itemPlugin.getItemInfo("item-001");
+
+        dataStore.saveStock(new StockInfo("item-001", false, 0, "Main Warehouse"));
+
+        assertEquals("No, item-001 is currently out of stock", stockPlugin.checkAvailability("item-001"));
+        stockPlugin.checkAvailability("item-002");
+        itemPlugin.getItemInfo("item-001");
+        assertEquals(3, requests("StockPlugin", "miss"));
+        assertEquals(1, requests("StockPlugin", "shared-hit"));
+        assertEquals(1, requests("ItemPlugin", "shared-hit"));
+        assertEquals(1.0, meterRegistry.get("demo.function.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testInvalidate_KeepsResultsComputedBeforeTheChangeFromBeingShared() {
+        AtomicInteger computed = new AtomicInteger();
+
+        cache.get("ItemPlugin", "getItemInfo", "item-001", () -> {
+            computed.incrementAndGet();
+            cache.invalidate("ItemPlugin", "item-001");
+            return "stale";
+        });
+        cache.get("ItemPlugin", "getItemInfo", "item-001", () -> {
+            computed.incrementAndGet();
+            return "fresh";
+        });
+
+        assertEquals(2, computed.get());
+        assertEquals("fresh", cache.get("ItemPlugin", "getItemInfo", "item-001", () -> "unused"));
+    }
+
+    @Test
+    void testGet_StopsSharingWhenFull() {
+        for (int i = 0; i < 150; i++) {
+            String itemId = "item-" + i;
+            cache.get("ItemPlugin", "getItemInfo", itemId, () -> itemId);
+        }
+
+        assertEquals(100.0, meterRegistry.get("demo.function.cache.entries").gauge().value());
+    }
+
+    private double requests(String plugin, String result) {
+        return meterRegistry.get("demo.function.cache.requests")
+            .tag("plugin", plugin)
+            .tag("result", result)
+            .counters()
+            .stream()
+            .mapToDouble(counter -> counter.count())
+            .sum();
+    }
+}
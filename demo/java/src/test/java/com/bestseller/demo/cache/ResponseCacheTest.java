@@ -0,0 +1,134 @@
+package com.bestseller.demo.cache;
+
+import com.bestseller.demo.config.ResponseCacheProperties;
+import com.bestseller.demo.data.DemoDataSource;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.model.TrackingInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the similarity-keyed chat answer cache.
+ */
+class ResponseCacheTest {
+
+    private DemoDataStore dataStore;
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        dataStore = new DemoDataStore();
+        cache = new ResponseCache(new ResponseCacheProperties(true, 0.8, Duration.ofMinutes(10), 100), dataStore,
+            new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testPrompt_NormalizesWordsAndExtractsIds() {
+        ResponseCache.Prompt prompt = cache.prompt("Where is trk-2025-001? And is ITEM-002 in stock?");
+
+        assertEquals(Set.of("TRK-2025-001", "item-002"), prompt.entities());
+        assertEquals("track #trk and #item stock", prompt.normalized());
+        assertEquals("track #trk", cache.prompt("track TRK-2025-001 please").normalized());
+    }
+
+    @Test
+    void testFind_AnswersNearDuplicatesAboutTheSameIds() {
+        cache.put(cache.prompt("where is TRK-2025-001?"), "In transit", List.of("TRK-2025-001"),
+            Set.of("TrackingPlugin"));
+
+        assertEquals("In transit", cache.find(cache.prompt("track TRK-2025-001 please")));
+        assertEquals("In transit", cache.find(cache.prompt("Where's my package trk-2025-001??")));
+        assertEquals("In transit", cache.find(cache.prompt("What is the delivery status of TRK-2025-001")));
+        assertNull(cache.find(cache.prompt("where is TRK-2025-002?")));
+        assertNull(cache.find(cache.prompt("is TRK-2025-001 insured?")));
+        assertNull(cache.find(cache.prompt("hello")));
+    }
+
+    @Test
+    void testFind_KeepsDifferentQuestionsApart() {
+        cache.put(cache.prompt("What is the price of item-001?"), "$29.99", List.of("item-001"), Set.of("ItemPlugin"));
+        cache.put(cache.prompt("Is item-001 in stock?"), "Yes, 150 units", List.of("item-001"),
+            Set.of("StockPlugin"));
+
+        assertEquals("$29.99", cache.find(cache.prompt("how much does item-001 cost")));
+        assertEquals("Yes, 150 units", cache.find(cache.prompt("is item-001 available")));
+        assertNull(cache.find(cache.prompt("Describe item-001")));
+    }
+
+    @Test
+    void testDataStoreChange_DropsAnswersThatUsedTheRecord() {
+        cache.put(cache.prompt("where is TRK-2025-001?"), "In transit", List.of("TRK-2025-001"),
+            Set.of("TrackingPlugin"));
+        cache.put(cache.prompt("is item-001 in stock?"), "Yes", List.of("item-001"), Set.of("StockPlugin"));
+        cache.put(cache.prompt("what footwear do you sell"), "Running Shoes", List.of("Footwear"),
+            Set.of("ItemPlugin"));
+        cache.put(cache.prompt("compare my two shirts"), "Both are cotton", List.of("item-001", "item-002"),
+            Set.of("ItemPlugin"));
+
+        dataStore.saveStock(new StockInfo("item-002", false, 0, "Main Warehouse"));
+
+        assertNotNull(cache.find(cache.prompt("where is TRK-2025-001?")));
+        assertNotNull(cache.find(cache.prompt("is item-001 in stock?")));
+        // The category search could have listed the changed item
+        assertNull(cache.find(cache.prompt("what footwear do you sell")));
+        assertNull(cache.find(cache.prompt("compare my two shirts")));
+
+        dataStore.saveTracking(new TrackingInfo("TRK-2025-001", "Delivered", "Customer Address", "2025-11-02"));
+
+        assertNull(cache.find(cache.prompt("where is TRK-2025-001?")));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testPut_RefusesAnswersBuiltWhileTheDataChanged() {
+        ResponseCache.Prompt prompt = cache.prompt("where is TRK-2025-001?");
+        dataStore.saveTracking(new TrackingInfo("TRK-2025-001", "Delivered", "Customer Address", "2025-11-02"));
+
+        cache.put(prompt, "In transit", List.of("TRK-2025-001"), Set.of("TrackingPlugin"));
+
+        assertNull(cache.find(cache.prompt("where is TRK-2025-001?")));
+    }
+
+    @Test
+    void testPut_SkipsLiveDataWhenTheSourceReportsNoChanges() {
+        DemoDataSource silent = new DemoDataSource() {
+            @Override
+            public Mono<ItemInfo> findItem(String itemId) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<StockInfo> findStock(String itemId) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<TrackingInfo> findTracking(String trackingNo) {
+                return Mono.empty();
+            }
+        };
+        cache = new ResponseCache(new ResponseCacheProperties(true, 0.8, Duration.ofMinutes(10), 100), silent,
+            new SimpleMeterRegistry());
+
+        cache.put(cache.prompt("where is TRK-2025-001?"), "In transit", List.of("TRK-2025-001"),
+            Set.of("TrackingPlugin"));
+        cache.put(cache.prompt("is item-001 in stock?"), "Yes", List.of("item-001"),
+            Set.of("ItemPlugin", "StockPlugin"));
+        cache.put(cache.prompt("What is the price of item-001?"), "$29.99", List.of("item-001"), Set.of("ItemPlugin"));
+
+        // Nothing would drop them when the shipment moves or the stock runs out
+        assertNull(cache.find(cache.prompt("where is TRK-2025-001?")));
+        assertNull(cache.find(cache.prompt("is item-001 in stock?")));
+        assertEquals("$29.99", cache.find(cache.prompt("What is the price of item-001?")));
+    }
+}
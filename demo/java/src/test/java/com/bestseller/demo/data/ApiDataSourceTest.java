@@ -0,0 +1,195 @@
+package com.bestseller.demo.data;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.DataSourceProperties;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.model.ItemInfo;
+import com.bestseller.demo.model.StockInfo;
+import com.bestseller.demo.plugin.TrackingPlugin;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BESTSELLER API data source against a stub server.
+ */
+class ApiDataSourceTest {
+
+    private static final Map<String, String> PRODUCTS = Map.of(
+        "item-001", """
+            {"itemId":"item-001","item":{"itemId":"item-001","name":"Classic T-Shirt","price":29.99,\
+            "description":"A comfortable cotton t-shirt","category":"Apparel","brand":"BESTSELLER","sku":"BST-TS-001"},\
+            "stock":{"inStock":true,"quantity":150,"warehouses":[{"warehouse":"Main Warehouse","inStock":true,\
+            "quantity":150,"lastUpdated":"2025-10-22T06:00:00Z"}],"lastUpdated":"2025-10-22T06:00:00Z"},\
+            "unavailable":[]}""",
+        "item-002", """
+            {"itemId":"item-002","item":{"itemId":"item-002","name":"Denim Jeans","price":79.99,\
+            "description":"Premium denim jeans","category":"Apparel"},"stock":null,"unavailable":["stock"]}""");
+
+    private static final String TRACKING = """
+        {"trackingNo":"TRK-2025-001","status":"In Transit","currentLocation":"Distribution Center - Copenhagen",\
+        "estimatedDelivery":"2025-11-02T18:00:00Z","history":[]}""";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger delayMillis = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private ApiDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/products", exchange -> respond(exchange, () -> {
+            String ids = exchange.getRequestURI().getQuery().substring("ids=".length());
+            return "[" + List.of(ids.split(",")).stream()
+                .map(PRODUCTS::get)
+                .filter(product -> product != null)
+                .collect(Collectors.joining(",")) + "]";
+        }));
+        server.createContext("/v1/track/", exchange -> respond(exchange,
+            () -> exchange.getRequestURI().getPath().endsWith("/TRK-2025-001") ? TRACKING : null));
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = dataSource(Duration.ofSeconds(5), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testFind_BatchesItemAndStockLookups() {
+        Mono<ItemInfo> item = dataSource.findItem("item-001");
+        Mono<StockInfo> stock = dataSource.findStock("item-001");
+        Mono<ItemInfo> other = dataSource.findItem("item-002");
+        Mono<ItemInfo> unknown = dataSource.findItem("item-999");
+
+        ItemInfo found = item.block();
+        assertEquals("Classic T-Shirt", found.name());
+        assertEquals("29.99", found.price().toPlainString());
+        assertEquals(new StockInfo("item-001", true, 150, "Main Warehouse"), stock.block());
+        assertEquals("Denim Jeans", other.block().name());
+        assertNull(unknown.block());
+        assertEquals(List.of("/v1/products?ids=item-001,item-002,item-999"), requests);
+    }
+
+    @Test
+    void testPrefetch_LoadsWhatTheMessageNames() throws InterruptedException {
+        dataSource.prefetch("Is ITEM-001 in stock, and where is trk-2025-001?");
+        for (int i = 0; i < 100 && requests.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(150, dataSource.findStock("item-001").block().quantity());
+        assertEquals("In Transit", dataSource.findTracking("TRK-2025-001").block().status());
+        assertNull(dataSource.findTracking("TRK-2025-404").block());
+        assertEquals(3, requests.size(), requests.toString());
+    }
+
+    @Test
+    void testAwait_NeverBlocksANonBlockingThread() {
+        Mono<Optional<StockInfo>> lookup = Mono
+            .fromSupplier(() -> DemoDataSource.await(dataSource.findStock("item-001")))
+            .subscribeOn(Schedulers.parallel());
+
+        // Like an event loop, a parallel scheduler thread only gets what is loaded already
+        assertThrows(DataUnavailableException.class, lookup::block);
+        assertEquals(150, dataSource.findStock("item-001").block().quantity());
+        assertEquals(150, lookup.block().orElseThrow().quantity());
+    }
+
+    @Test
+    void testFind_FallsBackWhenTheApiDoesNotAnswerInTime() {
+        // The first request of a JVM takes long while Netty starts up
+        assertNotNull(dataSource.findTracking("TRK-2025-001").block());
+        dataSource.close();
+        dataSource = dataSource(Duration.ZERO, Duration.ofMillis(500));
+        assertEquals("In Transit", dataSource.findTracking("TRK-2025-001").block().status());
+        // Stock the API reported as unavailable, with nothing to fall back on
+        DataUnavailableException e = assertThrows(DataUnavailableException.class,
+            () -> DemoDataSource.await(dataSource.findStock("item-002")));
+        assertTrue(e.getMessage().startsWith("Stock information for item-002"), e.getMessage());
+
+        delayMillis.set(1500);
+        assertEquals("In Transit", dataSource.findTracking("TRK-2025-001").block().status());
+
+        TrackingPlugin plugin = new TrackingPlugin(dataSource, new FunctionResultCache(
+            new FunctionCacheProperties(true, Duration.ofSeconds(30), Map.of(), 100), meterRegistry));
+        assertEquals("Tracking information for TRK-2025-002 is temporarily unavailable, please try again shortly",
+            plugin.getDeliveryStatus("TRK-2025-002"));
+        assertEquals(1.0, meterRegistry.get("demo.data.source.fallbacks").tag("result", "stale").counter().count());
+        assertEquals(2, meterRegistry.get("demo.data.source.requests")
+            .tag("endpoint", "track").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void testRequests_ReuseKeepAliveConnections() {
+        dataSource.close();
+        dataSource = dataSource(Duration.ZERO, Duration.ofSeconds(5));
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(dataSource.findTracking("TRK-2025-001").block());
+        }
+
+        assertEquals(20, requests.size());
+        // Kept-alive connections; a request may start before the previous one returned its connection to the pool
+        assertTrue(clientPorts.size() <= 2, clientPorts.toString());
+    }
+
+    private ApiDataSource dataSource(Duration prefetchTtl, Duration timeout) {
+        return new ApiDataSource(new DataSourceProperties(
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/v1", 4, Duration.ofSeconds(30),
+            Duration.ofSeconds(1), timeout, Duration.ofMillis(20), 100, prefetchTtl, 100),
+            WebClient.builder(), meterRegistry);
+    }
+
+    private void respond(HttpExchange exchange, Supplier<String> body) throws IOException {
+        requests.add(exchange.getRequestURI().toString());
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try {
+            Thread.sleep(delayMillis.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String json = body.get();
+        byte[] bytes = json == null
+            ? "{\"code\":404,\"message\":\"Not found\"}".getBytes(StandardCharsets.UTF_8)
+            : json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(json == null ? 404 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.bestseller.demo.plugin;
 
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.FunctionCacheProperties;
 import com.bestseller.demo.data.DemoDataStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -16,7 +22,8 @@ class ItemPluginTest {
     @BeforeEach
     void setUp() {
         DemoDataStore dataStore = new DemoDataStore();
-        itemPlugin = new ItemPlugin(dataStore);
+        itemPlugin = new ItemPlugin(dataStore, new FunctionResultCache(
+            new FunctionCacheProperties(false, Duration.ZERO, Map.of(), 0), new SimpleMeterRegistry()));
     }
 
     @Test
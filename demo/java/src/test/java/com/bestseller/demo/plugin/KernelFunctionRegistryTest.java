@@ -0,0 +1,148 @@
+package com.bestseller.demo.plugin;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the kernel function dispatch table.
+ */
+class KernelFunctionRegistryTest {
+
+    private static final String[][] CALLS = {
+        {"ItemPlugin", "getItemInfo", "item-001"},
+        {"itemplugin", "SEARCHITEMSBYCATEGORY", "Apparel"},
+        {"StockPlugin", "getStockInfo", "item-002"},
+        {"StockPlugin", "checkAvailability", "item-003"},
+        {"TrackingPlugin", "getTrackingInfo", "TRK-2025-001"},
+        {"trackingPlugin", "getDeliveryStatus", "TRK-2025-002"}
+    };
+
+    private ItemPlugin itemPlugin;
+    private StockPlugin stockPlugin;
+    private TrackingPlugin trackingPlugin;
+    private KernelFunctionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        DemoDataStore dataStore = new DemoDataStore();
+        FunctionResultCache cache = new FunctionResultCache(
+            new FunctionCacheProperties(false, Duration.ZERO, Map.of(), 0), new SimpleMeterRegistry());
+        itemPlugin = new ItemPlugin(dataStore, cache);
+        stockPlugin = new StockPlugin(dataStore, cache);
+        trackingPlugin = new TrackingPlugin(dataStore, cache);
+        Map<String, Object> plugins = new LinkedHashMap<>();
+        plugins.put("ItemPlugin", itemPlugin);
+        plugins.put("StockPlugin", stockPlugin);
+        plugins.put("TrackingPlugin", trackingPlugin);
+        plugins.put("OrderPlugin", new OrderPlugin());
+        registry = KernelFunctionRegistry.scan(plugins);
+    }
+
+    @Test
+    void testFind_IgnoresCase() {
+        KernelFunctionRegistry.BoundFunction function = registry.find("stockplugin", "CHECKAVAILABILITY");
+
+        assertNotNull(function);
+        assertEquals("StockPlugin", function.plugin());
+        assertEquals("checkAvailability", function.name());
+        assertEquals(List.of("itemId"), function.parameters());
+        assertEquals(stockPlugin.checkAvailability("item-001"), function.invoke("item-001"));
+    }
+
+    @Test
+    void testFind_UnknownPluginOrFunction() {
+        assertNull(registry.find("ItemPlugin", "deleteItem"));
+        assertTrue(registry.hasPlugin("itemplugin"));
+        assertNull(registry.find("PricePlugin", "getItemInfo"));
+        assertFalse(registry.hasPlugin("PricePlugin"));
+    }
+
+    @Test
+    void testInvoke_ConvertsTypedArguments() {
+        KernelFunctionRegistry.BoundFunction function = registry.find("OrderPlugin", "reserve");
+
+        assertEquals("reserved 3 of item-001 (EXPRESS, gift)",
+            function.invoke(Map.of("itemId", "item-001", "quantity", "3", "shipping", "express", "gift", "true")));
+        IllegalArgumentException notANumber = assertThrows(IllegalArgumentException.class,
+            () -> function.invoke("item-001", "three", "standard", "false"));
+        assertTrue(notANumber.getMessage().contains("quantity"));
+        assertThrows(IllegalArgumentException.class, () -> function.invoke("item-001", "3", "drone", "false"));
+        assertThrows(IllegalArgumentException.class, () -> function.invoke("item-001"));
+    }
+
+    @Test
+    void testFunctions_ListsEveryPluginFunction() {
+        Map<String, List<KernelFunctionRegistry.BoundFunction>> functions = registry.functions();
+
+        assertEquals(List.of("ItemPlugin", "OrderPlugin", "StockPlugin", "TrackingPlugin"),
+            List.copyOf(functions.keySet()));
+        assertEquals(2, functions.get("TrackingPlugin").size());
+        assertEquals(2, functions.get("OrderPlugin").size());
+    }
+
+    @Test
+    void testFind_DispatchesLikeTheRoutingItReplaced() {
+        for (String[] call : CALLS) {
+            assertEquals(chain(call[0], call[1], call[2]), registry.find(call[0], call[1]).invoke(call[2]));
+        }
+    }
+
+    /**
+     * The routing {@code SemanticKernelService.invokeKernelFunction} used before the registry.
+     */
+    private String chain(String pluginName, String functionName, String parameter) {
+        if (pluginName.equalsIgnoreCase("ItemPlugin")) {
+            if (functionName.equalsIgnoreCase("getItemInfo")) {
+                return itemPlugin.getItemInfo(parameter);
+            } else if (functionName.equalsIgnoreCase("searchItemsByCategory")) {
+                return itemPlugin.searchItemsByCategory(parameter);
+            }
+        } else if (pluginName.equalsIgnoreCase("StockPlugin")) {
+            if (functionName.equalsIgnoreCase("getStockInfo")) {
+                return stockPlugin.getStockInfo(parameter);
+            } else if (functionName.equalsIgnoreCase("checkAvailability")) {
+                return stockPlugin.checkAvailability(parameter);
+            }
+        } else if (pluginName.equalsIgnoreCase("TrackingPlugin")) {
+            if (functionName.equalsIgnoreCase("getTrackingInfo")) {
+                return trackingPlugin.getTrackingInfo(parameter);
+            } else if (functionName.equalsIgnoreCase("getDeliveryStatus")) {
+                return trackingPlugin.getDeliveryStatus(parameter);
+            }
+        }
+        return "Unknown function: " + functionName;
+    }
+
+    public static class OrderPlugin {
+
+        public enum Shipping { STANDARD, EXPRESS }
+
+        @DefineKernelFunction(name = "reserve", description = "Reserves stock for an order")
+        public String reserve(
+            @KernelFunctionParameter(name = "itemId", description = "The item") String itemId,
+            @KernelFunctionParameter(name = "quantity", description = "Units to reserve") int quantity,
+            @KernelFunctionParameter(name = "shipping", description = "Shipping method") Shipping shipping,
+            @KernelFunctionParameter(name = "gift", description = "Gift wrapping") boolean gift
+        ) {
+            return String.format("reserved %d of %s (%s%s)", quantity, itemId, shipping, gift ? ", gift" : "");
+        }
+
+        @DefineKernelFunction(name = "ping", description = "Returns its argument")
+        public String ping(@KernelFunctionParameter(name = "value", description = "Any value") String value) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.bestseller.demo.resilience;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.util.BinaryData;
+import com.bestseller.demo.config.CompletionGuardProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for guarding the requests of an Azure HTTP pipeline, against a stub endpoint that throttles.
+ */
+class CompletionGuardPolicyTest {
+
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final List<Long> requestTimes = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicReference<ConnectionPoolMetrics> connections = new AtomicReference<>();
+    private ConnectionProvider connectionProvider;
+    private HttpServer server;
+    private ExecutorService executor;
+    private HttpPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Answers 429 with Retry-After while throttled is positive, like Azure OpenAI over its quota
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", exchange -> {
+            requestTimes.add(System.nanoTime());
+            exchange.getRequestBody().readAllBytes();
+            boolean throttle = throttled.getAndDecrement() > 0;
+            byte[] body = (throttle ? "{\"error\":{\"code\":\"429\"}}" : "{\"answer\":\"ok\"}")
+                .getBytes(StandardCharsets.UTF_8);
+            if (throttle) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(throttle ? 429 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        CompletionGuard guard = new CompletionGuard(new CompletionGuardProperties(true, 2, 10, 10,
+            Duration.ofSeconds(5), Duration.ofSeconds(5), 0, 0, 0, 2, Duration.ofMillis(50), Duration.ofSeconds(1)),
+            CompletionGuardPolicy::failure, meterRegistry);
+        // Counts the connections responses hold on to, which a dropped response never gives back
+        connectionProvider = ConnectionProvider.builder("completion-guard-test")
+            .metrics(true, () -> (name, id, address, metrics) -> connections.set(metrics))
+            .build();
+        pipeline = new HttpPipelineBuilder()
+            .httpClient(new NettyAsyncHttpClientBuilder().connectionProvider(connectionProvider).build())
+            .policies(new CompletionGuardPolicy(guard))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testProcess_RetriesAThrottledRequestAfterTheRetryAfterOfItsResponse() {
+        throttled.set(1);
+
+        try (HttpResponse response = send()) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("{\"answer\":\"ok\"}", response.getBodyAsString().block());
+        }
+
+        assertEquals(2, requestTimes.size());
+        long pauseMillis = (requestTimes.get(1) - requestTimes.get(0)) / 1_000_000;
+        assertTrue(pauseMillis >= 1000, "retried after " + pauseMillis + " ms");
+        assertEquals(1.0, meterRegistry.get("demo.completion.retries").tag("status", "429").counter().count());
+        assertEquals(0.0, meterRegistry.get("demo.completion.in.flight").gauge().value());
+    }
+
+    @Test
+    void testProcess_HandsTheLastErrorResponseToTheClient() {
+        throttled.set(10);
+
+        try (HttpResponse response = send()) {
+            assertEquals(429, response.getStatusCode());
+            assertEquals("1", response.getHeaderValue("Retry-After"));
+            assertEquals("{\"error\":{\"code\":\"429\"}}", response.getBodyAsString().block());
+        }
+        assertEquals(2, requestTimes.size());
+    }
+
+    @Test
+    void testProcess_GivesBackTheConnectionsOfRetriedResponses() throws InterruptedException {
+        throttled.set(1);
+        try (HttpResponse response = send()) {
+            assertEquals(200, response.getStatusCode());
+            // Only the response handed to the client still holds its connection
+            assertTrue(connections.get().acquiredSize() <= 1, connections.get().acquiredSize() + " connections");
+        }
+        awaitNoAcquiredConnections();
+
+        throttled.set(10);
+        try (HttpResponse response = send()) {
+            assertEquals(429, response.getStatusCode());
+        }
+        awaitNoAcquiredConnections();
+        assertEquals(4, requestTimes.size());
+    }
+
+    private void awaitNoAcquiredConnections() throws InterruptedException {
+        // Connections go back to the pool on the event loop, after the response is closed
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (connections.get().acquiredSize() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, connections.get().acquiredSize());
+    }
+
+    private HttpResponse send() {
+        HttpRequest request = new HttpRequest(HttpMethod.POST,
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/chat/completions")
+            .setBody(BinaryData.fromString("{\"messages\":[{\"role\":\"user\",\"content\":\"hello\"}]}"));
+        return pipeline.send(request).block();
+    }
+}
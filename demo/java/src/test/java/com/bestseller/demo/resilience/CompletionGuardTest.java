@@ -0,0 +1,186 @@
+package com.bestseller.demo.resilience;
+
+import com.bestseller.demo.config.CompletionGuardProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the guard in front of the model, partly against a stub endpoint that throttles.
+ */
+class CompletionGuardTest {
+
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final List<Long> requestTimes = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private WebClient webClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Answers 429 with retry-after-ms while throttled is positive, like Azure OpenAI over its quota
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", exchange -> {
+            requestTimes.add(System.nanoTime());
+            boolean throttle = throttled.getAndDecrement() > 0;
+            byte[] body = (throttle ? "{\"error\":{\"code\":\"429\"}}" : "{\"answer\":\"ok\"}")
+                .getBytes(StandardCharsets.UTF_8);
+            if (throttle) {
+                exchange.getResponseHeaders().set("retry-after-ms", "300");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(throttle ? 429 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        webClient = WebClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCall_RetriesThrottledRequestsNoEarlierThanRetryAfter() {
+        CompletionGuard guard = guard(properties(4, 10, 10, Duration.ofSeconds(5), 0, 4));
+        // The first request of a JVM takes long while Netty starts up
+        assertEquals("{\"answer\":\"ok\"}", guard.call(Priority.INTERACTIVE, 10, this::complete).block());
+        requestTimes.clear();
+        throttled.set(2);
+
+        assertEquals("{\"answer\":\"ok\"}", guard.call(Priority.INTERACTIVE, 10, this::complete).block());
+
+        assertEquals(3, requestTimes.size());
+        for (int i = 1; i < requestTimes.size(); i++) {
+            long pauseMillis = (requestTimes.get(i) - requestTimes.get(i - 1)) / 1_000_000;
+            assertTrue(pauseMillis >= 300, "retried after " + pauseMillis + " ms");
+        }
+        assertEquals(2.0, meterRegistry.get("demo.completion.retries").tag("status", "429").counter().count());
+
+        throttled.set(10);
+        WebClientResponseException e = assertThrows(WebClientResponseException.class,
+            () -> guard.call(Priority.INTERACTIVE, 10, this::complete).block());
+        assertEquals(429, e.getStatusCode().value());
+    }
+
+    @Test
+    void testBulkhead_ServesInteractiveFirstAndShedsWhatDoesNotFit() {
+        CompletionGuard guard = guard(properties(1, 1, 2, Duration.ofSeconds(5), 0, 1));
+        Sinks.One<String> first = Sinks.one();
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> running = guard.call(Priority.BATCH, 10, () -> first.asMono()).toFuture();
+
+        List<CompletableFuture<String>> queued = List.of(
+            request(guard, Priority.BATCH, "batch-1", sent),
+            request(guard, Priority.BATCH, "batch-2", sent),
+            request(guard, Priority.INTERACTIVE, "interactive-1", sent));
+        assertEquals(2.0, meterRegistry.get("demo.completion.queue").tag("lane", "batch").gauge().value());
+        assertThrows(CompletionRejectedException.class,
+            () -> guard.call(Priority.INTERACTIVE, 10, () -> Mono.just("interactive-2")).block());
+        assertThrows(CompletionRejectedException.class,
+            () -> guard.call(Priority.BATCH, 10, () -> Mono.just("batch-3")).block());
+        assertTrue(sent.isEmpty());
+
+        first.tryEmitValue("first");
+        assertEquals("first", running.join());
+        queued.forEach(CompletableFuture::join);
+        assertEquals(List.of("interactive-1", "batch-1", "batch-2"), sent);
+        assertEquals(1.0, meterRegistry.get("demo.completion.shed").tag("lane", "batch").tag("reason", "queue-full")
+            .counter().count());
+        assertEquals(0.0, meterRegistry.get("demo.completion.in.flight").gauge().value());
+    }
+
+    @Test
+    void testBulkhead_ShedsRequestsThatWaitTooLong() {
+        CompletionGuard guard = guard(properties(1, 10, 10, Duration.ofMillis(100), 0, 1));
+        Sinks.One<String> first = Sinks.one();
+        guard.call(Priority.INTERACTIVE, 10, () -> first.asMono()).subscribe();
+
+        assertThrows(CompletionRejectedException.class,
+            () -> guard.call(Priority.INTERACTIVE, 10, () -> Mono.just("second")).block());
+        assertEquals(0.0, meterRegistry.get("demo.completion.queue").tag("lane", "interactive").gauge().value());
+        first.tryEmitValue("first");
+        assertEquals("third", guard.call(Priority.INTERACTIVE, 10, () -> Mono.just("third")).block());
+        assertEquals(1.0, meterRegistry.get("demo.completion.shed").tag("lane", "interactive")
+            .tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void testRateLimit_PacesRequestsToTheTokenQuota() {
+        // 10,000 tokens per second, of which ten seconds' worth may be used at once
+        CompletionGuard guard = guard(properties(4, 10, 10, Duration.ofSeconds(5), 600_000, 1));
+        List<Long> sentAt = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            guard.call(Priority.INTERACTIVE, 52_000, () -> Mono.fromSupplier(() -> sentAt.add(System.nanoTime())))
+                .block();
+        }
+
+        // The second request is 4,000 tokens over the bucket, which refills 10,000 per second
+        long pausedMillis = (sentAt.get(1) - sentAt.get(0)) / 1_000_000;
+        assertTrue(pausedMillis >= 380, "second request after " + pausedMillis + " ms");
+    }
+
+    @Test
+    void testFailure_ReadsEitherRetryAfterHeader() {
+        assertEquals(Duration.ofMillis(1500), CompletionGuard.Failure.of(429, "1500", "2").retryAfter());
+        assertEquals(Duration.ofSeconds(2), CompletionGuard.Failure.of(429, null, "2").retryAfter());
+        assertNull(CompletionGuard.Failure.of(503, null, "soon").retryAfter());
+        assertNull(CompletionGuard.Failure.of(503, null, null).retryAfter());
+        Duration date = CompletionGuard.Failure.of(429, null, "Thu, 01 Jan 1970 00:00:00 GMT").retryAfter();
+        assertEquals(Duration.ZERO, date);
+    }
+
+    private Mono<String> complete() {
+        return webClient.post().uri("/chat/completions").retrieve().bodyToMono(String.class);
+    }
+
+    private static CompletableFuture<String> request(CompletionGuard guard, Priority priority, String name,
+                                                     List<String> sent) {
+        return guard.call(priority, 10, () -> Mono.fromSupplier(() -> {
+            sent.add(name);
+            return name;
+        })).toFuture();
+    }
+
+    private CompletionGuard guard(CompletionGuardProperties properties) {
+        return new CompletionGuard(properties, error -> error instanceof WebClientResponseException e
+            ? CompletionGuard.Failure.of(e.getStatusCode().value(), e.getHeaders().getFirst("retry-after-ms"),
+                e.getHeaders().getFirst("Retry-After"))
+            : null, meterRegistry);
+    }
+
+    private static CompletionGuardProperties properties(int maxConcurrent, int interactiveQueue, int batchQueue,
+                                                        Duration wait, int tokensPerMinute, int maxAttempts) {
+        return new CompletionGuardProperties(true, maxConcurrent, interactiveQueue, batchQueue, wait, wait,
+            tokensPerMinute, 0, 0, maxAttempts, Duration.ofMillis(50), Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,124 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.cache.ResponseCache;
+import com.bestseller.demo.config.ConversationProperties;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.config.ResponseCacheProperties;
+import com.bestseller.demo.config.ScriptedChatProperties;
+import com.bestseller.demo.config.ToolCallProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ChatEvent;
+import com.bestseller.demo.plugin.ItemPlugin;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.bestseller.demo.plugin.StockPlugin;
+import com.bestseller.demo.plugin.TrackingPlugin;
+import com.bestseller.demo.session.ConversationStore;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.plugin.KernelPluginFactory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the scripted chat completion service driving the chat flow without a model.
+ */
+class ScriptedChatCompletionServiceTest {
+
+    private final DemoDataStore dataStore = new DemoDataStore();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ToolCallExecutor toolCallExecutor;
+    private Map<String, Object> plugins;
+    private KernelFunctionRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        toolCallExecutor.close();
+    }
+
+    @Test
+    void testChat_ReplaysTheScriptedFunctionCalls() {
+        SemanticKernelService service = service(Duration.ZERO, Duration.ZERO, true);
+
+        String answer = service.chat("Is item-001 in stock?").block();
+        assertEquals(registry.find("ItemPlugin", "getItemInfo").invoke("item-001") + " "
+            + registry.find("StockPlugin", "getStockInfo").invoke("item-001"), answer);
+        assertEquals(ScriptedChatCompletionService.GREETING, service.chat("Hi there").block());
+
+        // The two calls run side by side, so either may be reported first
+        List<ChatEvent> events = service.chatStream("Where are TRK-2025-001 and TRK-2025-002?").collectList().block();
+        assertEquals(Set.of(
+            ChatEvent.functionCall("TrackingPlugin", "getDeliveryStatus", "TRK-2025-001"),
+            ChatEvent.functionCall("TrackingPlugin", "getDeliveryStatus", "TRK-2025-002")),
+            Set.copyOf(events.subList(0, 2)));
+        assertEquals(ChatEvent.done(), events.get(events.size() - 1));
+    }
+
+    @Test
+    void testChatStream_TakesTheConfiguredLatency() {
+        SemanticKernelService service = service(Duration.ofMillis(100), Duration.ofMillis(10), true);
+
+        long started = System.nanoTime();
+        List<ChatEvent> events = service.chatStream("Where is TRK-2025-001?").collectList().block();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Two model round trips, one deciding on the function call and one answering, then the tokens
+        long tokens = events.stream().filter(event -> event.type().equals("token")).count();
+        assertTrue(elapsedMillis >= 200 + 10 * tokens, elapsedMillis + " ms for " + tokens + " tokens");
+    }
+
+    @Test
+    void testScript_RejectsUnknownFunctions() {
+        service(Duration.ZERO, Duration.ZERO, false);
+        ScriptedChatProperties properties = new ScriptedChatProperties(true, Duration.ZERO, Duration.ZERO,
+            List.of(new ScriptedChatProperties.Step("item-\\d+", List.of("ItemPlugin.getPrice"))));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> new ScriptedChatCompletionService(properties, registry));
+        assertTrue(e.getMessage().contains("ItemPlugin.getPrice"));
+    }
+
+    private SemanticKernelService service(Duration latency, Duration tokenInterval, boolean caching) {
+        FunctionResultCache functionCache = new FunctionResultCache(
+            new FunctionCacheProperties(caching, Duration.ofSeconds(30), Map.of(), 10_000), meterRegistry);
+        plugins = new LinkedHashMap<>();
+        plugins.put("ItemPlugin", new ItemPlugin(dataStore, functionCache));
+        plugins.put("StockPlugin", new StockPlugin(dataStore, functionCache));
+        plugins.put("TrackingPlugin", new TrackingPlugin(dataStore, functionCache));
+        registry = KernelFunctionRegistry.scan(plugins);
+        ScriptedChatCompletionService chatCompletion = new ScriptedChatCompletionService(
+            new ScriptedChatProperties(true, latency, tokenInterval, List.of()), registry);
+        toolCallExecutor = new ToolCallExecutor(new ToolCallProperties(true, Duration.ofSeconds(30)), meterRegistry);
+        return new SemanticKernelService(
+            kernel(chatCompletion),
+            registry,
+            functionCache,
+            toolCallExecutor,
+            new ResponseCache(new ResponseCacheProperties(false, 0.8, Duration.ofMinutes(10), 1000), dataStore,
+                meterRegistry),
+            new ConversationStore(new ConversationProperties(
+                DataSize.ofMegabytes(64), Duration.ofMinutes(30), 6, 20, 160, 2000), meterRegistry),
+            dataStore,
+            new ChatMetrics(meterRegistry)
+        );
+    }
+
+    /**
+     * The kernel as {@code SemanticKernelConfig} builds it.
+     */
+    private Kernel kernel(ChatCompletionService chatCompletion) {
+        Kernel.Builder builder = Kernel.builder().withAIService(ChatCompletionService.class, chatCompletion);
+        plugins.forEach((name, plugin) -> builder.withPlugin(KernelPluginFactory.createFromObject(plugin, name)));
+        return builder.build();
+    }
+}
@@ -0,0 +1,326 @@
+package com.bestseller.demo.service;
+
+import com.azure.ai.openai.models.CompletionsUsage;
+import com.azure.core.util.BinaryData;
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.cache.ResponseCache;
+import com.bestseller.demo.config.ConversationProperties;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.config.ResponseCacheProperties;
+import com.bestseller.demo.config.ScriptedChatProperties;
+import com.bestseller.demo.config.ToolCallProperties;
+import com.bestseller.demo.data.DemoDataStore;
+import com.bestseller.demo.model.ChatEvent;
+import com.bestseller.demo.model.TrackingInfo;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.bestseller.demo.plugin.TrackingPlugin;
+import com.bestseller.demo.session.ConversationStore;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatMessageContent;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.orchestration.FunctionResultMetadata;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the chat flow against the scripted chat completion service, which asks for function calls like a
+ * model: a message naming shipments takes one round trip for the calls and one for the answer.
+ */
+class SemanticKernelServiceTest {
+
+    private DemoDataStore dataStore;
+    private SimpleMeterRegistry meterRegistry;
+    private TrackingPlugin trackingPlugin;
+    private RecordingChatCompletionService chatCompletion;
+    private ToolCallExecutor toolCallExecutor;
+    private SemanticKernelService service;
+
+    @BeforeEach
+    void setUp() {
+        dataStore = new DemoDataStore();
+        meterRegistry = new SimpleMeterRegistry();
+        FunctionResultCache functionCache = new FunctionResultCache(
+            new FunctionCacheProperties(true, Duration.ofSeconds(30), Map.of(), 100), meterRegistry);
+        trackingPlugin = new TrackingPlugin(dataStore, functionCache);
+        KernelFunctionRegistry registry = KernelFunctionRegistry.scan(
+            Map.of("TrackingPlugin", trackingPlugin, "EssayPlugin", new EssayPlugin()));
+        chatCompletion = new RecordingChatCompletionService(new ScriptedChatProperties(true, Duration.ZERO,
+            Duration.ZERO, List.of(
+                new ScriptedChatProperties.Step("TRK-\\d{4}-\\d+", List.of("TrackingPlugin.getDeliveryStatus")),
+                new ScriptedChatProperties.Step("essay", List.of("EssayPlugin.write")))),
+            registry);
+        Kernel kernel = Kernel.builder()
+            .withAIService(ChatCompletionService.class, chatCompletion)
+            .build();
+        toolCallExecutor = new ToolCallExecutor(new ToolCallProperties(true, Duration.ofSeconds(5)), meterRegistry);
+        service = new SemanticKernelService(
+            kernel,
+            registry,
+            functionCache,
+            toolCallExecutor,
+            new ResponseCache(new ResponseCacheProperties(true, 0.8, Duration.ofMinutes(10), 100), dataStore,
+                meterRegistry),
+            new ConversationStore(new ConversationProperties(
+                DataSize.ofMegabytes(64), Duration.ofMinutes(30), 6, 20, 160, 2000), meterRegistry),
+            dataStore,
+            new ChatMetrics(meterRegistry)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        toolCallExecutor.close();
+    }
+
+    @Test
+    void testChat_AnswersNearDuplicatesFromTheCache() {
+        String first = service.chat("where is TRK-2025-001?").block();
+        String second = service.chat("Track TRK-2025-001 please").block();
+
+        assertEquals(first, second);
+        assertTrue(first.contains("In Transit"));
+        assertEquals(2, chatCompletion.requests().size());
+
+        service.chat("where is TRK-2025-002?").block();
+        assertEquals(4, chatCompletion.requests().size());
+    }
+
+    @Test
+    void testChat_AsksAgainAfterTheShipmentChanged() {
+        service.chat("where is TRK-2025-001?").block();
+
+        dataStore.saveTracking(new TrackingInfo("TRK-2025-001", "Delivered", "Customer Address", "2025-11-02"));
+        String answer = service.chat("where is TRK-2025-001?").block();
+
+        assertEquals(4, chatCompletion.requests().size());
+        assertTrue(answer.contains("has been delivered"));
+    }
+
+    @Test
+    void testChat_SendsTheEarlierTurnsOfTheConversation() {
+        String first = service.chat("conversation-1", "where is TRK-2025-001?").block();
+        service.chat("conversation-1", "where is TRK-2025-001?").block();
+
+        // A follow-up depends on the conversation, so it is not answered from the response cache
+        assertEquals(4, chatCompletion.requests().size());
+        List<String> history = chatCompletion.requests().get(2).stream()
+            .map(ChatMessageContent::getContent)
+            .toList();
+        assertTrue(history.contains(first));
+        assertEquals(2, history.stream().filter(message -> "where is TRK-2025-001?".equals(message)).count());
+
+        service.chat("conversation-2", "where is TRK-2025-001?").block();
+        assertEquals(4, chatCompletion.requests().size());
+    }
+
+    @Test
+    void testChat_RunsTheFunctionCallsTheModelAsksFor() {
+        String answer = service.chat("where are TRK-2025-001 and TRK-2025-002?").block();
+
+        // The model's reply with the calls goes back to it, followed by one tool message per call in order
+        assertEquals(2, chatCompletion.requests().size());
+        List<ChatMessageContent<?>> messages = chatCompletion.requests().get(1);
+        assertInstanceOf(OpenAIChatMessageContent.class, messages.get(messages.size() - 3));
+        ChatMessageContent<?> first = messages.get(messages.size() - 2);
+        ChatMessageContent<?> second = messages.get(messages.size() - 1);
+        assertEquals(AuthorRole.TOOL, first.getAuthorRole());
+        assertEquals("call-1", first.getMetadata().getId());
+        assertEquals(trackingPlugin.getDeliveryStatus("TRK-2025-001"), first.getContent());
+        assertEquals("call-2", second.getMetadata().getId());
+        assertEquals(trackingPlugin.getDeliveryStatus("TRK-2025-002"), second.getContent());
+        assertEquals(first.getContent() + " " + second.getContent(), answer);
+    }
+
+    @Test
+    void testChat_RecordsTokensFunctionCallsAndPhases() {
+        String first;
+        String greeting;
+        Metrics.addRegistry(meterRegistry);
+        try {
+            first = service.chat("where is TRK-2025-001?").block();
+            service.chat("Track TRK-2025-001 please").block();
+            greeting = service.chatStream("hello").filter(event -> event.type().equals("token"))
+                .map(ChatEvent::text)
+                .collect(Collectors.joining())
+                .block();
+        } finally {
+            Metrics.removeRegistry(meterRegistry);
+        }
+
+        assertEquals(1, meterRegistry.get("demo.chat.turns").tag("mode", "chat").tag("outcome", "success")
+            .timer().count());
+        assertEquals(1, meterRegistry.get("demo.chat.turns").tag("mode", "chat").tag("outcome", "cached")
+            .timer().count());
+        assertEquals(1, meterRegistry.get("demo.chat.turns").tag("mode", "stream").tag("outcome", "success")
+            .timer().count());
+        assertEquals(2, meterRegistry.get("demo.chat.phase").tag("phase", "model").timer().count());
+        DistributionSummary functionCalls = meterRegistry.get("demo.chat.function.calls").summary();
+        assertEquals(2, functionCalls.count());
+        assertEquals(1.0, functionCalls.totalAmount());
+        assertEquals(1, meterRegistry.get("demo.kernel.function").tag("function", "getDeliveryStatus")
+            .tag("outcome", "success").timer().count());
+        // The scripted service reports no usage; the function calls it asked for count as well
+        assertTrue(tokens("completion", "estimated")
+            > ConversationStore.tokens(first) + ConversationStore.tokens(greeting));
+        assertTrue(tokens("prompt", "estimated") > 0);
+        assertEquals(0.0, tokens("prompt", "reported"));
+    }
+
+    @Test
+    void testChat_RecordsTheUsageTheServiceReports() {
+        chatCompletion.reportUsage(BinaryData.fromString("{\"prompt_tokens\":120,\"completion_tokens\":30,"
+            + "\"total_tokens\":150}").toObject(CompletionsUsage.class));
+
+        service.chat("where is TRK-2025-001?").block();
+
+        // Both requests of the turn, the one asking for the function call and the one answering
+        assertEquals(240.0, tokens("prompt", "reported"));
+        assertEquals(60.0, tokens("completion", "reported"));
+        assertEquals(0.0, tokens("prompt", "estimated"));
+        assertEquals(0.0, tokens("completion", "estimated"));
+    }
+
+    @Test
+    void testChat_AnswersNothingWhenTheServiceRepliesWithNoMessages() {
+        chatCompletion.replyWithNothing();
+
+        assertEquals("", service.chat("where is TRK-2025-001?").block());
+        assertEquals(1, chatCompletion.requests().size());
+    }
+
+    @Test
+    void testChatStream_ReportsFunctionCallsThenTokens() {
+        List<ChatEvent> events = service.chatStream("where is TRK-2025-001?").collectList().block();
+
+        assertEquals(ChatEvent.functionCall("TrackingPlugin", "getDeliveryStatus", "TRK-2025-001"), events.get(0));
+        assertEquals(ChatEvent.done(), events.get(events.size() - 1));
+        String answer = events.stream()
+            .filter(event -> event.type().equals("token"))
+            .map(ChatEvent::text)
+            .collect(Collectors.joining());
+        assertEquals(trackingPlugin.getDeliveryStatus("TRK-2025-001"), answer);
+        assertTrue(events.size() > 3);
+
+        assertEquals(List.of(ChatEvent.token(answer), ChatEvent.done()),
+            service.chatStream("Track TRK-2025-001 please").collectList().block());
+        assertEquals(2, chatCompletion.requests().size());
+    }
+
+    @Test
+    void testChatStream_StopsTheCompletionWhenCancelled() throws InterruptedException {
+        List<ChatEvent> events = service.chatStream("write me an essay").take(3).collectList().block();
+
+        assertEquals(3, events.size());
+        // The cancel reaches the completion on the thread streaming it, possibly after the take completed here
+        assertTrue(chatCompletion.awaitCancelled());
+        // Tokens are only generated as they are requested
+        assertTrue(chatCompletion.streamedTokens() < 100, chatCompletion.streamedTokens() + " tokens");
+    }
+
+    private double tokens(String type, String source) {
+        return meterRegistry.get("demo.chat.tokens").tag("type", type).tag("source", source).counter().count();
+    }
+
+    /**
+     * The scripted service, recording the messages of every request and the tokens it streams, and reporting
+     * usage once given some.
+     */
+    private static class RecordingChatCompletionService extends ScriptedChatCompletionService {
+
+        private final List<List<ChatMessageContent<?>>> requests = new CopyOnWriteArrayList<>();
+        private final AtomicInteger streamedTokens = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile CompletionsUsage usage;
+        private volatile boolean silent;
+
+        RecordingChatCompletionService(ScriptedChatProperties properties, KernelFunctionRegistry functions) {
+            super(properties, functions);
+        }
+
+        List<List<ChatMessageContent<?>>> requests() {
+            return requests;
+        }
+
+        int streamedTokens() {
+            return streamedTokens.get();
+        }
+
+        boolean awaitCancelled() throws InterruptedException {
+            return cancelled.await(1, TimeUnit.SECONDS);
+        }
+
+        void reportUsage(CompletionsUsage usage) {
+            this.usage = usage;
+        }
+
+        void replyWithNothing() {
+            silent = true;
+        }
+
+        @Override
+        public Mono<List<ChatMessageContent<?>>> getChatMessageContentsAsync(
+            ChatHistory chatHistory,
+            Kernel kernel,
+            InvocationContext invocationContext
+        ) {
+            requests.add(List.copyOf(chatHistory.getMessages()));
+            return super.getChatMessageContentsAsync(chatHistory, kernel, invocationContext)
+                .map(messages -> silent ? List.<ChatMessageContent<?>>of() : messages)
+                .map(messages -> usage == null ? messages : messages.stream().map(this::withUsage).toList());
+        }
+
+        @Override
+        public Flux<ChatMessageContent<?>> streamChatMessageContentsAsync(
+            ChatHistory chatHistory,
+            Kernel kernel,
+            InvocationContext invocationContext
+        ) {
+            requests.add(List.copyOf(chatHistory.getMessages()));
+            return super.streamChatMessageContentsAsync(chatHistory, kernel, invocationContext)
+                .doOnNext(reply -> streamedTokens.incrementAndGet())
+                .doOnCancel(cancelled::countDown);
+        }
+
+        private ChatMessageContent<?> withUsage(ChatMessageContent<?> message) {
+            List<OpenAIFunctionToolCall> toolCalls = message instanceof OpenAIChatMessageContent<?> openAi
+                ? openAi.getToolCall() : null;
+            return new OpenAIChatMessageContent<>(message.getAuthorRole(), message.getContent(), getModelId(), null,
+                null, FunctionResultMetadata.build("chatcmpl-" + requests.size(), usage, OffsetDateTime.now()),
+                toolCalls);
+        }
+    }
+
+    public static class EssayPlugin {
+
+        @DefineKernelFunction(name = "write", description = "Writes an essay on the topic")
+        public String write(@KernelFunctionParameter(name = "topic") String topic) {
+            return "word ".repeat(10_000);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bestseller.demo.service;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.FunctionCacheProperties;
+import com.bestseller.demo.config.ToolCallProperties;
+import com.bestseller.demo.plugin.KernelFunctionRegistry;
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for running the function calls of a round side by side within the deadline of their turn.
+ */
+class ToolCallExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SleepPlugin plugin;
+    private FunctionResultCache cache;
+    private KernelFunctionRegistry registry;
+    private ToolCallExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FunctionResultCache(new FunctionCacheProperties(false, Duration.ZERO, Map.of(), 0),
+            meterRegistry);
+        plugin = new SleepPlugin(cache);
+        registry = KernelFunctionRegistry.scan(Map.of("SleepPlugin", plugin));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testInvokeAll_RunsTheCallsOfARoundSideBySide() {
+        executor = new ToolCallExecutor(new ToolCallProperties(true, Duration.ofSeconds(5)), meterRegistry);
+        FunctionResultCache.Turn turn = cache.newTurn();
+
+        long started = System.nanoTime();
+        List<String> results = invokeAll(turn, 300, 100, 200);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(List.of("300", "100", "200"), results);
+        assertTrue(elapsedMillis >= 300 && elapsedMillis < 550, elapsedMillis + " ms");
+        // The calls ran in the turn, and overlapped
+        assertEquals(3, turn.calls());
+        assertTrue(turn.busyNanos() < turn.functionNanos() - 200_000_000L,
+            turn.busyNanos() + " ns busy for " + turn.functionNanos() + " ns of calls");
+    }
+
+    @Test
+    void testInvokeAll_RunsOneCallAfterTheOtherUnlessParallel() {
+        executor = new ToolCallExecutor(new ToolCallProperties(false, Duration.ofSeconds(5)), meterRegistry);
+
+        long started = System.nanoTime();
+        List<String> results = invokeAll(cache.newTurn(), 150, 100);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(List.of("150", "100"), results);
+        assertTrue(elapsedMillis >= 250, elapsedMillis + " ms");
+    }
+
+    @Test
+    void testInvokeAll_CancelsCallsAtTheTurnsDeadline() throws InterruptedException {
+        executor = new ToolCallExecutor(new ToolCallProperties(true, Duration.ofMillis(200)), meterRegistry);
+        FunctionResultCache.Turn turn = cache.newTurn();
+
+        assertEquals(List.of("50", "SleepPlugin.sleep(5000) did not answer in time."), invokeAll(turn, 50, 5000));
+        assertTrue(plugin.interrupted.await(1, TimeUnit.SECONDS));
+
+        // A later round of the same turn only gets what is left of the deadline
+        assertEquals(List.of("SleepPlugin.sleep(100) did not answer in time."), invokeAll(turn, 100));
+        assertEquals(2.0, meterRegistry.get("demo.chat.function.timeouts").tag("plugin", "SleepPlugin")
+            .counter().count());
+    }
+
+    private List<String> invokeAll(FunctionResultCache.Turn turn, int... millis) {
+        KernelFunctionRegistry.BoundFunction sleep = registry.find("SleepPlugin", "sleep");
+        List<ToolCallExecutor.Call> calls = Arrays.stream(millis)
+            .mapToObj(ms -> new ToolCallExecutor.Call(sleep, Map.of("millis", String.valueOf(ms))))
+            .toList();
+        return executor.invokeAll(calls).contextWrite(Context.of(FunctionResultCache.TURN_KEY, turn)).block();
+    }
+
+    public static class SleepPlugin {
+
+        private final FunctionResultCache cache;
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        SleepPlugin(FunctionResultCache cache) {
+            this.cache = cache;
+        }
+
+        @DefineKernelFunction(name = "sleep", description = "Returns its argument after as many milliseconds")
+        public String sleep(@KernelFunctionParameter(name = "millis") long millis) {
+            return cache.get("SleepPlugin", "sleep", String.valueOf(millis), () -> {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                return String.valueOf(millis);
+            });
+        }
+    }
+}
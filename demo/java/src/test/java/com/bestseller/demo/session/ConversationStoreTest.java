@@ -0,0 +1,124 @@
+package com.bestseller.demo.session;
+
+import com.bestseller.demo.cache.FunctionResultCache;
+import com.bestseller.demo.config.ConversationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the conversation store and the prompt window it builds.
+ */
+class ConversationStoreTest {
+
+    private static final String ANSWER = "Tracking number TRK-2025-001 is In Transit. Current location: "
+        + "Distribution Center. Estimated delivery: 2025-10-28.";
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ConversationStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = store(DataSize.ofMegabytes(64), 2000);
+    }
+
+    @Test
+    void testWindow_KeepsRecentTurnsAndFactsOfOlderOnes() {
+        for (int i = 1; i <= 10; i++) {
+            store.record("c1", "where is TRK-2025-00" + i + "?", "answer " + i, results(i));
+        }
+
+        ConversationStore.Window window = store.window("c1", 100);
+
+        assertEquals(6, window.turns().size());
+        assertEquals("answer 5", window.turns().get(0).answer());
+        assertEquals("answer 10", window.turns().get(5).answer());
+        assertEquals(List.of(
+            "TrackingPlugin.getDeliveryStatus(TRK-2025-004): status 4",
+            "TrackingPlugin.getDeliveryStatus(TRK-2025-003): status 3",
+            "TrackingPlugin.getDeliveryStatus(TRK-2025-002): status 2",
+            "TrackingPlugin.getDeliveryStatus(TRK-2025-001): status 1"), window.facts());
+        assertTrue(store.window("c2", 100).isEmpty());
+    }
+
+    @Test
+    void testWindow_StaysWithinTheTokenBudget() {
+        store = store(DataSize.ofMegabytes(64), 250);
+        for (int i = 0; i < 200; i++) {
+            store.record("c1", "where is TRK-2025-001? " + i, ANSWER, results(i));
+        }
+
+        ConversationStore.Window window = store.window("c1", 50);
+
+        int tokens = 50;
+        for (ConversationStore.Exchange exchange : window.turns()) {
+            tokens += ConversationStore.tokens(exchange.userMessage()) + ConversationStore.tokens(exchange.answer());
+        }
+        for (String fact : window.facts()) {
+            tokens += ConversationStore.tokens(fact);
+        }
+        assertTrue(tokens <= 250, tokens + " tokens");
+        assertTrue(window.turns().size() < 6);
+        assertEquals("where is TRK-2025-001? 199", window.turns().get(window.turns().size() - 1).userMessage());
+        // Turns that no longer fit are summarized by their function results
+        int summarized = 199 - window.turns().size();
+        assertEquals(String.format("TrackingPlugin.getDeliveryStatus(TRK-2025-%03d): status %d",
+            summarized, summarized), window.facts().get(0));
+    }
+
+    @Test
+    void testRecord_EvictsLeastRecentlyUsedBeyondTheMemoryLimit() {
+        store.record("c1", "hello", ANSWER, Map.of());
+        long perConversation = store.memory();
+        store = store(DataSize.ofBytes(perConversation * 3), 2000);
+
+        store.record("c1", "hello", ANSWER, Map.of());
+        store.record("c2", "hello", ANSWER, Map.of());
+        store.record("c3", "hello", ANSWER, Map.of());
+        store.window("c1", 0);
+        store.record("c4", "hello", ANSWER, Map.of());
+
+        assertEquals(3, store.size());
+        assertTrue(store.memory() <= perConversation * 3);
+        assertTrue(store.window("c2", 0).isEmpty());
+        assertFalse(store.window("c1", 0).isEmpty());
+        assertEquals(1.0, meterRegistry.get("demo.conversations.evictions").tag("reason", "memory").counter().count());
+    }
+
+    @Test
+    void testWindow_DropsIdleConversations() {
+        store.record("c1", "hello", ANSWER, Map.of());
+        clock.addAndGet(Duration.ofMinutes(20).toNanos());
+        store.record("c2", "hello", ANSWER, Map.of());
+        clock.addAndGet(Duration.ofMinutes(15).toNanos());
+
+        assertTrue(store.window("c1", 0).isEmpty());
+        assertFalse(store.window("c2", 0).isEmpty());
+        assertEquals(1, store.size());
+
+        store.remove("c2");
+        assertEquals(0, store.size());
+        assertEquals(0, store.memory());
+    }
+
+    private ConversationStore store(DataSize maxMemory, int tokenBudget) {
+        return new ConversationStore(
+            new ConversationProperties(maxMemory, Duration.ofMinutes(30), 6, 20, 160, tokenBudget),
+            meterRegistry, clock::get);
+    }
+
+    private static Map<FunctionResultCache.Call, String> results(int i) {
+        return Map.of(new FunctionResultCache.Call("TrackingPlugin", "getDeliveryStatus",
+            String.format("TRK-2025-%03d", i)), "status " + i);
+    }
+}
@@ -2,7 +2,8 @@ import { useState, useRef, useEffect } from 'react';
 import { MessageList } from './MessageList';
 import { ChatInput } from './ChatInput';
 import type { Message } from '../types/chat';
-import { processUserMessage } from '../services/chatService';
+import { processUserMessage, startConversation, streamChatMessage } from '../services/chatService';
+import { CHAT_API_URL } from '../config/api';
 import './ChatWindow.css';
 
 export const ChatWindow = () => {
@@ -15,7 +16,11 @@ export const ChatWindow = () => {
     },
   ]);
   const [isLoading, setIsLoading] = useState(false);
+  const [isStreaming, setIsStreaming] = useState(false);
+  const [status, setStatus] = useState<string>();
   const messagesEndRef = useRef<HTMLDivElement>(null);
+  const streamRef = useRef<AbortController | null>(null);
+  const conversationRef = useRef<string | undefined>(undefined);
 
   const scrollToBottom = () => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
@@ -25,6 +30,42 @@ export const ChatWindow = () => {
     scrollToBottom();
   }, [messages]);
 
+  // Closing the chat stops an answer that is still streaming
+  useEffect(() => () => streamRef.current?.abort(), []);
+
+  const streamReply = async (text: string, botId: string) => {
+    const controller = new AbortController();
+    streamRef.current = controller;
+    setIsStreaming(true);
+    try {
+      conversationRef.current ??= await startConversation();
+      await streamChatMessage(
+        text,
+        {
+          onFunctionCall: (plugin, functionName, argument) => {
+            setStatus(`${plugin}.${functionName}(${argument ?? ''})`);
+          },
+          onConversation: (conversationId) => {
+            conversationRef.current = conversationId;
+          },
+          onToken: (token) => {
+            setIsLoading(false);
+            setMessages((prev) =>
+              prev.some((message) => message.id === botId)
+                ? prev.map((message) => (message.id === botId ? { ...message, text: message.text + token } : message))
+                : [...prev, { id: botId, text: token, sender: 'bot', timestamp: new Date() }],
+            );
+          },
+        },
+        { conversationId: conversationRef.current, signal: controller.signal },
+      );
+    } finally {
+      streamRef.current = null;
+      setIsStreaming(false);
+      setStatus(undefined);
+    }
+  };
+
   const handleSendMessage = async (text: string) => {
     const userMessage: Message = {
       id: Date.now().toString(),
@@ -37,6 +78,10 @@ export const ChatWindow = () => {
     setIsLoading(true);
 
     try {
+      if (CHAT_API_URL) {
+        await streamReply(text, (Date.now() + 1).toString());
+        return;
+      }
       const botResponse = await processUserMessage(text);
       const botMessage: Message = {
         id: (Date.now() + 1).toString(),
@@ -65,9 +110,9 @@ export const ChatWindow = () => {
         <h1>BESTSELLER Assistant</h1>
         <p>Your AI-powered shopping companion</p>
       </div>
-      <MessageList messages={messages} isLoading={isLoading} />
+      <MessageList messages={messages} isLoading={isLoading} status={status} />
       <div ref={messagesEndRef} />
-      <ChatInput onSend={handleSendMessage} disabled={isLoading} />
+      <ChatInput onSend={handleSendMessage} disabled={isLoading || isStreaming} />
     </div>
   );
 };
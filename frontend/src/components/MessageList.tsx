@@ -6,15 +6,16 @@ import './MessageList.css';
 interface MessageListProps {
   messages: Message[];
   isLoading: boolean;
+  status?: string;
 }
 
-export const MessageList = ({ messages, isLoading }: MessageListProps) => {
+export const MessageList = ({ messages, isLoading, status }: MessageListProps) => {
   return (
     <div className="message-list">
       {messages.map((message) => (
         <MessageBubble key={message.id} message={message} />
       ))}
-      {isLoading && <TypingIndicator />}
+      {isLoading && <TypingIndicator status={status} />}
     </div>
   );
 };
@@ -1,12 +1,17 @@
 import './TypingIndicator.css';
 
-export const TypingIndicator = () => {
+interface TypingIndicatorProps {
+  status?: string;
+}
+
+export const TypingIndicator = ({ status }: TypingIndicatorProps) => {
   return (
     <div className="typing-indicator">
       <div className="typing-bubble">
         <span></span>
         <span></span>
         <span></span>
+        {status && <em className="typing-status">{status}</em>}
       </div>
     </div>
   );
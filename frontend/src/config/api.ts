@@ -8,3 +8,7 @@ export const configureAPI = () => {
   // You can add more configuration here if needed
   // For example, authentication tokens, custom headers, etc.
 };
+
+// Base URL of the Semantic Kernel demo (e.g. /api/demo); when set, chat messages are answered by its AI
+// assistant as a stream instead of being matched to API calls in the browser
+export const CHAT_API_URL: string | undefined = import.meta.env.VITE_CHAT_API_URL;
@@ -1,5 +1,101 @@
 import { ItemsService, StockService, TrackService } from '../api';
 import type { ItemSummary, ItemDetail, StockInfo, TrackingInfo } from '../api';
+import { CHAT_API_URL } from '../config/api';
+import type { ChatStreamEvent } from '../types/chat';
+
+export interface ChatStreamHandlers {
+  onToken: (text: string) => void;
+  onFunctionCall?: (plugin: string, functionName: string, argument?: string) => void;
+  onConversation?: (conversationId: string) => void;
+}
+
+export interface ChatStreamOptions {
+  // Continues this conversation, as returned by startConversation; without it the message is answered on its own
+  conversationId?: string;
+  signal?: AbortSignal;
+}
+
+/**
+ * Starts a conversation on the server; messages sent with the returned ID are answered in its context.
+ */
+export const startConversation = async (): Promise<string> => {
+  const response = await fetch(`${CHAT_API_URL}/chat/conversations`, { method: 'POST' });
+  if (!response.ok) {
+    throw new Error(`Starting a conversation failed with status ${response.status}`);
+  }
+  const { conversationId } = (await response.json()) as { conversationId: string };
+  return conversationId;
+};
+
+/**
+ * Sends a message to the AI assistant and reads the answer as server-sent events while it is generated.
+ * Resolves with the complete answer. Aborting the signal closes the connection, which also stops the
+ * completion on the server; the stream is read only as fast as the handlers consume it.
+ */
+export const streamChatMessage = async (
+  message: string,
+  handlers: ChatStreamHandlers,
+  { conversationId, signal }: ChatStreamOptions = {},
+): Promise<string> => {
+  const response = await fetch(`${CHAT_API_URL}/chat/stream`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json', Accept: 'text/event-stream' },
+    body: JSON.stringify({ message, conversationId }),
+    signal,
+  });
+  if (!response.body) {
+    throw new Error(`Chat request failed with status ${response.status}`);
+  }
+  const responseConversationId = response.headers.get('X-Conversation-Id');
+  if (responseConversationId) {
+    handlers.onConversation?.(responseConversationId);
+  }
+
+  const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = '';
+  let answer = '';
+  try {
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) {
+        throw new Error('The chat stream ended before the answer was complete');
+      }
+      buffer += value.replace(/\r\n/g, '\n');
+
+      // Events are separated by a blank line; the JSON payload is in the data field
+      let end: number;
+      while ((end = buffer.indexOf('\n\n')) >= 0) {
+        const data = buffer
+          .slice(0, end)
+          .split('\n')
+          .filter((line) => line.startsWith('data:'))
+          .map((line) => line.slice(5).replace(/^ /, ''))
+          .join('\n');
+        buffer = buffer.slice(end + 2);
+        if (!data) {
+          continue;
+        }
+
+        const event = JSON.parse(data) as ChatStreamEvent;
+        switch (event.type) {
+          case 'function_call':
+            handlers.onFunctionCall?.(event.plugin, event.function, event.argument);
+            break;
+          case 'token':
+            answer += event.text;
+            handlers.onToken(event.text);
+            break;
+          case 'error':
+            throw new Error(event.text);
+          case 'done':
+            return answer;
+        }
+      }
+    }
+  } finally {
+    reader.cancel().catch(() => undefined);
+  }
+};
 
 export const processUserMessage = async (message: string): Promise<string> => {
   const lowerMessage = message.toLowerCase().trim();
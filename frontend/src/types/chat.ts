@@ -5,3 +5,12 @@ export interface Message {
   timestamp: Date;
   isError?: boolean;
 }
+
+/**
+ * Events of POST /api/demo/chat/stream, one per server-sent event.
+ */
+export type ChatStreamEvent =
+  | { type: 'function_call'; plugin: string; function: string; argument?: string }
+  | { type: 'token'; text: string }
+  | { type: 'done' }
+  | { type: 'error'; text: string };
@@ -4,4 +4,10 @@ import react from '@vitejs/plugin-react'
 // https://vite.dev/config/
 export default defineConfig({
   plugins: [react()],
+  server: {
+    proxy: {
+      // Semantic Kernel demo, for VITE_CHAT_API_URL=/api/demo
+      '/api/demo': process.env.DEMO_API_URL ?? 'http://localhost:8080',
+    },
+  },
 })
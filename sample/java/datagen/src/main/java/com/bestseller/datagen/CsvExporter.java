@@ -0,0 +1,47 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes every table to {@code <table>.csv} plus a {@code load.sql} with the matching {@code \copy}
+ * commands, for loading with {@code psql} where the generator cannot reach the database.
+ */
+final class CsvExporter {
+
+    private final Path directory;
+
+    CsvExporter(Path directory) {
+        this.directory = directory;
+    }
+
+    long export(Table table) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(table.name() + ".csv");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            CsvRowWriter out = new CsvRowWriter(writer);
+            for (long source = 0; source < table.sources(); source++) {
+                table.write(source, out);
+            }
+            return out.rows();
+        }
+    }
+
+    void writeLoadScript(List<Table> tables) throws IOException {
+        StringBuilder script = new StringBuilder("-- Generated by bestseller-datagen, run from this directory:\n")
+            .append("-- psql -d ai-demo -f load.sql\n");
+        for (Table table : tables) {
+            script.append("\\copy ").append(table.name())
+                .append(" (").append(String.join(", ", table.columns())).append(") FROM '")
+                .append(table.name()).append(".csv' (FORMAT csv)\n");
+        }
+        for (Table table : tables) {
+            script.append("ANALYZE ").append(table.name()).append(";\n");
+        }
+        Files.writeString(directory.resolve("load.sql"), script, StandardCharsets.UTF_8);
+    }
+}
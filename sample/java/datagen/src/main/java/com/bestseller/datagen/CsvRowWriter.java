@@ -0,0 +1,102 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+/**
+ * Writes rows in the CSV dialect of PostgreSQL {@code COPY ... (FORMAT csv)}: an unquoted empty field is
+ * {@code NULL}, and fields containing a delimiter, quote or line break are quoted.
+ */
+final class CsvRowWriter {
+
+    private final Writer out;
+    private boolean firstField = true;
+    private long rows;
+
+    CsvRowWriter(Writer out) {
+        this.out = out;
+    }
+
+    CsvRowWriter text(String value) throws IOException {
+        separator();
+        if (value.isEmpty()) {
+            out.write("\"\"");
+        } else if (needsQuotes(value)) {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+        return this;
+    }
+
+    CsvRowWriter number(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes an amount held in cents as a decimal with two fraction digits.
+     */
+    CsvRowWriter cents(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value / 100));
+        out.write('.');
+        long fraction = value % 100;
+        if (fraction < 10) {
+            out.write('0');
+        }
+        out.write(Long.toString(fraction));
+        return this;
+    }
+
+    CsvRowWriter bool(boolean value) throws IOException {
+        separator();
+        out.write(value ? 't' : 'f');
+        return this;
+    }
+
+    CsvRowWriter timestamp(Instant value) throws IOException {
+        if (value == null) {
+            return nil();
+        }
+        separator();
+        out.write(value.toString());
+        return this;
+    }
+
+    CsvRowWriter nil() throws IOException {
+        separator();
+        return this;
+    }
+
+    void endRow() throws IOException {
+        out.write('\n');
+        firstField = true;
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,85 @@
+package com.bestseller.datagen;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line entry point for the BESTSELLER dataset generator.
+ *
+ * <pre>
+ * java -jar target/bestseller-datagen-1.0.0.jar --scale=L --seed=42 --truncate=true
+ * java -jar target/bestseller-datagen-1.0.0.jar --scale=M --output=target/dataset
+ * </pre>
+ */
+public final class DataGenApplication {
+
+    private DataGenApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        ScaleFactor scale = ScaleFactor.valueOf(options.getOrDefault("scale", "S").toUpperCase(Locale.ROOT));
+        Dataset dataset = new Dataset(
+            scale,
+            Long.parseLong(options.getOrDefault("seed", "42")),
+            Instant.parse(options.getOrDefault("as-of", "2025-11-01T00:00:00Z"))
+        );
+        List<Table> tables = dataset.tables();
+        System.out.printf("Generating scale %s (%,d items, %,d shipments), seed %d, as of %s%n",
+            scale, scale.items(), scale.shipments(), dataset.seed(), dataset.asOf());
+
+        if (options.containsKey("output")) {
+            CsvExporter exporter = new CsvExporter(Path.of(options.get("output")));
+            for (Table table : tables) {
+                long started = System.nanoTime();
+                report(table.name(), exporter.export(table), System.nanoTime() - started);
+            }
+            exporter.writeLoadScript(tables);
+            return;
+        }
+
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        try (PostgresLoader loader = new PostgresLoader(
+            options.getOrDefault("url", "jdbc:postgresql://localhost:5432/ai-demo"),
+            options.getOrDefault("user", "postgres"),
+            options.getOrDefault("password", "postgres"),
+            threads,
+            Integer.parseInt(options.getOrDefault("chunk-size", "50000"))
+        )) {
+            if (Boolean.parseBoolean(options.getOrDefault("truncate", "false"))) {
+                loader.truncate(tables);
+            }
+            for (Table table : tables) {
+                long started = System.nanoTime();
+                report(table.name(), loader.load(table), System.nanoTime() - started);
+            }
+            for (Table table : tables) {
+                loader.analyze(table);
+            }
+        }
+    }
+
+    private static void report(String table, long rows, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s %,14d rows %9.1f s %,12.0f rows/s%n",
+            table, rows, seconds, rows / Math.max(seconds, 1e-9));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bestseller.datagen;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The generated tables in load order (parents before children), fully determined by scale, seed and the
+ * point in time the data is generated for.
+ */
+record Dataset(ScaleFactor scale, long seed, Instant asOf) {
+
+    List<Table> tables() {
+        Shipments shipments = new Shipments(seed, scale.shipments(), asOf);
+        return List.of(
+            new ItemTable(seed, scale.items(), asOf),
+            new StockTable(seed, scale.items(), asOf),
+            new TrackingTable(shipments),
+            new TrackingEventTable(shipments)
+        );
+    }
+}
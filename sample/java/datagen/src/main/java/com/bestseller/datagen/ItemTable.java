@@ -0,0 +1,123 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code items} table. Product lines and brands follow a Zipfian distribution, so a few categories
+ * and brands dominate the catalog as they do in production and indexes on them see realistic skew.
+ */
+final class ItemTable implements Table {
+
+    private static final String[] COLORS = {
+        "Black", "White", "Navy", "Grey", "Blue", "Beige", "Green", "Brown", "Red", "Khaki", "Pink", "Teal"
+    };
+
+    private static final ProductLine[] LINES = {
+        new ProductLine("T-Shirt", "Apparel", "TS", 1_999, 4_999,
+            new String[] {"Crew Neck", "V-Neck", "Henley", "Oversized", "Slim Fit", "Pocket", "Striped", "Graphic"},
+            new String[] {"BESTSELLER", "JACK & JONES", "ONLY", "VERO MODA", "SELECTED", "VILA"}),
+        new ProductLine("Jeans", "Apparel", "JNS", 4_999, 12_999,
+            new String[] {"Skinny", "Slim", "Regular", "Relaxed", "Bootcut", "Straight"},
+            new String[] {"JACK & JONES", "ONLY", "VERO MODA", "SELECTED", "NOISY MAY"}),
+        new ProductLine("Dress", "Apparel", "DRS", 3_999, 14_999,
+            new String[] {"Midi", "Maxi", "Wrap", "Shirt", "Slip", "Knitted"},
+            new String[] {"VERO MODA", "ONLY", "VILA", "Y.A.S", "OBJECT", "PIECES"}),
+        new ProductLine("Jacket", "Apparel", "JKT", 7_999, 29_999,
+            new String[] {"Denim", "Bomber", "Parka", "Windbreaker", "Blazer", "Puffer"},
+            new String[] {"JACK & JONES", "SELECTED", "ONLY", "VERO MODA", "BESTSELLER"}),
+        new ProductLine("Sneakers", "Footwear", "SNK", 5_999, 17_999,
+            new String[] {"Running", "Court", "Canvas", "Chunky", "Trail", "Leather"},
+            new String[] {"JACK & JONES", "ONLY", "BESTSELLER", "SELECTED"}),
+        new ProductLine("Knit", "Apparel", "KNT", 3_499, 9_999,
+            new String[] {"Cable", "Ribbed", "Cardigan", "Turtleneck", "Merino", "Cropped"},
+            new String[] {"VERO MODA", "SELECTED", "VILA", "OBJECT", "JACK & JONES"}),
+        new ProductLine("Bag", "Accessories", "BAG", 2_499, 19_999,
+            new String[] {"Tote", "Crossbody", "Backpack", "Clutch", "Shopper", "Weekender"},
+            new String[] {"PIECES", "ONLY", "VERO MODA", "JACK & JONES"}),
+        new ProductLine("Boots", "Footwear", "BOT", 7_999, 24_999,
+            new String[] {"Chelsea", "Ankle", "Biker", "Hiking", "Lace-Up", "Heeled"},
+            new String[] {"SELECTED", "VERO MODA", "JACK & JONES", "Y.A.S"}),
+        new ProductLine("Scarf", "Accessories", "SCF", 1_499, 4_999,
+            new String[] {"Wool", "Checked", "Silk", "Knitted", "Printed", "Oversized"},
+            new String[] {"PIECES", "VILA", "OBJECT", "ONLY"}),
+        new ProductLine("Kids Hoodie", "Kidswear", "KHD", 1_999, 4_999,
+            new String[] {"Zip", "Printed", "Fleece", "Basic", "Colour Block", "Sweat"},
+            new String[] {"NAME IT", "LMTD", "BESTSELLER"})
+    };
+
+    private static final Zipf LINE_POPULARITY = new Zipf(LINES.length, 1.0);
+    private static final Duration MAX_AGE = Duration.ofDays(730);
+
+    private final long seed;
+    private final long items;
+    private final Instant asOf;
+
+    ItemTable(long seed, long items, Instant asOf) {
+        this.seed = seed;
+        this.items = items;
+        this.asOf = asOf;
+    }
+
+    @Override
+    public String name() {
+        return "items";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("item_id", "name", "price", "description", "category", "brand", "sku",
+            "created_at", "updated_at");
+    }
+
+    @Override
+    public long sources() {
+        return items;
+    }
+
+    @Override
+    public void write(long index, CsvRowWriter out) throws IOException {
+        SplittableRandom random = RowRandom.of(seed, RowRandom.ITEMS, index);
+        ProductLine line = LINES[LINE_POPULARITY.sample(random)];
+        String style = line.styles()[random.nextInt(line.styles().length)];
+        String color = COLORS[random.nextInt(COLORS.length)];
+        String brand = line.brandPopularity().sample(random, line.brands());
+        // Prices end in .99 or .49, like real price points
+        long cents = RowRandom.between(random, line.minCents() / 100, line.maxCents() / 100) * 100
+            + (random.nextInt(4) == 0 ? 49 : 99);
+        Instant created = asOf.minusSeconds(random.nextLong(MAX_AGE.toSeconds()));
+        Instant updated = created.plusSeconds(random.nextLong(Duration.between(created, asOf).toSeconds() + 1));
+
+        out.text(Keys.itemId(index))
+            .text(style + " " + line.product() + " " + color)
+            .cents(cents)
+            .text(description(random, style, line.product(), color))
+            .text(line.category())
+            .text(brand)
+            .text(line.skuPrefix() + "-" + Keys.pad(index + 1, 8))
+            .timestamp(created)
+            .timestamp(updated)
+            .endRow();
+    }
+
+    private static String description(SplittableRandom random, String style, String product, String color) {
+        String subject = style.toLowerCase() + " " + product.toLowerCase() + " in " + color.toLowerCase();
+        return switch (random.nextInt(3)) {
+            case 0 -> "High-quality " + subject + ". Made from a premium blend for comfort and durability.";
+            case 1 -> "A versatile " + subject + " with a modern fit. Easy to style for everyday wear.";
+            default -> "Our " + subject + " combines a timeless look with responsibly sourced materials.";
+        };
+    }
+
+    private record ProductLine(String product, String category, String skuPrefix, long minCents, long maxCents,
+                               String[] styles, String[] brands, Zipf brandPopularity) {
+
+        ProductLine(String product, String category, String skuPrefix, long minCents, long maxCents,
+                    String[] styles, String[] brands) {
+            this(product, category, skuPrefix, minCents, maxCents, styles, brands, new Zipf(brands.length, 0.8));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bestseller.datagen;
+
+/**
+ * Primary keys of generated rows. Key numbers are 1-based and zero-padded to a fixed width, so
+ * {@code item-%08d} and {@code TRK-%010d} address them from the load test.
+ */
+final class Keys {
+
+    private Keys() {
+    }
+
+    static String itemId(long index) {
+        return "item-" + pad(index + 1, 8);
+    }
+
+    static String trackingNo(long index) {
+        return "TRK-" + pad(index + 1, 10);
+    }
+
+    static String pad(long number, int width) {
+        String digits = Long.toString(number);
+        return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
+    }
+
+    /**
+     * Popularity of the key with the given rank in {@code (0, 1]}: 1 for the most popular key,
+     * falling logarithmically towards 0 for the least popular one.
+     */
+    static double heat(long rank, long keys) {
+        return 1 - Math.log(rank + 1) / Math.log(keys + 1);
+    }
+}
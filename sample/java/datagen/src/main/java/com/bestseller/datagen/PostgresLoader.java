@@ -0,0 +1,116 @@
+package com.bestseller.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams generated rows into PostgreSQL with {@code COPY ... FROM STDIN}.
+ * <p>
+ * Each table is split into chunks of sources that are generated and copied in parallel over a fixed set of
+ * connections, one {@code COPY} per chunk. Rows are written straight into the copy stream, so memory use does
+ * not grow with the scale factor. Sessions run with {@code synchronous_commit = off}; a crash during the load
+ * can lose the last chunks, which a rerun with {@code --truncate} repairs.
+ */
+final class PostgresLoader implements AutoCloseable {
+
+    private static final int COPY_BUFFER = 1 << 16;
+
+    private final BlockingQueue<Connection> connections;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    PostgresLoader(String url, String user, String password, int threads, int chunkSize) throws SQLException {
+        this.connections = new ArrayBlockingQueue<>(threads);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.chunkSize = chunkSize;
+        for (int i = 0; i < threads; i++) {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET synchronous_commit = off");
+            }
+            connections.add(connection);
+        }
+    }
+
+    /**
+     * Empties the tables, children first, and restarts their id sequences.
+     */
+    void truncate(List<Table> tables) throws Exception {
+        List<String> names = new ArrayList<>();
+        tables.forEach(table -> names.add(0, table.name()));
+        execute("TRUNCATE " + String.join(", ", names) + " RESTART IDENTITY");
+    }
+
+    long load(Table table) throws Exception {
+        String sql = "COPY " + table.name() + " (" + String.join(", ", table.columns()) + ") FROM STDIN (FORMAT csv)";
+        List<Future<Long>> chunks = new ArrayList<>();
+        for (long from = 0; from < table.sources(); from += chunkSize) {
+            long start = from;
+            long end = Math.min(table.sources(), from + chunkSize);
+            chunks.add(executor.submit(() -> copy(table, sql, start, end)));
+        }
+        long rows = 0;
+        for (Future<Long> chunk : chunks) {
+            rows += chunk.get();
+        }
+        return rows;
+    }
+
+    void analyze(Table table) throws Exception {
+        execute("ANALYZE " + table.name());
+    }
+
+    private long copy(Table table, String sql, long from, long to) throws Exception {
+        Connection connection = connections.take();
+        try {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, COPY_BUFFER);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER);
+            CsvRowWriter rows = new CsvRowWriter(writer);
+            try (writer) {
+                for (long source = from; source < to; source++) {
+                    table.write(source, rows);
+                }
+            }
+            return rows.rows();
+        } catch (IOException e) {
+            throw new UncheckedIOException("COPY into " + table.name() + " failed at sources " + from + "-" + to, e);
+        } finally {
+            connections.add(connection);
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        Connection connection = connections.take();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            connections.add(connection);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        executor.shutdownNow();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+}
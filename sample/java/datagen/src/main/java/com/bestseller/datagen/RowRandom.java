@@ -0,0 +1,33 @@
+package com.bestseller.datagen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random sources derived from the seed, a stream and a row number alone.
+ * <p>
+ * Every row is generated from its own source, so a row never depends on the rows before it: the data is
+ * identical whether it is generated in one pass, in parallel chunks or only partly.
+ */
+final class RowRandom {
+
+    static final long ITEMS = 1;
+    static final long STOCK = 2;
+    static final long SHIPMENTS = 3;
+
+    private RowRandom() {
+    }
+
+    static SplittableRandom of(long seed, long stream, long row) {
+        return new SplittableRandom(mix(mix(seed + stream * 0x9E3779B97F4A7C15L) + row));
+    }
+
+    static long between(SplittableRandom random, long min, long max) {
+        return min + random.nextLong(max - min + 1);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
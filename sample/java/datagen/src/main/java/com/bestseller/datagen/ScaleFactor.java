@@ -0,0 +1,29 @@
+package com.bestseller.datagen;
+
+/**
+ * Dataset sizes. Each step is ten times the previous one, so results of the same benchmark or query plan
+ * test are comparable across runs and machines as long as the scale factor and seed are the same.
+ */
+public enum ScaleFactor {
+
+    S(10_000, 25_000),
+    M(100_000, 250_000),
+    L(1_000_000, 2_500_000),
+    XL(10_000_000, 25_000_000);
+
+    private final long items;
+    private final long shipments;
+
+    ScaleFactor(long items, long shipments) {
+        this.items = items;
+        this.shipments = shipments;
+    }
+
+    public long items() {
+        return items;
+    }
+
+    public long shipments() {
+        return shipments;
+    }
+}
@@ -0,0 +1,124 @@
+package com.bestseller.datagen;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates shipments with realistic status progressions:
+ * {@code Picked Up -> Processed -> In Transit (1-3 hubs) -> Out for Delivery -> Delivered}, with a small
+ * share failing delivery and some of those returned to the sender. Events after the generation time are cut
+ * off, so recent shipments are still under way.
+ * <p>
+ * Shipment numbers are ordered by recency: shipment 1 is the newest. With the load test's Zipfian key ranks
+ * the most requested tracking numbers are therefore the in-flight ones, as in production.
+ */
+final class Shipments {
+
+    static final String PICKED_UP = "Picked Up";
+    static final String PROCESSED = "Processed";
+    static final String IN_TRANSIT = "In Transit";
+    static final String OUT_FOR_DELIVERY = "Out for Delivery";
+    static final String DELIVERED = "Delivered";
+    static final String RETURNED = "Returned";
+    static final String FAILED = "Failed";
+
+    private static final String[] ORIGINS = {
+        "Copenhagen", "Brande", "Hamburg", "Stockholm", "Amsterdam", "Oslo", "Warsaw", "Madrid"
+    };
+    private static final String[] CITIES = {
+        "Copenhagen", "Stockholm", "Oslo", "Berlin", "Hamburg", "Amsterdam", "Helsinki", "Gothenburg",
+        "Malmö", "Aarhus", "Munich", "Paris", "Madrid", "Milan", "Vienna", "Zurich", "Warsaw", "Brussels"
+    };
+    private static final String[] HUB_TYPES = {"Sorting Facility - ", "Distribution Hub - "};
+
+    private static final Zipf ORIGIN_VOLUME = new Zipf(ORIGINS.length, 1.2);
+    private static final Zipf CITY_VOLUME = new Zipf(CITIES.length, 1.0);
+    private static final Duration HISTORY = Duration.ofDays(60);
+
+    private final long seed;
+    private final long shipments;
+    private final Instant asOf;
+
+    Shipments(long seed, long shipments, Instant asOf) {
+        this.seed = seed;
+        this.shipments = shipments;
+        this.asOf = asOf;
+    }
+
+    long count() {
+        return shipments;
+    }
+
+    Shipment shipment(long index) {
+        SplittableRandom random = RowRandom.of(seed, RowRandom.SHIPMENTS, index);
+        long ageSeconds = (long) ((index + random.nextDouble()) / shipments * HISTORY.toSeconds());
+        Instant created = asOf.minusSeconds(ageSeconds);
+        String origin = ORIGIN_VOLUME.sample(random, ORIGINS);
+        String destination = CITY_VOLUME.sample(random, CITIES);
+        Instant estimatedDelivery = created.plus(Duration.ofDays(RowRandom.between(random, 2, 6)));
+
+        List<Event> events = new ArrayList<>(8);
+        Instant time = created;
+        events.add(new Event(time, "Main Warehouse - " + origin, PICKED_UP, "Package picked up from sender"));
+        time = later(random, time, 2, 12);
+        events.add(new Event(time, "Processing Center - " + origin, PROCESSED, "Package processed at facility"));
+        int hubs = (int) RowRandom.between(random, 1, 3);
+        for (int hub = 0; hub < hubs; hub++) {
+            String city = hub == hubs - 1 ? destination : CITY_VOLUME.sample(random, CITIES);
+            time = later(random, time, 6, 30);
+            events.add(new Event(time, HUB_TYPES[random.nextInt(HUB_TYPES.length)] + city, IN_TRANSIT,
+                "Package in transit to " + destination));
+        }
+        time = later(random, time, 4, 16);
+        events.add(new Event(time, "Local Delivery Hub - " + destination, OUT_FOR_DELIVERY,
+            "Package out for delivery"));
+
+        double outcome = random.nextDouble();
+        time = later(random, time, 1, 8);
+        if (outcome < 0.04) {
+            events.add(new Event(time, "Customer Address - " + destination, FAILED,
+                "Delivery attempt failed - recipient not available"));
+            if (outcome < 0.02) {
+                time = later(random, time, 24, 72);
+                events.add(new Event(time, "Main Warehouse - " + origin, RETURNED, "Package returned to sender"));
+            }
+        } else {
+            events.add(new Event(time, "Customer Address - " + destination, DELIVERED, "Package delivered"));
+        }
+
+        events.removeIf(event -> event.timestamp().isAfter(asOf));
+        return new Shipment(Keys.trackingNo(index), created, estimatedDelivery, events);
+    }
+
+    private static Instant later(SplittableRandom random, Instant time, long minHours, long maxHours) {
+        return time.plusSeconds(RowRandom.between(random, minHours * 3600, maxHours * 3600));
+    }
+
+    /**
+     * A shipment and its events, oldest first. The shipment's status and location are those of its last event.
+     */
+    record Shipment(String trackingNo, Instant createdAt, Instant estimatedDelivery, List<Event> events) {
+
+        Event last() {
+            return events.get(events.size() - 1);
+        }
+
+        String status() {
+            return last().status();
+        }
+
+        String currentLocation() {
+            return last().location();
+        }
+
+        Instant deliveryDate() {
+            return DELIVERED.equals(status()) ? last().timestamp() : null;
+        }
+    }
+
+    record Event(Instant timestamp, String location, String status, String description) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code stock} table: one to {@value #MAX_WAREHOUSES} warehouse rows per item.
+ * <p>
+ * Item popularity follows the item number (item 1 is the most popular, as in the load test's Zipfian key
+ * ranks): popular items are held in more warehouses, in larger quantities, are rarely out of stock and were
+ * updated more recently. Rows always satisfy {@code stock_quantity_consistency} and
+ * {@code unique_item_warehouse}.
+ */
+final class StockTable implements Table {
+
+    static final int MAX_WAREHOUSES = 8;
+
+    private static final String[] WAREHOUSES = {
+        "Main Warehouse - Copenhagen",
+        "Distribution Center - Hamburg",
+        "Regional Warehouse - Stockholm",
+        "Distribution Center - Brande",
+        "Regional Warehouse - Oslo",
+        "Distribution Hub - Malmö",
+        "Regional Warehouse - Helsinki",
+        "Distribution Center - Amsterdam",
+        "Regional Warehouse - Warsaw",
+        "Distribution Center - Madrid",
+        "Regional Warehouse - Milan",
+        "Distribution Center - Lyon"
+    };
+
+    private static final Zipf WAREHOUSE_SIZE = new Zipf(WAREHOUSES.length, 1.1);
+    private static final Duration MAX_STALENESS = Duration.ofDays(30);
+
+    private final long seed;
+    private final long items;
+    private final Instant asOf;
+
+    StockTable(long seed, long items, Instant asOf) {
+        this.seed = seed;
+        this.items = items;
+        this.asOf = asOf;
+    }
+
+    @Override
+    public String name() {
+        return "stock";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("item_id", "in_stock", "quantity", "warehouse", "last_updated", "created_at", "updated_at");
+    }
+
+    @Override
+    public long sources() {
+        return items;
+    }
+
+    @Override
+    public void write(long index, CsvRowWriter out) throws IOException {
+        SplittableRandom random = RowRandom.of(seed, RowRandom.STOCK, index);
+        double heat = Keys.heat(index, items);
+        int warehouses = 1 + random.nextInt(3) + (int) (heat * (MAX_WAREHOUSES - 3));
+        boolean[] used = new boolean[WAREHOUSES.length];
+        String itemId = Keys.itemId(index);
+
+        for (int i = 0; i < warehouses; i++) {
+            int warehouse = WAREHOUSE_SIZE.sample(random);
+            while (used[warehouse]) {
+                warehouse = (warehouse + 1) % WAREHOUSES.length;
+            }
+            used[warehouse] = true;
+
+            boolean inStock = random.nextDouble() >= 0.12 - 0.1 * heat;
+            long quantity = inStock ? 1 + (long) (random.nextDouble() * (20 + 480 * heat)) : 0;
+            Instant lastUpdated = asOf.minusSeconds(
+                (long) (random.nextDouble() * (1 - 0.9 * heat) * MAX_STALENESS.toSeconds()));
+            Instant created = lastUpdated.minus(Duration.ofDays(RowRandom.between(random, 1, 365)));
+
+            out.text(itemId)
+                .bool(inStock)
+                .number(quantity)
+                .text(WAREHOUSES[warehouse])
+                .timestamp(lastUpdated)
+                .timestamp(created)
+                .timestamp(lastUpdated)
+                .endRow();
+        }
+    }
+}
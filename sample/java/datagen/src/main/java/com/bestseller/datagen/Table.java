@@ -0,0 +1,19 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One generated table. Rows are produced per source (an item or a shipment), so a table with several rows
+ * per source, like {@code stock} or {@code tracking_events}, is split into chunks at source boundaries.
+ */
+interface Table {
+
+    String name();
+
+    List<String> columns();
+
+    long sources();
+
+    void write(long source, CsvRowWriter out) throws IOException;
+}
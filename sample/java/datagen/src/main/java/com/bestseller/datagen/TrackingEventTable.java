@@ -0,0 +1,45 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The {@code tracking_events} table: the history of every shipment, oldest event first.
+ */
+final class TrackingEventTable implements Table {
+
+    private final Shipments shipments;
+
+    TrackingEventTable(Shipments shipments) {
+        this.shipments = shipments;
+    }
+
+    @Override
+    public String name() {
+        return "tracking_events";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("tracking_no", "timestamp", "location", "status", "description", "created_at");
+    }
+
+    @Override
+    public long sources() {
+        return shipments.count();
+    }
+
+    @Override
+    public void write(long index, CsvRowWriter out) throws IOException {
+        Shipments.Shipment shipment = shipments.shipment(index);
+        for (Shipments.Event event : shipment.events()) {
+            out.text(shipment.trackingNo())
+                .timestamp(event.timestamp())
+                .text(event.location())
+                .text(event.status())
+                .text(event.description())
+                .timestamp(event.timestamp())
+                .endRow();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bestseller.datagen;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The {@code tracking} table: one row per shipment, satisfying {@code tracking_delivery_date_logic}.
+ */
+final class TrackingTable implements Table {
+
+    private final Shipments shipments;
+
+    TrackingTable(Shipments shipments) {
+        this.shipments = shipments;
+    }
+
+    @Override
+    public String name() {
+        return "tracking";
+    }
+
+    @Override
+    public List<String> columns() {
+        return List.of("tracking_no", "status", "current_location", "estimated_delivery", "delivery_date",
+            "created_at", "updated_at");
+    }
+
+    @Override
+    public long sources() {
+        return shipments.count();
+    }
+
+    @Override
+    public void write(long index, CsvRowWriter out) throws IOException {
+        Shipments.Shipment shipment = shipments.shipment(index);
+        out.text(shipment.trackingNo())
+            .text(shipment.status())
+            .text(shipment.currentLocation())
+            .timestamp(shipment.estimatedDelivery())
+            .timestamp(shipment.deliveryDate())
+            .timestamp(shipment.createdAt())
+            .timestamp(shipment.last().timestamp())
+            .endRow();
+    }
+}
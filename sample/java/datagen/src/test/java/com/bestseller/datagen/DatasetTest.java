@@ -0,0 +1,94 @@
+package com.bestseller.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetTest {
+
+    private static final Instant AS_OF = Instant.parse("2025-11-01T00:00:00Z");
+
+    @Test
+    void rows_dependOnlyOnSeedAndSource() throws IOException {
+        Table items = new Dataset(ScaleFactor.S, 42, AS_OF).tables().get(0);
+
+        assertEquals(render(items, 1234, 1235), render(items, 1234, 1235));
+        assertEquals(render(items, 0, 100).split("\n")[57], render(items, 57, 58).trim());
+        assertNotEquals(render(items, 0, 100),
+            render(new Dataset(ScaleFactor.S, 43, AS_OF).tables().get(0), 0, 100));
+    }
+
+    @Test
+    void stock_satisfiesConstraintsAndFavoursPopularItems() throws IOException {
+        Table stock = new Dataset(ScaleFactor.S, 42, AS_OF).tables().get(1);
+        Set<String> itemWarehouses = new HashSet<>();
+        Map<String, Integer> warehousesPerItem = new HashMap<>();
+
+        for (String row : render(stock, 0, stock.sources()).split("\n")) {
+            String[] fields = row.split(",");
+            boolean inStock = fields[1].equals("t");
+            long quantity = Long.parseLong(fields[2]);
+            assertTrue(inStock ? quantity > 0 : quantity == 0, "stock_quantity_consistency: " + row);
+            assertTrue(itemWarehouses.add(fields[0] + "|" + fields[3]), "unique_item_warehouse: " + row);
+            warehousesPerItem.merge(fields[0], 1, Integer::sum);
+        }
+
+        assertEquals(stock.sources(), warehousesPerItem.size());
+        assertTrue(warehousesPerItem.get(Keys.itemId(0)) > warehousesPerItem.get(Keys.itemId(9_999)));
+    }
+
+    @Test
+    void shipments_progressThroughValidStatuses() {
+        Shipments shipments = new Shipments(42, 10_000, AS_OF);
+        List<String> order = List.of(Shipments.PICKED_UP, Shipments.PROCESSED, Shipments.IN_TRANSIT,
+            Shipments.OUT_FOR_DELIVERY, Shipments.DELIVERED);
+        Map<String, Integer> statuses = new HashMap<>();
+
+        for (long index = 0; index < shipments.count(); index++) {
+            Shipments.Shipment shipment = shipments.shipment(index);
+            statuses.merge(shipment.status(), 1, Integer::sum);
+            assertEquals(Shipments.PICKED_UP, shipment.events().get(0).status());
+            for (int i = 1; i < shipment.events().size(); i++) {
+                Shipments.Event previous = shipment.events().get(i - 1);
+                Shipments.Event event = shipment.events().get(i);
+                assertTrue(event.timestamp().isAfter(previous.timestamp()));
+                assertTrue(!AS_OF.isBefore(event.timestamp()));
+                if (order.contains(event.status())) {
+                    assertTrue(order.indexOf(event.status()) >= order.indexOf(previous.status()), shipment.toString());
+                }
+            }
+            if (shipment.status().equals(Shipments.DELIVERED)) {
+                assertEquals(shipment.last().timestamp(), shipment.deliveryDate());
+            } else {
+                assertNull(shipment.deliveryDate());
+            }
+        }
+
+        // The newest shipments are still on their way, the oldest have all arrived
+        assertTrue(shipments.shipment(0).status().equals(Shipments.PICKED_UP));
+        assertTrue(statuses.get(Shipments.DELIVERED) > shipments.count() / 2);
+        assertTrue(statuses.containsKey(Shipments.IN_TRANSIT));
+        assertTrue(statuses.containsKey(Shipments.FAILED));
+    }
+
+    private static String render(Table table, long from, long to) throws IOException {
+        StringWriter out = new StringWriter();
+        CsvRowWriter rows = new CsvRowWriter(out);
+        for (long source = from; source < to; source++) {
+            table.write(source, rows);
+        }
+        return out.toString();
+    }
+}
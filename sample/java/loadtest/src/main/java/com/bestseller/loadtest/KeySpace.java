@@ -0,0 +1,13 @@
+package com.bestseller.loadtest;
+
+/**
+ * Keys of one resource (items or tracking numbers) drawn with a Zipfian popularity.
+ *
+ * @param format {@link String#format} pattern applied to the 1-based key number, e.g. {@code item-%03d}
+ */
+public record KeySpace(String format, ZipfianGenerator popularity) {
+
+    public String next() {
+        return String.format(format, popularity.next() + 1);
+    }
+}
@@ -0,0 +1,48 @@
+package com.bestseller.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prints per-operation throughput, error rate and p50/p99/p99.9 latency of the measurement phase.
+ */
+final class LatencyReport {
+
+    private LatencyReport() {
+    }
+
+    static void print(PrintStream out, Map<String, OperationStats> stats, long shed, Duration measurement,
+                      double targetRate) {
+        double seconds = measurement.toMillis() / 1000.0;
+        out.printf(Locale.ROOT, "%nTarget arrival rate: %.1f scenarios/s over %.0fs, shed at client: %d%n",
+            targetRate, seconds, shed);
+        out.printf(Locale.ROOT, "%-20s %10s %10s %8s %10s %10s %10s %10s%n",
+            "operation", "requests", "req/s", "err%", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(stats).entrySet()) {
+            OperationStats operation = entry.getValue();
+            long count = operation.count();
+            totalRequests += count;
+            totalErrors += operation.errors();
+            out.printf(Locale.ROOT, "%-20s %10d %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f%n",
+                entry.getKey(),
+                count,
+                count / seconds,
+                count == 0 ? 0.0 : 100.0 * operation.errors() / count,
+                operation.percentileMillis(50),
+                operation.percentileMillis(99),
+                operation.percentileMillis(99.9),
+                operation.maxMillis());
+        }
+        out.printf(Locale.ROOT, "%-20s %10d %10.1f %7.2f%%%n",
+            "total",
+            totalRequests,
+            totalRequests / seconds,
+            totalRequests == 0 ? 0.0 : 100.0 * totalErrors / totalRequests);
+    }
+}
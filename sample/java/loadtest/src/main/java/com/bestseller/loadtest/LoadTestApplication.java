@@ -0,0 +1,108 @@
+package com.bestseller.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point for the BESTSELLER API load generator.
+ *
+ * <pre>
+ * java -jar target/bestseller-loadtest-1.0.0.jar --rate=200 --duration=60s --mix=browse=5,item=70,tracking=25
+ * </pre>
+ */
+public final class LoadTestApplication {
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        OpenApiSpec spec = OpenApiSpec.load(Path.of(options.getOrDefault("spec", "../../../openapi.yaml")));
+        double exponent = Double.parseDouble(options.getOrDefault("zipf-exponent", "0.99"));
+        KeySpace items = new KeySpace(options.getOrDefault("item-format", "item-%03d"),
+            new ZipfianGenerator(Integer.parseInt(options.getOrDefault("items", "999")), exponent));
+        KeySpace tracking = new KeySpace(options.getOrDefault("tracking-format", "tracking-%04d"),
+            new ZipfianGenerator(Integer.parseInt(options.getOrDefault("tracking", "1000")), exponent));
+        Duration timeout = parseDuration(options.getOrDefault("timeout", "5s"));
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator(
+            client,
+            spec,
+            options.getOrDefault("base-url", "http://localhost:8080/v1"),
+            scenarioMix(options.get("mix")),
+            items,
+            tracking,
+            timeout,
+            Integer.parseInt(options.getOrDefault("max-in-flight", "10000"))
+        );
+        generator.run(
+            Double.parseDouble(options.getOrDefault("rate", "100")),
+            parseDuration(options.getOrDefault("warmup", "10s")),
+            parseDuration(options.getOrDefault("duration", "60s")),
+            System.out
+        );
+    }
+
+    static List<Scenario> scenarioMix(String mix) {
+        List<Scenario> defaults = Scenario.defaults();
+        if (mix == null || mix.isBlank()) {
+            return defaults;
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Scenario scenario : defaults) {
+            scenarios.add(scenario.withWeight(weights.getOrDefault(scenario.name(), 0)));
+        }
+        weights.keySet().stream()
+            .filter(name -> defaults.stream().noneMatch(scenario -> scenario.name().equals(name)))
+            .findFirst()
+            .ifPresent(name -> {
+                throw new IllegalArgumentException("Unknown scenario: " + name);
+            });
+        return scenarios;
+    }
+
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim().toLowerCase();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        if (trimmed.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        if (trimmed.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(trimmed));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bestseller.loadtest;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The GET operations declared in {@code openapi.yaml}, indexed by operationId.
+ * Scenarios refer to operations by id so they break loudly when the spec changes.
+ */
+public final class OpenApiSpec {
+
+    private static final Pattern PATH_PARAMETER = Pattern.compile("\\{[^}]+}");
+
+    private final Map<String, String> pathsByOperationId;
+
+    OpenApiSpec(Map<String, String> pathsByOperationId) {
+        this.pathsByOperationId = Map.copyOf(pathsByOperationId);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static OpenApiSpec load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Object> document = new Yaml().load(reader);
+            Map<String, Object> paths = (Map<String, Object>) document.getOrDefault("paths", Map.of());
+            Map<String, String> operations = new LinkedHashMap<>();
+            paths.forEach((path, item) -> {
+                Map<String, Object> get = (Map<String, Object>) ((Map<String, Object>) item).get("get");
+                if (get != null && get.get("operationId") != null) {
+                    operations.put((String) get.get("operationId"), path);
+                }
+            });
+            return new OpenApiSpec(operations);
+        }
+    }
+
+    public boolean hasOperation(String operationId) {
+        return pathsByOperationId.containsKey(operationId);
+    }
+
+    /**
+     * Returns the path of an operation with every path parameter replaced by the given key.
+     */
+    public String expand(String operationId, String key) {
+        String template = pathsByOperationId.get(operationId);
+        if (template == null) {
+            throw new IllegalArgumentException("Operation not found in OpenAPI spec: " + operationId);
+        }
+        if (key == null) {
+            return template;
+        }
+        String encoded = URLEncoder.encode(key, StandardCharsets.UTF_8).replace("+", "%20");
+        return PATH_PARAMETER.matcher(template).replaceAll(encoded);
+    }
+}
@@ -0,0 +1,150 @@
+package com.bestseller.loadtest;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: scenarios start at a constant arrival rate regardless of how fast the
+ * server answers, so a slow server builds up a backlog instead of silently lowering the load.
+ * Latency is measured from the intended start time, which avoids coordinated omission.
+ */
+public final class OpenModelLoadGenerator {
+
+    private final HttpClient client;
+    private final OpenApiSpec spec;
+    private final String baseUrl;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final KeySpace items;
+    private final KeySpace tracking;
+    private final Duration requestTimeout;
+    private final int maxInFlight;
+
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder shed = new LongAdder();
+
+    public OpenModelLoadGenerator(HttpClient client, OpenApiSpec spec, String baseUrl, List<Scenario> scenarios,
+                                  KeySpace items, KeySpace tracking, Duration requestTimeout, int maxInFlight) {
+        for (Scenario scenario : scenarios) {
+            scenario.operationIds().forEach(operationId -> {
+                if (!spec.hasOperation(operationId)) {
+                    throw new IllegalArgumentException(
+                        "Scenario " + scenario.name() + " uses unknown operation: " + operationId);
+                }
+            });
+        }
+        this.client = client;
+        this.spec = spec;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.scenarios = List.copyOf(scenarios);
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        this.items = items;
+        this.tracking = tracking;
+        this.requestTimeout = requestTimeout;
+        this.maxInFlight = maxInFlight;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("At least one scenario needs a positive weight");
+        }
+    }
+
+    /**
+     * Runs the warm-up and measurement phases at {@code ratePerSecond} scenario starts per second
+     * and prints the report for the measurement phase.
+     */
+    public void run(double ratePerSecond, Duration warmup, Duration measurement, PrintStream out) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + measurement.toNanos();
+
+        for (long arrival = 0; ; arrival++) {
+            long intended = start + arrival * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended >= measureFrom;
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    shed.increment();
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            runScenario(pickScenario(), intended, measured)
+                .whenComplete((ignored, error) -> inFlight.decrementAndGet());
+        }
+        awaitDrain();
+
+        LatencyReport.print(out, stats, shed.sum(), measurement, ratePerSecond);
+    }
+
+    private CompletableFuture<Void> runScenario(Scenario scenario, long intendedStart, boolean measured) {
+        String key = switch (scenario.keyKind()) {
+            case NONE -> null;
+            case ITEM -> items.next();
+            case TRACKING -> tracking.next();
+        };
+        CompletableFuture<Long> chain = CompletableFuture.completedFuture(intendedStart);
+        for (String operationId : scenario.operationIds()) {
+            chain = chain.thenCompose(stepStart -> execute(operationId, key, stepStart, measured));
+        }
+        return chain.thenAccept(finishedAt -> { });
+    }
+
+    /**
+     * Sends one request and completes with the time it finished, which is where the next step starts.
+     */
+    private CompletableFuture<Long> execute(String operationId, String key, long stepStart, boolean measured) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + spec.expand(operationId, key)))
+            .timeout(requestTimeout)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                long finishedAt = System.nanoTime();
+                if (measured) {
+                    boolean failed = error != null || response.statusCode() >= 400;
+                    stats.computeIfAbsent(operationId, id -> new OperationStats())
+                        .record(finishedAt - stepStart, failed);
+                }
+                return finishedAt;
+            });
+    }
+
+    private Scenario pickScenario() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight();
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private void awaitDrain() {
+        long deadline = System.nanoTime() + requestTimeout.toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bestseller.loadtest;
+
+import java.util.List;
+
+/**
+ * A weighted user journey: a sequence of API operations that share one drawn key.
+ */
+public record Scenario(String name, int weight, KeyKind keyKind, List<String> operationIds) {
+
+    public enum KeyKind {
+        NONE,
+        ITEM,
+        TRACKING
+    }
+
+    public static List<Scenario> defaults() {
+        return List.of(
+            new Scenario("browse", 10, KeyKind.NONE, List.of("getAllItems")),
+            new Scenario("item", 60, KeyKind.ITEM, List.of("getItemById", "getStockByItemId")),
+            new Scenario("tracking", 30, KeyKind.TRACKING, List.of("getTrackingStatus"))
+        );
+    }
+
+    public Scenario withWeight(int newWeight) {
+        return new Scenario(name, newWeight, keyKind, operationIds);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bestseller.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenApiSpecTest {
+
+    @Test
+    void load_readsOperationsFromRepositorySpec() throws Exception {
+        OpenApiSpec spec = OpenApiSpec.load(Path.of("../../../openapi.yaml"));
+
+        for (Scenario scenario : Scenario.defaults()) {
+            scenario.operationIds().forEach(operationId -> assertTrue(spec.hasOperation(operationId), operationId));
+        }
+        assertEquals("/items/item-001", spec.expand("getItemById", "item-001"));
+        assertEquals("/track/TRK%202025", spec.expand("getTrackingStatus", "TRK 2025"));
+        assertEquals("/items", spec.expand("getAllItems", null));
+    }
+}
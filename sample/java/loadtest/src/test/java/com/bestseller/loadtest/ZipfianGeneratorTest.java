@@ -0,0 +1,24 @@
+package com.bestseller.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipfianGeneratorTest {
+
+    @Test
+    void next_staysInRangeAndFavoursLowRanks() {
+        ZipfianGenerator generator = new ZipfianGenerator(1000, 0.99);
+        int[] counts = new int[1000];
+        for (int i = 0; i < 100_000; i++) {
+            counts[generator.next()]++;
+        }
+
+        int top10 = 0;
+        for (int rank = 0; rank < 10; rank++) {
+            top10 += counts[rank];
+        }
+        assertTrue(counts[0] > counts[99] * 10, "rank 0 should be far more popular than rank 99");
+        assertTrue(top10 > 30_000, "top 10 keys should receive a large share of draws");
+    }
+}
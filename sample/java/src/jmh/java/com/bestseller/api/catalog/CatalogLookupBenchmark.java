@@ -0,0 +1,84 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.BestsellerApiApplication;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.service.ItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item lookups served by the in-memory catalog compared with reading the same row from the test database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CatalogLookupBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+
+    @Setup
+    public void start() {
+        context = new SpringApplicationBuilder(BestsellerApiApplication.class)
+            .properties(
+                "spring.r2dbc.url=r2dbc:h2:mem:///catalog-benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password=",
+                "spring.sql.init.mode=always",
+                "spring.sql.init.schema-locations=classpath:faults/schema.sql",
+                "spring.sql.init.data-locations=classpath:faults/data.sql",
+                "bestseller.warmup.enabled=false",
+                "bestseller.key-filter.enabled=false",
+                "bestseller.profiling.enabled=false",
+                "bestseller.catalog.enabled=true",
+                "logging.level.com.bestseller.api=WARN")
+            .run();
+        itemService = context.getBean(ItemService.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        CatalogReadModel readModel = context.getBean(CatalogReadModel.class);
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (readModel.catalog() == null && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object fromMemory() {
+        return itemService.getItemById(itemId()).block();
+    }
+
+    @Benchmark
+    public Object fromDatabase() {
+        return itemRepository.findById(itemId()).block();
+    }
+
+    private static String itemId() {
+        return String.format("item-%03d", ThreadLocalRandom.current().nextInt(100) + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.entity.Item;
+import com.bestseller.api.model.ItemDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the columnar catalog compared with a map of {@link Item} records, which is what the catalog
+ * replaces. The setup prints the footprint of both, estimated from shallow object sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarCatalogBenchmark {
+
+    private static final String[] CATEGORIES = {"Jeans", "T-Shirts", "Dresses", "Jackets", "Knitwear", "Shoes"};
+    private static final String[] BRANDS = {"ONLY", "VERO MODA", "JACK & JONES", "PIECES", "NAME IT", "SELECTED"};
+    private static final Instant UPDATED = Instant.parse("2025-10-01T12:00:00.123456Z");
+
+    @Param({"100000"})
+    private int items;
+
+    private ColumnarCatalog catalog;
+    private Map<String, Item> records;
+
+    @Setup
+    public void load() {
+        List<Item> loaded = new ArrayList<>(items);
+        records = new HashMap<>(items * 2);
+        long objectBytes = 0;
+        for (int i = 0; i < items; i++) {
+            Item item = item(i);
+            loaded.add(item);
+            records.put(item.itemId(), item);
+            objectBytes += objectBytes(item);
+        }
+        catalog = new ColumnarCatalog(items);
+        catalog.upsertAll(loaded);
+        System.out.printf("%nCatalog of %,d items: columnar %d bytes/item, Item records in a HashMap %d bytes/item%n",
+            items, catalog.sizeInBytes() / items, objectBytes / items);
+    }
+
+    @Benchmark
+    public ItemDetail columnar() {
+        return catalog.get(itemId(ThreadLocalRandom.current().nextInt(items)));
+    }
+
+    @Benchmark
+    public Item hashMap() {
+        return records.get(itemId(ThreadLocalRandom.current().nextInt(items)));
+    }
+
+    private static String itemId(int i) {
+        return String.format("item-%08d", i);
+    }
+
+    private static Item item(int i) {
+        String category = CATEGORIES[i % CATEGORIES.length];
+        String brand = BRANDS[i * 7 % BRANDS.length];
+        return new Item(itemId(i), brand + " " + category + " " + i,
+            BigDecimal.valueOf(9_999 + i % 500 * 100L, 2),
+            "Regular fit " + category.toLowerCase() + " in organic cotton with a soft finish, style " + i,
+            category, brand, String.format("SKU-%08d", i), UPDATED, UPDATED);
+    }
+
+    /**
+     * Shallow sizes with compressed references: the record, six Latin-1 strings as read from the database
+     * (not shared between rows), the compact BigDecimal, two Instants and a HashMap entry keyed by item ID.
+     */
+    private static long objectBytes(Item item) {
+        long bytes = align(12 + 9 * 4) + 40 + 2 * 24 + 32 + 8;
+        for (String value : new String[] {item.itemId(), item.name(), item.description(), item.category(),
+            item.brand(), item.sku()}) {
+            bytes += 24 + align(16 + value.length());
+        }
+        return bytes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
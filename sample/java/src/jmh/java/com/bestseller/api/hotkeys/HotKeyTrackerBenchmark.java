@@ -0,0 +1,62 @@
+package com.bestseller.api.hotkeys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording skewed traffic into the tracker from several request threads, as on the request path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HotKeyTrackerBenchmark {
+
+    private static final int KEYS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Tracker {
+
+        final HotKeyTracker tracker = new HotKeyTracker(6, 2048, 4, 20);
+    }
+
+    @State(Scope.Thread)
+    public static class Traffic {
+
+        final String[] keys = new String[1 << 16];
+        int next;
+
+        @Setup
+        public void generate() {
+            Random random = new Random(Thread.currentThread().getId());
+            for (int i = 0; i < keys.length; i++) {
+                // Rank with probability roughly proportional to 1/rank, so a few keys take most of the traffic
+                int rank = (int) Math.min(KEYS, Math.floor(Math.pow(KEYS, random.nextDouble())));
+                keys[i] = String.format("item-%06d", rank);
+            }
+        }
+
+        String nextKey() {
+            return keys[next++ & (keys.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public void record(Tracker tracker, Traffic traffic) {
+        tracker.tracker.record(traffic.nextKey());
+    }
+}
@@ -0,0 +1,108 @@
+package com.bestseller.api.ingest;
+
+import com.bestseller.api.config.StockIngestProperties;
+import com.bestseller.api.model.StockUpdate;
+import com.bestseller.api.repository.StockWriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepting scan bursts for 100 item/warehouse pairs through the coalescer, against a repository that only
+ * counts what it is asked to write. The {@code rowsWritten} counter shows how far bursts collapse per flush.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockWriteCoalescerBenchmark {
+
+    private static final AtomicLong ROWS_WRITTEN = new AtomicLong();
+
+    @State(Scope.Benchmark)
+    public static class Ingest {
+
+        StockWriteCoalescer coalescer;
+        private Path walDirectory;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            walDirectory = Files.createTempDirectory("stock-wal");
+            StockIngestProperties properties = new StockIngestProperties(true, Duration.ofMillis(100), 500,
+                100_000, walDirectory.toString(), DataSize.ofMegabytes(16), false);
+            coalescer = new StockWriteCoalescer(properties, new CountingRepository(), new SimpleMeterRegistry());
+            coalescer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            coalescer.destroy();
+            try (var files = Files.walk(walDirectory)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Writes {
+
+        private long rowsAtStart;
+        public long rowsWritten;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rowsAtStart = ROWS_WRITTEN.get();
+            rowsWritten = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void collect() {
+            rowsWritten = ROWS_WRITTEN.get() - rowsAtStart;
+        }
+    }
+
+    @Benchmark
+    public Integer submit(Ingest ingest, Writes writes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StockUpdate update = new StockUpdate(String.format("item-%03d", random.nextInt(100)), "Main Warehouse",
+            random.nextInt(500));
+        return ingest.coalescer.submit(List.of(update)).block();
+    }
+
+    private static final class CountingRepository extends StockWriteRepository {
+
+        CountingRepository() {
+            super(null);
+        }
+
+        @Override
+        public Mono<Long> upsertQuantities(List<StockUpdate> updates) {
+            ROWS_WRITTEN.addAndGet(updates.size());
+            return Mono.just((long) updates.size());
+        }
+    }
+}
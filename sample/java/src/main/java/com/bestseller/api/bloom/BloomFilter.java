@@ -0,0 +1,91 @@
+package com.bestseller.api.bloom;
+
+import com.bestseller.api.sharding.KeyHash;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over string keys.
+ * <p>
+ * {@link #mightContain} never returns {@code false} for a key that was added, so a negative answer
+ * proves the key does not exist. Positive answers are wrong with roughly the configured false positive
+ * rate as long as no more than {@link #capacity()} keys are added. Keys cannot be removed; deleted keys
+ * stay "maybe present" until the filter is rebuilt, which only costs a database lookup.
+ * <p>
+ * Bits are set with atomic OR operations, so keys can be added concurrently while any number of readers query.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong keys = new AtomicLong();
+
+    private BloomFilter(long bitCount, int hashCount, long capacity) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a filter sized for {@code capacity} keys at the given false positive rate.
+     */
+    public static BloomFilter create(long capacity, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long expected = Math.max(capacity, 1);
+        double ln2 = Math.log(2);
+        long bits = Math.max(64, (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / expected * ln2));
+        return new BloomFilter(bits, hashes, expected);
+    }
+
+    public void add(String key) {
+        long hash = KeyHash.of(key);
+        long h1 = hash;
+        long h2 = KeyHash.mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            changed |= (previous & mask) == 0;
+        }
+        if (changed) {
+            keys.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = KeyHash.of(key);
+        long h1 = hash;
+        long h2 = KeyHash.mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Approximate number of distinct keys added (keys whose bits were all set already are not counted).
+     */
+    public long keys() {
+        return keys.get();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long sizeInBytes() {
+        return words.length() * 8L;
+    }
+}
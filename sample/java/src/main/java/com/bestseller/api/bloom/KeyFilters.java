@@ -0,0 +1,317 @@
+package com.bestseller.api.bloom;
+
+import com.bestseller.api.config.KeyFilterProperties;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.repository.KeyFilterLogRepository;
+import com.bestseller.api.repository.TrackingRepository;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bloom filters over all item IDs and tracking numbers, used to answer lookups of keys that
+ * certainly do not exist without a database round trip.
+ * <p>
+ * The filters are built in the background once the application has started and rebuilt from a
+ * full key scan every {@code rebuild-interval}. In between, every {@code refresh-interval} they add the
+ * keys that triggers logged to {@code key_filter_log} since the previous refresh, on the primary database
+ * and on each tracking shard. The log is read by transaction ID, so keys are picked up however they were
+ * inserted and whatever {@code created_at} they carry; when the log of a database cannot be continued,
+ * e.g. after a restore, the filter is rebuilt.
+ * <p>
+ * A key inserted since the last refresh is only in the log, so a miss is not final on its own: the lookup
+ * waits for a read of the log that starts after it, and is answered as missing only if the key is still
+ * absent. Lookups that miss meanwhile share one such read per filter, so a flood of unknown keys costs one
+ * query on the small log table at a time. Until the first build has finished every key is treated as
+ * possibly present, and a filter whose refresh or log read fails lets lookups through to the database.
+ */
+@Component
+public class KeyFilters implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyFilters.class);
+    private static final String PRIMARY = "";
+    private static final Mono<Boolean> POSSIBLY_PRESENT = Mono.just(false);
+
+    private final KeyFilterProperties properties;
+    private final KeyFilterLogRepository keyFilterLogRepository;
+    private final TrackingShardRouter shardRouter;
+    private final KeyFilter items;
+    private final KeyFilter tracking;
+    private Disposable refreshes;
+
+    public KeyFilters(KeyFilterProperties properties,
+                      ItemRepository itemRepository,
+                      TrackingRepository trackingRepository,
+                      KeyFilterLogRepository keyFilterLogRepository,
+                      TrackingShardRouter shardRouter,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.keyFilterLogRepository = keyFilterLogRepository;
+        this.shardRouter = shardRouter;
+        this.items = new KeyFilter("item", "items", List.of(PRIMARY), meterRegistry,
+            itemRepository::count,
+            itemRepository::findAllItemIds);
+        this.tracking = new KeyFilter("tracking", "tracking",
+            shardRouter.isEnabled() ? shardRouter.shards() : List.of(PRIMARY), meterRegistry,
+            () -> shardRouter.onEachShard(() -> trackingRepository.count().flux()).reduce(0L, Long::sum),
+            () -> shardRouter.onEachShard(trackingRepository::findAllTrackingNumbers));
+    }
+
+    /**
+     * Emits whether the item certainly does not exist; false whenever the database has to be asked.
+     */
+    public Mono<Boolean> isKnownMissingItem(String itemId) {
+        return items.isKnownMissing(itemId);
+    }
+
+    /**
+     * Emits whether the tracking record certainly does not exist; false whenever the database has to be asked.
+     */
+    public Mono<Boolean> isKnownMissingTracking(String trackingNo) {
+        return tracking.isKnownMissing(trackingNo);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            logger.info("Key filters disabled");
+            return;
+        }
+        refreshes = Flux.interval(Duration.ZERO, properties.refreshInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> Mono.when(items.refresh(), tracking.refresh()))
+            .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    private <T> Mono<T> onDatabase(String database, Mono<T> query) {
+        return PRIMARY.equals(database) ? query : shardRouter.onNamedShard(database, query);
+    }
+
+    private <T> Flux<T> onDatabase(String database, Flux<T> query) {
+        return PRIMARY.equals(database) ? query : shardRouter.onNamedShard(database, query);
+    }
+
+    private final class KeyFilter {
+
+        private final String resource;
+        private final String table;
+        private final List<String> databases;
+        private final Supplier<Mono<Long>> count;
+        private final Supplier<Flux<String>> allKeys;
+        private final Counter rejections;
+        private volatile BloomFilter filter;
+        private Instant rebuiltAt;
+        private boolean failing;
+        private volatile Map<String, KeyFilterLogRepository.Position> positions = Map.of();
+        private Sinks.Empty<Void> nextRead;
+        private boolean reading;
+
+        KeyFilter(String resource, String table, List<String> databases, MeterRegistry meterRegistry,
+                  Supplier<Mono<Long>> count, Supplier<Flux<String>> allKeys) {
+            this.resource = resource;
+            this.table = table;
+            this.databases = databases;
+            this.count = count;
+            this.allKeys = allKeys;
+            this.rejections = Counter.builder("bestseller.keyfilter.rejections")
+                .description("Lookups answered as not found without querying the database")
+                .tag("resource", resource)
+                .register(meterRegistry);
+            Gauge.builder("bestseller.keyfilter.keys", this, f -> f.filter != null ? f.filter.keys() : 0)
+                .description("Keys held by the filter")
+                .tag("resource", resource)
+                .register(meterRegistry);
+            Gauge.builder("bestseller.keyfilter.bytes", this, f -> f.filter != null ? f.filter.sizeInBytes() : 0)
+                .description("Memory used by the filter")
+                .baseUnit("bytes")
+                .tag("resource", resource)
+                .register(meterRegistry);
+        }
+
+        Mono<Boolean> isKnownMissing(String key) {
+            BloomFilter current = filter;
+            if (current == null || key == null || current.mightContain(key)) {
+                return POSSIBLY_PRESENT;
+            }
+            return readLogTail().then(Mono.fromSupplier(() -> {
+                // A rebuild in the meantime may not hold the keys just read, so only the same filter is trusted
+                if (filter != current || current.mightContain(key)) {
+                    return false;
+                }
+                rejections.increment();
+                return true;
+            })).onErrorReturn(false);
+        }
+
+        /**
+         * Completes once every key logged before this call is in the filter. Calls join the next read of the log
+         * past the current positions that has not started yet, and a read starts only after the previous one ended.
+         */
+        private Mono<Void> readLogTail() {
+            Sinks.Empty<Void> read;
+            boolean start;
+            synchronized (this) {
+                if (nextRead == null) {
+                    nextRead = Sinks.empty();
+                }
+                read = nextRead;
+                start = !reading;
+                if (start) {
+                    reading = true;
+                    nextRead = null;
+                }
+            }
+            if (start) {
+                startReading(read);
+            }
+            return read.asMono();
+        }
+
+        private void startReading(Sinks.Empty<Void> read) {
+            BloomFilter current = filter;
+            if (current == null) {
+                finishReading(read, null);
+                return;
+            }
+            Flux.fromIterable(positions.entrySet())
+                .flatMap(position -> onDatabase(position.getKey(), keyFilterLogRepository
+                    .findKeysLoggedBetween(resource, position.getValue().horizon(), Long.MAX_VALUE)))
+                .doOnNext(current::add)
+                .then()
+                .subscribe(null, error -> finishReading(read, error), () -> finishReading(read, null));
+        }
+
+        private void finishReading(Sinks.Empty<Void> read, Throwable error) {
+            if (error != null) {
+                read.tryEmitError(error);
+            } else {
+                read.tryEmitEmpty();
+            }
+            Sinks.Empty<Void> next;
+            synchronized (this) {
+                next = nextRead;
+                nextRead = null;
+                reading = next != null;
+            }
+            if (next != null) {
+                startReading(next);
+            }
+        }
+
+        Mono<Void> refresh() {
+            return Mono.defer(() -> {
+                Instant started = Instant.now();
+                BloomFilter current = filter;
+                boolean rebuild = current == null
+                    || current.keys() >= current.capacity()
+                    || started.isAfter(rebuiltAt.plus(properties.rebuildInterval()));
+                if (rebuild) {
+                    return rebuild(started);
+                }
+                return positions().flatMap(next -> {
+                    if (!continues(next)) {
+                        logger.info("Key log of the {} filter was reset, rebuilding", resource);
+                        return rebuild(started);
+                    }
+                    return Flux.fromIterable(next.entrySet())
+                        .flatMap(position -> onDatabase(position.getKey(), keyFilterLogRepository
+                            .findKeysLoggedBetween(resource, positions.get(position.getKey()).horizon(),
+                                position.getValue().horizon())))
+                        .doOnNext(current::add)
+                        .then(Mono.fromRunnable(() -> positions = next));
+                });
+            }).doOnSuccess(done -> {
+                if (failing) {
+                    failing = false;
+                    logger.info("Refreshing the {} key filter works again", resource);
+                }
+            }).onErrorResume(error -> {
+                // Keys logged meanwhile might be missed, so stop rejecting lookups until the next rebuild
+                filter = null;
+                // Logged once per outage: a missing key_filter_log fails every tick until the script is run
+                if (!failing) {
+                    failing = true;
+                    logger.warn("Could not refresh {} key filter, retrying every {}: {}", resource,
+                        properties.refreshInterval(), error.getMessage());
+                } else {
+                    logger.debug("Could not refresh {} key filter: {}", resource, error.getMessage());
+                }
+                return Mono.empty();
+            });
+        }
+
+        /**
+         * The positions are taken before the key scan, so a key the scan misses is always in the log after them.
+         */
+        private Mono<Void> rebuild(Instant started) {
+            return positions().flatMap(from -> count.get().flatMap(keys -> {
+                long capacity = Math.max(1024, (long) (keys * properties.headroom()));
+                BloomFilter next = BloomFilter.create(capacity, properties.falsePositiveRate());
+                return allKeys.get()
+                    .doOnNext(next::add)
+                    .then(Mono.fromRunnable(() -> {
+                        filter = next;
+                        rebuiltAt = started;
+                        positions = from;
+                        logger.info("Built {} key filter: {} keys, {} KB, {} ms", resource, next.keys(),
+                            next.sizeInBytes() / 1024, Duration.between(started, Instant.now()).toMillis());
+                    }));
+            })).then(prune(started));
+        }
+
+        private Mono<Map<String, KeyFilterLogRepository.Position>> positions() {
+            return Flux.fromIterable(databases)
+                .flatMap(database -> onDatabase(database, keyFilterLogRepository.position(table))
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "key_filter_log is missing, run scripts/07_create_key_filter_log.sql")))
+                    .map(position -> Map.entry(database, position)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        }
+
+        /**
+         * Whether every database's log carries on from the previous positions rather than having been recreated.
+         */
+        private boolean continues(Map<String, KeyFilterLogRepository.Position> next) {
+            return next.entrySet().stream().allMatch(position -> {
+                KeyFilterLogRepository.Position previous = positions.get(position.getKey());
+                return previous != null
+                    && previous.generation().equals(position.getValue().generation())
+                    && previous.horizon() <= position.getValue().horizon();
+            });
+        }
+
+        /**
+         * Deletes log rows that even a filter rebuilt just before them no longer needs.
+         */
+        private Mono<Void> prune(Instant started) {
+            Instant cutoff = started.minus(properties.rebuildInterval().multipliedBy(2));
+            return Flux.fromIterable(databases)
+                .flatMap(database -> onDatabase(database, keyFilterLogRepository.deleteLoggedBefore(cutoff)))
+                .then();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.bestseller.api.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A response body encoded once as JSON, plus an optional gzip copy of it.
+ *
+ * @param version version of the resource the body was encoded from
+ * @param json    the JSON bytes
+ * @param gzip    gzip-compressed JSON bytes, or {@code null} when not worth compressing
+ */
+public record EncodedResponse(String version, byte[] json, byte[] gzip) {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    /**
+     * Approximate heap cost of this entry, used for the cache's memory budget.
+     */
+    long weight() {
+        return ENTRY_OVERHEAD_BYTES + version.length() * 2L + json.length + (gzip != null ? gzip.length : 0);
+    }
+
+    /**
+     * Wraps the cached bytes in a buffer without copying, choosing the gzip copy when the client accepts it.
+     */
+    public ResponseEntity<DataBuffer> toResponseEntity(String acceptEncoding) {
+        boolean useGzip = gzip != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (useGzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(DefaultDataBufferFactory.sharedInstance.wrap(useGzip ? gzip : json));
+    }
+}
@@ -0,0 +1,141 @@
+package com.bestseller.api.cache;
+
+import com.bestseller.api.config.ResponseCacheProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LRU cache of encoded response bodies keyed by resource and id, valid for one resource version.
+ * A hit skips entity mapping and JSON encoding entirely; a version change makes the entry stale.
+ * Entries are evicted least-recently-used first once their total byte weight exceeds the budget.
+ */
+@Component
+public class EncodedResponseCache {
+
+    private final ResponseCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final LinkedHashMap<String, EncodedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public EncodedResponseCache(ResponseCacheProperties properties, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("bestseller.response.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("bestseller.response.cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("bestseller.response.cache.evictions");
+        Gauge.builder("bestseller.response.cache.bytes", this, EncodedResponseCache::weight)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.response.cache.entries", this, EncodedResponseCache::size)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the encoded body of {@code resource/id} at the version emitted by {@code version},
+     * loading and encoding it with {@code loader} on a miss. An empty version means the resource
+     * does not exist; the loader is then responsible for signalling the not-found error.
+     */
+    public Mono<EncodedResponse> get(String resource, String id, Mono<String> version, Supplier<Mono<?>> loader) {
+        if (!properties.enabled()) {
+            return loader.get().map(body -> encode("", body));
+        }
+        String key = resource + '/' + id;
+        return version
+            .flatMap(current -> {
+                EncodedResponse cached = lookup(key, current);
+                if (cached != null) {
+                    hits.increment();
+                    return Mono.just(cached);
+                }
+                misses.increment();
+                return loader.get()
+                    .map(body -> encode(current, body))
+                    .doOnNext(encoded -> store(key, encoded));
+            })
+            .switchIfEmpty(Mono.defer(() -> loader.get().map(body -> encode("", body))));
+    }
+
+    public void invalidate(String resource, String id) {
+        synchronized (entries) {
+            EncodedResponse removed = entries.remove(resource + '/' + id);
+            if (removed != null) {
+                weight -= removed.weight();
+            }
+        }
+    }
+
+    public long weight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private EncodedResponse lookup(String key, String version) {
+        synchronized (entries) {
+            EncodedResponse cached = entries.get(key);
+            return cached != null && cached.version().equals(version) ? cached : null;
+        }
+    }
+
+    private void store(String key, EncodedResponse encoded) {
+        long maxWeight = properties.maxSize().toBytes();
+        if (encoded.weight() > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            EncodedResponse previous = entries.put(key, encoded);
+            weight += encoded.weight() - (previous != null ? previous.weight() : 0);
+            Iterator<Map.Entry<String, EncodedResponse>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().getValue().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private EncodedResponse encode(String version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            boolean compress = properties.gzip() && json.length >= properties.gzipMinSize().toBytes();
+            return new EncodedResponse(version, json, compress ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode response body", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
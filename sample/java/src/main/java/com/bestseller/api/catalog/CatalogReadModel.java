@@ -0,0 +1,174 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.config.CatalogReadModelProperties;
+import com.bestseller.api.config.ChangeFeedProperties;
+import com.bestseller.api.entity.Item;
+import com.bestseller.api.entity.ItemTombstone;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.repository.ItemTombstoneRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Keeps a {@link ColumnarCatalog} of all items in memory so item reads do not need the database.
+ * <p>
+ * The catalog is loaded in the background once the application has started and then kept current every
+ * {@code refresh-interval} from the same keyset queries that back {@code GET /v1/items/changes}. A full reload
+ * replaces it when updates have left too many unused bytes behind. Reads go to the database until the first
+ * load has finished and whenever refreshes have been failing for longer than {@code max-staleness}.
+ */
+@Component
+public class CatalogReadModel implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogReadModel.class);
+
+    private final CatalogReadModelProperties properties;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final ItemRepository itemRepository;
+    private final ItemTombstoneRepository itemTombstoneRepository;
+    private volatile ColumnarCatalog catalog;
+    private volatile Instant refreshedAt;
+    private Cursor updates;
+    private Cursor deletes;
+    private Disposable refreshes;
+
+    public CatalogReadModel(CatalogReadModelProperties properties,
+                            ChangeFeedProperties changeFeedProperties,
+                            ItemRepository itemRepository,
+                            ItemTombstoneRepository itemTombstoneRepository,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.changeFeedProperties = changeFeedProperties;
+        this.itemRepository = itemRepository;
+        this.itemTombstoneRepository = itemTombstoneRepository;
+        Gauge.builder("bestseller.catalog.items", this, m -> m.catalog != null ? m.catalog.size() : 0)
+            .description("Items held by the in-memory catalog")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.catalog.bytes", this, m -> m.catalog != null ? m.catalog.sizeInBytes() : 0)
+            .description("Memory used by the in-memory catalog")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.catalog.staleness", this, CatalogReadModel::staleness)
+            .description("Time since the in-memory catalog last caught up with the database")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the catalog to serve reads from, or {@code null} when reads should go to the database.
+     */
+    public ColumnarCatalog catalog() {
+        ColumnarCatalog current = catalog;
+        if (current == null || Instant.now().isAfter(refreshedAt.plus(properties.maxStaleness()))) {
+            return null;
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            logger.info("In-memory catalog disabled");
+            return;
+        }
+        refreshes = Flux.interval(Duration.ZERO, properties.refreshInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> refresh())
+            .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    Mono<Void> refresh() {
+        return Mono.defer(() -> {
+            Instant started = Instant.now();
+            ColumnarCatalog current = catalog;
+            boolean rebuild = current == null
+                || current.garbageBytes() > current.sizeInBytes() * properties.rebuildRatio();
+            return rebuild ? load(started) : catchUp(current, started);
+        }).onErrorResume(error -> {
+            logger.warn("Could not refresh in-memory catalog: {}", error.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    private Mono<Void> load(Instant started) {
+        return itemRepository.count().flatMap(count -> {
+            ColumnarCatalog next = new ColumnarCatalog((int) Math.min(count + count / 8, Integer.MAX_VALUE - 8));
+            return itemRepository.findAll()
+                .buffer(properties.pageSize())
+                .doOnNext(next::upsertAll)
+                .then(Mono.fromRunnable(() -> {
+                    // Changes committed while the scan ran are picked up again by the first catch-up
+                    Instant from = started.minus(changeFeedProperties.settleLag());
+                    updates = new Cursor(from, "");
+                    deletes = new Cursor(from, "");
+                    catalog = next;
+                    refreshedAt = started;
+                    logger.info("Loaded in-memory catalog: {} items, {} KB, {} ms", next.size(),
+                        next.sizeInBytes() / 1024, Duration.between(started, Instant.now()).toMillis());
+                }));
+        });
+    }
+
+    private Mono<Void> catchUp(ColumnarCatalog current, Instant started) {
+        Instant horizon = started.minus(changeFeedProperties.settleLag());
+        return applyUpdates(current, horizon)
+            .then(Mono.defer(() -> applyDeletes(current, horizon)))
+            .then(Mono.fromRunnable(() -> refreshedAt = started));
+    }
+
+    private Mono<Void> applyUpdates(ColumnarCatalog current, Instant horizon) {
+        return itemRepository.findChangedSince(updates.since(), updates.key(), horizon, properties.pageSize())
+            .collectList()
+            .flatMap(page -> {
+                if (page.isEmpty()) {
+                    return Mono.empty();
+                }
+                current.upsertAll(page);
+                Item last = page.get(page.size() - 1);
+                updates = new Cursor(last.updatedAt(), last.itemId());
+                return page.size() < properties.pageSize() ? Mono.empty() : applyUpdates(current, horizon);
+            });
+    }
+
+    private Mono<Void> applyDeletes(ColumnarCatalog current, Instant horizon) {
+        return itemTombstoneRepository
+            .findDeletedSince(deletes.since(), deletes.key(), horizon, properties.pageSize())
+            .collectList()
+            .flatMap(page -> {
+                if (page.isEmpty()) {
+                    return Mono.empty();
+                }
+                page.forEach(tombstone -> current.remove(tombstone.itemId(), tombstone.deletedAt()));
+                ItemTombstone last = page.get(page.size() - 1);
+                deletes = new Cursor(last.deletedAt(), last.itemId());
+                return page.size() < properties.pageSize() ? Mono.empty() : applyDeletes(current, horizon);
+            });
+    }
+
+    private double staleness() {
+        Instant at = refreshedAt;
+        return at == null ? 0 : Duration.between(at, Instant.now()).toMillis() / 1000.0;
+    }
+
+    private record Cursor(Instant since, String key) {
+    }
+}
@@ -0,0 +1,260 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.entity.Item;
+import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.model.ItemSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * The item catalog held column by column: prices as cents in a {@code long[]}, update times as epoch microseconds,
+ * categories and brands as dictionary codes and all free-text columns packed into shared UTF-8 byte arrays.
+ * Rows are found through an open-addressing hash index over the packed item IDs.
+ * <p>
+ * There is a single writer. Readers take an optimistic stamp and only fall back to the read lock when a write
+ * overlapped their read, so lookups never block each other. Deleted rows keep their slot and are reused when
+ * the item comes back.
+ */
+public final class ColumnarCatalog {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+    private final PackedStrings ids;
+    private final PackedStrings names;
+    private final PackedStrings descriptions;
+    private final PackedStrings skus;
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+    private final BitSet deleted = new BitSet();
+    private long[] prices;
+    private long[] updatedAt;
+    private short[] categoryCodes;
+    private short[] brandCodes;
+    private int[] index;
+    private int rows;
+    private int live;
+
+    public ColumnarCatalog(int expectedItems) {
+        int capacity = Math.max(16, expectedItems);
+        this.ids = new PackedStrings(capacity, 12);
+        this.names = new PackedStrings(capacity, 24);
+        this.descriptions = new PackedStrings(capacity, 64);
+        this.skus = new PackedStrings(capacity, 12);
+        this.prices = new long[capacity];
+        this.updatedAt = new long[capacity];
+        this.categoryCodes = new short[capacity];
+        this.brandCodes = new short[capacity];
+        this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /**
+     * Inserts or replaces the given items under one write lock.
+     */
+    public void upsertAll(Collection<Item> items) {
+        long stamp = lock.writeLock();
+        try {
+            for (Item item : items) {
+                upsert(item);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks an item as deleted, unless it was updated after {@code deletedAt} (deleted and recreated).
+     */
+    public void remove(String itemId, Instant deletedAt) {
+        long stamp = lock.writeLock();
+        try {
+            int row = find(utf8(itemId));
+            if (row >= 0 && !deleted.get(row) && updatedAt[row] <= micros(deletedAt)) {
+                deleted.set(row);
+                live--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the item, or {@code null} when it is not in the catalog.
+     */
+    public ItemDetail get(String itemId) {
+        byte[] key = utf8(itemId);
+        return read(() -> {
+            int row = find(key);
+            return row < 0 || deleted.get(row) ? null : detail(row);
+        });
+    }
+
+    /**
+     * Returns the version of an item as {@code GET /v1/items/{itemId}} reports it, or {@code null} when it is
+     * not in the catalog.
+     */
+    public Instant version(String itemId) {
+        byte[] key = utf8(itemId);
+        return read(() -> {
+            int row = find(key);
+            return row < 0 || deleted.get(row) ? null : instant(updatedAt[row], Instant.EPOCH);
+        });
+    }
+
+    /**
+     * Returns the summary of the item in the given row, or {@code null} when the row has been deleted.
+     */
+    public ItemSummary summary(int row) {
+        return read(() -> deleted.get(row) ? null : new ItemSummary(ids.get(row), names.get(row), price(row)));
+    }
+
+    /**
+     * Number of rows, including deleted ones; valid arguments to {@link #summary(int)} are below it.
+     */
+    public int rows() {
+        return read(() -> rows);
+    }
+
+    /**
+     * Number of items that are not deleted.
+     */
+    public int size() {
+        return read(() -> live);
+    }
+
+    /**
+     * Memory held by the columns, the index and the dictionaries.
+     */
+    public long sizeInBytes() {
+        return read(() -> ids.sizeInBytes() + names.sizeInBytes() + descriptions.sizeInBytes() + skus.sizeInBytes()
+            + 8L * prices.length + 8L * updatedAt.length + 2L * categoryCodes.length + 2L * brandCodes.length
+            + 4L * index.length + deleted.size() / 8 + categories.sizeInBytes() + brands.sizeInBytes());
+    }
+
+    /**
+     * Bytes left behind in the string columns by updates; a rebuild reclaims them.
+     */
+    public long garbageBytes() {
+        return read(() -> ids.garbageBytes() + names.garbageBytes() + descriptions.garbageBytes()
+            + skus.garbageBytes());
+    }
+
+    private void upsert(Item item) {
+        byte[] key = utf8(item.itemId());
+        int row = find(key);
+        if (row < 0) {
+            row = rows++;
+            grow(rows);
+            ids.set(row, item.itemId());
+            insert(row, ids.hash(row));
+            live++;
+        } else if (deleted.get(row)) {
+            deleted.clear(row);
+            live++;
+        }
+        names.set(row, item.name());
+        descriptions.set(row, item.description());
+        skus.set(row, item.sku());
+        prices[row] = item.price().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        updatedAt[row] = micros(item.updatedAt());
+        categoryCodes[row] = categories.code(item.category());
+        brandCodes[row] = brands.code(item.brand());
+    }
+
+    private ItemDetail detail(int row) {
+        return new ItemDetail(ids.get(row), names.get(row), price(row), descriptions.get(row),
+            categories.value(categoryCodes[row]), brands.value(brandCodes[row]), skus.get(row));
+    }
+
+    private BigDecimal price(int row) {
+        return BigDecimal.valueOf(prices[row], 2);
+    }
+
+    private int find(byte[] key) {
+        int[] table = index;
+        int mask = table.length - 1;
+        for (int slot = PackedStrings.hash(key, 0, key.length) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (ids.matches(entry - 1, key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(int row, int hash) {
+        int mask = index.length - 1;
+        int slot = hash & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    private void grow(int required) {
+        ids.ensureRows(required);
+        names.ensureRows(required);
+        descriptions.ensureRows(required);
+        skus.ensureRows(required);
+        if (required > prices.length) {
+            int capacity = Math.max(required, prices.length * 2);
+            prices = Arrays.copyOf(prices, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            brandCodes = Arrays.copyOf(brandCodes, capacity);
+        }
+        // Keep the index at most half full so probe sequences stay short
+        if (required * 2 > index.length) {
+            index = new int[index.length * 2];
+            for (int row = 0; row < required - 1; row++) {
+                insert(row, ids.hash(row));
+            }
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // A concurrent write moved the columns underneath the read; retry under the lock
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? NO_TIMESTAMP : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(long micros, Instant fallback) {
+        return micros == NO_TIMESTAMP ? fallback : Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,52 @@
+package com.bestseller.api.catalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns a low-cardinality column such as category or brand: every distinct value is stored once and rows
+ * hold a two-byte code. Code 0 stands for {@code null}.
+ */
+final class Dictionary {
+
+    private final Map<String, Short> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size = 1;
+
+    short code(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Short code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size > Short.MAX_VALUE) {
+            throw new IllegalStateException("More than " + Short.MAX_VALUE + " distinct values");
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, (short) size);
+        return (short) size++;
+    }
+
+    String value(short code) {
+        return values[code];
+    }
+
+    int size() {
+        return size - 1;
+    }
+
+    long sizeInBytes() {
+        long bytes = 4L * values.length;
+        for (int code = 1; code < size; code++) {
+            // The value, its map key and the boxed code
+            bytes += 40 + values[code].length() + 48;
+        }
+        return bytes;
+    }
+}
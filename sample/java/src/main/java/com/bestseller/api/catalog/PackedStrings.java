@@ -0,0 +1,89 @@
+package com.bestseller.api.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A string column stored as UTF-8 in one shared byte array, addressed by per-row offset and length.
+ * <p>
+ * Compared with a {@code String[]} this saves the object header, hash field and array header of every value.
+ * Values are append-only: overwriting a row leaves its old bytes behind as garbage, which is reclaimed
+ * when the catalog is rebuilt.
+ */
+final class PackedStrings {
+
+    private static final int NULL = -1;
+
+    private byte[] bytes;
+    private int used;
+    private int[] offsets;
+    private int[] lengths;
+    private long garbage;
+
+    PackedStrings(int rows, int bytesPerRow) {
+        this.bytes = new byte[Math.max(64, rows * bytesPerRow)];
+        this.offsets = new int[rows];
+        this.lengths = new int[rows];
+    }
+
+    void ensureRows(int rows) {
+        if (rows > offsets.length) {
+            int capacity = Math.max(rows, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+
+    void set(int row, String value) {
+        if (lengths[row] > 0) {
+            garbage += lengths[row];
+        }
+        if (value == null) {
+            lengths[row] = NULL;
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (used + utf8.length > bytes.length) {
+            long capacity = Math.max((long) used + utf8.length, (long) bytes.length * 2);
+            bytes = Arrays.copyOf(bytes, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        System.arraycopy(utf8, 0, bytes, used, utf8.length);
+        offsets[row] = used;
+        lengths[row] = utf8.length;
+        used += utf8.length;
+    }
+
+    String get(int row) {
+        int length = lengths[row];
+        return length == NULL ? null : new String(bytes, offsets[row], length, StandardCharsets.UTF_8);
+    }
+
+    boolean matches(int row, byte[] utf8) {
+        int length = lengths[row];
+        if (length != utf8.length) {
+            return false;
+        }
+        int offset = offsets[row];
+        return Arrays.equals(bytes, offset, offset + length, utf8, 0, utf8.length);
+    }
+
+    int hash(int row) {
+        return hash(bytes, offsets[row], Math.max(0, lengths[row]));
+    }
+
+    static int hash(byte[] data, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ data[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    long sizeInBytes() {
+        return bytes.length + 4L * offsets.length + 4L * lengths.length;
+    }
+
+    long garbageBytes() {
+        return garbage;
+    }
+}
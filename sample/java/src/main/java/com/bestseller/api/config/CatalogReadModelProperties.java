@@ -0,0 +1,25 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory columnar copy of the item catalog.
+ *
+ * @param enabled         whether item reads are served from memory once the catalog has loaded
+ * @param refreshInterval how often changed and deleted items are pulled from the database
+ * @param pageSize        rows fetched per change query while catching up
+ * @param maxStaleness    reads fall back to the database when the last successful refresh is older than this
+ * @param rebuildRatio    the catalog is reloaded when bytes left behind by updates exceed this share of its size
+ */
+@ConfigurationProperties(prefix = "bestseller.catalog")
+public record CatalogReadModelProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("1s") Duration refreshInterval,
+    @DefaultValue("5000") int pageSize,
+    @DefaultValue("30s") Duration maxStaleness,
+    @DefaultValue("0.5") double rebuildRatio
+) {
+}
@@ -0,0 +1,28 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the item and stock change feeds.
+ *
+ * @param settleLag    how far behind "now" a page stops, so rows stamped by still-open transactions are not skipped
+ * @param defaultLimit page size used when the client does not ask for one
+ * @param maxLimit     upper bound for a client supplied page size
+ */
+@ConfigurationProperties(prefix = "bestseller.changes")
+public record ChangeFeedProperties(
+    @DefaultValue("5s") Duration settleLag,
+    @DefaultValue("500") int defaultLimit,
+    @DefaultValue("5000") int maxLimit
+) {
+
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        return Math.max(1, Math.min(requested, maxLimit));
+    }
+}
@@ -0,0 +1,46 @@
+package com.bestseller.api.config;
+
+import com.bestseller.api.faults.FaultInjectingConnectionFactory;
+import com.bestseller.api.faults.FaultInjector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Wraps every connection factory in a {@link FaultInjectingConnectionFactory} when the {@code faults}
+ * profile is active, so latency, errors and connection drops can be injected without touching the database.
+ */
+@Configuration
+@Profile("faults")
+public class FaultInjectionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaultInjectionConfig.class);
+
+    @Bean
+    public FaultInjector faultInjector(FaultInjectionProperties properties, MeterRegistry meterRegistry) {
+        logger.warn("Fault injection enabled with {} rules", properties.rules().size());
+        return new FaultInjector(properties, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor faultInjectingConnectionFactoryPostProcessor(
+        ObjectProvider<FaultInjector> injector
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory
+                    && !(bean instanceof FaultInjectingConnectionFactory)) {
+                    return new FaultInjectingConnectionFactory(connectionFactory, injector.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
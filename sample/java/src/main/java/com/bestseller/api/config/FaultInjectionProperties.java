@@ -0,0 +1,40 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Faults injected into database access when the {@code faults} profile is active.
+ *
+ * @param connectLatency delay added to every connection acquisition, on top of any pool wait
+ * @param rules          rules matched against the SQL of each statement; the first match applies
+ */
+@ConfigurationProperties(prefix = "bestseller.faults")
+public record FaultInjectionProperties(
+    @DefaultValue("0s") Duration connectLatency,
+    @DefaultValue List<Rule> rules
+) {
+
+    /**
+     * @param name       label used in logs and metrics
+     * @param pattern    regular expression searched for in the SQL, case-insensitive
+     * @param latency    median delay before the statement runs
+     * @param latencyP99 99th percentile delay; when set, delays are log-normally distributed, otherwise fixed
+     * @param errorRate  probability that the statement fails with a transient error
+     * @param dropRate   probability that the physical connection is closed and the statement fails
+     * @param rowDelay   delay between streamed rows, simulating a slow or congested network
+     */
+    public record Rule(
+        String name,
+        String pattern,
+        @DefaultValue("0s") Duration latency,
+        Duration latencyP99,
+        @DefaultValue("0") double errorRate,
+        @DefaultValue("0") double dropRate,
+        @DefaultValue("0s") Duration rowDelay
+    ) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the hot-key tracker on the item, stock and tracking lookups.
+ *
+ * @param enabled      whether lookups are counted
+ * @param window       period the counts cover; older requests age out one slot at a time
+ * @param slots        number of sub-windows the window is divided into
+ * @param width        counters per sketch row, a power of two; the error per estimate is about 2.7 / width of
+ *                     the requests in the window
+ * @param depth        sketch rows; the chance that an estimate exceeds that error is about e^-depth
+ * @param top          number of keys reported per resource
+ * @param snapshotFile where the current top keys are saved for the next start's warm-up, on storage that survives
+ *                     restarts; empty, the default, disables it
+ */
+@ConfigurationProperties(prefix = "bestseller.hot-keys")
+public record HotKeyProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("1m") Duration window,
+    @DefaultValue("6") int slots,
+    @DefaultValue("2048") int width,
+    @DefaultValue("4") int depth,
+    @DefaultValue("20") int top,
+    @DefaultValue("") String snapshotFile
+) {
+}
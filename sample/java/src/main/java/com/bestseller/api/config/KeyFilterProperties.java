@@ -0,0 +1,26 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory filters that answer lookups of unknown item IDs and tracking numbers.
+ *
+ * @param enabled           whether lookups are checked against the filters
+ * @param falsePositiveRate share of unknown keys that still reach the database
+ * @param headroom          capacity factor over the current key count, leaving room for new keys between rebuilds
+ * @param refreshInterval   how often newly logged keys are added; new records may 404 for up to this long
+ * @param rebuildInterval   how often the filters are rebuilt from a full key scan, dropping deleted keys; the key log
+ *                          keeps twice this long
+ */
+@ConfigurationProperties(prefix = "bestseller.key-filter")
+public record KeyFilterProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("0.01") double falsePositiveRate,
+    @DefaultValue("1.5") double headroom,
+    @DefaultValue("5s") Duration refreshInterval,
+    @DefaultValue("1h") Duration rebuildInterval
+) {
+}
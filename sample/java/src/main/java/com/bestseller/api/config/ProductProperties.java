@@ -0,0 +1,21 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the aggregated product endpoints.
+ *
+ * @param itemTimeout  how long to wait for item data; without it there is no product, so the request fails with 504
+ * @param stockTimeout how long to wait for stock data before answering without it
+ * @param maxIds       maximum number of item ids accepted by one listing request
+ */
+@ConfigurationProperties(prefix = "bestseller.products")
+public record ProductProperties(
+    @DefaultValue("2s") Duration itemTimeout,
+    @DefaultValue("300ms") Duration stockTimeout,
+    @DefaultValue("100") int maxIds
+) {
+}
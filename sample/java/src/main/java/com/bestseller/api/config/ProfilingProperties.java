@@ -0,0 +1,32 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the always-on flight recording and the {@code jfr} actuator endpoint.
+ *
+ * @param enabled              whether the continuous recording is started
+ * @param settings             JFR configuration the recording starts from ({@code default} or {@code profile})
+ * @param maxAge               how far back the rolling buffer reaches
+ * @param maxSize              upper bound on the on-disk size of the rolling buffer
+ * @param serviceCallThreshold service calls faster than this are not recorded
+ * @param token                bearer token required by the endpoint; without one the endpoint rejects every request
+ * @param defaultWindow        window dumped or summarized when the request does not name one
+ * @param top                  entries listed per section of the summary
+ */
+@ConfigurationProperties(prefix = "bestseller.profiling")
+public record ProfilingProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("default") String settings,
+    @DefaultValue("30m") Duration maxAge,
+    @DefaultValue("256MB") DataSize maxSize,
+    @DefaultValue("0ms") Duration serviceCallThreshold,
+    String token,
+    @DefaultValue("5m") Duration defaultWindow,
+    @DefaultValue("20") int top
+) {
+}
@@ -0,0 +1,22 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the cache of already-encoded JSON response bodies.
+ *
+ * @param enabled     whether single-resource responses are served from the cache
+ * @param maxSize     memory budget for cached bodies, counting both plain and gzip copies
+ * @param gzip        whether a gzip copy is stored next to the plain body
+ * @param gzipMinSize bodies smaller than this are not worth compressing
+ */
+@ConfigurationProperties(prefix = "bestseller.response-cache")
+public record ResponseCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("64MB") DataSize maxSize,
+    @DefaultValue("true") boolean gzip,
+    @DefaultValue("1KB") DataSize gzipMinSize
+) {
+}
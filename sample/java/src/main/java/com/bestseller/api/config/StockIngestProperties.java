@@ -0,0 +1,33 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the stock update ingestion path ({@code POST /v1/stock/updates}).
+ *
+ * @param coalesce       whether updates are buffered and collapsed per item and warehouse; when off every request
+ *                       is written straight away
+ * @param flushInterval  how long updates are collapsed before they are written; bounds how stale stock reads can be
+ * @param batchSize      rows per upsert statement
+ * @param maxPendingKeys distinct item and warehouse pairs waiting to be written before new updates are rejected
+ * @param walDirectory   where accepted updates are logged until they have been written; required with coalescing.
+ *                       Updates are only delivered at least once if it is on persistent local storage that
+ *                       survives restarts of the process and its host, not a container's writable layer
+ * @param segmentSize    size at which the log rolls over to a new file; written files are deleted as a whole
+ * @param fsync          whether the log is forced to disk before an update is acknowledged
+ */
+@ConfigurationProperties(prefix = "bestseller.stock-ingest")
+public record StockIngestProperties(
+    @DefaultValue("false") boolean coalesce,
+    @DefaultValue("200ms") Duration flushInterval,
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("100000") int maxPendingKeys,
+    @DefaultValue("") String walDirectory,
+    @DefaultValue("16MB") DataSize segmentSize,
+    @DefaultValue("true") boolean fsync
+) {
+}
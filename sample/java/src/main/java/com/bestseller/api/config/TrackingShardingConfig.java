@@ -0,0 +1,85 @@
+package com.bestseller.api.config;
+
+import com.bestseller.api.sharding.TrackingShardConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured connection factory with a routing one when tracking sharding is enabled.
+ * The primary database stays the default target, and each shard gets its own connection pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bestseller.tracking.sharding", name = "enabled", havingValue = "true")
+public class TrackingShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingShardingConfig.class);
+
+    @Bean
+    @Primary
+    public ConnectionFactory connectionFactory(R2dbcProperties r2dbcProperties,
+                                               TrackingShardingProperties shardingProperties) {
+        if (shardingProperties.shards().isEmpty()) {
+            throw new IllegalStateException("Tracking sharding is enabled but no shards are configured");
+        }
+        R2dbcProperties.Pool primaryPool = r2dbcProperties.getPool();
+        ConnectionPool primary = pool(
+            r2dbcProperties.getUrl(),
+            r2dbcProperties.getUsername(),
+            r2dbcProperties.getPassword(),
+            primaryPool.getInitialSize(),
+            primaryPool.getMaxSize(),
+            primaryPool.getMaxIdleTime()
+        );
+
+        List<Disposable> pools = new ArrayList<>(List.of(primary));
+        Map<String, ConnectionFactory> shards = new HashMap<>();
+        for (TrackingShardingProperties.Shard shard : shardingProperties.shards()) {
+            ConnectionPool pool = pool(shard.url(), shard.username(), shard.password(),
+                shard.initialSize(), shard.maxSize(), shard.maxIdleTime());
+            pools.add(pool);
+            shards.put(shard.name(), pool);
+        }
+
+        TrackingShardConnectionFactory routing = new TrackingShardConnectionFactory(pools);
+        routing.setDefaultTargetConnectionFactory(primary);
+        routing.setTargetConnectionFactories(shards);
+        routing.setLenientFallback(false);
+        logger.info("Tracking sharding enabled with {} shards: {}", shards.size(), shards.keySet());
+        return routing;
+    }
+
+    private ConnectionPool pool(String url, String username, String password,
+                                int initialSize, int maxSize, Duration maxIdleTime) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+            .initialSize(initialSize)
+            .maxSize(maxSize)
+            .maxIdleTime(maxIdleTime)
+            .validationQuery("SELECT 1")
+            .build());
+    }
+}
@@ -0,0 +1,43 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for spreading {@code tracking} and {@code tracking_events} over several PostgreSQL instances.
+ * When disabled, tracking data stays in the primary database configured under {@code spring.r2dbc}.
+ *
+ * @param enabled        whether tracking access is routed to the configured shards
+ * @param virtualNodes   points per shard on the consistent-hash ring; more points give a more even spread
+ * @param fallbackOnMiss whether a lookup that misses on the owning shard tries the other shards (use while rebalancing)
+ * @param shards         the shard databases; names must stay stable because they seed the ring
+ */
+@ConfigurationProperties(prefix = "bestseller.tracking.sharding")
+public record TrackingShardingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("false") boolean fallbackOnMiss,
+    List<Shard> shards
+) {
+
+    public TrackingShardingProperties {
+        shards = shards == null ? List.of() : List.copyOf(shards);
+    }
+
+    /**
+     * One shard database and its connection pool.
+     */
+    public record Shard(
+        String name,
+        String url,
+        String username,
+        String password,
+        @DefaultValue("5") int initialSize,
+        @DefaultValue("20") int maxSize,
+        @DefaultValue("30m") Duration maxIdleTime
+    ) {
+    }
+}
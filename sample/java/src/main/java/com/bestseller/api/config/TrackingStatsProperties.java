@@ -0,0 +1,19 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the trigger-maintained shipment counters behind {@code GET /v1/track/stats}.
+ *
+ * @param reconcile         whether the counters are periodically recounted from the tracking table
+ * @param reconcileInterval how often they are recounted; each round aggregates the whole table once per shard
+ */
+@ConfigurationProperties(prefix = "bestseller.tracking-stats")
+public record TrackingStatsProperties(
+    @DefaultValue("true") boolean reconcile,
+    @DefaultValue("1h") Duration reconcileInterval
+) {
+}
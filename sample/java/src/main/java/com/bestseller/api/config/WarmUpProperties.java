@@ -0,0 +1,40 @@
+package com.bestseller.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for the warm-up stage that runs after startup and before the instance reports ready.
+ *
+ * @param enabled          whether the warm-up runs at all
+ * @param hotItems         number of items to pre-load when {@code itemIds} does not list enough
+ * @param hotTracking      number of tracking records to pre-load when {@code trackingNumbers} does not list enough
+ * @param itemIds          items that must always be warmed, e.g. current campaign products
+ * @param trackingNumbers  tracking records that must always be warmed
+ * @param useHotKeys       also warm the keys the hot-key tracker saw most during the previous run
+ * @param concurrency      synthetic requests in flight at once
+ * @param minRounds        rounds always run, even if latency looks settled earlier
+ * @param maxRounds        upper bound on rounds when latency keeps moving
+ * @param settleTolerance  relative change in mean latency between two rounds that counts as settled
+ * @param maxErrorRatio    share of a round's requests that may fail for the round to count towards settling
+ * @param maxDuration      hard limit; readiness is never delayed longer than this
+ */
+@ConfigurationProperties(prefix = "bestseller.warmup")
+public record WarmUpProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("100") int hotItems,
+    @DefaultValue("100") int hotTracking,
+    @DefaultValue List<String> itemIds,
+    @DefaultValue List<String> trackingNumbers,
+    @DefaultValue("true") boolean useHotKeys,
+    @DefaultValue("8") int concurrency,
+    @DefaultValue("3") int minRounds,
+    @DefaultValue("20") int maxRounds,
+    @DefaultValue("0.1") double settleTolerance,
+    @DefaultValue("0.01") double maxErrorRatio,
+    @DefaultValue("60s") Duration maxDuration
+) {
+}
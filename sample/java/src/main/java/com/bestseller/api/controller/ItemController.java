@@ -1,24 +1,38 @@
 package com.bestseller.api.controller;
 
-import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.cache.EncodedResponseCache;
+import com.bestseller.api.hotkeys.HotKeys;
+import com.bestseller.api.model.ChangePage;
+import com.bestseller.api.model.ItemChange;
 import com.bestseller.api.model.ItemSummary;
 import com.bestseller.api.service.ItemService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/v1/items")
 public class ItemController {
 
     private final ItemService itemService;
+    private final EncodedResponseCache responseCache;
+    private final HotKeys hotKeys;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, EncodedResponseCache responseCache, HotKeys hotKeys) {
         this.itemService = itemService;
+        this.responseCache = responseCache;
+        this.hotKeys = hotKeys;
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -26,8 +40,29 @@ public class ItemController {
         return itemService.getAllItems();
     }
 
+    @GetMapping(params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Map<String, Object>> getAllItems(@RequestParam String fields) {
+        return itemService.getAllItems(fields);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ChangePage<ItemChange>> getItemChanges(@RequestParam(required = false) String since,
+                                                       @RequestParam(required = false) Integer limit) {
+        return itemService.getItemChanges(since, limit);
+    }
+
     @GetMapping(value = "/{itemId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<ItemDetail> getItemById(@PathVariable String itemId) {
-        return itemService.getItemById(itemId);
+    public Mono<ResponseEntity<DataBuffer>> getItemById(@PathVariable String itemId,
+                                                        @RequestHeader HttpHeaders headers) {
+        hotKeys.record(HotKeys.Resource.ITEM, itemId);
+        return responseCache.get("item", itemId, itemService.getItemVersion(itemId),
+                () -> itemService.getItemById(itemId))
+            .map(encoded -> encoded.toResponseEntity(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    @GetMapping(value = "/{itemId}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getItemById(@PathVariable String itemId, @RequestParam String fields) {
+        hotKeys.record(HotKeys.Resource.ITEM, itemId);
+        return itemService.getItemById(itemId, fields);
     }
 }
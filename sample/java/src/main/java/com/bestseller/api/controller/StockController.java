@@ -1,26 +1,61 @@
 package com.bestseller.api.controller;
 
+import com.bestseller.api.hotkeys.HotKeys;
+import com.bestseller.api.model.ChangePage;
+import com.bestseller.api.model.StockChange;
 import com.bestseller.api.model.StockInfo;
+import com.bestseller.api.model.StockUpdate;
 import com.bestseller.api.service.StockService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/v1/stock")
 public class StockController {
 
     private final StockService stockService;
+    private final HotKeys hotKeys;
 
-    public StockController(StockService stockService) {
+    public StockController(StockService stockService, HotKeys hotKeys) {
         this.stockService = stockService;
+        this.hotKeys = hotKeys;
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ChangePage<StockChange>> getStockChanges(@RequestParam(required = false) String since,
+                                                         @RequestParam(required = false) Integer limit) {
+        return stockService.getStockChanges(since, limit);
+    }
+
+    @PostMapping(value = "/updates", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<Map<String, Integer>> submitStockUpdates(@RequestBody List<StockUpdate> updates) {
+        return stockService.submitStockUpdates(updates)
+            .map(accepted -> Map.of("accepted", accepted));
     }
 
     @GetMapping(value = "/{itemId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<StockInfo> getStockByItemId(@PathVariable String itemId) {
+        hotKeys.record(HotKeys.Resource.STOCK, itemId);
         return stockService.getStockByItemId(itemId);
     }
+
+    @GetMapping(value = "/{itemId}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getStockByItemId(@PathVariable String itemId, @RequestParam String fields) {
+        hotKeys.record(HotKeys.Resource.STOCK, itemId);
+        return stockService.getStockByItemId(itemId, fields);
+    }
 }
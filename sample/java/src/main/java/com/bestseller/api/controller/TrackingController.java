@@ -1,26 +1,61 @@
 package com.bestseller.api.controller;
 
-import com.bestseller.api.model.TrackingInfo;
+import com.bestseller.api.cache.EncodedResponseCache;
+import com.bestseller.api.hotkeys.HotKeys;
+import com.bestseller.api.model.TrackingStats;
 import com.bestseller.api.service.TrackingService;
+import com.bestseller.api.service.TrackingStatsService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/v1/track")
 public class TrackingController {
 
     private final TrackingService trackingService;
+    private final TrackingStatsService trackingStatsService;
+    private final EncodedResponseCache responseCache;
+    private final HotKeys hotKeys;
 
-    public TrackingController(TrackingService trackingService) {
+    public TrackingController(TrackingService trackingService,
+                              TrackingStatsService trackingStatsService,
+                              EncodedResponseCache responseCache,
+                              HotKeys hotKeys) {
         this.trackingService = trackingService;
+        this.trackingStatsService = trackingStatsService;
+        this.responseCache = responseCache;
+        this.hotKeys = hotKeys;
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<TrackingStats> getTrackingStats() {
+        return trackingStatsService.getStats();
     }
 
     @GetMapping(value = "/{trackingNo}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<TrackingInfo> getTrackingStatus(@PathVariable String trackingNo) {
-        return trackingService.getTrackingStatus(trackingNo);
+    public Mono<ResponseEntity<DataBuffer>> getTrackingStatus(@PathVariable String trackingNo,
+                                                              @RequestHeader HttpHeaders headers) {
+        hotKeys.record(HotKeys.Resource.TRACKING, trackingNo);
+        return responseCache.get("tracking", trackingNo, trackingService.getTrackingVersion(trackingNo),
+                () -> trackingService.getTrackingStatus(trackingNo))
+            .map(encoded -> encoded.toResponseEntity(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    @GetMapping(value = "/{trackingNo}", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Map<String, Object>> getTrackingStatus(@PathVariable String trackingNo,
+                                                       @RequestParam String fields) {
+        hotKeys.record(HotKeys.Resource.TRACKING, trackingNo);
+        return trackingService.getTrackingStatus(trackingNo, fields);
     }
 }
@@ -0,0 +1,21 @@
+package com.bestseller.api.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("item_tombstones")
+public record ItemTombstone(
+    @Id
+    @Column("id")
+    Long id,
+
+    @Column("item_id")
+    String itemId,
+
+    @Column("deleted_at")
+    Instant deletedAt
+) {
+}
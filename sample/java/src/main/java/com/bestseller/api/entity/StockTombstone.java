@@ -0,0 +1,27 @@
+package com.bestseller.api.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("stock_tombstones")
+public record StockTombstone(
+    @Id
+    @Column("id")
+    Long id,
+
+    @Column("stock_id")
+    Integer stockId,
+
+    @Column("item_id")
+    String itemId,
+
+    @Column("warehouse")
+    String warehouse,
+
+    @Column("deleted_at")
+    Instant deletedAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.bestseller.api.exception;
+
+import java.time.Duration;
+
+public class DependencyTimeoutException extends RuntimeException {
+
+    public DependencyTimeoutException(String dependency, Duration timeout) {
+        super("No answer from " + dependency + " within " + timeout.toMillis() + " ms");
+    }
+}
@@ -7,15 +7,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.Duration;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final LogThrottle itemNotFoundLog = new LogThrottle(10, Duration.ofSeconds(1));
+    private final LogThrottle trackingNotFoundLog = new LogThrottle(10, Duration.ofSeconds(1));
+
     @ExceptionHandler(ItemNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleItemNotFoundException(ItemNotFoundException ex) {
-        logger.warn("Item not found: {}", ex.getMessage());
+        logNotFound(itemNotFoundLog, "Item not found: {}", ex);
         ErrorResponse error = new ErrorResponse(
             HttpStatus.NOT_FOUND.value(),
             "Resource not found",
@@ -26,7 +32,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(TrackingNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleTrackingNotFoundException(TrackingNotFoundException ex) {
-        logger.warn("Tracking not found: {}", ex.getMessage());
+        logNotFound(trackingNotFoundLog, "Tracking not found: {}", ex);
         ErrorResponse error = new ErrorResponse(
             HttpStatus.NOT_FOUND.value(),
             "Resource not found",
@@ -35,6 +41,83 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(InvalidChangeTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidChangeTokenException(InvalidChangeTokenException ex) {
+        logger.warn("Invalid change token: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad request",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidFieldsException(InvalidFieldsException ex) {
+        logger.warn("Invalid fields: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad request",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidProductIdsException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidProductIdsException(InvalidProductIdsException ex) {
+        logger.warn("Invalid product ids: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad request",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponse> handleServerWebInputException(ServerWebInputException ex) {
+        logger.warn("Invalid request input: {}", ex.getReason());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad request",
+            ex.getReason()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidStockUpdateException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidStockUpdateException(InvalidStockUpdateException ex) {
+        logger.warn("Invalid stock update: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad request",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(StockIngestOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleStockIngestOverloadedException(StockIngestOverloadedException ex) {
+        logger.warn("Stock ingestion overloaded: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service unavailable",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(DependencyTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleDependencyTimeoutException(DependencyTimeoutException ex) {
+        logger.warn("Dependency timeout: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.GATEWAY_TIMEOUT.value(),
+            "Gateway timeout",
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         logger.error("Unexpected error occurred", ex);
@@ -45,4 +128,13 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
+
+    private void logNotFound(LogThrottle throttle, String message, RuntimeException ex) {
+        long suppressed = throttle.tryAcquire();
+        if (suppressed == 0) {
+            logger.warn(message, ex.getMessage());
+        } else if (suppressed > 0) {
+            logger.warn(message + " ({} similar messages suppressed)", ex.getMessage(), suppressed);
+        }
+    }
 }
@@ -0,0 +1,8 @@
+package com.bestseller.api.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String fields) {
+        super("Invalid fields selection: " + fields);
+    }
+}
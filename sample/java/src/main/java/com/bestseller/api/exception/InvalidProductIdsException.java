@@ -0,0 +1,8 @@
+package com.bestseller.api.exception;
+
+public class InvalidProductIdsException extends RuntimeException {
+
+    public InvalidProductIdsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.bestseller.api.exception;
+
+public class InvalidStockUpdateException extends RuntimeException {
+
+    public InvalidStockUpdateException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.bestseller.api.exception;
 public class ItemNotFoundException extends RuntimeException {
 
     public ItemNotFoundException(String itemId) {
-        super("Item not found: " + itemId);
+        // Not found is an expected answer rather than a failure, so no stack trace is captured
+        super("Item not found: " + itemId, null, false, false);
     }
 }
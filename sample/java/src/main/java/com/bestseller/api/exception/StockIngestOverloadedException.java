@@ -0,0 +1,8 @@
+package com.bestseller.api.exception;
+
+public class StockIngestOverloadedException extends RuntimeException {
+
+    public StockIngestOverloadedException(int pendingKeys) {
+        super(pendingKeys + " stock records are waiting to be written; retry later");
+    }
+}
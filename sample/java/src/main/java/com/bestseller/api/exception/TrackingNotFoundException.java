@@ -3,6 +3,7 @@ package com.bestseller.api.exception;
 public class TrackingNotFoundException extends RuntimeException {
 
     public TrackingNotFoundException(String trackingNo) {
-        super("Tracking number not found: " + trackingNo);
+        // Not found is an expected answer rather than a failure, so no stack trace is captured
+        super("Tracking number not found: " + trackingNo, null, false, false);
     }
 }
@@ -0,0 +1,62 @@
+package com.bestseller.api.faults;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Wraps a connection factory (usually the pool) and injects the faults decided by a {@link FaultInjector}
+ * into every statement executed on its connections. Only meant for performance and resilience testing.
+ */
+public class FaultInjectingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, DisposableBean {
+
+    private final ConnectionFactory delegate;
+    private final FaultInjector injector;
+
+    public FaultInjectingConnectionFactory(ConnectionFactory delegate, FaultInjector injector) {
+        this.delegate = delegate;
+        this.injector = injector;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        Mono<? extends Connection> connection = Mono.from(delegate.create());
+        if (!injector.connectLatency().isZero()) {
+            connection = Mono.delay(injector.connectLatency()).then(connection);
+        }
+        return connection.map(created -> new FaultInjectingConnection(created, injector));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    /**
+     * Releases the wrapped pool, which would otherwise not be disposed since only this proxy is registered.
+     */
+    public void dispose() {
+        if (delegate instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposableBean) {
+            disposableBean.destroy();
+        } else {
+            dispose();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bestseller.api.faults;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Statement that applies the sampled fault when it is executed: it waits, then fails, drops the
+ * connection, or runs the query and slows down the returned rows.
+ */
+class FaultInjectingStatement implements Statement, Wrapped<Statement> {
+
+    private final Statement delegate;
+    private final String sql;
+    private final Connection connection;
+    private final FaultInjector injector;
+
+    FaultInjectingStatement(Statement delegate, String sql, Connection connection, FaultInjector injector) {
+        this.delegate = delegate;
+        this.sql = sql;
+        this.connection = connection;
+        this.injector = injector;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        FaultInjector.Fault fault = injector.sample(sql);
+        if (fault == null) {
+            return delegate.execute();
+        }
+
+        Mono<Void> delay = fault.delay().isZero() ? Mono.empty() : Mono.delay(fault.delay()).then();
+        if (fault.drop()) {
+            return delay
+                .then(Mono.from(physical(connection).close()))
+                .then(Mono.error(new R2dbcNonTransientResourceException(
+                    "Injected connection drop (rule " + fault.rule() + ")")));
+        }
+        if (fault.error()) {
+            return delay.then(Mono.error(new R2dbcTransientResourceException(
+                "Injected failure (rule " + fault.rule() + ")")));
+        }
+        Flux<? extends Result> results = delay.thenMany(Flux.defer(delegate::execute));
+        if (fault.rowDelay().isZero()) {
+            return results;
+        }
+        return results.map(result -> new SlowResult(result, fault.rowDelay()));
+    }
+
+    /**
+     * Looks through the pool's wrapper, so the drop closes the real connection and the pool has to replace it.
+     */
+    private static Connection physical(Connection connection) {
+        Connection current = connection;
+        while (current instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof Connection inner) {
+            current = inner;
+        }
+        return current;
+    }
+
+    @Override
+    public Statement add() {
+        delegate.add();
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        delegate.bind(index, value);
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        delegate.bind(name, value);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        delegate.bindNull(index, type);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        delegate.bindNull(name, type);
+        return this;
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        delegate.returnGeneratedValues(columns);
+        return this;
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        delegate.fetchSize(rows);
+        return this;
+    }
+
+    @Override
+    public Statement unwrap() {
+        return delegate;
+    }
+}
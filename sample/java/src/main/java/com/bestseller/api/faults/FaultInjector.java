@@ -0,0 +1,88 @@
+package com.bestseller.api.faults;
+
+import com.bestseller.api.config.FaultInjectionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Decides, per statement, which fault to inject. Rules can be replaced at runtime,
+ * which lets tests and experiments switch between degradation scenarios without a restart.
+ */
+public class FaultInjector {
+
+    /** z-score of the 99th percentile of the standard normal distribution. */
+    private static final double Z_99 = 2.3263;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration connectLatency;
+    private volatile List<CompiledRule> rules;
+
+    public FaultInjector(FaultInjectionProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.connectLatency = properties.connectLatency();
+        setRules(properties.rules());
+    }
+
+    public void setRules(List<FaultInjectionProperties.Rule> rules) {
+        this.rules = rules.stream()
+            .map(rule -> new CompiledRule(rule, Pattern.compile(rule.pattern(), Pattern.CASE_INSENSITIVE)))
+            .toList();
+    }
+
+    Duration connectLatency() {
+        return connectLatency;
+    }
+
+    /**
+     * Samples the fault for one execution of {@code sql}, or returns {@code null} when no rule matches.
+     */
+    Fault sample(String sql) {
+        for (CompiledRule compiled : rules) {
+            if (compiled.pattern().matcher(sql).find()) {
+                FaultInjectionProperties.Rule rule = compiled.rule();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Fault fault = new Fault(
+                    rule.name(),
+                    delay(rule, random),
+                    random.nextDouble() < rule.errorRate(),
+                    random.nextDouble() < rule.dropRate(),
+                    rule.rowDelay()
+                );
+                record(fault);
+                return fault;
+            }
+        }
+        return null;
+    }
+
+    private Duration delay(FaultInjectionProperties.Rule rule, ThreadLocalRandom random) {
+        if (rule.latencyP99() == null || rule.latency().isZero()) {
+            return rule.latency();
+        }
+        double median = rule.latency().toNanos();
+        double sigma = Math.log(rule.latencyP99().toNanos() / median) / Z_99;
+        return Duration.ofNanos((long) (median * Math.exp(sigma * random.nextGaussian())));
+    }
+
+    private void record(Fault fault) {
+        if (!fault.delay().isZero()) {
+            meterRegistry.counter("bestseller.faults.injected", "rule", fault.rule(), "type", "latency").increment();
+        }
+        if (fault.error()) {
+            meterRegistry.counter("bestseller.faults.injected", "rule", fault.rule(), "type", "error").increment();
+        }
+        if (fault.drop()) {
+            meterRegistry.counter("bestseller.faults.injected", "rule", fault.rule(), "type", "drop").increment();
+        }
+    }
+
+    record Fault(String rule, Duration delay, boolean error, boolean drop, Duration rowDelay) {
+    }
+
+    private record CompiledRule(FaultInjectionProperties.Rule rule, Pattern pattern) {
+    }
+}
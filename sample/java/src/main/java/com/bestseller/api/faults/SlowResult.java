@@ -0,0 +1,52 @@
+package com.bestseller.api.faults;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Result whose rows are emitted no faster than one per {@code rowDelay}.
+ */
+class SlowResult implements Result {
+
+    private final Result delegate;
+    private final Duration rowDelay;
+
+    SlowResult(Result delegate, Duration rowDelay) {
+        this.delegate = delegate;
+        this.rowDelay = rowDelay;
+    }
+
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return delegate.getRowsUpdated();
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        return Flux.<T>from(delegate.map(mappingFunction)).delayElements(rowDelay);
+    }
+
+    @Override
+    public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+        return Flux.<T>from(delegate.map(mappingFunction)).delayElements(rowDelay);
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        return new SlowResult(delegate.filter(filter), rowDelay);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        return Flux.<T>from(delegate.flatMap(mappingFunction)).delayElements(rowDelay);
+    }
+}
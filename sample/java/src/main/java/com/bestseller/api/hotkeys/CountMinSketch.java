@@ -0,0 +1,67 @@
+package com.bestseller.api.hotkeys;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch over a fixed array of atomic counters. A key's estimate is never below its true count and
+ * exceeds it only by the counts of keys that share all of its cells.
+ */
+final class CountMinSketch {
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C,
+        0xFD7046C5, 0xB55A4F09};
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+
+    CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1 || depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("width must be a power of two and depth between 1 and " + SEEDS.length);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Counts one occurrence of the key with the given hash and returns its new estimate.
+     */
+    long add(int hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.incrementAndGet(cell(hash, row)));
+        }
+        return estimate;
+    }
+
+    long estimate(int hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(cell(hash, row)));
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    long sizeInBytes() {
+        return 8L * counts.length();
+    }
+
+    private int cell(int hash, int row) {
+        return row * width + (mix(hash ^ SEEDS[row]) & (width - 1));
+    }
+
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+}
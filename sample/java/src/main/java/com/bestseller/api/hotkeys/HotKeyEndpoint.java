@@ -0,0 +1,53 @@
+package com.bestseller.api.hotkeys;
+
+import com.bestseller.api.config.HotKeyProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the hot-key tracker. {@code GET /actuator/hotkeys} lists the top keys of every resource,
+ * {@code GET /actuator/hotkeys/item?top=50} those of one resource. Requests need the bearer token checked by
+ * {@link com.bestseller.api.profiling.DiagnosticEndpointFilter}, since the keys name customers' orders.
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeyEndpoint {
+
+    private final HotKeys hotKeys;
+    private final HotKeyProperties properties;
+
+    public HotKeyEndpoint(HotKeys hotKeys, HotKeyProperties properties) {
+        this.hotKeys = hotKeys;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, HotKeyReport> all(@Nullable Integer top) {
+        Map<String, HotKeyReport> reports = new LinkedHashMap<>();
+        for (HotKeys.Resource resource : HotKeys.Resource.values()) {
+            reports.put(resource.id(), hotKeys.report(resource, limit(top)));
+        }
+        return reports;
+    }
+
+    @ReadOperation
+    public HotKeyReport resource(@Selector String resource, @Nullable Integer top) {
+        HotKeys.Resource selected;
+        try {
+            selected = HotKeys.Resource.valueOf(resource.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return hotKeys.report(selected, limit(top));
+    }
+
+    private int limit(Integer top) {
+        return top != null && top > 0 ? top : properties.top();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bestseller.api.hotkeys;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Most requested keys of one resource over the sliding window.
+ *
+ * @param requests lookups of the resource counted in the window
+ * @param keys     top keys, most requested first; estimates may overcount slightly but never undercount
+ */
+public record HotKeyReport(
+    String resource,
+    Duration window,
+    long requests,
+    List<HotKey> keys
+) {
+
+    /**
+     * @param share estimated fraction of the resource's requests in the window that asked for this key
+     */
+    public record HotKey(String key, long estimate, double share) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.bestseller.api.hotkeys;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Heavy hitters of one resource over a sliding window, in fixed memory and without locks or allocation on
+ * {@link #record}.
+ * <p>
+ * The window is split into slots, each with its own {@link CountMinSketch}; {@link #rotate()} clears the oldest
+ * slot and makes it current. Keys whose windowed estimate reaches the admission floor compete for a small
+ * open-addressing candidate table: a key takes an empty slot or replaces the candidate with the lowest count
+ * among a few probed slots. The floor is the lowest count among the reported top keys, refreshed on every
+ * rotation, so cold keys never touch the table.
+ */
+final class HotKeyTracker {
+
+    private static final int PROBES = 8;
+
+    private final CountMinSketch[] sketches;
+    private final AtomicLongArray requests;
+    private final AtomicReferenceArray<String> candidates;
+    private final AtomicLongArray candidateCounts;
+    private final int top;
+    private volatile int current;
+    private volatile long floor = 1;
+
+    HotKeyTracker(int slots, int width, int depth, int top) {
+        this.sketches = new CountMinSketch[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            sketches[slot] = new CountMinSketch(width, depth);
+        }
+        this.requests = new AtomicLongArray(slots);
+        int capacity = Integer.highestOneBit(Math.max(16, top * 4) - 1) << 1;
+        this.candidates = new AtomicReferenceArray<>(capacity);
+        this.candidateCounts = new AtomicLongArray(capacity);
+        this.top = top;
+    }
+
+    void record(String key) {
+        int hash = key.hashCode();
+        int slot = current;
+        requests.incrementAndGet(slot);
+        long estimate = sketches[slot].add(hash) + otherSlots(hash, slot);
+        if (estimate >= floor) {
+            offer(key, hash, estimate);
+        }
+    }
+
+    /**
+     * Moves the window on by one slot and refreshes the candidates' counts and the admission floor.
+     */
+    void rotate() {
+        int next = (current + 1) % sketches.length;
+        sketches[next].clear();
+        requests.set(next, 0);
+        current = next;
+
+        List<Long> counts = new ArrayList<>();
+        for (int i = 0; i < candidates.length(); i++) {
+            String key = candidates.get(i);
+            if (key == null) {
+                continue;
+            }
+            long estimate = estimate(key.hashCode());
+            if (estimate == 0) {
+                candidates.compareAndSet(i, key, null);
+            } else {
+                candidateCounts.set(i, estimate);
+                counts.add(estimate);
+            }
+        }
+        counts.sort(Comparator.reverseOrder());
+        floor = counts.size() < top ? 1 : Math.max(1, counts.get(top - 1));
+    }
+
+    /**
+     * Current top keys by estimated requests in the window, most requested first.
+     */
+    List<HotKeyReport.HotKey> top(int limit) {
+        long total = requests();
+        List<HotKeyReport.HotKey> keys = new ArrayList<>();
+        for (int i = 0; i < candidates.length(); i++) {
+            String key = candidates.get(i);
+            if (key != null) {
+                long estimate = estimate(key.hashCode());
+                if (estimate > 0) {
+                    keys.add(new HotKeyReport.HotKey(key, estimate, total > 0 ? (double) estimate / total : 0));
+                }
+            }
+        }
+        keys.sort(Comparator.comparingLong(HotKeyReport.HotKey::estimate).reversed());
+        return keys.size() > limit ? List.copyOf(keys.subList(0, limit)) : keys;
+    }
+
+    long estimate(int hash) {
+        long estimate = 0;
+        for (CountMinSketch sketch : sketches) {
+            estimate += sketch.estimate(hash);
+        }
+        return estimate;
+    }
+
+    long requests() {
+        long total = 0;
+        for (int slot = 0; slot < requests.length(); slot++) {
+            total += requests.get(slot);
+        }
+        return total;
+    }
+
+    long sizeInBytes() {
+        long bytes = 8L * requests.length() + 4L * candidates.length() + 8L * candidateCounts.length();
+        for (CountMinSketch sketch : sketches) {
+            bytes += sketch.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private long otherSlots(int hash, int currentSlot) {
+        long estimate = 0;
+        for (int slot = 0; slot < sketches.length; slot++) {
+            if (slot != currentSlot) {
+                estimate += sketches[slot].estimate(hash);
+            }
+        }
+        return estimate;
+    }
+
+    private void offer(String key, int hash, long estimate) {
+        int mask = candidates.length() - 1;
+        int base = CountMinSketch.mix(hash) & mask;
+        int victim = -1;
+        String victimKey = null;
+        long victimCount = Long.MAX_VALUE;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (base + probe) & mask;
+            String candidate = candidates.get(slot);
+            if (candidate == null) {
+                if (candidates.compareAndSet(slot, null, key)) {
+                    candidateCounts.set(slot, estimate);
+                    return;
+                }
+                candidate = candidates.get(slot);
+                if (candidate == null) {
+                    continue;
+                }
+            }
+            if (candidate.equals(key)) {
+                candidateCounts.accumulateAndGet(slot, estimate, Math::max);
+                return;
+            }
+            long count = candidateCounts.get(slot);
+            if (count < victimCount) {
+                victim = slot;
+                victimKey = candidate;
+                victimCount = count;
+            }
+        }
+        if (victim >= 0 && estimate > victimCount && candidates.compareAndSet(victim, victimKey, key)) {
+            candidateCounts.set(victim, estimate);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.bestseller.api.hotkeys;
+
+import com.bestseller.api.config.HotKeyProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most requested item IDs and tracking numbers per resource, for sizing caches, spotting clients
+ * that hammer single keys and choosing what the warm-up pre-loads.
+ * <p>
+ * Counting starts once the application is ready, so warm-up traffic is not mistaken for real demand. Every full
+ * window the current top keys are written to {@code snapshot-file}; on the next start they are available through
+ * {@link #previousTop}, which the warm-up uses before sampling keys from the database.
+ */
+@Component
+public class HotKeys implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeys.class);
+
+    public enum Resource {
+        ITEM, STOCK, TRACKING;
+
+        public String id() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final HotKeyProperties properties;
+    private final Map<Resource, HotKeyTracker> trackers = new EnumMap<>(Resource.class);
+    private final Map<Resource, List<String>> previousTop = new EnumMap<>(Resource.class);
+    private volatile boolean recording;
+    private Disposable rotations;
+
+    public HotKeys(HotKeyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (Resource resource : Resource.values()) {
+            HotKeyTracker tracker = new HotKeyTracker(properties.slots(), properties.width(), properties.depth(),
+                properties.top());
+            trackers.put(resource, tracker);
+            previousTop.put(resource, List.of());
+            Gauge.builder("bestseller.hotkeys.bytes", tracker, HotKeyTracker::sizeInBytes)
+                .description("Memory used by the hot-key tracker")
+                .baseUnit("bytes")
+                .tag("resource", resource.id())
+                .register(meterRegistry);
+            Gauge.builder("bestseller.hotkeys.top.share", this, hotKeys -> hotKeys.topShare(resource))
+                .description("Share of the window's requests that went to the most requested key")
+                .tag("resource", resource.id())
+                .register(meterRegistry);
+        }
+        loadSnapshot();
+    }
+
+    /**
+     * Counts one lookup of the key. Lock-free and allocation-free.
+     */
+    public void record(Resource resource, String key) {
+        if (recording && key != null) {
+            trackers.get(resource).record(key);
+        }
+    }
+
+    public HotKeyReport report(Resource resource, int limit) {
+        HotKeyTracker tracker = trackers.get(resource);
+        return new HotKeyReport(resource.id(), properties.window(), tracker.requests(), tracker.top(limit));
+    }
+
+    /**
+     * Top keys saved by the previous run, most requested first; empty when there was no snapshot.
+     */
+    public List<String> previousTop(Resource resource) {
+        return previousTop.get(resource);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            logger.info("Hot-key tracking disabled");
+            return;
+        }
+        recording = true;
+        rotations = Flux.interval(properties.window().dividedBy(properties.slots()))
+            .onBackpressureDrop()
+            .subscribe(tick -> {
+                trackers.values().forEach(HotKeyTracker::rotate);
+                if ((tick + 1) % properties.slots() == 0) {
+                    saveSnapshot();
+                }
+            });
+    }
+
+    @Override
+    public void destroy() {
+        if (rotations != null) {
+            rotations.dispose();
+            saveSnapshot();
+        }
+        recording = false;
+    }
+
+    private double topShare(Resource resource) {
+        List<HotKeyReport.HotKey> top = trackers.get(resource).top(1);
+        return top.isEmpty() ? 0 : top.get(0).share();
+    }
+
+    private void saveSnapshot() {
+        if (properties.snapshotFile().isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (Resource resource : Resource.values()) {
+            for (HotKeyReport.HotKey key : trackers.get(resource).top(properties.top())) {
+                lines.add(resource.id() + '\t' + key.key() + '\t' + key.estimate());
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            Path file = Path.of(properties.snapshotFile());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not save hot keys to {}: {}", properties.snapshotFile(), e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        Path file = Path.of(properties.snapshotFile());
+        if (properties.snapshotFile().isEmpty() || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            Map<Resource, List<String>> loaded = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length == 3) {
+                    Resource resource = Resource.valueOf(fields[0].toUpperCase());
+                    loaded.computeIfAbsent(resource, r -> new ArrayList<>()).add(fields[1]);
+                }
+            }
+            loaded.forEach((resource, keys) -> previousTop.put(resource, List.copyOf(keys)));
+            logger.info("Loaded hot keys of the previous run from {}", file);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not load hot keys from {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.bestseller.api.ingest;
+
+import com.bestseller.api.model.StockUpdate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted stock updates, kept until they have been written to the database.
+ * <p>
+ * Records are numbered with increasing sequence numbers and appended to segment files named after the first
+ * sequence they hold. Each record carries a CRC, so a record torn by a crash is detected and ends recovery of
+ * its segment. {@link #checkpoint(long)} stores the highest sequence that is safely in the database and deletes
+ * the segments that only hold records up to it. Recovery returns every record after the checkpoint, so an
+ * update may be written twice but is never lost once {@link #append} has returned.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ */
+final class StockWriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+    // First sequence of every segment on disk, mapped to its file
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel current;
+    private long nextSequence = 1;
+
+    StockWriteAheadLog(Path directory, long segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Reads the records that were not checkpointed and opens a new segment for appends.
+     */
+    List<Entry> recover() throws IOException {
+        Files.createDirectories(directory);
+        long checkpoint = readCheckpoint();
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .forEach(file -> segments.put(firstSequence(file), file));
+        }
+        for (Path segment : segments.values()) {
+            for (Entry entry : read(segment)) {
+                nextSequence = Math.max(nextSequence, entry.sequence() + 1);
+                if (entry.sequence() > checkpoint) {
+                    entries.add(entry);
+                }
+            }
+        }
+        nextSequence = Math.max(nextSequence, checkpoint + 1);
+        roll();
+        return entries;
+    }
+
+    /**
+     * Appends the updates as one write and, with fsync enabled, forces them to disk.
+     *
+     * @return the logged entries with their sequence numbers
+     */
+    List<Entry> append(List<StockUpdate> updates, Instant acceptedAt) throws IOException {
+        if (current.size() >= segmentSize) {
+            roll();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(updates.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<Entry> entries = new ArrayList<>(updates.size());
+        for (StockUpdate update : updates) {
+            Entry entry = new Entry(nextSequence++, update, acceptedAt);
+            write(out, entry);
+            entries.add(entry);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        if (fsync) {
+            current.force(false);
+        }
+        return entries;
+    }
+
+    /**
+     * Records that every entry up to {@code sequence} has been written and deletes the segments holding only those.
+     */
+    void checkpoint(long sequence) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temporary, Long.toString(sequence), StandardCharsets.US_ASCII);
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        // A segment is obsolete once the next one starts at or before the first sequence still needed
+        while (segments.size() > 1) {
+            Long second = segments.higherKey(segments.firstKey());
+            if (second > sequence + 1) {
+                break;
+            }
+            Files.deleteIfExists(segments.pollFirstEntry().getValue());
+        }
+    }
+
+    /**
+     * Bytes held by the segments on disk.
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Path segment : segments.values()) {
+            try {
+                bytes += Files.size(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        current = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        segments.put(nextSequence, segment);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        return Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        DataOutputStream record = new DataOutputStream(payload);
+        record.writeLong(entry.sequence());
+        record.writeLong(entry.acceptedAt().toEpochMilli());
+        record.writeUTF(entry.update().itemId());
+        record.writeUTF(entry.update().warehouse());
+        record.writeInt(entry.update().quantity());
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static List<Entry> read(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segment))) {
+            while (true) {
+                byte[] bytes;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > 4096) {
+                        break;
+                    }
+                    bytes = in.readNBytes(length);
+                    if (bytes.length < length) {
+                        break;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+                long sequence = record.readLong();
+                Instant acceptedAt = Instant.ofEpochMilli(record.readLong());
+                StockUpdate update = new StockUpdate(record.readUTF(), record.readUTF(), record.readInt());
+                entries.add(new Entry(sequence, update, acceptedAt));
+            }
+        }
+        return entries;
+    }
+
+    record Entry(long sequence, StockUpdate update, Instant acceptedAt) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.bestseller.api.ingest;
+
+import com.bestseller.api.config.StockIngestProperties;
+import com.bestseller.api.exception.StockIngestOverloadedException;
+import com.bestseller.api.model.StockUpdate;
+import com.bestseller.api.repository.StockWriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collapses stock updates per (item, warehouse) and writes only the latest quantity of each pair every
+ * {@code flush-interval}, in batched upserts.
+ * <p>
+ * An update is acknowledged once it is in the {@link StockWriteAheadLog}. A flush swaps out the pending updates,
+ * writes them and then checkpoints the log up to the last sequence it covered; if the write fails the updates
+ * are put back unless a newer one arrived meanwhile. After a crash, the updates that were logged but not
+ * checkpointed are replayed on startup, so every acknowledged update reaches the database at least once.
+ */
+@Component
+public class StockWriteCoalescer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockWriteCoalescer.class);
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final StockIngestProperties properties;
+    private final StockWriteRepository stockWriteRepository;
+    private final StockWriteAheadLog log;
+    private final Counter received;
+    private final Counter written;
+    private final Counter replayed;
+    private final Timer lag;
+    private final Object lock = new Object();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private Map<Key, Pending> pending = new HashMap<>();
+    private long lastSequence;
+    private boolean open;
+    private Disposable flushes;
+
+    public StockWriteCoalescer(StockIngestProperties properties,
+                               StockWriteRepository stockWriteRepository,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stockWriteRepository = stockWriteRepository;
+        this.log = new StockWriteAheadLog(Path.of(properties.walDirectory()), properties.segmentSize().toBytes(),
+            properties.fsync());
+        this.received = Counter.builder("bestseller.stock.ingest.received")
+            .description("Stock updates accepted")
+            .register(meterRegistry);
+        this.written = Counter.builder("bestseller.stock.ingest.written")
+            .description("Stock rows sent to the database after collapsing updates")
+            .register(meterRegistry);
+        this.replayed = Counter.builder("bestseller.stock.ingest.replayed")
+            .description("Stock updates recovered from the write-ahead log on startup")
+            .register(meterRegistry);
+        this.lag = Timer.builder("bestseller.stock.ingest.lag")
+            .description("Time from accepting the oldest unwritten update of a stock record until it was written")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("bestseller.stock.ingest.pending", this, StockWriteCoalescer::pendingKeys)
+            .description("Stock records waiting to be written")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!properties.coalesce()) {
+            logger.info("Stock write coalescing disabled");
+            return;
+        }
+        if (properties.walDirectory().isBlank()) {
+            throw new IllegalStateException("Stock write coalescing needs bestseller.stock-ingest.wal-directory");
+        }
+        recover();
+        flushes = Flux.interval(properties.flushInterval(), properties.flushInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> flush())
+            .subscribe();
+    }
+
+    /**
+     * Logs the updates and queues them for the next flush. Completes once they are durable.
+     */
+    public Mono<Integer> submit(List<StockUpdate> updates) {
+        return Mono.fromCallable(() -> {
+            synchronized (lock) {
+                if (!open) {
+                    throw new IllegalStateException("Stock ingestion is not running");
+                }
+                if (pending.size() >= properties.maxPendingKeys()) {
+                    throw new StockIngestOverloadedException(pending.size());
+                }
+                for (StockWriteAheadLog.Entry entry : log.append(updates, Instant.now())) {
+                    enqueue(entry);
+                }
+            }
+            received.increment(updates.size());
+            return updates.size();
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Writes the pending updates and checkpoints the log. Failures are logged and the updates retried next time.
+     * Completes immediately while another flush is running, so checkpoints are taken in order.
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            if (!flushing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            Map<Key, Pending> batch;
+            long upTo;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    flushing.set(false);
+                    return Mono.empty();
+                }
+                batch = pending;
+                upTo = lastSequence;
+                pending = new HashMap<>();
+            }
+            List<Pending> rows = new ArrayList<>(batch.values());
+            return Flux.fromIterable(rows)
+                .map(Pending::update)
+                .buffer(properties.batchSize())
+                .concatMap(stockWriteRepository::upsertQuantities)
+                .then(Mono.fromCallable(() -> {
+                    synchronized (lock) {
+                        log.checkpoint(upTo);
+                    }
+                    return upTo;
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .doOnSuccess(sequence -> {
+                    long now = System.currentTimeMillis();
+                    written.increment(rows.size());
+                    rows.forEach(row -> lag.record(Duration.ofMillis(now - row.firstAcceptedAt().toEpochMilli())));
+                })
+                .doOnError(error -> requeue(batch))
+                .doOnCancel(() -> requeue(batch))
+                .doFinally(signal -> flushing.set(false))
+                .then();
+        }).onErrorResume(error -> {
+            logger.warn("Could not write stock updates, retrying with the next flush: {}", error.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (flushes != null) {
+            flushes.dispose();
+            flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+        }
+        synchronized (lock) {
+            open = false;
+            log.close();
+        }
+    }
+
+    private void recover() {
+        synchronized (lock) {
+            try {
+                List<StockWriteAheadLog.Entry> entries = log.recover();
+                entries.forEach(this::enqueue);
+                replayed.increment(entries.size());
+                open = true;
+                if (!entries.isEmpty()) {
+                    logger.info("Recovered {} unwritten stock updates for {} records", entries.size(), pending.size());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open stock write-ahead log in " + properties.walDirectory(),
+                    e);
+            }
+        }
+    }
+
+    private void enqueue(StockWriteAheadLog.Entry entry) {
+        StockUpdate update = entry.update();
+        pending.merge(new Key(update.itemId(), update.warehouse()),
+            new Pending(update, entry.sequence(), entry.acceptedAt()),
+            (older, newer) -> new Pending(newer.update(), newer.sequence(), older.firstAcceptedAt()));
+        lastSequence = Math.max(lastSequence, entry.sequence());
+    }
+
+    private void requeue(Map<Key, Pending> batch) {
+        synchronized (lock) {
+            batch.forEach((key, failed) -> pending.merge(key, failed,
+                (newer, older) -> new Pending(newer.update(), newer.sequence(), older.firstAcceptedAt())));
+        }
+    }
+
+    private int pendingKeys() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private record Key(String itemId, String warehouse) {
+    }
+
+    private record Pending(StockUpdate update, long sequence, Instant firstAcceptedAt) {
+    }
+}
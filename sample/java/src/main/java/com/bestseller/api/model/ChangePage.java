@@ -0,0 +1,10 @@
+package com.bestseller.api.model;
+
+import java.util.List;
+
+public record ChangePage<T>(
+    List<T> changes,
+    String nextToken,
+    boolean hasMore
+) {
+}
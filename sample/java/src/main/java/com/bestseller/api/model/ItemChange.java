@@ -0,0 +1,17 @@
+package com.bestseller.api.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record ItemChange(
+    String itemId,
+    String name,
+    BigDecimal price,
+    String description,
+    String category,
+    String brand,
+    String sku,
+    Instant updatedAt,
+    boolean deleted
+) {
+}
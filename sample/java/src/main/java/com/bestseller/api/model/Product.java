@@ -0,0 +1,15 @@
+package com.bestseller.api.model;
+
+import java.util.List;
+
+/**
+ * Product page view combining an item with its stock.
+ * {@code unavailable} names the dependencies that did not answer in time; their fields are null.
+ */
+public record Product(
+    String itemId,
+    ItemDetail item,
+    ProductStock stock,
+    List<String> unavailable
+) {
+}
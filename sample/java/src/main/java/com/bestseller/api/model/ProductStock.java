@@ -0,0 +1,17 @@
+package com.bestseller.api.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stock of one item summed over all warehouses.
+ */
+public record ProductStock(
+    Boolean inStock,
+    Integer quantity,
+    List<WarehouseStock> warehouses,
+    Instant lastUpdated
+) {
+
+    public static final ProductStock NONE = new ProductStock(false, 0, List.of(), null);
+}
@@ -0,0 +1,8 @@
+package com.bestseller.api.model;
+
+public record StatsCounter(
+    String dimension,
+    String key,
+    Long count
+) {
+}
@@ -0,0 +1,7 @@
+package com.bestseller.api.model;
+
+public record StatusCount(
+    String status,
+    Long count
+) {
+}
@@ -0,0 +1,14 @@
+package com.bestseller.api.model;
+
+import java.time.Instant;
+
+public record StockChange(
+    Integer stockId,
+    String itemId,
+    Boolean inStock,
+    Integer quantity,
+    String warehouse,
+    Instant lastUpdated,
+    boolean deleted
+) {
+}
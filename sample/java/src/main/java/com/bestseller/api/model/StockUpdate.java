@@ -0,0 +1,8 @@
+package com.bestseller.api.model;
+
+public record StockUpdate(
+    String itemId,
+    String warehouse,
+    Integer quantity
+) {
+}
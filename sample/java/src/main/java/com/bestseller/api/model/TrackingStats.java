@@ -0,0 +1,18 @@
+package com.bestseller.api.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Shipment counts for the operations dashboard. {@code overdue} and {@code onSchedule} cover shipments that are
+ * neither delivered nor returned and have an estimated delivery.
+ */
+public record TrackingStats(
+    long total,
+    Map<String, Long> byStatus,
+    Map<String, Long> byLocation,
+    long overdue,
+    long onSchedule,
+    Instant asOf
+) {
+}
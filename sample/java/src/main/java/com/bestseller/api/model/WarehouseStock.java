@@ -0,0 +1,11 @@
+package com.bestseller.api.model;
+
+import java.time.Instant;
+
+public record WarehouseStock(
+    String warehouse,
+    Boolean inStock,
+    Integer quantity,
+    Instant lastUpdated
+) {
+}
@@ -0,0 +1,238 @@
+package com.bestseller.api.profiling;
+
+import com.bestseller.api.config.ProfilingProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Always-on flight recording with a rolling buffer bounded by {@code max-age} and {@code max-size}.
+ * <p>
+ * The recording starts before warm-up and keeps running, so when an instance gets slow the profile of
+ * that moment is already on disk. {@link #dump} writes the last minutes of it to a file and
+ * {@link #summarize} condenses them into hot methods, allocation sites and service call latencies.
+ */
+@Component
+public class ContinuousRecording implements DisposableBean {
+
+    static final String NAME = "bestseller-continuous";
+
+    private static final Logger logger = LoggerFactory.getLogger(ContinuousRecording.class);
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+
+    private final ProfilingProperties properties;
+    private volatile Recording recording;
+
+    public ContinuousRecording(ProfilingProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            logger.info("Continuous recording disabled");
+            return;
+        }
+        try {
+            Recording started = new Recording(Configuration.getConfiguration(properties.settings()));
+            started.setName(NAME);
+            started.setToDisk(true);
+            started.setMaxAge(properties.maxAge());
+            started.setMaxSize(properties.maxSize().toBytes());
+            started.enable(ServiceCallEvent.class).withThreshold(properties.serviceCallThreshold());
+            started.start();
+            recording = started;
+            logger.info("Continuous recording started: {} settings, last {} up to {}",
+                properties.settings(), properties.maxAge(), properties.maxSize());
+        } catch (Exception e) {
+            logger.warn("Could not start continuous recording: {}", e.getMessage());
+        }
+    }
+
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Writes the last {@code window} of the recording to a new file. The caller deletes the file.
+     */
+    public Path dump(Duration window) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("Continuous recording is not running");
+        }
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), NAME + "-" + UUID.randomUUID() + ".jfr");
+        try {
+            // Recording.dump cannot limit the window, the JFR.dump diagnostic command can
+            ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                "jfrDump",
+                new Object[] {new String[] {
+                    "name=" + NAME, "filename=" + file, "maxage=" + Math.max(1, window.toSeconds()) + "s"}},
+                new String[] {String[].class.getName()});
+        } catch (Exception e) {
+            throw new IOException("Could not dump continuous recording", e);
+        }
+        if (!Files.exists(file)) {
+            throw new IOException("Continuous recording produced no dump");
+        }
+        return file;
+    }
+
+    public RecordingSummary summarize(Duration window, int top) throws IOException {
+        Path file = dump(window);
+        try {
+            return summarize(file, top);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static RecordingSummary summarize(Path file, int top) throws IOException {
+        Map<String, Long> methods = new HashMap<>();
+        Map<String, Long> allocations = new HashMap<>();
+        Map<String, CallAccumulator> calls = new HashMap<>();
+        long executionSamples = 0;
+        long allocatedBytes = 0;
+        Instant from = null;
+        Instant to = null;
+
+        try (RecordingFile events = new RecordingFile(file)) {
+            while (events.hasMoreEvents()) {
+                RecordedEvent event = events.readEvent();
+                Instant time = event.getStartTime();
+                from = from == null || time.isBefore(from) ? time : from;
+                to = to == null || event.getEndTime().isAfter(to) ? event.getEndTime() : to;
+                switch (event.getEventType().getName()) {
+                    case EXECUTION_SAMPLE -> {
+                        String method = topFrame(event.getStackTrace());
+                        if (method != null) {
+                            methods.merge(method, 1L, Long::sum);
+                            executionSamples++;
+                        }
+                    }
+                    case ALLOCATION_SAMPLE -> {
+                        String method = topFrame(event.getStackTrace());
+                        if (method != null) {
+                            long bytes = event.getLong("weight");
+                            allocations.merge(method + "\u0000" + event.getClass("objectClass").getName(),
+                                bytes, Long::sum);
+                            allocatedBytes += bytes;
+                        }
+                    }
+                    case ServiceCallEvent.NAME -> calls
+                        .computeIfAbsent(event.getString("service") + "." + event.getString("operation"),
+                            key -> new CallAccumulator(event.getString("service"), event.getString("operation")))
+                        .add(event);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        long samples = executionSamples;
+        long bytes = allocatedBytes;
+        List<RecordingSummary.HotMethod> hotMethods = top(methods, top).stream()
+            .map(entry -> new RecordingSummary.HotMethod(entry.getKey(), entry.getValue(),
+                percent(entry.getValue(), samples)))
+            .toList();
+        List<RecordingSummary.AllocationSite> allocationSites = top(allocations, top).stream()
+            .map(entry -> {
+                String[] site = entry.getKey().split("\u0000", 2);
+                return new RecordingSummary.AllocationSite(site[0], site[1], entry.getValue(),
+                    percent(entry.getValue(), bytes));
+            })
+            .toList();
+        List<RecordingSummary.ServiceCallStats> serviceCalls = calls.values().stream()
+            .map(CallAccumulator::toStats)
+            .sorted(Comparator.comparingDouble(stats -> -stats.meanMillis() * stats.calls()))
+            .toList();
+        return new RecordingSummary(from, to, executionSamples, hotMethods, allocationSites, serviceCalls);
+    }
+
+    @Override
+    public void destroy() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return null;
+        }
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : Math.round(part * 10_000.0 / total) / 100.0;
+    }
+
+    private static final class CallAccumulator {
+
+        private final String service;
+        private final String operation;
+        private long calls;
+        private long errors;
+        private long totalNanos;
+        private long maxNanos;
+        private long dbNanos;
+        private String slowestKey;
+
+        CallAccumulator(String service, String operation) {
+            this.service = service;
+            this.operation = operation;
+        }
+
+        void add(RecordedEvent event) {
+            long nanos = event.getDuration().toNanos();
+            calls++;
+            totalNanos += nanos;
+            dbNanos += event.getLong("dbTime");
+            if ("error".equals(event.getString("outcome"))) {
+                errors++;
+            }
+            if (nanos >= maxNanos) {
+                maxNanos = nanos;
+                slowestKey = event.getString("resourceKey");
+            }
+        }
+
+        RecordingSummary.ServiceCallStats toStats() {
+            return new RecordingSummary.ServiceCallStats(service, operation, calls, errors,
+                totalNanos / 1_000_000.0 / calls, maxNanos / 1_000_000.0, dbNanos / 1_000_000.0 / calls, slowestKey);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bestseller.api.profiling;
+
+import com.bestseller.api.config.ProfilingProperties;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Guards the {@code jfr} and {@code hotkeys} actuator endpoints with a bearer token, since recordings contain
+ * stack traces, class names and resource keys, and hot keys name the most requested items and tracking numbers.
+ * Without a configured token every request to them is rejected.
+ * <p>
+ * Requests are matched the way WebFlux routes them, on the decoded path segments without {@code ;} parameters,
+ * so an encoded or parameterized spelling of the path cannot reach the endpoint unguarded.
+ */
+@Component
+public class DiagnosticEndpointFilter implements WebFilter {
+
+    private static final String BEARER = "Bearer ";
+    private static final List<String> ENDPOINTS = List.of("jfr", "hotkeys");
+
+    private final List<PathPattern> paths;
+    private final byte[] token;
+
+    public DiagnosticEndpointFilter(ProfilingProperties properties, WebEndpointProperties endpointProperties) {
+        this.paths = ENDPOINTS.stream()
+            .map(id -> PathPatternParser.defaultInstance.parse(endpointProperties.getBasePath() + "/" + id + "/**"))
+            .toList();
+        this.token = properties.token() == null || properties.token().isBlank()
+            ? null
+            : properties.token().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathContainer requestPath = exchange.getRequest().getPath().pathWithinApplication();
+        if (paths.stream().noneMatch(path -> path.matches(requestPath))) {
+            return chain.filter(exchange);
+        }
+        if (token == null) {
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER) || !MessageDigest.isEqual(token,
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+}
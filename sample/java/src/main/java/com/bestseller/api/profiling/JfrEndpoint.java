@@ -0,0 +1,67 @@
+package com.bestseller.api.profiling;
+
+import com.bestseller.api.config.ProfilingProperties;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Actuator endpoint for the continuous recording.
+ * {@code GET /actuator/jfr?minutes=5} summarizes the last minutes, {@code GET /actuator/jfr/dump?minutes=5}
+ * downloads them as a {@code .jfr} file for JDK Mission Control. Requests need the bearer token checked by
+ * {@link DiagnosticEndpointFilter}.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrEndpoint {
+
+    private static final String DUMP = "dump";
+
+    private final ContinuousRecording recording;
+    private final ProfilingProperties properties;
+
+    public JfrEndpoint(ContinuousRecording recording, ProfilingProperties properties) {
+        this.recording = recording;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<RecordingSummary> summary(@Nullable Integer minutes, @Nullable Integer top)
+        throws IOException {
+        if (!recording.isRunning()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+        return new WebEndpointResponse<>(recording.summarize(window(minutes), top != null ? top : properties.top()));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector String action, @Nullable Integer minutes) throws IOException {
+        if (!DUMP.equals(action)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (!recording.isRunning()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+        Path file = recording.dump(window(minutes));
+        try {
+            // The buffer is bounded by max-size, so the dump can be held in memory and the file removed right away
+            return new WebEndpointResponse<>(new ByteArrayResource(Files.readAllBytes(file)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Duration window(Integer minutes) {
+        return minutes != null && minutes > 0 ? Duration.ofMinutes(minutes) : properties.defaultWindow();
+    }
+}
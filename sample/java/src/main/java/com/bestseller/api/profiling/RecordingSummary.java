@@ -0,0 +1,45 @@
+package com.bestseller.api.profiling;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What the continuous recording saw in a time window: where the CPU went, where memory was allocated
+ * and how the service calls performed.
+ */
+public record RecordingSummary(
+    Instant from,
+    Instant to,
+    long executionSamples,
+    List<HotMethod> hotMethods,
+    List<AllocationSite> allocationSites,
+    List<ServiceCallStats> serviceCalls
+) {
+
+    /**
+     * A method found on top of the stack in {@code samples} execution samples.
+     */
+    public record HotMethod(String method, long samples, double percent) {
+    }
+
+    /**
+     * A method and the class it allocated, weighted by the estimated number of bytes allocated.
+     */
+    public record AllocationSite(String method, String objectClass, long bytes, double percent) {
+    }
+
+    /**
+     * Latency of one service operation, with the resource key of its slowest call.
+     */
+    public record ServiceCallStats(
+        String service,
+        String operation,
+        long calls,
+        long errors,
+        double meanMillis,
+        double maxMillis,
+        double meanDbMillis,
+        String slowestKey
+    ) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.bestseller.api.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event spanning one service call, from subscription to completion, error or cancellation.
+ */
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Category({"BESTSELLER", "API"})
+@Description("A call into ItemService, StockService or TrackingService")
+@StackTrace(false)
+class ServiceCallEvent extends Event {
+
+    static final String NAME = "com.bestseller.api.ServiceCall";
+
+    @Label("Service")
+    String service;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Resource Key")
+    @Description("Item ID or tracking number the call was about, if any")
+    String resourceKey;
+
+    @Label("Database Time")
+    @Description("Time spent waiting for repository queries, including pool acquisition")
+    @Timespan(Timespan.NANOSECONDS)
+    long dbTime;
+
+    @Label("Database Calls")
+    int dbCalls;
+
+    @Label("Outcome")
+    @Description("success, error or cancel")
+    String outcome;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,110 @@
+package com.bestseller.api.profiling;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records {@link ServiceCallEvent}s around reactive service calls.
+ * <p>
+ * {@link #record} opens an event when the call is subscribed and commits it when the call terminates.
+ * Repository calls wrapped in {@link #db} add their time to the event of the enclosing call, which is
+ * found through the Reactor context, so concurrent queries of one call (e.g. a record and its history)
+ * are summed. Query time is taken before the terminal signal travels downstream (not in {@code doFinally}),
+ * so it is added before the enclosing event commits. When no recording has the event enabled both
+ * wrappers cost one allocation per call.
+ */
+public final class ServiceCalls {
+
+    private ServiceCalls() {
+    }
+
+    public static <T> Mono<T> record(String service, String operation, String resourceKey, Mono<T> call) {
+        return Mono.defer(() -> {
+            ServiceCallEvent event = new ServiceCallEvent();
+            if (!event.isEnabled()) {
+                return call;
+            }
+            DbTime db = new DbTime();
+            event.begin();
+            return call
+                .doOnError(error -> event.error = error.getClass().getSimpleName())
+                .doFinally(signal -> commit(event, service, operation, resourceKey, db, signal))
+                .contextWrite(context -> context.put(DbTime.class, db));
+        });
+    }
+
+    public static <T> Flux<T> record(String service, String operation, String resourceKey, Flux<T> call) {
+        return Flux.defer(() -> {
+            ServiceCallEvent event = new ServiceCallEvent();
+            if (!event.isEnabled()) {
+                return call;
+            }
+            DbTime db = new DbTime();
+            event.begin();
+            return call
+                .doOnError(error -> event.error = error.getClass().getSimpleName())
+                .doFinally(signal -> commit(event, service, operation, resourceKey, db, signal))
+                .contextWrite(context -> context.put(DbTime.class, db));
+        });
+    }
+
+    public static <T> Mono<T> db(Mono<T> query) {
+        return Mono.deferContextual(context -> {
+            DbTime db = context.getOrDefault(DbTime.class, null);
+            if (db == null) {
+                return query;
+            }
+            long started = System.nanoTime();
+            return query
+                .doOnTerminate(() -> db.add(started))
+                .doOnCancel(() -> db.add(started));
+        });
+    }
+
+    public static <T> Flux<T> db(Flux<T> query) {
+        return Flux.deferContextual(context -> {
+            DbTime db = context.getOrDefault(DbTime.class, null);
+            if (db == null) {
+                return query;
+            }
+            long started = System.nanoTime();
+            return query
+                .doOnTerminate(() -> db.add(started))
+                .doOnCancel(() -> db.add(started));
+        });
+    }
+
+    private static void commit(ServiceCallEvent event, String service, String operation, String resourceKey,
+                               DbTime db, SignalType signal) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.service = service;
+        event.operation = operation;
+        event.resourceKey = resourceKey;
+        event.dbTime = db.nanos.get();
+        event.dbCalls = db.calls.get();
+        event.outcome = switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancel";
+            default -> "success";
+        };
+        event.commit();
+    }
+
+    private static final class DbTime {
+
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        void add(long started) {
+            nanos.addAndGet(System.nanoTime() - started);
+            calls.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.exception.InvalidFieldsException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The columns selected by a {@code fields=} query parameter, in the order the client asked for them.
+ * Fields outside the table (such as tracking {@code history}) are kept separately as {@code extras}.
+ */
+public record FieldProjection(ProjectedTable table, List<ProjectedTable.Column> columns, Set<String> extras) {
+
+    public static FieldProjection parse(ProjectedTable table, String fields, Set<String> allowedExtras) {
+        if (fields == null || fields.isBlank()) {
+            throw new InvalidFieldsException(fields);
+        }
+        List<ProjectedTable.Column> columns = new ArrayList<>();
+        Set<String> extras = new LinkedHashSet<>();
+        for (String field : new LinkedHashSet<>(List.of(fields.split(",")))) {
+            String name = field.trim();
+            ProjectedTable.Column column = table.column(name);
+            if (column != null) {
+                columns.add(column);
+            } else if (allowedExtras.contains(name)) {
+                extras.add(name);
+            } else {
+                throw new InvalidFieldsException(fields);
+            }
+        }
+        return new FieldProjection(table, List.copyOf(columns), Set.copyOf(extras));
+    }
+
+    public boolean includes(String extra) {
+        return extras.contains(extra);
+    }
+
+    String selectList() {
+        if (columns.isEmpty()) {
+            // Only extras were requested; still select the key so existence can be checked
+            return table.keyColumn();
+        }
+        return columns.stream()
+            .map(ProjectedTable.Column::name)
+            .collect(Collectors.joining(", "));
+    }
+}
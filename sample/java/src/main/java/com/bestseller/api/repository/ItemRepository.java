@@ -1,9 +1,28 @@
 package com.bestseller.api.repository;
 
 import com.bestseller.api.entity.Item;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
 
 @Repository
 public interface ItemRepository extends ReactiveCrudRepository<Item, String> {
+
+    @Query("SELECT COALESCE(updated_at, 'epoch'::timestamptz) FROM items WHERE item_id = :itemId")
+    Mono<Instant> findVersionById(String itemId);
+
+    @Query("""
+        SELECT * FROM items
+        WHERE (updated_at, item_id) > (:since, :afterItemId) AND updated_at < :horizon
+        ORDER BY updated_at, item_id
+        LIMIT :limit
+        """)
+    Flux<Item> findChangedSince(Instant since, String afterItemId, Instant horizon, int limit);
+
+    @Query("SELECT item_id FROM items")
+    Flux<String> findAllItemIds();
 }
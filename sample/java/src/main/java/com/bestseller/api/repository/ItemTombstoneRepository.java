@@ -0,0 +1,21 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.entity.ItemTombstone;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+@Repository
+public interface ItemTombstoneRepository extends ReactiveCrudRepository<ItemTombstone, Long> {
+
+    @Query("""
+        SELECT * FROM item_tombstones
+        WHERE (deleted_at, item_id) > (:since, :afterItemId) AND deleted_at < :horizon
+        ORDER BY deleted_at, item_id
+        LIMIT :limit
+        """)
+    Flux<ItemTombstone> findDeletedSince(Instant since, String afterItemId, Instant horizon, int limit);
+}
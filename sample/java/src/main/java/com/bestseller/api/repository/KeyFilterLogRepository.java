@@ -0,0 +1,72 @@
+package com.bestseller.api.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Reads the keys that triggers log to {@code key_filter_log} whenever items or tracking records are inserted.
+ * Positions in the log are transaction IDs rather than timestamps, so rows inserted with an old
+ * {@code created_at} and transactions that commit out of order are still picked up.
+ */
+@Repository
+public class KeyFilterLogRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public KeyFilterLogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Returns how far the log can be read: every transaction below the horizon has ended, so its keys are
+     * visible now and no key below it can appear later. The generation changes whenever the server restarts or
+     * {@code table} is recreated, which covers every way of restoring it; the log is then no longer continued.
+     * Empty when the log table does not exist.
+     */
+    public Mono<Position> position(String table) {
+        return databaseClient.sql("""
+                SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS horizon,
+                       pg_postmaster_start_time()::text || '/' || CAST(:table AS regclass)::oid AS generation
+                WHERE to_regclass('key_filter_log') IS NOT NULL
+                """)
+            .bind("table", table)
+            .map(row -> new Position(row.get("generation", String.class), row.get("horizon", Long.class)))
+            .one();
+    }
+
+    /**
+     * Returns the keys logged for {@code resource} by transactions from {@code from} up to, not including,
+     * {@code to}. A key may be returned more than once.
+     */
+    public Flux<String> findKeysLoggedBetween(String resource, long from, long to) {
+        return databaseClient.sql("""
+                SELECT key FROM key_filter_log
+                WHERE resource = :resource AND txid >= :from AND txid < :to
+                """)
+            .bind("resource", resource)
+            .bind("from", from)
+            .bind("to", to)
+            .map(row -> row.get("key", String.class))
+            .all();
+    }
+
+    public Mono<Long> deleteLoggedBefore(Instant cutoff) {
+        return databaseClient.sql("DELETE FROM key_filter_log WHERE logged_at < :cutoff")
+            .bind("cutoff", cutoff)
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * A point in the log of one database.
+     *
+     * @param generation server start and table the position belongs to
+     * @param horizon    transaction ID below which every transaction has ended
+     */
+    public record Position(String generation, long horizon) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.bestseller.api.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tables that support sparse field projection, with the API field names clients may request
+ * and the columns they map to. Only these columns are ever placed into generated SQL.
+ */
+public enum ProjectedTable {
+
+    ITEMS("items", "item_id", List.of(
+        new Column("itemId", "item_id", String.class),
+        new Column("name", "name", String.class),
+        new Column("price", "price", BigDecimal.class),
+        new Column("description", "description", String.class),
+        new Column("category", "category", String.class),
+        new Column("brand", "brand", String.class),
+        new Column("sku", "sku", String.class)
+    )),
+
+    STOCK("stock", "item_id", List.of(
+        new Column("itemId", "item_id", String.class),
+        new Column("inStock", "in_stock", Boolean.class),
+        new Column("quantity", "quantity", Integer.class),
+        new Column("warehouse", "warehouse", String.class),
+        new Column("lastUpdated", "last_updated", Instant.class)
+    )),
+
+    TRACKING("tracking", "tracking_no", List.of(
+        new Column("trackingNo", "tracking_no", String.class),
+        new Column("status", "status", String.class),
+        new Column("currentLocation", "current_location", String.class),
+        new Column("estimatedDelivery", "estimated_delivery", Instant.class),
+        new Column("deliveryDate", "delivery_date", Instant.class)
+    ));
+
+    private final String tableName;
+    private final String keyColumn;
+    private final Map<String, Column> columnsByField;
+
+    ProjectedTable(String tableName, String keyColumn, List<Column> columns) {
+        this.tableName = tableName;
+        this.keyColumn = keyColumn;
+        this.columnsByField = columns.stream()
+            .collect(Collectors.toUnmodifiableMap(Column::field, Function.identity()));
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public String keyColumn() {
+        return keyColumn;
+    }
+
+    public Column column(String field) {
+        return columnsByField.get(field);
+    }
+
+    /**
+     * A projectable column: API field name, database column and the Java type it is read as.
+     */
+    public record Column(String field, String name, Class<?> type) {
+    }
+}
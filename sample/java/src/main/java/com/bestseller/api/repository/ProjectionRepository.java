@@ -0,0 +1,49 @@
+package com.bestseller.api.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads only the projected columns and maps each row straight to an ordered field map,
+ * skipping entity materialization for sparse reads.
+ */
+@Repository
+public class ProjectionRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ProjectionRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<Map<String, Object>> findAll(FieldProjection projection) {
+        String sql = "SELECT " + projection.selectList() + " FROM " + projection.table().tableName();
+        return databaseClient.sql(sql)
+            .map(row -> toFieldMap(row, projection))
+            .all();
+    }
+
+    public Mono<Map<String, Object>> findByKey(FieldProjection projection, String key) {
+        ProjectedTable table = projection.table();
+        String sql = "SELECT " + projection.selectList() + " FROM " + table.tableName()
+            + " WHERE " + table.keyColumn() + " = :key LIMIT 1";
+        return databaseClient.sql(sql)
+            .bind("key", key)
+            .map(row -> toFieldMap(row, projection))
+            .first();
+    }
+
+    private Map<String, Object> toFieldMap(Readable row, FieldProjection projection) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (ProjectedTable.Column column : projection.columns()) {
+            fields.put(column.field(), row.get(column.name(), column.type()));
+        }
+        return fields;
+    }
+}
@@ -4,11 +4,26 @@ import com.bestseller.api.entity.Stock;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.Collection;
+
 @Repository
 public interface StockRepository extends ReactiveCrudRepository<Stock, Integer> {
 
     @Query("SELECT * FROM stock WHERE item_id = :itemId LIMIT 1")
     Mono<Stock> findByItemId(String itemId);
+
+    @Query("SELECT * FROM stock WHERE item_id IN (:itemIds) ORDER BY item_id, warehouse")
+    Flux<Stock> findAllByItemIdIn(Collection<String> itemIds);
+
+    @Query("""
+        SELECT * FROM stock
+        WHERE (last_updated, id) > (:since, :afterId) AND last_updated < :horizon
+        ORDER BY last_updated, id
+        LIMIT :limit
+        """)
+    Flux<Stock> findChangedSince(Instant since, int afterId, Instant horizon, int limit);
 }
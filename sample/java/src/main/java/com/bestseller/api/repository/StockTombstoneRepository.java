@@ -0,0 +1,21 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.entity.StockTombstone;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+@Repository
+public interface StockTombstoneRepository extends ReactiveCrudRepository<StockTombstone, Long> {
+
+    @Query("""
+        SELECT * FROM stock_tombstones
+        WHERE (deleted_at, stock_id) > (:since, :afterStockId) AND deleted_at < :horizon
+        ORDER BY deleted_at, stock_id
+        LIMIT :limit
+        """)
+    Flux<StockTombstone> findDeletedSince(Instant since, int afterStockId, Instant horizon, int limit);
+}
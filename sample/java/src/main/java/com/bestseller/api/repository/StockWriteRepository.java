@@ -0,0 +1,57 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.model.StockUpdate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Writes stock quantities with one multi-row upsert per batch.
+ */
+@Repository
+public class StockWriteRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public StockWriteRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Sets the quantity of every (item, warehouse) pair, creating missing stock records. Rows whose quantity
+     * does not change are not updated, so they fire no triggers and leave no dead row versions. Updates for
+     * items that no longer exist are skipped rather than failing the batch. Every pair may appear only once.
+     *
+     * @return the number of rows inserted or changed
+     */
+    public Mono<Long> upsertQuantities(List<StockUpdate> updates) {
+        if (updates.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringBuilder sql = new StringBuilder("""
+            INSERT INTO stock (item_id, warehouse, quantity, in_stock)
+            SELECT v.item_id, v.warehouse, v.quantity, v.quantity > 0
+            FROM (VALUES\s""");
+        for (int i = 0; i < updates.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                .append("(:i").append(i).append(", :w").append(i).append(", CAST(:q").append(i).append(" AS INTEGER))");
+        }
+        sql.append("""
+            ) AS v(item_id, warehouse, quantity)
+            JOIN items i ON i.item_id = v.item_id
+            ON CONFLICT ON CONSTRAINT unique_item_warehouse DO UPDATE
+            SET quantity = EXCLUDED.quantity, in_stock = EXCLUDED.in_stock
+            WHERE stock.quantity <> EXCLUDED.quantity
+            """);
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql.toString());
+        for (int i = 0; i < updates.size(); i++) {
+            StockUpdate update = updates.get(i);
+            statement = statement.bind("i" + i, update.itemId())
+                .bind("w" + i, update.warehouse())
+                .bind("q" + i, update.quantity());
+        }
+        return statement.fetch().rowsUpdated();
+    }
+}
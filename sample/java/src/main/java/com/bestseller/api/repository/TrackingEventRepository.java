@@ -1,6 +1,7 @@
 package com.bestseller.api.repository;
 
 import com.bestseller.api.entity.TrackingEventEntity;
+import com.bestseller.api.model.TrackingEvent;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -11,4 +12,11 @@ public interface TrackingEventRepository extends ReactiveCrudRepository<Tracking
 
     @Query("SELECT * FROM tracking_events WHERE tracking_no = :trackingNo ORDER BY timestamp DESC")
     Flux<TrackingEventEntity> findByTrackingNoOrderByTimestampDesc(String trackingNo);
+
+    @Query("""
+        SELECT timestamp, location, status, description FROM tracking_events
+        WHERE tracking_no = :trackingNo
+        ORDER BY timestamp DESC
+        """)
+    Flux<TrackingEvent> findHistoryByTrackingNo(String trackingNo);
 }
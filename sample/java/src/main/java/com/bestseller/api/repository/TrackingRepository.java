@@ -1,9 +1,50 @@
 package com.bestseller.api.repository;
 
 import com.bestseller.api.entity.Tracking;
+import com.bestseller.api.model.StatsCounter;
+import com.bestseller.api.model.StatusCount;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
 
 @Repository
 public interface TrackingRepository extends ReactiveCrudRepository<Tracking, String> {
+
+    /**
+     * Version of a tracking record including its history: its update time, which
+     * {@code scripts/09_create_tracking_event_triggers.sql} also bumps when its events change.
+     */
+    @Query("SELECT COALESCE(updated_at, 'epoch'::timestamptz) FROM tracking WHERE tracking_no = :trackingNo")
+    Mono<Instant> findVersionById(String trackingNo);
+
+    @Query("SELECT status, COUNT(*) AS count FROM tracking GROUP BY status")
+    Flux<StatusCount> countByStatus();
+
+    /**
+     * Trigger-maintained counters from {@code tracking_stats}, summed over their slots.
+     */
+    @Query("SELECT dimension, key, SUM(count) AS count FROM tracking_stats GROUP BY dimension, key")
+    Flux<StatsCounter> findStatsCounters();
+
+    @Query("""
+        SELECT COUNT(*) FROM tracking
+        WHERE estimated_delivery >= :from AND estimated_delivery < :to AND status NOT IN ('Delivered', 'Returned')
+        """)
+    Mono<Long> countOpenDueBetween(Instant from, Instant to);
+
+    /**
+     * Recounts the tracking table, corrects the counters and returns the total correction.
+     */
+    @Query("SELECT reconcile_tracking_stats()")
+    Mono<Long> reconcileStats();
+
+    @Query("SELECT tracking_no FROM tracking WHERE tracking_no > :afterTrackingNo ORDER BY tracking_no LIMIT :limit")
+    Flux<String> findTrackingNumbersAfter(String afterTrackingNo, int limit);
+
+    @Query("SELECT tracking_no FROM tracking")
+    Flux<String> findAllTrackingNumbers();
 }
@@ -0,0 +1,54 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.exception.InvalidChangeTokenException;
+import com.bestseller.api.model.ChangePage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Continuation token of a change feed: the (timestamp, key) of the last change a client has applied.
+ * Encoded as an opaque URL-safe string so the format can evolve without breaking clients.
+ */
+public record ChangeToken(Instant since, String key) {
+
+    public static final ChangeToken START = new ChangeToken(Instant.EPOCH, "");
+
+    private static final char SEPARATOR = '|';
+
+    public static ChangeToken decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidChangeTokenException(token);
+            }
+            return new ChangeToken(Instant.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidChangeTokenException(token);
+        }
+    }
+
+    public String encode() {
+        String raw = since.toString() + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a page from up to {@code pageSize + 1} ordered changes; the extra element only signals that more exist.
+     */
+    static <T> ChangePage<T> paginate(List<T> changes, int pageSize, ChangeToken from,
+                                      Function<T, ChangeToken> positionOf) {
+        boolean hasMore = changes.size() > pageSize;
+        List<T> page = hasMore ? changes.subList(0, pageSize) : changes;
+        ChangeToken next = page.isEmpty() ? from : positionOf.apply(page.get(page.size() - 1));
+        return new ChangePage<>(page, next.encode(), hasMore);
+    }
+}
@@ -1,40 +1,183 @@
 package com.bestseller.api.service;
 
+import com.bestseller.api.bloom.KeyFilters;
+import com.bestseller.api.catalog.CatalogReadModel;
+import com.bestseller.api.catalog.ColumnarCatalog;
+import com.bestseller.api.config.ChangeFeedProperties;
 import com.bestseller.api.entity.Item;
+import com.bestseller.api.entity.ItemTombstone;
 import com.bestseller.api.exception.ItemNotFoundException;
+import com.bestseller.api.model.ChangePage;
+import com.bestseller.api.model.ItemChange;
 import com.bestseller.api.model.ItemDetail;
 import com.bestseller.api.model.ItemSummary;
+import com.bestseller.api.profiling.ServiceCalls;
+import com.bestseller.api.repository.FieldProjection;
 import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.repository.ItemTombstoneRepository;
+import com.bestseller.api.repository.ProjectedTable;
+import com.bestseller.api.repository.ProjectionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class ItemService {
 
     private static final Logger logger = LoggerFactory.getLogger(ItemService.class);
+    private static final Comparator<ItemChange> CHANGE_ORDER =
+        Comparator.comparing(ItemChange::updatedAt).thenComparing(ItemChange::itemId);
+
     private final ItemRepository itemRepository;
+    private final ItemTombstoneRepository itemTombstoneRepository;
+    private final ProjectionRepository projectionRepository;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final KeyFilters keyFilters;
+    private final CatalogReadModel catalogReadModel;
 
-    public ItemService(ItemRepository itemRepository) {
+    public ItemService(ItemRepository itemRepository,
+                       ItemTombstoneRepository itemTombstoneRepository,
+                       ProjectionRepository projectionRepository,
+                       ChangeFeedProperties changeFeedProperties,
+                       KeyFilters keyFilters,
+                       CatalogReadModel catalogReadModel) {
         this.itemRepository = itemRepository;
+        this.itemTombstoneRepository = itemTombstoneRepository;
+        this.projectionRepository = projectionRepository;
+        this.changeFeedProperties = changeFeedProperties;
+        this.keyFilters = keyFilters;
+        this.catalogReadModel = catalogReadModel;
     }
 
     public Flux<ItemSummary> getAllItems() {
         logger.debug("Fetching all items");
-        return itemRepository.findAll()
+        ColumnarCatalog catalog = catalogReadModel.catalog();
+        if (catalog != null) {
+            return ServiceCalls.record("ItemService", "getAllItems", null, Flux.range(0, catalog.rows())
+                .mapNotNull(catalog::summary));
+        }
+        return ServiceCalls.record("ItemService", "getAllItems", null, ServiceCalls.db(itemRepository.findAll())
             .map(item -> new ItemSummary(item.itemId(), item.name(), item.price()))
-            .doOnComplete(() -> logger.info("Successfully retrieved all items"));
+            .doOnComplete(() -> logger.info("Successfully retrieved all items")));
     }
 
     public Mono<ItemDetail> getItemById(String itemId) {
         logger.debug("Fetching item with id: {}", itemId);
-        return itemRepository.findById(itemId)
+        return keyFilters.isKnownMissingItem(itemId).flatMap(missing -> {
+            if (missing) {
+                return Mono.error(new ItemNotFoundException(itemId));
+            }
+            ColumnarCatalog catalog = catalogReadModel.catalog();
+            if (catalog != null) {
+                return ServiceCalls.record("ItemService", "getItemById", itemId,
+                    Mono.fromSupplier(() -> catalog.get(itemId))
+                        .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId))));
+            }
+            return ServiceCalls.record("ItemService", "getItemById", itemId,
+                ServiceCalls.db(itemRepository.findById(itemId))
+                    .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId)))
+                    .map(this::toItemDetail)
+                    .doOnSuccess(item -> logger.info("Retrieved item: {}", item.itemId()))
+                    .doOnError(error -> !(error instanceof ItemNotFoundException),
+                        error -> logger.error("Error fetching item: {}", itemId, error)));
+        });
+    }
+
+    /**
+     * Loads several items in one query. Unknown ids are skipped and the result is in no particular order.
+     */
+    public Flux<ItemDetail> getItemsByIds(Collection<String> itemIds) {
+        logger.debug("Fetching {} items by id", itemIds.size());
+        return Flux.fromIterable(itemIds)
+            .filterWhen(itemId -> keyFilters.isKnownMissingItem(itemId).map(missing -> !missing))
+            .collectList()
+            .flatMapMany(candidates -> {
+                if (candidates.isEmpty()) {
+                    return Flux.empty();
+                }
+                ColumnarCatalog catalog = catalogReadModel.catalog();
+                if (catalog != null) {
+                    return ServiceCalls.record("ItemService", "getItemsByIds", String.join(",", candidates),
+                        Flux.fromIterable(candidates).distinct().mapNotNull(catalog::get));
+                }
+                return ServiceCalls.record("ItemService", "getItemsByIds", String.join(",", candidates),
+                    ServiceCalls.db(itemRepository.findAllById(candidates))
+                        .map(this::toItemDetail)
+                        .doOnError(error -> logger.error("Error fetching items: {}", itemIds, error)));
+            });
+    }
+
+    /**
+     * Returns the version of an item (its update time), or empty when the item does not exist.
+     */
+    public Mono<String> getItemVersion(String itemId) {
+        return keyFilters.isKnownMissingItem(itemId).flatMap(missing -> {
+            if (missing) {
+                return Mono.empty();
+            }
+            ColumnarCatalog catalog = catalogReadModel.catalog();
+            if (catalog != null) {
+                return ServiceCalls.record("ItemService", "getItemVersion", itemId,
+                    Mono.fromSupplier(() -> catalog.version(itemId)).map(Instant::toString));
+            }
+            return ServiceCalls.record("ItemService", "getItemVersion", itemId,
+                ServiceCalls.db(itemRepository.findVersionById(itemId)).map(Instant::toString));
+        });
+    }
+
+    public Flux<Map<String, Object>> getAllItems(String fields) {
+        logger.debug("Fetching all items with fields: {}", fields);
+        return Flux.defer(() -> projectionRepository.findAll(
+                FieldProjection.parse(ProjectedTable.ITEMS, fields, Set.of())))
+            .doOnComplete(() -> logger.info("Successfully retrieved all items"));
+    }
+
+    public Mono<Map<String, Object>> getItemById(String itemId, String fields) {
+        logger.debug("Fetching item with id: {} and fields: {}", itemId, fields);
+        return keyFilters.isKnownMissingItem(itemId)
+            .flatMap(missing -> missing ? Mono.error(new ItemNotFoundException(itemId))
+                : projectionRepository.findByKey(FieldProjection.parse(ProjectedTable.ITEMS, fields, Set.of()), itemId))
             .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId)))
-            .map(this::toItemDetail)
-            .doOnSuccess(item -> logger.info("Retrieved item: {}", item.itemId()))
-            .doOnError(error -> logger.error("Error fetching item: {}", itemId, error));
+            .doOnSuccess(item -> logger.info("Retrieved item: {}", itemId))
+            .doOnError(error -> !(error instanceof ItemNotFoundException),
+                error -> logger.error("Error fetching item: {}", itemId, error));
+    }
+
+    /**
+     * Returns the items changed or deleted after the given continuation token, in (updated_at, item_id) order.
+     * Updates and tombstones are read with keyset queries and merged, so a round costs O(churn).
+     */
+    public Mono<ChangePage<ItemChange>> getItemChanges(String since, Integer limit) {
+        return Mono.defer(() -> {
+            ChangeToken from = ChangeToken.decode(since);
+            int pageSize = changeFeedProperties.pageSize(limit);
+            Instant horizon = Instant.now().minus(changeFeedProperties.settleLag());
+            logger.debug("Fetching item changes since {} (limit {})", from, pageSize);
+
+            Flux<ItemChange> updated = itemRepository
+                .findChangedSince(from.since(), from.key(), horizon, pageSize + 1)
+                .map(this::toItemChange);
+            Flux<ItemChange> deleted = itemTombstoneRepository
+                .findDeletedSince(from.since(), from.key(), horizon, pageSize + 1)
+                .map(this::toItemChange);
+
+            return Flux.mergeComparing(CHANGE_ORDER, updated, deleted)
+                .take(pageSize + 1)
+                .collectList()
+                .map(changes -> ChangeToken.paginate(changes, pageSize, from,
+                    change -> new ChangeToken(change.updatedAt(), change.itemId())));
+        })
+            .doOnSuccess(page -> logger.info("Retrieved {} item changes", page.changes().size()))
+            .doOnError(error -> logger.error("Error fetching item changes since: {}", since, error));
     }
 
     private ItemDetail toItemDetail(Item item) {
@@ -48,4 +191,22 @@ public class ItemService {
             item.sku()
         );
     }
+
+    private ItemChange toItemChange(Item item) {
+        return new ItemChange(
+            item.itemId(),
+            item.name(),
+            item.price(),
+            item.description(),
+            item.category(),
+            item.brand(),
+            item.sku(),
+            item.updatedAt(),
+            false
+        );
+    }
+
+    private ItemChange toItemChange(ItemTombstone tombstone) {
+        return new ItemChange(tombstone.itemId(), null, null, null, null, null, null, tombstone.deletedAt(), true);
+    }
 }
@@ -0,0 +1,112 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.config.ProductProperties;
+import com.bestseller.api.exception.DependencyTimeoutException;
+import com.bestseller.api.exception.InvalidProductIdsException;
+import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.model.Product;
+import com.bestseller.api.model.ProductStock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds product page views from item and stock data.
+ * Item and stock are queried concurrently. Item data is required, while stock that fails or
+ * does not answer within {@code bestseller.products.stock-timeout} is left out and reported
+ * in {@link Product#unavailable()}, so a slow stock table never blocks the product page.
+ */
+@Service
+public class ProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    private static final String STOCK = "stock";
+
+    private final ItemService itemService;
+    private final StockService stockService;
+    private final ProductProperties properties;
+    private final Counter stockUnavailable;
+
+    public ProductService(ItemService itemService,
+                          StockService stockService,
+                          ProductProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.stockService = stockService;
+        this.properties = properties;
+        this.stockUnavailable = Counter.builder("bestseller.products.partial")
+            .description("Product responses served without data from a dependency")
+            .tag("dependency", STOCK)
+            .register(meterRegistry);
+    }
+
+    public Mono<Product> getProduct(String itemId) {
+        logger.debug("Fetching product: {}", itemId);
+        Mono<ItemDetail> item = withItemTimeout(itemService.getItemById(itemId));
+        Mono<Optional<ProductStock>> stock = optionalStock(stockService.getProductStock(itemId), itemId);
+
+        return Mono.zip(item, stock)
+            .map(tuple -> toProduct(tuple.getT1(), tuple.getT2()));
+    }
+
+    /**
+     * Builds the products for a listing page with one item query and one stock query.
+     * Unknown ids are skipped; the result follows the order of {@code itemIds}.
+     */
+    public Flux<Product> getProducts(List<String> itemIds) {
+        List<String> ids = List.copyOf(new LinkedHashSet<>(itemIds));
+        if (ids.isEmpty()) {
+            return Flux.error(new InvalidProductIdsException("At least one item id is required"));
+        }
+        if (ids.size() > properties.maxIds()) {
+            return Flux.error(new InvalidProductIdsException(
+                "At most " + properties.maxIds() + " item ids are allowed, got " + ids.size()));
+        }
+        logger.debug("Fetching {} products", ids.size());
+
+        Mono<Map<String, ItemDetail>> items = withItemTimeout(
+            itemService.getItemsByIds(ids).collectMap(ItemDetail::itemId));
+        Mono<Optional<Map<String, ProductStock>>> stock = optionalStock(stockService.getProductStock(ids), ids);
+
+        return Mono.zip(items, stock)
+            .flatMapIterable(tuple -> ids.stream()
+                .filter(tuple.getT1()::containsKey)
+                .map(id -> toProduct(tuple.getT1().get(id),
+                    tuple.getT2().map(byItem -> byItem.getOrDefault(id, ProductStock.NONE))))
+                .toList());
+    }
+
+    private <T> Mono<T> withItemTimeout(Mono<T> item) {
+        return item.timeout(properties.itemTimeout(),
+            Mono.error(() -> new DependencyTimeoutException("item", properties.itemTimeout())));
+    }
+
+    private <T> Mono<Optional<T>> optionalStock(Mono<T> stock, Object itemIds) {
+        return stock
+            .map(Optional::of)
+            .timeout(properties.stockTimeout())
+            .onErrorResume(error -> {
+                logger.warn("Serving products without stock for {}: {}", itemIds, error.toString());
+                stockUnavailable.increment();
+                return Mono.just(Optional.empty());
+            });
+    }
+
+    private Product toProduct(ItemDetail item, Optional<ProductStock> stock) {
+        return new Product(
+            item.itemId(),
+            item,
+            stock.orElse(null),
+            stock.isPresent() ? List.of() : List.of(STOCK)
+        );
+    }
+}
@@ -1,31 +1,207 @@
 package com.bestseller.api.service;
 
+import com.bestseller.api.bloom.KeyFilters;
+import com.bestseller.api.config.ChangeFeedProperties;
+import com.bestseller.api.config.StockIngestProperties;
 import com.bestseller.api.entity.Stock;
+import com.bestseller.api.entity.StockTombstone;
+import com.bestseller.api.exception.InvalidChangeTokenException;
+import com.bestseller.api.exception.InvalidStockUpdateException;
 import com.bestseller.api.exception.ItemNotFoundException;
+import com.bestseller.api.ingest.StockWriteCoalescer;
+import com.bestseller.api.model.ChangePage;
+import com.bestseller.api.model.ProductStock;
+import com.bestseller.api.model.StockChange;
 import com.bestseller.api.model.StockInfo;
+import com.bestseller.api.model.StockUpdate;
+import com.bestseller.api.model.WarehouseStock;
+import com.bestseller.api.profiling.ServiceCalls;
+import com.bestseller.api.repository.FieldProjection;
+import com.bestseller.api.repository.ProjectedTable;
+import com.bestseller.api.repository.ProjectionRepository;
 import com.bestseller.api.repository.StockRepository;
+import com.bestseller.api.repository.StockTombstoneRepository;
+import com.bestseller.api.repository.StockWriteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class StockService {
 
     private static final Logger logger = LoggerFactory.getLogger(StockService.class);
+    private static final Comparator<StockChange> CHANGE_ORDER =
+        Comparator.comparing(StockChange::lastUpdated).thenComparing(StockChange::stockId);
+
     private final StockRepository stockRepository;
+    private final StockTombstoneRepository stockTombstoneRepository;
+    private final ProjectionRepository projectionRepository;
+    private final ChangeFeedProperties changeFeedProperties;
+    private final KeyFilters keyFilters;
+    private final StockWriteRepository stockWriteRepository;
+    private final StockWriteCoalescer stockWriteCoalescer;
+    private final StockIngestProperties stockIngestProperties;
 
-    public StockService(StockRepository stockRepository) {
+    public StockService(StockRepository stockRepository,
+                        StockTombstoneRepository stockTombstoneRepository,
+                        ProjectionRepository projectionRepository,
+                        ChangeFeedProperties changeFeedProperties,
+                        KeyFilters keyFilters,
+                        StockWriteRepository stockWriteRepository,
+                        StockWriteCoalescer stockWriteCoalescer,
+                        StockIngestProperties stockIngestProperties) {
         this.stockRepository = stockRepository;
+        this.stockTombstoneRepository = stockTombstoneRepository;
+        this.projectionRepository = projectionRepository;
+        this.changeFeedProperties = changeFeedProperties;
+        this.keyFilters = keyFilters;
+        this.stockWriteRepository = stockWriteRepository;
+        this.stockWriteCoalescer = stockWriteCoalescer;
+        this.stockIngestProperties = stockIngestProperties;
     }
 
     public Mono<StockInfo> getStockByItemId(String itemId) {
         logger.debug("Fetching stock for item: {}", itemId);
-        return stockRepository.findByItemId(itemId)
+        return keyFilters.isKnownMissingItem(itemId).flatMap(missing -> missing
+            ? Mono.error(new ItemNotFoundException(itemId))
+            : ServiceCalls.record("StockService", "getStockByItemId", itemId,
+                ServiceCalls.db(stockRepository.findByItemId(itemId))
+                    .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId)))
+                    .map(this::toStockInfo)
+                    .doOnSuccess(stock -> logger.info("Retrieved stock for item: {}", itemId))
+                    .doOnError(error -> !(error instanceof ItemNotFoundException),
+                        error -> logger.error("Error fetching stock for item: {}", itemId, error))));
+    }
+
+    /**
+     * Sums the stock of one item over all warehouses. Items without stock records are reported as out of stock.
+     */
+    public Mono<ProductStock> getProductStock(String itemId) {
+        return getProductStock(List.of(itemId))
+            .map(stock -> stock.getOrDefault(itemId, ProductStock.NONE));
+    }
+
+    /**
+     * Sums the stock of several items over all warehouses with a single query.
+     * Items without stock records are absent from the map.
+     */
+    public Mono<Map<String, ProductStock>> getProductStock(Collection<String> itemIds) {
+        logger.debug("Fetching aggregated stock for {} items", itemIds.size());
+        return ServiceCalls.record("StockService", "getProductStock", String.join(",", itemIds),
+            ServiceCalls.db(stockRepository.findAllByItemIdIn(itemIds))
+                .collectMultimap(Stock::itemId)
+                .map(byItem -> {
+                    Map<String, ProductStock> result = new HashMap<>();
+                    byItem.forEach((itemId, records) -> result.put(itemId, toProductStock(records)));
+                    return result;
+                })
+                .doOnError(error -> logger.error("Error fetching aggregated stock for items: {}", itemIds, error)));
+    }
+
+    public Mono<Map<String, Object>> getStockByItemId(String itemId, String fields) {
+        logger.debug("Fetching stock for item: {} with fields: {}", itemId, fields);
+        return keyFilters.isKnownMissingItem(itemId)
+            .flatMap(missing -> missing ? Mono.error(new ItemNotFoundException(itemId))
+                : projectionRepository.findByKey(FieldProjection.parse(ProjectedTable.STOCK, fields, Set.of()), itemId))
             .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId)))
-            .map(this::toStockInfo)
             .doOnSuccess(stock -> logger.info("Retrieved stock for item: {}", itemId))
-            .doOnError(error -> logger.error("Error fetching stock for item: {}", itemId, error));
+            .doOnError(error -> !(error instanceof ItemNotFoundException),
+                error -> logger.error("Error fetching stock for item: {}", itemId, error));
+    }
+
+    /**
+     * Returns the stock records changed or deleted after the given continuation token, in (last_updated, id) order.
+     */
+    public Mono<ChangePage<StockChange>> getStockChanges(String since, Integer limit) {
+        return Mono.defer(() -> {
+            ChangeToken from = ChangeToken.decode(since);
+            int afterId = parseStockId(from, since);
+            int pageSize = changeFeedProperties.pageSize(limit);
+            Instant horizon = Instant.now().minus(changeFeedProperties.settleLag());
+            logger.debug("Fetching stock changes since {} (limit {})", from, pageSize);
+
+            Flux<StockChange> updated = stockRepository
+                .findChangedSince(from.since(), afterId, horizon, pageSize + 1)
+                .map(this::toStockChange);
+            Flux<StockChange> deleted = stockTombstoneRepository
+                .findDeletedSince(from.since(), afterId, horizon, pageSize + 1)
+                .map(this::toStockChange);
+
+            return Flux.mergeComparing(CHANGE_ORDER, updated, deleted)
+                .take(pageSize + 1)
+                .collectList()
+                .map(changes -> ChangeToken.paginate(changes, pageSize, from,
+                    change -> new ChangeToken(change.lastUpdated(), String.valueOf(change.stockId()))));
+        })
+            .doOnSuccess(page -> logger.info("Retrieved {} stock changes", page.changes().size()))
+            .doOnError(error -> logger.error("Error fetching stock changes since: {}", since, error));
+    }
+
+    /**
+     * Accepts stock quantity updates, e.g. one per warehouse scan. With coalescing enabled they are acknowledged
+     * once logged locally and written within {@code bestseller.stock-ingest.flush-interval}, keeping only the
+     * latest quantity per item and warehouse; otherwise they are written before this completes. Updates for items
+     * that do not exist are accepted and skipped by the write.
+     *
+     * @return the number of updates accepted
+     */
+    public Mono<Integer> submitStockUpdates(List<StockUpdate> updates) {
+        return Mono.defer(() -> {
+            validate(updates);
+            if (stockIngestProperties.coalesce()) {
+                return stockWriteCoalescer.submit(updates);
+            }
+            Map<List<String>, StockUpdate> latest = new LinkedHashMap<>();
+            updates.forEach(update -> latest.put(List.of(update.itemId(), update.warehouse()), update));
+            return Flux.fromIterable(latest.values())
+                .buffer(stockIngestProperties.batchSize())
+                .concatMap(stockWriteRepository::upsertQuantities)
+                .then(Mono.just(updates.size()));
+        })
+            .doOnSuccess(accepted -> logger.debug("Accepted {} stock updates", accepted))
+            .doOnError(error -> !(error instanceof InvalidStockUpdateException),
+                error -> logger.error("Error accepting {} stock updates", updates.size(), error));
+    }
+
+    private void validate(List<StockUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new InvalidStockUpdateException("At least one stock update is required");
+        }
+        for (StockUpdate update : updates) {
+            if (update == null || update.itemId() == null || update.itemId().isBlank()) {
+                throw new InvalidStockUpdateException("Every stock update needs an itemId");
+            }
+            if (update.warehouse() == null || update.warehouse().isBlank()) {
+                throw new InvalidStockUpdateException("Stock update for " + update.itemId() + " has no warehouse");
+            }
+            if (update.quantity() == null || update.quantity() < 0) {
+                throw new InvalidStockUpdateException(
+                    "Stock update for " + update.itemId() + " needs a quantity of 0 or more");
+            }
+        }
+    }
+
+    private int parseStockId(ChangeToken token, String raw) {
+        if (token.key().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(token.key());
+        } catch (NumberFormatException e) {
+            throw new InvalidChangeTokenException(raw);
+        }
     }
 
     private StockInfo toStockInfo(Stock stock) {
@@ -37,4 +213,43 @@ public class StockService {
             stock.lastUpdated()
         );
     }
+
+    private ProductStock toProductStock(Collection<Stock> records) {
+        int quantity = 0;
+        Instant lastUpdated = null;
+        List<WarehouseStock> warehouses = new ArrayList<>(records.size());
+        for (Stock stock : records) {
+            quantity += stock.quantity();
+            if (lastUpdated == null || (stock.lastUpdated() != null && stock.lastUpdated().isAfter(lastUpdated))) {
+                lastUpdated = stock.lastUpdated();
+            }
+            warehouses.add(new WarehouseStock(
+                stock.warehouse(), stock.inStock(), stock.quantity(), stock.lastUpdated()));
+        }
+        return new ProductStock(quantity > 0, quantity, warehouses, lastUpdated);
+    }
+
+    private StockChange toStockChange(Stock stock) {
+        return new StockChange(
+            stock.id(),
+            stock.itemId(),
+            stock.inStock(),
+            stock.quantity(),
+            stock.warehouse(),
+            stock.lastUpdated(),
+            false
+        );
+    }
+
+    private StockChange toStockChange(StockTombstone tombstone) {
+        return new StockChange(
+            tombstone.stockId(),
+            tombstone.itemId(),
+            null,
+            null,
+            tombstone.warehouse(),
+            tombstone.deletedAt(),
+            true
+        );
+    }
 }
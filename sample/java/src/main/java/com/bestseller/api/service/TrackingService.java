@@ -1,47 +1,141 @@
 package com.bestseller.api.service;
 
+import com.bestseller.api.bloom.KeyFilters;
 import com.bestseller.api.entity.Tracking;
 import com.bestseller.api.entity.TrackingEventEntity;
 import com.bestseller.api.exception.TrackingNotFoundException;
 import com.bestseller.api.model.TrackingEvent;
 import com.bestseller.api.model.TrackingInfo;
+import com.bestseller.api.profiling.ServiceCalls;
+import com.bestseller.api.repository.FieldProjection;
+import com.bestseller.api.repository.ProjectedTable;
+import com.bestseller.api.repository.ProjectionRepository;
 import com.bestseller.api.repository.TrackingEventRepository;
 import com.bestseller.api.repository.TrackingRepository;
+import com.bestseller.api.sharding.TrackingShardRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class TrackingService {
 
     private static final Logger logger = LoggerFactory.getLogger(TrackingService.class);
+    private static final String HISTORY_FIELD = "history";
+
     private final TrackingRepository trackingRepository;
     private final TrackingEventRepository trackingEventRepository;
+    private final ProjectionRepository projectionRepository;
+    private final TrackingShardRouter shardRouter;
+    private final KeyFilters keyFilters;
 
     public TrackingService(TrackingRepository trackingRepository,
-                          TrackingEventRepository trackingEventRepository) {
+                          TrackingEventRepository trackingEventRepository,
+                          ProjectionRepository projectionRepository,
+                          TrackingShardRouter shardRouter,
+                          KeyFilters keyFilters) {
         this.trackingRepository = trackingRepository;
         this.trackingEventRepository = trackingEventRepository;
+        this.projectionRepository = projectionRepository;
+        this.shardRouter = shardRouter;
+        this.keyFilters = keyFilters;
     }
 
     public Mono<TrackingInfo> getTrackingStatus(String trackingNo) {
         logger.debug("Fetching tracking info for: {}", trackingNo);
+        return keyFilters.isKnownMissingTracking(trackingNo).flatMap(missing -> {
+            if (missing) {
+                return Mono.error(new TrackingNotFoundException(trackingNo));
+            }
+
+            Mono<Tracking> trackingMono = ServiceCalls
+                .db(shardRouter.onShard(trackingNo, () -> trackingRepository.findById(trackingNo)))
+                .switchIfEmpty(Mono.error(new TrackingNotFoundException(trackingNo)));
 
-        Mono<Tracking> trackingMono = trackingRepository.findById(trackingNo)
-            .switchIfEmpty(Mono.error(new TrackingNotFoundException(trackingNo)));
+            Mono<List<TrackingEvent>> eventsMono = ServiceCalls
+                .db(shardRouter.onShardMany(trackingNo,
+                    () -> trackingEventRepository.findByTrackingNoOrderByTimestampDesc(trackingNo)))
+                .map(this::toTrackingEvent)
+                .collectList();
 
-        Mono<List<TrackingEvent>> eventsMono = trackingEventRepository
-            .findByTrackingNoOrderByTimestampDesc(trackingNo)
-            .map(this::toTrackingEvent)
-            .collectList();
+            return ServiceCalls.record("TrackingService", "getTrackingStatus", trackingNo,
+                Mono.zip(trackingMono, eventsMono)
+                    .map(tuple -> toTrackingInfo(tuple.getT1(), tuple.getT2()))
+                    .doOnSuccess(tracking -> logger.info("Retrieved tracking info for: {}", trackingNo))
+                    .doOnError(error -> !(error instanceof TrackingNotFoundException),
+                        error -> logger.error("Error fetching tracking info for: {}", trackingNo, error)));
+        });
+    }
+
+    /**
+     * Returns the version of a tracking record and its history, or empty when it does not exist.
+     */
+    public Mono<String> getTrackingVersion(String trackingNo) {
+        return keyFilters.isKnownMissingTracking(trackingNo).flatMap(missing -> missing ? Mono.empty()
+            : ServiceCalls.record("TrackingService", "getTrackingVersion", trackingNo,
+                ServiceCalls.db(shardRouter.onShard(trackingNo, () -> trackingRepository.findVersionById(trackingNo)))
+                    .map(Instant::toString)));
+    }
 
-        return Mono.zip(trackingMono, eventsMono)
-            .map(tuple -> toTrackingInfo(tuple.getT1(), tuple.getT2()))
+    /**
+     * Returns only the requested tracking fields. The event history is queried only when
+     * {@code history} is among them.
+     */
+    public Mono<Map<String, Object>> getTrackingStatus(String trackingNo, String fields) {
+        logger.debug("Fetching tracking info for: {} with fields: {}", trackingNo, fields);
+        return keyFilters.isKnownMissingTracking(trackingNo).flatMap(missing -> {
+            if (missing) {
+                return Mono.<Map<String, Object>>error(new TrackingNotFoundException(trackingNo));
+            }
+            FieldProjection projection = FieldProjection.parse(ProjectedTable.TRACKING, fields, Set.of(HISTORY_FIELD));
+            Mono<Map<String, Object>> trackingMono = shardRouter
+                .onShard(trackingNo, () -> projectionRepository.findByKey(projection, trackingNo))
+                .switchIfEmpty(Mono.error(new TrackingNotFoundException(trackingNo)));
+            if (!projection.includes(HISTORY_FIELD)) {
+                return trackingMono;
+            }
+            Mono<List<TrackingEvent>> eventsMono = shardRouter
+                .onShardMany(trackingNo, () -> trackingEventRepository.findHistoryByTrackingNo(trackingNo))
+                .collectList();
+            return Mono.zip(trackingMono, eventsMono)
+                .map(tuple -> {
+                    tuple.getT1().put(HISTORY_FIELD, tuple.getT2());
+                    return tuple.getT1();
+                });
+        })
             .doOnSuccess(tracking -> logger.info("Retrieved tracking info for: {}", trackingNo))
-            .doOnError(error -> logger.error("Error fetching tracking info for: {}", trackingNo, error));
+            .doOnError(error -> !(error instanceof TrackingNotFoundException),
+                error -> logger.error("Error fetching tracking info for: {}", trackingNo, error));
+    }
+
+    /**
+     * Counts shipments per status. With sharding enabled every shard is queried in parallel
+     * and the per-shard counts are summed.
+     */
+    public Mono<Map<String, Long>> countByStatus() {
+        logger.debug("Counting tracking records by status");
+        return ServiceCalls.record("TrackingService", "countByStatus", null,
+            ServiceCalls.db(shardRouter.onEachShard(trackingRepository::countByStatus))
+                .collect(TreeMap<String, Long>::new,
+                    (counts, row) -> counts.merge(row.status(), row.count(), Long::sum))
+                .map(counts -> (Map<String, Long>) counts)
+                .doOnError(error -> logger.error("Error counting tracking records by status", error)));
+    }
+
+    /**
+     * Returns up to {@code limit} tracking numbers, taken from every shard, without loading the records.
+     */
+    public Flux<String> sampleTrackingNumbers(int limit) {
+        return shardRouter.onEachShard(() -> trackingRepository.findTrackingNumbersAfter("", limit))
+            .take(limit);
     }
 
     private TrackingEvent toTrackingEvent(TrackingEventEntity entity) {
@@ -0,0 +1,151 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.config.TrackingStatsProperties;
+import com.bestseller.api.model.StatsCounter;
+import com.bestseller.api.model.TrackingStats;
+import com.bestseller.api.profiling.ServiceCalls;
+import com.bestseller.api.repository.TrackingRepository;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves shipment counts from the {@code tracking_stats} counters that triggers keep up to date
+ * (see {@code scripts/08_create_tracking_stats.sql}), so a dashboard refresh reads a few hundred counter rows
+ * instead of aggregating the tracking table.
+ * <p>
+ * Open shipments are counted per estimated delivery hour. Hours that have fully passed are overdue; for the
+ * current hour the overdue part is counted from the table, which the partial index on estimated delivery keeps
+ * to one hour's worth of rows. Every {@code reconcile-interval} the counters are recounted against the table on
+ * each shard and any drift is corrected and reported as {@code bestseller.tracking.stats.drift}.
+ */
+@Service
+public class TrackingStatsService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingStatsService.class);
+    private static final String UNKNOWN_LOCATION = "Unknown";
+
+    private final TrackingRepository trackingRepository;
+    private final TrackingShardRouter shardRouter;
+    private final TrackingStatsProperties properties;
+    private final Counter drift;
+    private final Timer reconciliations;
+    private Disposable reconciler;
+
+    public TrackingStatsService(TrackingRepository trackingRepository,
+                                TrackingShardRouter shardRouter,
+                                TrackingStatsProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.trackingRepository = trackingRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.drift = Counter.builder("bestseller.tracking.stats.drift")
+            .description("Corrections applied to the shipment counters by reconciliation")
+            .register(meterRegistry);
+        this.reconciliations = Timer.builder("bestseller.tracking.stats.reconcile")
+            .description("Time taken to recount the shipment counters on all shards")
+            .register(meterRegistry);
+    }
+
+    public Mono<TrackingStats> getStats() {
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            Instant currentHour = now.truncatedTo(ChronoUnit.HOURS);
+            Mono<List<StatsCounter>> counters = ServiceCalls
+                .db(shardRouter.onEachShard(trackingRepository::findStatsCounters))
+                .collectList();
+            Mono<Long> overdueThisHour = ServiceCalls
+                .db(shardRouter.onEachShard(() -> trackingRepository.countOpenDueBetween(currentHour, now).flux()))
+                .reduce(0L, Long::sum);
+            return ServiceCalls.record("TrackingStatsService", "getStats", null,
+                Mono.zip(counters, overdueThisHour)
+                    .map(tuple -> toTrackingStats(tuple.getT1(), tuple.getT2(), now)));
+        })
+            .doOnError(error -> logger.error("Error reading shipment counters", error));
+    }
+
+    /**
+     * Recounts the counters on every shard and returns the total correction that was applied.
+     */
+    public Mono<Long> reconcile() {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return shardRouter.onEachShard(() -> trackingRepository.reconcileStats().flux())
+                .reduce(0L, Long::sum)
+                .doOnSuccess(corrected -> {
+                    reconciliations.record(Duration.ofNanos(System.nanoTime() - started));
+                    drift.increment(corrected);
+                    if (corrected > 0) {
+                        logger.warn("Corrected shipment counters by {}", corrected);
+                    }
+                });
+        });
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!properties.reconcile()) {
+            logger.info("Shipment counter reconciliation disabled");
+            return;
+        }
+        reconciler = Flux.interval(properties.reconcileInterval(), properties.reconcileInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> reconcile().onErrorResume(error -> {
+                logger.warn("Could not reconcile shipment counters: {}", error.getMessage());
+                return Mono.empty();
+            }))
+            .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (reconciler != null) {
+            reconciler.dispose();
+        }
+    }
+
+    private TrackingStats toTrackingStats(List<StatsCounter> counters, long overdueThisHour, Instant now) {
+        Map<String, Long> byStatus = new TreeMap<>();
+        Map<String, Long> byLocation = new TreeMap<>();
+        Instant currentHour = now.truncatedTo(ChronoUnit.HOURS);
+        long overdue = overdueThisHour;
+        long open = 0;
+        for (StatsCounter counter : counters) {
+            long count = counter.count();
+            if (count == 0) {
+                continue;
+            }
+            switch (counter.dimension()) {
+                case "status" -> byStatus.merge(counter.key(), count, Long::sum);
+                case "location" -> byLocation.merge(
+                    counter.key().isEmpty() ? UNKNOWN_LOCATION : counter.key(), count, Long::sum);
+                case "due" -> {
+                    open += count;
+                    if (Instant.parse(counter.key()).isBefore(currentHour)) {
+                        overdue += count;
+                    }
+                }
+                default -> logger.debug("Ignoring unknown counter dimension: {}", counter.dimension());
+            }
+        }
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new TrackingStats(total, byStatus, byLocation, overdue, open - overdue, now);
+    }
+}
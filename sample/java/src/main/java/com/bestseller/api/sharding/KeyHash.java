@@ -0,0 +1,60 @@
+package com.bestseller.api.sharding;
+
+/**
+ * 64-bit FNV-1a over the UTF-8 bytes of a key, followed by the SplitMix64 finalizer, so similar keys like
+ * {@code TRK-2025-001} and {@code TRK-2025-002} hash far apart. Used to place keys on the shard ring and by
+ * the key filters.
+ * <p>
+ * The bytes are encoded on the fly, so hashing allocates nothing, yet the values match hashing
+ * {@code key.getBytes(UTF_8)}. Records are placed on shards by these values, so they must never change.
+ */
+public final class KeyHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private KeyHash() {
+    }
+
+    public static long of(String key) {
+        long hash = OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                hash = next(hash, c);
+            } else if (c < 0x800) {
+                hash = next(next(hash, 0xc0 | c >> 6), 0x80 | c & 0x3f);
+            } else if (!Character.isSurrogate(c)) {
+                hash = next(next(next(hash, 0xe0 | c >> 12), 0x80 | c >> 6 & 0x3f), 0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < key.length()
+                && Character.isLowSurrogate(key.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                hash = next(next(hash, 0xf0 | codePoint >> 18), 0x80 | codePoint >> 12 & 0x3f);
+                hash = next(next(hash, 0x80 | codePoint >> 6 & 0x3f), 0x80 | codePoint & 0x3f);
+            } else {
+                // A lone surrogate, which the UTF-8 encoder replaces with '?'
+                hash = next(hash, '?');
+            }
+        }
+        return mix(hash);
+    }
+
+    /**
+     * The SplitMix64 finalizer: spreads every input bit over the whole result.
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 30;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash;
+    }
+
+    /**
+     * One FNV-1a step. The byte is sign-extended, as when hashing the signed bytes of an encoded key.
+     */
+    private static long next(long hash, int unsignedByte) {
+        return (hash ^ (byte) unsignedByte) * PRIME;
+    }
+}
@@ -0,0 +1,17 @@
+package com.bestseller.api.sharding;
+
+import java.util.Map;
+
+/**
+ * Result of a rebalance plan or run.
+ *
+ * @param applied whether records were actually moved
+ * @param moves   number of misplaced records per {@code source->target} shard pair
+ * @param total   total number of misplaced (or moved) records
+ */
+public record RebalanceReport(
+    boolean applied,
+    Map<String, Long> moves,
+    long total
+) {
+}
@@ -0,0 +1,130 @@
+package com.bestseller.api.sharding;
+
+import com.bestseller.api.entity.Tracking;
+import com.bestseller.api.entity.TrackingEventEntity;
+import com.bestseller.api.repository.TrackingEventRepository;
+import com.bestseller.api.repository.TrackingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Moves tracking records that live on a shard the ring no longer assigns them to, for example after
+ * a shard was added. Each record is copied with its events to the owning shard in one transaction and
+ * then deleted from the old shard, so a run can be repeated safely after a failure.
+ * Enable {@code fallback-on-miss} while rebalancing so lookups still find records that have not moved yet.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bestseller.tracking.sharding", name = "enabled", havingValue = "true")
+public class TrackingRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingRebalancer.class);
+    private static final int SCAN_BATCH_SIZE = 1000;
+    private static final int MOVE_CONCURRENCY = 4;
+
+    private final TrackingShardRouter router;
+    private final TrackingRepository trackingRepository;
+    private final TrackingEventRepository trackingEventRepository;
+    private final R2dbcEntityTemplate template;
+    private final TransactionalOperator transactionalOperator;
+
+    public TrackingRebalancer(TrackingShardRouter router,
+                              TrackingRepository trackingRepository,
+                              TrackingEventRepository trackingEventRepository,
+                              R2dbcEntityTemplate template,
+                              ReactiveTransactionManager transactionManager) {
+        this.router = router;
+        this.trackingRepository = trackingRepository;
+        this.trackingEventRepository = trackingEventRepository;
+        this.template = template;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    public Mono<RebalanceReport> plan() {
+        return misplaced()
+            .collect(TreeMap<String, Long>::new, (moves, move) -> moves.merge(move.label(), 1L, Long::sum))
+            .map(moves -> report(false, moves));
+    }
+
+    public Mono<RebalanceReport> rebalance() {
+        logger.info("Rebalancing tracking shards: {}", router.shards());
+        return misplaced()
+            .flatMap(move -> move(move).thenReturn(move), MOVE_CONCURRENCY)
+            .collect(TreeMap<String, Long>::new, (moves, move) -> moves.merge(move.label(), 1L, Long::sum))
+            .map(moves -> report(true, moves))
+            .doOnSuccess(report -> logger.info("Rebalance moved {} tracking records: {}",
+                report.total(), report.moves()))
+            .doOnError(error -> logger.error("Rebalance failed", error));
+    }
+
+    private Flux<Move> misplaced() {
+        return Flux.fromIterable(router.shards())
+            .concatMap(shard -> scan(shard)
+                .filter(trackingNo -> !router.shardFor(trackingNo).equals(shard))
+                .map(trackingNo -> new Move(trackingNo, shard, router.shardFor(trackingNo))));
+    }
+
+    private Flux<String> scan(String shard) {
+        return scanPage(shard, "")
+            .expand(page -> page.size() < SCAN_BATCH_SIZE ? Mono.empty() : scanPage(shard, page.get(page.size() - 1)))
+            .flatMapIterable(page -> page);
+    }
+
+    private Mono<List<String>> scanPage(String shard, String afterTrackingNo) {
+        return router.onNamedShard(shard,
+            trackingRepository.findTrackingNumbersAfter(afterTrackingNo, SCAN_BATCH_SIZE).collectList());
+    }
+
+    private Mono<Void> move(Move move) {
+        Mono<Tracking> tracking = router.onNamedShard(move.source(), trackingRepository.findById(move.trackingNo()));
+        Mono<List<TrackingEventEntity>> events = router.onNamedShard(move.source(),
+            trackingEventRepository.findByTrackingNoOrderByTimestampDesc(move.trackingNo()).collectList());
+
+        return Mono.zip(tracking, events)
+            .flatMap(tuple -> copy(move.target(), tuple.getT1(), tuple.getT2()))
+            .then(router.onNamedShard(move.source(), trackingRepository.deleteById(move.trackingNo())));
+    }
+
+    private Mono<Void> copy(String target, Tracking tracking, List<TrackingEventEntity> events) {
+        Mono<Void> writes = template.delete(Tracking.class)
+            .matching(query(where("tracking_no").is(tracking.trackingNo())))
+            .all()
+            .then(template.insert(tracking))
+            .thenMany(Flux.fromIterable(events).concatMap(event -> template.insert(new TrackingEventEntity(
+                null,
+                event.trackingNo(),
+                event.timestamp(),
+                event.location(),
+                event.status(),
+                event.description(),
+                event.createdAt()
+            ))))
+            .then();
+        return router.onNamedShard(target, transactionalOperator.transactional(writes));
+    }
+
+    private RebalanceReport report(boolean applied, Map<String, Long> moves) {
+        long total = moves.values().stream().mapToLong(Long::longValue).sum();
+        return new RebalanceReport(applied, moves, total);
+    }
+
+    private record Move(String trackingNo, String source, String target) {
+
+        String label() {
+            return source + "->" + target;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bestseller.api.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Routes each connection request to the shard named in the Reactor context under
+ * {@link TrackingShardRouter#SHARD_CONTEXT_KEY}, or to the primary database when none is set.
+ */
+public class TrackingShardConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    private final List<Disposable> pools;
+
+    public TrackingShardConnectionFactory(List<Disposable> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context ->
+            Mono.justOrEmpty(context.getOrEmpty(TrackingShardRouter.SHARD_CONTEXT_KEY)));
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(Disposable::dispose);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bestseller.api.sharding;
+
+import com.bestseller.api.config.TrackingShardingProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard owns a tracking number and runs repository calls against it.
+ * Queries are routed by writing the shard name into the Reactor context, which
+ * {@link TrackingShardConnectionFactory} reads when a connection is acquired.
+ * With sharding disabled every call runs unchanged against the primary database.
+ */
+@Component
+public class TrackingShardRouter {
+
+    public static final String SHARD_CONTEXT_KEY = TrackingShardRouter.class.getName() + ".shard";
+
+    private final ConsistentHashRing ring;
+    private final boolean fallbackOnMiss;
+
+    public TrackingShardRouter(TrackingShardingProperties properties) {
+        if (properties.enabled()) {
+            List<String> names = properties.shards().stream()
+                .map(TrackingShardingProperties.Shard::name)
+                .toList();
+            this.ring = new ConsistentHashRing(names, properties.virtualNodes());
+        } else {
+            this.ring = null;
+        }
+        this.fallbackOnMiss = properties.fallbackOnMiss();
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public List<String> shards() {
+        return ring != null ? ring.shards() : List.of();
+    }
+
+    public String shardFor(String trackingNo) {
+        return ring != null ? ring.shardFor(trackingNo) : null;
+    }
+
+    /**
+     * Runs a single-row query on the shard owning {@code trackingNo}.
+     */
+    public <T> Mono<T> onShard(String trackingNo, Supplier<Mono<T>> query) {
+        if (ring == null) {
+            return query.get();
+        }
+        String owner = ring.shardFor(trackingNo);
+        Mono<T> result = onNamedShard(owner, query.get());
+        if (!fallbackOnMiss) {
+            return result;
+        }
+        return result.switchIfEmpty(Flux.fromIterable(ring.shards())
+            .filter(shard -> !shard.equals(owner))
+            .concatMap(shard -> onNamedShard(shard, query.get()))
+            .next());
+    }
+
+    /**
+     * Runs a multi-row query on the shard owning {@code trackingNo}.
+     */
+    public <T> Flux<T> onShardMany(String trackingNo, Supplier<Flux<T>> query) {
+        if (ring == null) {
+            return query.get();
+        }
+        String owner = ring.shardFor(trackingNo);
+        Flux<T> result = onNamedShard(owner, query.get());
+        if (!fallbackOnMiss) {
+            return result;
+        }
+        return result.switchIfEmpty(Flux.fromIterable(ring.shards())
+            .filter(shard -> !shard.equals(owner))
+            .concatMap(shard -> onNamedShard(shard, query.get()).collectList())
+            .filter(rows -> !rows.isEmpty())
+            .next()
+            .flatMapMany(Flux::fromIterable));
+    }
+
+    /**
+     * Runs the query on every shard in parallel and merges the results in arrival order.
+     */
+    public <T> Flux<T> onEachShard(Supplier<Flux<T>> query) {
+        if (ring == null) {
+            return query.get();
+        }
+        return Flux.fromIterable(ring.shards())
+            .flatMap(shard -> onNamedShard(shard, query.get()), ring.shards().size());
+    }
+
+    public <T> Mono<T> onNamedShard(String shard, Mono<T> query) {
+        return query.contextWrite(context -> context.put(SHARD_CONTEXT_KEY, shard));
+    }
+
+    public <T> Flux<T> onNamedShard(String shard, Flux<T> query) {
+        return query.contextWrite(context -> context.put(SHARD_CONTEXT_KEY, shard));
+    }
+}
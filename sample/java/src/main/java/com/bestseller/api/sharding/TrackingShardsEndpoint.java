@@ -0,0 +1,34 @@
+package com.bestseller.api.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Actuator endpoint for the tracking shard rebalance tool.
+ * {@code GET /actuator/trackingshards} shows which records would move, {@code POST} moves them.
+ */
+@Component
+@Endpoint(id = "trackingshards")
+@ConditionalOnProperty(prefix = "bestseller.tracking.sharding", name = "enabled", havingValue = "true")
+public class TrackingShardsEndpoint {
+
+    private final TrackingRebalancer rebalancer;
+
+    public TrackingShardsEndpoint(TrackingRebalancer rebalancer) {
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Mono<RebalanceReport> plan() {
+        return rebalancer.plan();
+    }
+
+    @WriteOperation
+    public Mono<RebalanceReport> rebalance() {
+        return rebalancer.rebalance();
+    }
+}
@@ -0,0 +1,33 @@
+package com.bestseller.api.warmup;
+
+import java.time.Duration;
+
+/**
+ * Outcome of the startup warm-up.
+ *
+ * @param outcome          {@code settled}, {@code unsettled} (round limit reached), {@code failed} or {@code skipped}
+ * @param duration         time from the start of the warm-up until readiness was released
+ * @param connections      connections opened across all pools
+ * @param items            items pre-loaded into the caches
+ * @param trackingRecords  tracking records pre-loaded into the caches
+ * @param rounds           synthetic request rounds run
+ * @param requests         synthetic requests sent
+ * @param errors           synthetic requests that failed
+ * @param firstRoundMillis mean latency of the first (cold) round
+ * @param lastRoundMillis  mean latency of the last round
+ */
+public record WarmUpReport(
+    String outcome,
+    Duration duration,
+    int connections,
+    int items,
+    int trackingRecords,
+    int rounds,
+    long requests,
+    long errors,
+    double firstRoundMillis,
+    double lastRoundMillis
+) {
+
+    static final WarmUpReport NONE = new WarmUpReport("skipped", Duration.ZERO, 0, 0, 0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,326 @@
+package com.bestseller.api.warmup;
+
+import com.bestseller.api.config.TrackingShardingProperties;
+import com.bestseller.api.config.WarmUpProperties;
+import com.bestseller.api.controller.ItemController;
+import com.bestseller.api.controller.StockController;
+import com.bestseller.api.controller.TrackingController;
+import com.bestseller.api.hotkeys.HotKeys;
+import com.bestseller.api.model.ItemSummary;
+import com.bestseller.api.service.ItemService;
+import com.bestseller.api.service.TrackingService;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Warms the instance up before it reports ready.
+ * <p>
+ * Spring Boot only switches readiness to {@code ACCEPTING_TRAFFIC} after all application runners have
+ * finished, so while this runner blocks the readiness probe stays red and no traffic is routed here.
+ * The warm-up fills every connection pool to its maximum size, pre-loads hot items, stock and tracking
+ * records through the controllers (which fills the response cache and primes the Jackson serializers),
+ * starting with the keys that were hottest during the previous run, and then replays the same synthetic
+ * requests in rounds until the mean latency stops improving. A round in which more than
+ * {@code max-error-ratio} of the requests failed never counts as settled, however steady its latency: requests
+ * that fail fast say nothing about how warm the instance is.
+ * <p>
+ * Warm-up never prevents startup: when the database is unreachable or the time budget runs out the
+ * instance starts cold and the outcome is reported as {@code failed}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final HttpHeaders ACCEPT_GZIP = acceptGzip();
+
+    private final WarmUpProperties properties;
+    private final ConnectionFactory connectionFactory;
+    private final R2dbcProperties r2dbcProperties;
+    private final TrackingShardingProperties shardingProperties;
+    private final TrackingShardRouter shardRouter;
+    private final ItemService itemService;
+    private final TrackingService trackingService;
+    private final ItemController itemController;
+    private final StockController stockController;
+    private final TrackingController trackingController;
+    private final HotKeys hotKeys;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<WarmUpReport> report = new AtomicReference<>(WarmUpReport.NONE);
+
+    public WarmUpRunner(WarmUpProperties properties,
+                        ConnectionFactory connectionFactory,
+                        R2dbcProperties r2dbcProperties,
+                        TrackingShardingProperties shardingProperties,
+                        TrackingShardRouter shardRouter,
+                        ItemService itemService,
+                        TrackingService trackingService,
+                        ItemController itemController,
+                        StockController stockController,
+                        TrackingController trackingController,
+                        HotKeys hotKeys,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.connectionFactory = connectionFactory;
+        this.r2dbcProperties = r2dbcProperties;
+        this.shardingProperties = shardingProperties;
+        this.shardRouter = shardRouter;
+        this.itemService = itemService;
+        this.trackingService = trackingService;
+        this.itemController = itemController;
+        this.stockController = stockController;
+        this.trackingController = trackingController;
+        this.hotKeys = hotKeys;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        gauge("bestseller.warmup.connections", "Connections opened during warm-up", WarmUpReport::connections);
+        gauge("bestseller.warmup.rounds", "Synthetic request rounds run during warm-up", WarmUpReport::rounds);
+        gauge("bestseller.warmup.requests", "Synthetic requests sent during warm-up", WarmUpReport::requests);
+        gauge("bestseller.warmup.errors", "Synthetic requests that failed during warm-up", WarmUpReport::errors);
+        Gauge.builder("bestseller.warmup.keys", report, ref -> ref.get().items())
+            .description("Records pre-loaded during warm-up")
+            .tag("resource", "item")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.warmup.keys", report, ref -> ref.get().trackingRecords())
+            .description("Records pre-loaded during warm-up")
+            .tag("resource", "tracking")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.warmup.latency", report, ref -> ref.get().firstRoundMillis())
+            .description("Mean synthetic request latency in the first and last warm-up round")
+            .baseUnit("milliseconds")
+            .tag("round", "first")
+            .register(meterRegistry);
+        Gauge.builder("bestseller.warmup.latency", report, ref -> ref.get().lastRoundMillis())
+            .description("Mean synthetic request latency in the first and last warm-up round")
+            .baseUnit("milliseconds")
+            .tag("round", "last")
+            .register(meterRegistry);
+    }
+
+    public WarmUpReport report() {
+        return report.get();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.enabled()) {
+            logger.info("Warm-up disabled");
+            return;
+        }
+
+        long started = System.nanoTime();
+        long deadline = started + properties.maxDuration().toNanos();
+        WarmUpReport result;
+        try {
+            result = warmUp(deadline);
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up aborted, starting cold: {}", e.getMessage());
+            result = new WarmUpReport("failed", Duration.ZERO, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        result = new WarmUpReport(result.outcome(), duration, result.connections(), result.items(),
+            result.trackingRecords(), result.rounds(), result.requests(), result.errors(),
+            result.firstRoundMillis(), result.lastRoundMillis());
+        report.set(result);
+        Timer.builder("bestseller.warmup.duration")
+            .description("Time spent warming up before reporting ready")
+            .tag("outcome", result.outcome())
+            .register(meterRegistry)
+            .record(duration);
+
+        logger.info("Warm-up {} in {} ms: {} connections, {} items, {} tracking records, {} rounds, "
+                + "mean latency {} ms -> {} ms",
+            result.outcome(), duration.toMillis(), result.connections(), result.items(), result.trackingRecords(),
+            result.rounds(), String.format("%.2f", result.firstRoundMillis()),
+            String.format("%.2f", result.lastRoundMillis()));
+    }
+
+    private WarmUpReport warmUp(long deadline) {
+        int connections = fillPools().block(remaining(deadline));
+        if (connections == 0) {
+            throw new IllegalStateException("no database connection could be opened");
+        }
+
+        List<String> itemIds = hotKeys(withPreviousTop(properties.itemIds(), HotKeys.Resource.ITEM,
+                HotKeys.Resource.STOCK), properties.hotItems(),
+            () -> itemService.getAllItems().map(ItemSummary::itemId), deadline);
+        List<String> trackingNumbers = hotKeys(withPreviousTop(properties.trackingNumbers(),
+                HotKeys.Resource.TRACKING), properties.hotTracking(),
+            () -> trackingService.sampleTrackingNumbers(properties.hotTracking()), deadline);
+        List<Supplier<Mono<?>>> requests = syntheticRequests(itemIds, trackingNumbers);
+
+        AtomicLong errors = new AtomicLong();
+        double first = 0;
+        double previous = 0;
+        double last = 0;
+        int rounds = 0;
+        boolean settled = false;
+        boolean previousHealthy = false;
+        while (rounds < properties.maxRounds() && System.nanoTime() < deadline) {
+            long errorsBefore = errors.get();
+            LongSummaryStatistics latencies = Flux.fromIterable(requests)
+                .flatMap(request -> timed(request, errors), properties.concurrency())
+                .collect(LongSummaryStatistics::new, LongSummaryStatistics::accept)
+                .block(remaining(deadline));
+            rounds++;
+            last = latencies.getAverage() / 1_000_000.0;
+            boolean healthy = latencies.getCount() > 0
+                && errors.get() - errorsBefore <= requests.size() * properties.maxErrorRatio();
+            if (rounds == 1) {
+                first = last;
+            } else if (rounds >= properties.minRounds() && healthy && previousHealthy
+                && Math.abs(last - previous) <= previous * properties.settleTolerance()) {
+                settled = true;
+                break;
+            }
+            previous = last;
+            previousHealthy = healthy;
+        }
+
+        return new WarmUpReport(settled ? "settled" : "unsettled", Duration.ZERO, connections, itemIds.size(),
+            trackingNumbers.size(), rounds, (long) rounds * requests.size(), errors.get(), first, last);
+    }
+
+    /**
+     * Opens as many connections as each pool allows and hands them back, so the pools start out full.
+     */
+    private Mono<Integer> fillPools() {
+        Mono<Integer> primary = fillPool(r2dbcProperties.getPool().getMaxSize(),
+            () -> Mono.from(connectionFactory.create()));
+        Flux<Integer> shards = Flux.fromIterable(shardRouter.isEnabled() ? shardingProperties.shards() : List.of())
+            .flatMap(shard -> fillPool(shard.maxSize(),
+                () -> shardRouter.onNamedShard(shard.name(), Mono.from(connectionFactory.create()))));
+        return Flux.concat(primary, shards).reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> fillPool(int size, Supplier<Mono<? extends Connection>> acquire) {
+        return Flux.range(0, size)
+            .flatMap(i -> acquire.get()
+                .onErrorResume(error -> {
+                    logger.debug("Warm-up could not open a connection", error);
+                    return Mono.empty();
+                }), size)
+            .collectList()
+            .flatMap(opened -> Flux.fromIterable(opened)
+                .flatMap(connection -> Mono.from(connection.close()))
+                .then(Mono.just(opened.size())));
+    }
+
+    /**
+     * Appends the keys that were hottest during the previous run to the configured ones.
+     */
+    private List<String> withPreviousTop(List<String> configured, HotKeys.Resource... resources) {
+        if (!properties.useHotKeys()) {
+            return configured;
+        }
+        Set<String> keys = new LinkedHashSet<>(configured);
+        for (HotKeys.Resource resource : resources) {
+            keys.addAll(hotKeys.previousTop(resource));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private List<String> hotKeys(List<String> configured, int count, Supplier<Flux<String>> sample, long deadline) {
+        Set<String> keys = new LinkedHashSet<>(configured);
+        if (keys.size() < count) {
+            sample.get()
+                .take(count - keys.size())
+                .doOnNext(keys::add)
+                .then()
+                .block(remaining(deadline));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private List<Supplier<Mono<?>>> syntheticRequests(List<String> itemIds, List<String> trackingNumbers) {
+        List<Supplier<Mono<?>>> requests = new ArrayList<>();
+        requests.add(() -> itemController.getAllItems().take(properties.hotItems()).collectList().map(this::encode));
+        for (String itemId : itemIds) {
+            requests.add(() -> itemController.getItemById(itemId, ACCEPT_GZIP).map(this::status));
+            requests.add(() -> stockController.getStockByItemId(itemId).map(this::encode));
+        }
+        for (String trackingNo : trackingNumbers) {
+            requests.add(() -> trackingController.getTrackingStatus(trackingNo, ACCEPT_GZIP).map(this::status));
+        }
+        return requests;
+    }
+
+    private static HttpHeaders acceptGzip() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private Mono<Long> timed(Supplier<Mono<?>> request, AtomicLong errors) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return request.get()
+                .then(Mono.fromSupplier(() -> System.nanoTime() - started))
+                .onErrorResume(error -> {
+                    errors.incrementAndGet();
+                    return Mono.empty();
+                });
+        });
+    }
+
+    /**
+     * Serializes like the WebFlux JSON encoder would, which shares this mapper and its serializer cache.
+     */
+    private int encode(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body).length;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    private int status(ResponseEntity<?> response) {
+        return response.getStatusCode().value();
+    }
+
+    private Duration remaining(long deadline) {
+        long nanos = deadline - System.nanoTime();
+        if (nanos <= 0) {
+            throw new IllegalStateException("warm-up exceeded its time budget of " + properties.maxDuration());
+        }
+        return Duration.ofNanos(nanos);
+    }
+
+    private void gauge(String name, String description, ToDoubleFunction<WarmUpReport> value) {
+        Gauge.builder(name, report, ref -> value.applyAsDouble(ref.get()))
+            .description(description)
+            .register(meterRegistry);
+    }
+}
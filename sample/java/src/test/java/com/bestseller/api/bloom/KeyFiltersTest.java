@@ -0,0 +1,147 @@
+package com.bestseller.api.bloom;
+
+import com.bestseller.api.config.KeyFilterProperties;
+import com.bestseller.api.config.TrackingShardingProperties;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.repository.KeyFilterLogRepository;
+import com.bestseller.api.repository.TrackingRepository;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keeps the item filter current from a stand-in key log whose positions are transaction IDs.
+ */
+class KeyFiltersTest {
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final TrackingRepository trackingRepository = mock(TrackingRepository.class);
+    private final KeyFilterLogRepository keyFilterLogRepository = mock(KeyFilterLogRepository.class);
+    private final Map<String, Long> loggedItems = new ConcurrentHashMap<>();
+    private final AtomicReference<KeyFilterLogRepository.Position> position =
+        new AtomicReference<>(new KeyFilterLogRepository.Position("start/1", 100));
+    private KeyFilters keyFilters;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.count()).thenReturn(Mono.just(2L));
+        when(itemRepository.findAllItemIds()).thenReturn(Flux.just("item-001", "item-002"));
+        when(trackingRepository.count()).thenReturn(Mono.just(0L));
+        when(trackingRepository.findAllTrackingNumbers()).thenReturn(Flux.empty());
+        when(keyFilterLogRepository.position(anyString())).thenAnswer(invocation -> Mono.just(position.get()));
+        when(keyFilterLogRepository.findKeysLoggedBetween(anyString(), anyLong(), anyLong()))
+            .thenAnswer(invocation -> Flux.fromIterable(loggedItems.entrySet())
+                .filter(logged -> invocation.getArgument(0).equals("item")
+                    && logged.getValue() >= (long) invocation.getArgument(1)
+                    && logged.getValue() < (long) invocation.getArgument(2))
+                .map(Map.Entry::getKey));
+        when(keyFilterLogRepository.deleteLoggedBefore(any()))
+            .thenReturn(Mono.just(0L));
+
+        keyFilters = new KeyFilters(
+            new KeyFilterProperties(true, 0.01, 1.5, Duration.ofMillis(20), Duration.ofHours(1)),
+            itemRepository, trackingRepository, keyFilterLogRepository,
+            new TrackingShardRouter(new TrackingShardingProperties(false, 128, false, List.of())),
+            new SimpleMeterRegistry());
+        keyFilters.start();
+        await(() -> missing("item-404"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        keyFilters.destroy();
+    }
+
+    @Test
+    void isKnownMissing_readsTheLogForKeysInsertedSinceTheLastRefresh() {
+        // Logged but below no horizon the refresh has reached yet
+        loggedItems.put("item-006", 105L);
+
+        assertFalse(missing("item-006"));
+        assertTrue(missing("item-404"));
+        verify(keyFilterLogRepository, atLeastOnce()).findKeysLoggedBetween("item", 100, Long.MAX_VALUE);
+    }
+
+    @Test
+    void refresh_addsLoggedKeysWhateverTheirCreationTime() {
+        assertTrue(missing("item-003"));
+
+        // A bulk copy or a rebalance inserts rows stamped long ago; the log orders them by transaction instead
+        loggedItems.put("item-003", 105L);
+        position.set(new KeyFilterLogRepository.Position("start/1", 110));
+
+        await(() -> !missing("item-003"));
+    }
+
+    @Test
+    void refresh_readsTransactionsThatEndedAfterTheirSuccessors() {
+        // Transaction 104 was still running when the horizon stopped at 104, while 107 had already committed
+        position.set(new KeyFilterLogRepository.Position("start/1", 104));
+        verify(keyFilterLogRepository, timeout(5_000)).findKeysLoggedBetween("item", 100, 104);
+        loggedItems.put("item-004", 104L);
+        position.set(new KeyFilterLogRepository.Position("start/1", 110));
+
+        await(() -> !missing("item-004"));
+    }
+
+    @Test
+    void refresh_rebuildsWhenTheLogWasReset() {
+        // A restore starts a new log; the restored rows were never logged
+        when(itemRepository.findAllItemIds()).thenReturn(Flux.just("item-001", "item-002", "item-005"));
+        position.set(new KeyFilterLogRepository.Position("restored/2", 50));
+
+        await(() -> !missing("item-005"));
+        verify(itemRepository, atLeast(2)).findAllItemIds();
+    }
+
+    @Test
+    void refresh_stopsRejectingKeysWhenTheLogCannotBeRead() {
+        when(keyFilterLogRepository.findKeysLoggedBetween(eq("item"), anyLong(), anyLong()))
+            .thenReturn(Flux.error(new IllegalStateException("connection reset")));
+        when(keyFilterLogRepository.position(anyString()))
+            .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        await(() -> !missing("item-404"));
+    }
+
+    private boolean missing(String itemId) {
+        return keyFilters.isKnownMissingItem(itemId).block();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 s");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
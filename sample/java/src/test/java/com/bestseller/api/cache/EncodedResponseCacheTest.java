@@ -0,0 +1,73 @@
+package com.bestseller.api.cache;
+
+import com.bestseller.api.config.ResponseCacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_reusesEncodedBodyUntilVersionChanges() {
+        EncodedResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+        EncodedResponse first = cache.get("item", "item-001", Mono.just("v1"), this::load).block();
+        EncodedResponse second = cache.get("item", "item-001", Mono.just("v1"), this::load).block();
+        EncodedResponse third = cache.get("item", "item-001", Mono.just("v2"), this::load).block();
+
+        assertSame(first, second);
+        assertNotNull(third);
+        assertEquals("v2", third.version());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void store_evictsLeastRecentlyUsedOnceBudgetIsExceeded() {
+        EncodedResponseCache cache = cache(DataSize.ofBytes(600));
+
+        for (int i = 0; i < 10; i++) {
+            cache.get("item", "item-" + i, Mono.just("v1"), this::load).block();
+        }
+
+        assertTrue(cache.weight() <= 600, "weight " + cache.weight());
+        assertTrue(cache.size() < 10);
+    }
+
+    @Test
+    void toResponseEntity_servesGzipOnlyWhenAccepted() {
+        EncodedResponseCache cache = new EncodedResponseCache(
+            new ResponseCacheProperties(true, DataSize.ofMegabytes(1), true, DataSize.ofBytes(0)),
+            new ObjectMapper(), new SimpleMeterRegistry());
+        EncodedResponse encoded = cache.get("item", "item-001", Mono.just("v1"), this::load).block();
+
+        assertNotNull(encoded);
+        assertEquals("gzip",
+            encoded.toResponseEntity("gzip, deflate").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(encoded.toResponseEntity(null).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private EncodedResponseCache cache(DataSize maxSize) {
+        return new EncodedResponseCache(
+            new ResponseCacheProperties(true, maxSize, false, DataSize.ofKilobytes(1)),
+            new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    private Mono<Object> load() {
+        loads.incrementAndGet();
+        return Mono.just(Map.of("itemId", "item-001", "name", "Classic T-Shirt"));
+    }
+}
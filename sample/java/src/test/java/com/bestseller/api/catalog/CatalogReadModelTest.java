@@ -0,0 +1,93 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Serves item reads from the in-memory catalog over the test database and checks that it follows updates and
+ * deletes. {@code CatalogLookupBenchmark} in {@code src/jmh} compares its lookups with the database path.
+ */
+@SpringBootTest(properties = {
+    "spring.r2dbc.url=r2dbc:h2:mem:///catalog;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.r2dbc.username=sa",
+    "spring.r2dbc.password=",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:faults/schema.sql",
+    "spring.sql.init.data-locations=classpath:faults/data.sql",
+    "bestseller.warmup.enabled=false",
+    "bestseller.key-filter.enabled=false",
+    "bestseller.profiling.enabled=false",
+    "bestseller.changes.settle-lag=50ms",
+    "bestseller.catalog.enabled=true",
+    "bestseller.catalog.refresh-interval=100ms",
+    "logging.level.com.bestseller.api.service=WARN",
+    "logging.level.org.springframework.r2dbc=INFO"
+})
+class CatalogReadModelTest {
+
+    @Autowired
+    private CatalogReadModel readModel;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void awaitLoad() {
+        await(() -> readModel.catalog() != null);
+    }
+
+    @Test
+    void getItemById_matchesTheDatabase() {
+        ItemDetail fromMemory = itemService.getItemById("item-042").block();
+        ItemDetail fromDatabase = itemRepository.findById("item-042")
+            .map(item -> new ItemDetail(item.itemId(), item.name(), item.price(), item.description(),
+                item.category(), item.brand(), item.sku()))
+            .block();
+
+        assertEquals(fromDatabase, fromMemory);
+        assertEquals(readModel.catalog().size(), itemService.getAllItems().count().block());
+    }
+
+    @Test
+    void refresh_appliesUpdatesAndDeletes() {
+        databaseClient.sql("UPDATE items SET name = 'Renamed', updated_at = CURRENT_TIMESTAMP "
+            + "WHERE item_id = 'item-101'").then().block();
+        databaseClient.sql("INSERT INTO item_tombstones (item_id, deleted_at) VALUES ('item-102', CURRENT_TIMESTAMP)")
+            .then().block();
+
+        await(() -> "Renamed".equals(readModel.catalog().get("item-101").name()));
+        await(() -> readModel.catalog().get("item-102") == null);
+        assertEquals(199, readModel.catalog().size());
+    }
+
+    private static void await(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.get()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 s");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
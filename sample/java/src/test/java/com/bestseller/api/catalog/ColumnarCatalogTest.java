@@ -0,0 +1,111 @@
+package com.bestseller.api.catalog;
+
+import com.bestseller.api.entity.Item;
+import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.model.ItemSummary;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarCatalogTest {
+
+    private static final String[] CATEGORIES = {"Jeans", "T-Shirts", "Dresses", "Jackets", "Knitwear", "Shoes"};
+    private static final String[] BRANDS = {"ONLY", "VERO MODA", "JACK & JONES", "PIECES", "NAME IT", "SELECTED"};
+    private static final Instant UPDATED = Instant.parse("2025-10-01T12:00:00.123456Z");
+
+    @Test
+    void get_returnsWhatWasUpserted() {
+        ColumnarCatalog catalog = new ColumnarCatalog(16);
+        Item item = new Item("item-æøå", "Blåbær T-shirt", new BigDecimal("129.95"), "Økologisk bomuld",
+            null, "ONLY", null, UPDATED, UPDATED);
+
+        catalog.upsertAll(List.of(item));
+
+        assertEquals(new ItemDetail("item-æøå", "Blåbær T-shirt", new BigDecimal("129.95"), "Økologisk bomuld",
+            null, "ONLY", null), catalog.get("item-æøå"));
+        assertEquals(UPDATED, catalog.version("item-æøå"));
+        assertNull(catalog.get("item-unknown"));
+    }
+
+    @Test
+    void upsert_replacesExistingRowsAndGrowsPastInitialCapacity() {
+        ColumnarCatalog catalog = new ColumnarCatalog(16);
+        catalog.upsertAll(items(0, 10_000));
+        catalog.upsertAll(List.of(new Item("item-00000042", "Renamed", new BigDecimal("1.00"), "Changed",
+            "Jeans", "ONLY", "SKU-42", UPDATED, UPDATED.plusSeconds(1))));
+
+        assertEquals(10_000, catalog.size());
+        assertEquals(10_000, catalog.rows());
+        assertEquals("Renamed", catalog.get("item-00000042").name());
+        assertEquals(UPDATED.plusSeconds(1), catalog.version("item-00000042"));
+        for (int i = 0; i < 10_000; i += 97) {
+            assertEquals(item(i).name(), catalog.get(item(i).itemId()).name());
+        }
+        assertTrue(catalog.garbageBytes() > 0);
+    }
+
+    @Test
+    void remove_skipsItemsRecreatedAfterTheDelete() {
+        ColumnarCatalog catalog = new ColumnarCatalog(16);
+        catalog.upsertAll(items(0, 3));
+
+        catalog.remove(item(0).itemId(), UPDATED.plusSeconds(1));
+        catalog.remove(item(1).itemId(), UPDATED.minusSeconds(1));
+
+        assertNull(catalog.get(item(0).itemId()));
+        assertNull(catalog.version(item(0).itemId()));
+        assertNotNull(catalog.get(item(1).itemId()));
+        assertEquals(2, catalog.size());
+        List<String> listed = new ArrayList<>();
+        for (int row = 0; row < catalog.rows(); row++) {
+            ItemSummary summary = catalog.summary(row);
+            if (summary != null) {
+                listed.add(summary.itemId());
+            }
+        }
+        assertEquals(List.of(item(1).itemId(), item(2).itemId()), listed);
+
+        catalog.upsertAll(List.of(item(0)));
+        assertEquals(3, catalog.size());
+        assertNotNull(catalog.get(item(0).itemId()));
+    }
+
+    @Test
+    void sizeInBytes_coversTheStoredText() {
+        ColumnarCatalog catalog = new ColumnarCatalog(16);
+        List<Item> items = items(0, 1_000);
+        catalog.upsertAll(items);
+
+        long text = items.stream()
+            .mapToLong(item -> item.itemId().length() + item.name().length() + item.description().length()
+                + item.sku().length())
+            .sum();
+        assertTrue(catalog.sizeInBytes() >= text, catalog.sizeInBytes() + " vs " + text + " bytes of text");
+        assertTrue(catalog.sizeInBytes() > new ColumnarCatalog(16).sizeInBytes());
+    }
+
+    private static List<Item> items(int from, int to) {
+        List<Item> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(item(i));
+        }
+        return items;
+    }
+
+    private static Item item(int i) {
+        String category = CATEGORIES[i % CATEGORIES.length];
+        String brand = BRANDS[i * 7 % BRANDS.length];
+        return new Item(String.format("item-%08d", i), brand + " " + category + " " + i,
+            BigDecimal.valueOf(9_999 + i % 500 * 100L, 2),
+            "Regular fit " + category.toLowerCase() + " in organic cotton with a soft finish, style " + i,
+            category, brand, String.format("SKU-%08d", i), UPDATED, UPDATED);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bestseller.api.controller;
+
+import com.bestseller.api.exception.GlobalExceptionHandler;
+import com.bestseller.api.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ProductControllerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final WebTestClient client = WebTestClient.bindToController(new ProductController(productService))
+        .controllerAdvice(new GlobalExceptionHandler())
+        .build();
+
+    @Test
+    void getProducts_rejectsMissingIds() {
+        client.get().uri("/v1/products")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.code").isEqualTo(400);
+
+        verifyNoInteractions(productService);
+    }
+}
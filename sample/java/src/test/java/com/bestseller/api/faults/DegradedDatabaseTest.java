@@ -0,0 +1,207 @@
+package com.bestseller.api.faults;
+
+import com.bestseller.api.config.FaultInjectionProperties;
+import com.bestseller.api.exception.ItemNotFoundException;
+import com.bestseller.api.service.ItemService;
+import com.bestseller.api.service.StockService;
+import com.bestseller.api.service.TrackingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the services against an in-memory database behind the fault-injecting connection factory and
+ * compares each degraded-database scenario with a healthy run, so the checks hold on any machine.
+ */
+@SpringBootTest(properties = {
+    "spring.r2dbc.url=r2dbc:h2:mem:///degraded;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.r2dbc.username=sa",
+    "spring.r2dbc.password=",
+    "spring.r2dbc.pool.initial-size=4",
+    "spring.r2dbc.pool.max-size=4",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:faults/schema.sql",
+    "spring.sql.init.data-locations=classpath:faults/data.sql",
+    "bestseller.warmup.enabled=false",
+    "bestseller.key-filter.enabled=false",
+    "logging.level.org.springframework.r2dbc=INFO"
+})
+@ActiveProfiles("faults")
+class DegradedDatabaseTest {
+
+    @Autowired
+    private FaultInjector faultInjector;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private TrackingService trackingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void warmUp() {
+        faultInjector.setRules(List.of());
+        run(200, 4, i -> itemService.getItemById(itemId(i)));
+        run(200, 4, i -> trackingService.getTrackingStatus(trackingNo(i)));
+    }
+
+    @AfterEach
+    void clearFaults() {
+        faultInjector.setRules(List.of());
+    }
+
+    @Test
+    void slowTrackingEvents_onlyDelayTrackingLookups() {
+        LoadResult baseline = run(200, 4, i -> trackingService.getTrackingStatus(trackingNo(i)));
+
+        faultInjector.setRules(List.of(latency("slow-events", "FROM tracking_events", 30, 80)));
+        LoadResult tracking = run(200, 4, i -> trackingService.getTrackingStatus(trackingNo(i)));
+        double delayed = injected("slow-events", "latency");
+        LoadResult items = run(200, 4, i -> itemService.getItemById(itemId(i)));
+
+        assertEquals(0, tracking.errors());
+        assertEquals(0, items.errors());
+        assertTrue(delayed > 0, "no tracking statement was delayed");
+        assertSlower(tracking, baseline);
+        // Item lookups never touch tracking_events, so none of their statements was delayed
+        assertEquals(delayed, injected("slow-events", "latency"));
+    }
+
+    @Test
+    void transientStockErrors_failOnlyTheFaultedStatements() {
+        faultInjector.setRules(List.of(rule("flaky-stock", "FROM stock", 0.05, 0, Duration.ZERO)));
+
+        double before = injected("flaky-stock", "error");
+        LoadResult stock = run(1_000, 8, i -> stockService.getStockByItemId(itemId(i)));
+        LoadResult items = run(200, 4, i -> itemService.getItemById(itemId(i)));
+
+        assertEquals(0, stock.notFound(), "injected errors must not surface as 404");
+        assertTrue(stock.errors() > 0, "no stock request failed");
+        assertEquals(injected("flaky-stock", "error") - before, stock.errors(),
+            "every failed request had an injected error, and every injected error failed its request");
+        assertEquals(0, items.errors());
+    }
+
+    @Test
+    void droppedConnections_areReplacedByThePool() {
+        faultInjector.setRules(List.of(rule("drop-stock", "FROM stock", 0, 1, Duration.ZERO)));
+        LoadResult dropped = run(8, 4, i -> stockService.getStockByItemId(itemId(i)));
+        assertEquals(8, dropped.errors());
+
+        faultInjector.setRules(List.of());
+        LoadResult recovered = run(100, 4, i -> stockService.getStockByItemId(itemId(i)));
+        assertEquals(0, recovered.errors());
+    }
+
+    @Test
+    void slowRowStreaming_stretchesCatalogScans() {
+        LoadResult baseline = run(1, 1, i -> itemService.getAllItems().then());
+
+        faultInjector.setRules(List.of(rule("slow-scan", "FROM items", 0, 0, Duration.ofMillis(2))));
+        LoadResult scan = run(1, 1, i -> itemService.getAllItems().then());
+
+        assertEquals(0, scan.errors());
+        assertSlower(scan, baseline);
+    }
+
+    @Test
+    void slowQueries_exhaustThePoolAndQueueRequests() {
+        faultInjector.setRules(List.of(latency("slow-items", "FROM items", 100, 0)));
+
+        LoadResult fitsPool = run(4, 4, i -> itemService.getItemById(itemId(i)));
+        LoadResult queued = run(16, 16, i -> itemService.getItemById(itemId(i)));
+
+        // 4 concurrent requests fit the 4 connections; 16 are served in waves and the last ones wait
+        assertEquals(0, fitsPool.errors());
+        assertEquals(0, queued.errors());
+        assertSlower(queued, fitsPool);
+    }
+
+    private static void assertSlower(LoadResult degraded, LoadResult baseline) {
+        assertTrue(degraded.percentile(0.50).compareTo(baseline.percentile(0.50)) > 0,
+            "degraded median " + degraded.percentile(0.50) + " vs baseline " + baseline.percentile(0.50));
+    }
+
+    private double injected(String rule, String type) {
+        Counter counter = meterRegistry.find("bestseller.faults.injected").tags("rule", rule, "type", type).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static FaultInjectionProperties.Rule rule(String name, String pattern,
+                                                      double errorRate, double dropRate, Duration rowDelay) {
+        return new FaultInjectionProperties.Rule(name, pattern, Duration.ZERO, null, errorRate, dropRate, rowDelay);
+    }
+
+    private static FaultInjectionProperties.Rule latency(String name, String pattern,
+                                                         long medianMillis, long p99Millis) {
+        return new FaultInjectionProperties.Rule(name, pattern, Duration.ofMillis(medianMillis),
+            p99Millis > 0 ? Duration.ofMillis(p99Millis) : null, 0, 0, Duration.ZERO);
+    }
+
+    private static String itemId(int i) {
+        return String.format("item-%03d", i % 200 + 1);
+    }
+
+    private static String trackingNo(int i) {
+        return String.format("TRK-%04d", i % 100 + 1);
+    }
+
+    private static LoadResult run(int requests, int concurrency, IntFunction<Mono<?>> request) {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger notFound = new AtomicInteger();
+        Flux.range(0, requests)
+            .flatMap(i -> Mono.defer(() -> {
+                long started = System.nanoTime();
+                return request.apply(i)
+                    .then()
+                    .doOnError(error -> {
+                        errors.incrementAndGet();
+                        if (error instanceof ItemNotFoundException) {
+                            notFound.incrementAndGet();
+                        }
+                    })
+                    .onErrorResume(error -> Mono.empty())
+                    .doOnTerminate(() -> latencies.add(System.nanoTime() - started));
+            }), concurrency)
+            .blockLast(Duration.ofMinutes(1));
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new LoadResult(sorted, requests, errors.get(), notFound.get());
+    }
+
+    private record LoadResult(long[] latencies, int requests, int errors, int notFound) {
+
+        Duration percentile(double quantile) {
+            int index = (int) Math.ceil(quantile * latencies.length) - 1;
+            return Duration.ofNanos(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+        }
+
+        @Override
+        public String toString() {
+            return "LoadResult" + Arrays.toString(latencies);
+        }
+    }
+}
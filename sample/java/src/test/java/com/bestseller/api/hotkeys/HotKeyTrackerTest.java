@@ -0,0 +1,109 @@
+package com.bestseller.api.hotkeys;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeyTrackerTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void skewedTraffic_reportsTheHottestKeysWithBoundedOvercount() {
+        HotKeyTracker tracker = new HotKeyTracker(6, 2048, 4, 20);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        int requests = 500_000;
+        for (int i = 0; i < requests; i++) {
+            String key = key(zipf(random));
+            tracker.record(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<String> expected = exact.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(10)
+            .map(Map.Entry::getKey)
+            .toList();
+        List<HotKeyReport.HotKey> top = tracker.top(20);
+        List<String> reported = top.stream().map(HotKeyReport.HotKey::key).toList();
+        assertTrue(reported.containsAll(expected), "top 10 " + expected + " reported " + reported);
+        assertEquals(requests, tracker.requests());
+
+        long maxError = 0;
+        for (HotKeyReport.HotKey key : top) {
+            long trueCount = exact.get(key.key());
+            assertTrue(key.estimate() >= trueCount, key.key() + " undercounted");
+            maxError = Math.max(maxError, key.estimate() - trueCount);
+        }
+        assertTrue(maxError <= requests * 2.7 / 2048, "overcount " + maxError);
+    }
+
+    @Test
+    void rotation_agesOutKeysThatCooledDown() {
+        HotKeyTracker tracker = new HotKeyTracker(3, 1024, 4, 5);
+        for (int i = 0; i < 1_000; i++) {
+            tracker.record("old-hot");
+        }
+        tracker.rotate();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                tracker.record("new-hot");
+            }
+            assertEquals("new-hot".equals(tracker.top(1).get(0).key()), round == 2);
+            tracker.rotate();
+        }
+
+        assertEquals(List.of("new-hot"), tracker.top(5).stream().map(HotKeyReport.HotKey::key).toList());
+        assertEquals(200, tracker.requests());
+    }
+
+    @Test
+    void concurrentRecording_keepsMemoryFixed() throws InterruptedException {
+        HotKeyTracker tracker = new HotKeyTracker(6, 2048, 4, 20);
+        long bytes = tracker.sizeInBytes();
+        int threads = 4;
+        int perThread = 250_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < perThread; i++) {
+                    tracker.record(key(zipf(random)));
+                    if (seed == 0 && i % 50_000 == 0) {
+                        tracker.rotate();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        executor.shutdown();
+
+        assertEquals(bytes, tracker.sizeInBytes());
+        assertEquals(key(1), tracker.top(1).get(0).key());
+    }
+
+    private static String key(int rank) {
+        return String.format("item-%06d", rank);
+    }
+
+    /**
+     * Rank with probability roughly proportional to 1/rank, so a few keys take most of the traffic.
+     */
+    private static int zipf(Random random) {
+        return (int) Math.min(KEYS, Math.floor(Math.pow(KEYS, random.nextDouble())));
+    }
+}
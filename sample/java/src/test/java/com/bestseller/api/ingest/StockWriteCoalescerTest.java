@@ -0,0 +1,135 @@
+package com.bestseller.api.ingest;
+
+import com.bestseller.api.config.StockIngestProperties;
+import com.bestseller.api.model.StockUpdate;
+import com.bestseller.api.repository.StockWriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockWriteCoalescerTest {
+
+    @TempDir
+    Path walDirectory;
+
+    private final Map<String, Integer> database = new ConcurrentHashMap<>();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @Test
+    void scanBursts_collapseIntoFewWrites() throws IOException, InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockWriteCoalescer coalescer = new StockWriteCoalescer(properties(Duration.ofMillis(100), false),
+            recordingRepository(), meterRegistry);
+        coalescer.start();
+
+        // 100 item/warehouse pairs during replenishment: each receives 1-4 scans every 20 ms
+        Random random = new Random(7);
+        Map<String, Integer> expected = new ConcurrentHashMap<>();
+        int received = 0;
+        for (int tick = 0; tick < 50; tick++) {
+            for (int key = 0; key < 100; key++) {
+                int scans = 1 + random.nextInt(4);
+                for (int scan = 0; scan < scans; scan++) {
+                    StockUpdate update = new StockUpdate(String.format("item-%03d", key), "Main Warehouse",
+                        random.nextInt(500));
+                    coalescer.submit(List.of(update)).block();
+                    expected.put(update.itemId() + "/" + update.warehouse(), update.quantity());
+                    received++;
+                }
+            }
+            Thread.sleep(20);
+        }
+        coalescer.destroy();
+
+        assertEquals(expected, database);
+        // Each pair is written at most once per flush (one statement per flush at this batch size)
+        assertTrue(rowsWritten.get() <= 100L * statements.get(), rowsWritten + " rows in " + statements + " flushes");
+        assertTrue(rowsWritten.get() < received, rowsWritten + " rows for " + received + " updates");
+    }
+
+    @Test
+    void unwrittenUpdates_areReplayedAfterRestart() throws IOException {
+        StockWriteRepository failing = mock(StockWriteRepository.class);
+        when(failing.upsertQuantities(anyList())).thenReturn(Mono.error(new IllegalStateException("database down")));
+        StockWriteCoalescer crashed = new StockWriteCoalescer(properties(Duration.ofHours(1), true), failing,
+            new SimpleMeterRegistry());
+        crashed.start();
+        crashed.submit(List.of(update("item-001", 5), update("item-002", 9))).block();
+        crashed.submit(List.of(update("item-001", 3))).block();
+        crashed.flush().block();
+        crashed.destroy();
+        appendTornRecord();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockWriteCoalescer restarted = new StockWriteCoalescer(properties(Duration.ofHours(1), true),
+            recordingRepository(), meterRegistry);
+        restarted.start();
+        restarted.flush().block();
+        restarted.destroy();
+
+        assertEquals(3.0, meterRegistry.get("bestseller.stock.ingest.replayed").counter().count());
+        assertEquals(Map.of("item-001/Main Warehouse", 3, "item-002/Main Warehouse", 9), database);
+        assertEquals(2, rowsWritten.get());
+
+        SimpleMeterRegistry afterCheckpoint = new SimpleMeterRegistry();
+        StockWriteCoalescer again = new StockWriteCoalescer(properties(Duration.ofHours(1), true),
+            recordingRepository(), afterCheckpoint);
+        again.start();
+        again.destroy();
+        assertEquals(0.0, afterCheckpoint.get("bestseller.stock.ingest.replayed").counter().count());
+    }
+
+    private StockIngestProperties properties(Duration flushInterval, boolean fsync) {
+        return new StockIngestProperties(true, flushInterval, 500, 100_000, walDirectory.toString(),
+            DataSize.ofKilobytes(64), fsync);
+    }
+
+    private StockWriteRepository recordingRepository() {
+        StockWriteRepository repository = mock(StockWriteRepository.class);
+        when(repository.upsertQuantities(anyList())).thenAnswer(invocation -> {
+            List<StockUpdate> batch = invocation.getArgument(0);
+            return Mono.fromCallable(() -> {
+                batch.forEach(update -> database.put(update.itemId() + "/" + update.warehouse(), update.quantity()));
+                rowsWritten.addAndGet(batch.size());
+                statements.incrementAndGet();
+                return (long) batch.size();
+            });
+        });
+        return repository;
+    }
+
+    private void appendTornRecord() throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            Path segment = files.filter(file -> file.getFileName().toString().endsWith(".wal"))
+                .max(Path::compareTo)
+                .orElseThrow();
+            Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static StockUpdate update(String itemId, int quantity) {
+        return new StockUpdate(itemId, "Main Warehouse", quantity);
+    }
+}
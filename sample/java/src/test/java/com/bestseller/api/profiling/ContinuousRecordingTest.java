@@ -0,0 +1,61 @@
+package com.bestseller.api.profiling;
+
+import com.bestseller.api.config.ProfilingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContinuousRecordingTest {
+
+    private ContinuousRecording recording;
+
+    @BeforeEach
+    void startRecording() {
+        recording = new ContinuousRecording(new ProfilingProperties(true, "default", Duration.ofMinutes(5),
+            DataSize.ofMegabytes(32), Duration.ZERO, null, Duration.ofMinutes(1), 10));
+        recording.start();
+        assertTrue(recording.isRunning());
+    }
+
+    @AfterEach
+    void stopRecording() {
+        recording.destroy();
+    }
+
+    @Test
+    void summarize_attributesServiceAndDatabaseTimeToResourceKeys() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            call("item-001", 5).block();
+        }
+        call("item-slow", 500).block();
+        ServiceCalls.record("ItemService", "getItemById", "item-404",
+            ServiceCalls.db(Mono.error(new IllegalStateException("boom")))).onErrorResume(e -> Mono.empty()).block();
+
+        RecordingSummary summary = recording.summarize(Duration.ofMinutes(1), 10);
+
+        List<RecordingSummary.ServiceCallStats> calls = summary.serviceCalls();
+        assertEquals(1, calls.size());
+        RecordingSummary.ServiceCallStats stats = calls.get(0);
+        assertEquals("ItemService", stats.service());
+        assertEquals(7, stats.calls());
+        assertEquals(1, stats.errors());
+        assertEquals("item-slow", stats.slowestKey());
+        assertTrue(stats.maxMillis() >= 500, "max " + stats.maxMillis());
+        assertTrue(stats.meanDbMillis() > 0, "db " + stats.meanDbMillis());
+        assertFalse(summary.from().isAfter(summary.to()));
+    }
+
+    private static Mono<String> call(String itemId, long dbMillis) {
+        return ServiceCalls.record("ItemService", "getItemById", itemId,
+            ServiceCalls.db(Mono.just(itemId).delayElement(Duration.ofMillis(dbMillis))).map(String::toUpperCase));
+    }
+}
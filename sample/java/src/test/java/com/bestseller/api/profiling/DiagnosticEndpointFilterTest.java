@@ -0,0 +1,82 @@
+package com.bestseller.api.profiling;
+
+import com.bestseller.api.config.ProfilingProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.net.URI;
+import java.time.Duration;
+
+class DiagnosticEndpointFilterTest {
+
+    // Routed on path patterns like the actuator endpoints, so every spelling WebFlux accepts reaches the handler
+    private final WebTestClient client = WebTestClient
+        .bindToRouterFunction(RouterFunctions.route()
+            .GET("/actuator/jfr/**", request -> ServerResponse.ok().bodyValue("recording"))
+            .GET("/actuator/hotkeys/**", request -> ServerResponse.ok().bodyValue("hot keys"))
+            .GET("/actuator/health", request -> ServerResponse.ok().bodyValue("up"))
+            .build())
+        .webFilter(new DiagnosticEndpointFilter(properties("secret"), new WebEndpointProperties()))
+        .build();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/actuator/jfr", "/actuator/jfr;x=1", "/actuator/%6Afr", "/actuator/jfr/dump",
+        "/actuator/jfr;x=1/dump", "/actuator/jfr/%64ump", "/actuator;x=1/jfr", "/actuator/hotkeys",
+        "/actuator/hotkeys/item", "/actuator/hot%6Beys;x=1/item"})
+    void filter_rejectsEverySpellingOfTheEndpointsWithoutToken(String path) {
+        client.get().uri(URI.create(path))
+            .exchange()
+            .expectStatus().isUnauthorized();
+
+        client.get().uri(URI.create(path))
+            .header(HttpHeaders.AUTHORIZATION, "Bearer wrong")
+            .exchange()
+            .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void filter_passesRequestsWithTokenAndOtherEndpoints() {
+        client.get().uri(URI.create("/actuator/jfr;x=1"))
+            .header(HttpHeaders.AUTHORIZATION, "Bearer secret")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo("recording");
+
+        client.get().uri("/actuator/hotkeys/tracking")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer secret")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo("hot keys");
+
+        client.get().uri("/actuator/health")
+            .exchange()
+            .expectStatus().isOk();
+    }
+
+    @Test
+    void filter_rejectsEveryRequestWithoutConfiguredToken() {
+        WebTestClient unconfigured = WebTestClient
+            .bindToRouterFunction(RouterFunctions.route(RequestPredicates.path("/actuator/jfr/**"),
+                request -> ServerResponse.ok().build()))
+            .webFilter(new DiagnosticEndpointFilter(properties(null), new WebEndpointProperties()))
+            .build();
+
+        unconfigured.get().uri(URI.create("/actuator/%6Afr"))
+            .header(HttpHeaders.AUTHORIZATION, "Bearer ")
+            .exchange()
+            .expectStatus().isForbidden();
+    }
+
+    private static ProfilingProperties properties(String token) {
+        return new ProfilingProperties(false, "default", Duration.ofMinutes(30), DataSize.ofMegabytes(256),
+            Duration.ZERO, token, Duration.ofMinutes(5), 20);
+    }
+}
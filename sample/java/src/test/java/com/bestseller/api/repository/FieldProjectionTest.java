@@ -0,0 +1,39 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldProjectionTest {
+
+    @Test
+    void parse_keepsRequestedOrderAndMapsToColumns() {
+        FieldProjection projection = FieldProjection.parse(ProjectedTable.ITEMS, "price, itemId,name,price", Set.of());
+
+        assertEquals("price, item_id, name", projection.selectList());
+    }
+
+    @Test
+    void parse_rejectsUnknownFields() {
+        assertThrows(InvalidFieldsException.class,
+            () -> FieldProjection.parse(ProjectedTable.ITEMS, "itemId,created_at", Set.of()));
+        assertThrows(InvalidFieldsException.class,
+            () -> FieldProjection.parse(ProjectedTable.STOCK, "itemId;DROP TABLE stock", Set.of()));
+        assertThrows(InvalidFieldsException.class,
+            () -> FieldProjection.parse(ProjectedTable.ITEMS, " ", Set.of()));
+    }
+
+    @Test
+    void parse_separatesExtrasFromColumns() {
+        FieldProjection projection = FieldProjection.parse(ProjectedTable.TRACKING, "history", Set.of("history"));
+
+        assertTrue(projection.includes("history"));
+        assertTrue(projection.columns().isEmpty());
+        assertEquals("tracking_no", projection.selectList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.bestseller.api.repository;
+
+import com.bestseller.api.entity.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+/**
+ * Runs the change feed's keyset query against an in-memory database.
+ */
+@DataR2dbcTest(properties = {
+    "spring.r2dbc.url=r2dbc:h2:mem:///changes;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:faults/schema.sql"
+})
+class ItemRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T10:00:00Z");
+    private static final Instant HORIZON = T0.plusSeconds(60);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.sql("DELETE FROM items").then().block();
+        insert("item-003", T0);
+        insert("item-001", T0);
+        insert("item-002", T0);
+        insert("item-004", T0.plusSeconds(1));
+        insert("item-005", HORIZON);
+    }
+
+    @Test
+    void findChangedSince_breaksTimestampTiesByItemId() {
+        StepVerifier.create(itemRepository.findChangedSince(Instant.EPOCH, "", HORIZON, 2).map(Item::itemId))
+            .expectNext("item-001", "item-002")
+            .verifyComplete();
+
+        // Resuming mid-timestamp neither repeats nor skips the rows sharing it
+        StepVerifier.create(itemRepository.findChangedSince(T0, "item-002", HORIZON, 10).map(Item::itemId))
+            .expectNext("item-003", "item-004")
+            .verifyComplete();
+    }
+
+    private void insert(String itemId, Instant updatedAt) {
+        databaseClient.sql("""
+                INSERT INTO items (item_id, name, price, description, updated_at)
+                VALUES (:itemId, 'Item', 19.99, 'Test item', :updatedAt)
+                """)
+            .bind("itemId", itemId)
+            .bind("updatedAt", updatedAt)
+            .then()
+            .block();
+    }
+}
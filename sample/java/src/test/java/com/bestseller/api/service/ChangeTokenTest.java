@@ -0,0 +1,72 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.exception.InvalidChangeTokenException;
+import com.bestseller.api.model.ChangePage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeTokenTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T10:00:00.123456Z");
+
+    @Test
+    void encode_roundTripsThroughDecode() {
+        ChangeToken token = new ChangeToken(T0, "item-001|with separator");
+
+        String encoded = token.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        assertEquals(token, ChangeToken.decode(encoded));
+    }
+
+    @Test
+    void decode_startsFromTheBeginningWithoutAToken() {
+        assertSame(ChangeToken.START, ChangeToken.decode(null));
+        assertSame(ChangeToken.START, ChangeToken.decode(" "));
+    }
+
+    @Test
+    void decode_rejectsMalformedTokens() {
+        assertThrows(InvalidChangeTokenException.class, () -> ChangeToken.decode("not base64!"));
+        assertThrows(InvalidChangeTokenException.class, () -> ChangeToken.decode(raw("no separator")));
+        assertThrows(InvalidChangeTokenException.class, () -> ChangeToken.decode(raw("yesterday|item-001")));
+    }
+
+    @Test
+    void paginate_usesTheExtraElementOnlyToSignalMore() {
+        ChangePage<Integer> page = ChangeToken.paginate(List.of(1, 2, 3), 2, ChangeToken.START, this::positionOf);
+
+        assertEquals(List.of(1, 2), page.changes());
+        assertTrue(page.hasMore());
+        assertEquals(positionOf(2), ChangeToken.decode(page.nextToken()));
+    }
+
+    @Test
+    void paginate_keepsTheTokenWhenNothingChanged() {
+        ChangeToken from = new ChangeToken(T0, "7");
+
+        ChangePage<Integer> page = ChangeToken.paginate(List.of(), 2, from, this::positionOf);
+
+        assertTrue(page.changes().isEmpty());
+        assertFalse(page.hasMore());
+        assertEquals(from, ChangeToken.decode(page.nextToken()));
+    }
+
+    private ChangeToken positionOf(int change) {
+        return new ChangeToken(T0.plusSeconds(change), String.valueOf(change));
+    }
+
+    private static String raw(String token) {
+        return Base64.getUrlEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
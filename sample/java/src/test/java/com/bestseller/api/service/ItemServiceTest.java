@@ -0,0 +1,110 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.bloom.KeyFilters;
+import com.bestseller.api.catalog.CatalogReadModel;
+import com.bestseller.api.config.ChangeFeedProperties;
+import com.bestseller.api.entity.Item;
+import com.bestseller.api.entity.ItemTombstone;
+import com.bestseller.api.exception.InvalidChangeTokenException;
+import com.bestseller.api.model.ItemChange;
+import com.bestseller.api.repository.ItemRepository;
+import com.bestseller.api.repository.ItemTombstoneRepository;
+import com.bestseller.api.repository.ProjectionRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ItemServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemTombstoneRepository itemTombstoneRepository = mock(ItemTombstoneRepository.class);
+    private final ItemService itemService = new ItemService(itemRepository, itemTombstoneRepository,
+        mock(ProjectionRepository.class), new ChangeFeedProperties(Duration.ofSeconds(5), 2, 3),
+        mock(KeyFilters.class), mock(CatalogReadModel.class));
+
+    @Test
+    void getItemChanges_mergesUpdatesAndTombstonesInKeysetOrder() {
+        // Equal timestamps are ordered by item id, across updates and tombstones alike
+        when(itemRepository.findChangedSince(any(), anyString(), any(), anyInt()))
+            .thenReturn(Flux.just(item("item-001", T0), item("item-003", T0), item("item-002", T0.plusSeconds(1))));
+        when(itemTombstoneRepository.findDeletedSince(any(), anyString(), any(), anyInt()))
+            .thenReturn(Flux.just(tombstone("item-002", T0)));
+
+        StepVerifier.create(itemService.getItemChanges(null, 3))
+            .assertNext(page -> {
+                assertEquals(List.of("item-001", "item-002", "item-003"),
+                    page.changes().stream().map(ItemChange::itemId).toList());
+                assertEquals(List.of(false, true, false),
+                    page.changes().stream().map(ItemChange::deleted).toList());
+                assertEquals(true, page.hasMore());
+                assertEquals(new ChangeToken(T0, "item-003"), ChangeToken.decode(page.nextToken()));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void getItemChanges_continuesAfterTheTokensPosition() {
+        when(itemRepository.findChangedSince(any(), anyString(), any(), anyInt())).thenReturn(Flux.empty());
+        when(itemTombstoneRepository.findDeletedSince(any(), anyString(), any(), anyInt())).thenReturn(Flux.empty());
+        String token = new ChangeToken(T0, "item-003").encode();
+
+        StepVerifier.create(itemService.getItemChanges(token, null))
+            .assertNext(page -> {
+                assertEquals(List.of(), page.changes());
+                assertEquals(false, page.hasMore());
+                assertEquals(token, page.nextToken());
+            })
+            .verifyComplete();
+
+        // The default page size, plus one row to tell whether more exist
+        verify(itemRepository).findChangedSince(eq(T0), eq("item-003"), any(), eq(3));
+        verify(itemTombstoneRepository).findDeletedSince(eq(T0), eq("item-003"), any(), eq(3));
+    }
+
+    @Test
+    void getItemChanges_clampsTheLimit() {
+        when(itemRepository.findChangedSince(any(), anyString(), any(), anyInt())).thenReturn(Flux.empty());
+        when(itemTombstoneRepository.findDeletedSince(any(), anyString(), any(), anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(itemService.getItemChanges(null, 1_000).then(itemService.getItemChanges(null, -5)))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(itemRepository).findChangedSince(any(), anyString(), any(), eq(3 + 1));
+        verify(itemRepository).findChangedSince(any(), anyString(), any(), eq(1 + 1));
+    }
+
+    @Test
+    void getItemChanges_rejectsAMalformedToken() {
+        StepVerifier.create(itemService.getItemChanges("garbage!", null))
+            .expectError(InvalidChangeTokenException.class)
+            .verify();
+
+        verifyNoInteractions(itemRepository, itemTombstoneRepository);
+    }
+
+    private static Item item(String itemId, Instant updatedAt) {
+        return new Item(itemId, "Item", BigDecimal.TEN, "Test item", "Apparel", "ONLY", "SKU", T0, updatedAt);
+    }
+
+    private static ItemTombstone tombstone(String itemId, Instant deletedAt) {
+        return new ItemTombstone(1L, itemId, deletedAt);
+    }
+}
@@ -0,0 +1,89 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.config.ProductProperties;
+import com.bestseller.api.exception.DependencyTimeoutException;
+import com.bestseller.api.exception.InvalidProductIdsException;
+import com.bestseller.api.model.ItemDetail;
+import com.bestseller.api.model.ProductStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final StockService stockService = mock(StockService.class);
+    private final ProductService productService = new ProductService(itemService, stockService,
+        new ProductProperties(Duration.ofMillis(200), Duration.ofMillis(50), 3), new SimpleMeterRegistry());
+
+    @Test
+    void getProduct_combinesItemAndStock() {
+        when(itemService.getItemById("item-001")).thenReturn(Mono.just(item("item-001")));
+        when(stockService.getProductStock("item-001")).thenReturn(Mono.just(stock(7)));
+
+        StepVerifier.create(productService.getProduct("item-001"))
+            .expectNextMatches(product -> product.stock().quantity() == 7 && product.unavailable().isEmpty())
+            .verifyComplete();
+    }
+
+    @Test
+    void getProduct_answersWithoutStockWhenStockIsSlow() {
+        when(itemService.getItemById("item-001")).thenReturn(Mono.just(item("item-001")));
+        when(stockService.getProductStock("item-001"))
+            .thenReturn(Mono.just(stock(7)).delayElement(Duration.ofSeconds(1)));
+
+        StepVerifier.create(productService.getProduct("item-001"))
+            .expectNextMatches(product -> product.stock() == null && product.unavailable().equals(List.of("stock")))
+            .verifyComplete();
+    }
+
+    @Test
+    void getProduct_failsWhenItemIsSlow() {
+        when(itemService.getItemById("item-001"))
+            .thenReturn(Mono.just(item("item-001")).delayElement(Duration.ofSeconds(1)));
+        when(stockService.getProductStock("item-001")).thenReturn(Mono.just(stock(7)));
+
+        StepVerifier.create(productService.getProduct("item-001"))
+            .expectError(DependencyTimeoutException.class)
+            .verify();
+    }
+
+    @Test
+    void getProducts_keepsRequestOrderAndSkipsUnknownIds() {
+        when(itemService.getItemsByIds(anyCollection()))
+            .thenReturn(Flux.just(item("item-002"), item("item-001")));
+        when(stockService.getProductStock(anyCollection()))
+            .thenReturn(Mono.just(Map.of("item-001", stock(3))));
+
+        StepVerifier.create(productService.getProducts(List.of("item-001", "item-404", "item-002")))
+            .expectNextMatches(product -> product.itemId().equals("item-001") && product.stock().quantity() == 3)
+            .expectNextMatches(product -> product.itemId().equals("item-002") && !product.stock().inStock())
+            .verifyComplete();
+    }
+
+    @Test
+    void getProducts_rejectsTooManyIds() {
+        StepVerifier.create(productService.getProducts(List.of("a", "b", "c", "d")))
+            .expectError(InvalidProductIdsException.class)
+            .verify();
+    }
+
+    private ItemDetail item(String itemId) {
+        return new ItemDetail(itemId, "Classic T-Shirt", new BigDecimal("19.99"), null, "Apparel", "BESTSELLER", null);
+    }
+
+    private ProductStock stock(int quantity) {
+        return new ProductStock(quantity > 0, quantity, List.of(), null);
+    }
+}
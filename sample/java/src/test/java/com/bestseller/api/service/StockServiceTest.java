@@ -0,0 +1,109 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.bloom.KeyFilters;
+import com.bestseller.api.config.ChangeFeedProperties;
+import com.bestseller.api.config.StockIngestProperties;
+import com.bestseller.api.entity.Stock;
+import com.bestseller.api.entity.StockTombstone;
+import com.bestseller.api.exception.InvalidChangeTokenException;
+import com.bestseller.api.ingest.StockWriteCoalescer;
+import com.bestseller.api.model.StockChange;
+import com.bestseller.api.model.StockUpdate;
+import com.bestseller.api.repository.ProjectionRepository;
+import com.bestseller.api.repository.StockRepository;
+import com.bestseller.api.repository.StockTombstoneRepository;
+import com.bestseller.api.repository.StockWriteRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class StockServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final StockRepository stockRepository = mock(StockRepository.class);
+    private final StockTombstoneRepository stockTombstoneRepository = mock(StockTombstoneRepository.class);
+    private final KeyFilters keyFilters = mock(KeyFilters.class);
+    private final StockWriteRepository stockWriteRepository = mock(StockWriteRepository.class);
+    private final StockIngestProperties stockIngestProperties = mock(StockIngestProperties.class);
+    private final StockService stockService = new StockService(stockRepository, stockTombstoneRepository,
+        mock(ProjectionRepository.class), new ChangeFeedProperties(Duration.ofSeconds(5), 2, 3),
+        keyFilters, stockWriteRepository, mock(StockWriteCoalescer.class), stockIngestProperties);
+
+    @Test
+    void getStockChanges_mergesUpdatesAndTombstonesInKeysetOrder() {
+        // Equal timestamps are ordered by numeric stock id, not by its string form
+        when(stockRepository.findChangedSince(any(), anyInt(), any(), anyInt()))
+            .thenReturn(Flux.just(stock(9, T0), stock(10, T0)));
+        when(stockTombstoneRepository.findDeletedSince(any(), anyInt(), any(), anyInt()))
+            .thenReturn(Flux.just(tombstone(2, T0), tombstone(11, T0.plusSeconds(1))));
+
+        StepVerifier.create(stockService.getStockChanges(null, 3))
+            .assertNext(page -> {
+                assertEquals(List.of(2, 9, 10), page.changes().stream().map(StockChange::stockId).toList());
+                assertEquals(List.of(true, false, false), page.changes().stream().map(StockChange::deleted).toList());
+                assertEquals(true, page.hasMore());
+                assertEquals(new ChangeToken(T0, "10"), ChangeToken.decode(page.nextToken()));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void getStockChanges_continuesAfterTheTokensPosition() {
+        when(stockRepository.findChangedSince(any(), anyInt(), any(), anyInt())).thenReturn(Flux.empty());
+        when(stockTombstoneRepository.findDeletedSince(any(), anyInt(), any(), anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(stockService.getStockChanges(new ChangeToken(T0, "10").encode(), 50))
+            .assertNext(page -> assertEquals(false, page.hasMore()))
+            .verifyComplete();
+
+        verify(stockRepository).findChangedSince(eq(T0), eq(10), any(), eq(3 + 1));
+        verify(stockTombstoneRepository).findDeletedSince(eq(T0), eq(10), any(), eq(3 + 1));
+    }
+
+    @Test
+    void getStockChanges_rejectsATokenWithoutAStockId() {
+        StepVerifier.create(stockService.getStockChanges(new ChangeToken(T0, "item-001").encode(), null))
+            .expectError(InvalidChangeTokenException.class)
+            .verify();
+
+        verifyNoInteractions(stockRepository, stockTombstoneRepository);
+    }
+
+    @Test
+    void submitStockUpdates_leavesItemsTheKeyFilterHasNotSeenToTheWrite() {
+        // An item inserted since the last filter refresh; the upsert itself skips items that do not exist
+        List<StockUpdate> updates = List.of(new StockUpdate("item-new", "Main Warehouse", 7));
+        when(keyFilters.isKnownMissingItem("item-new")).thenReturn(Mono.just(true));
+        when(stockIngestProperties.batchSize()).thenReturn(100);
+        when(stockWriteRepository.upsertQuantities(updates)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(stockService.submitStockUpdates(updates))
+            .expectNext(1)
+            .verifyComplete();
+
+        verify(stockWriteRepository).upsertQuantities(updates);
+    }
+
+    private static Stock stock(int id, Instant lastUpdated) {
+        return new Stock(id, "item-" + id, true, 5, "Main Warehouse", lastUpdated, T0, lastUpdated);
+    }
+
+    private static StockTombstone tombstone(int stockId, Instant deletedAt) {
+        return new StockTombstone((long) stockId, stockId, "item-" + stockId, "Main Warehouse", deletedAt);
+    }
+}
@@ -0,0 +1,78 @@
+package com.bestseller.api.service;
+
+import com.bestseller.api.config.TrackingStatsProperties;
+import com.bestseller.api.model.StatsCounter;
+import com.bestseller.api.repository.TrackingRepository;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackingStatsServiceTest {
+
+    private final TrackingRepository trackingRepository = mock(TrackingRepository.class);
+    private final TrackingShardRouter shardRouter = mock(TrackingShardRouter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TrackingStatsService service = new TrackingStatsService(trackingRepository, shardRouter,
+        new TrackingStatsProperties(true, Duration.ofHours(1)), meterRegistry);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void twoShards() {
+        // Every query is answered by two shards
+        when(shardRouter.onEachShard(any())).thenAnswer(invocation -> {
+            Supplier<Flux<?>> query = invocation.getArgument(0);
+            return Flux.concat(query.get(), query.get());
+        });
+    }
+
+    @Test
+    void getStats_sumsCountersOverShards() {
+        Instant currentHour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        when(trackingRepository.findStatsCounters()).thenAnswer(invocation -> Flux.just(
+            new StatsCounter("status", "Delivered", 5L),
+            new StatsCounter("status", "In Transit", 4L),
+            new StatsCounter("status", "Returned", 0L),
+            new StatsCounter("location", "Aarhus", 8L),
+            new StatsCounter("location", "", 1L),
+            new StatsCounter("due", currentHour.minus(2, ChronoUnit.HOURS).toString(), 2L),
+            new StatsCounter("due", currentHour.toString(), 1L),
+            new StatsCounter("due", currentHour.plus(1, ChronoUnit.DAYS).toString(), 1L)));
+        when(trackingRepository.countOpenDueBetween(any(), any())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(service.getStats())
+            .assertNext(stats -> {
+                assertEquals(18, stats.total());
+                assertEquals(Map.of("Delivered", 10L, "In Transit", 8L), stats.byStatus());
+                assertEquals(Map.of("Aarhus", 16L, "Unknown", 2L), stats.byLocation());
+                // Two shards: 2 x 2 from past hours plus 2 x 1 that passed their estimate in the current hour
+                assertEquals(6, stats.overdue());
+                assertEquals(2, stats.onSchedule());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void reconcile_reportsCorrectionsFromAllShards() {
+        when(trackingRepository.reconcileStats()).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(service.reconcile())
+            .expectNext(6L)
+            .verifyComplete();
+        assertEquals(6.0, meterRegistry.get("bestseller.tracking.stats.drift").counter().count());
+    }
+}
@@ -0,0 +1,50 @@
+package com.bestseller.api.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shardFor_spreadsKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.shardFor(trackingNo(i)), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count ->
+            assertTrue(Math.abs(count - KEYS / 3.0) < KEYS * 0.05, "unbalanced shard: " + counts));
+    }
+
+    @Test
+    void addingShard_onlyMovesKeysToTheNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = trackingNo(i);
+            String from = before.shardFor(key);
+            String to = after.shardFor(key);
+            if (!from.equals(to)) {
+                moved++;
+                assertEquals("shard-3", to);
+            }
+        }
+        assertTrue(moved > KEYS * 0.20 && moved < KEYS * 0.30, "moved " + moved + " keys");
+    }
+
+    private static String trackingNo(int i) {
+        return String.format("TRK-2025-%06d", i);
+    }
+}
@@ -0,0 +1,25 @@
+package com.bestseller.api.sharding;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyHashTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "TRK-2025-001", "shard-0#127", "Größe", "€uro", "カタログ", "📦 box",
+        "lone \uD800 high", "lone \uDC00 low", "trailing \uD83D"})
+    void of_matchesHashingTheEncodedKey(String key) {
+        // Tracking records were placed on shards by hashing key.getBytes(UTF_8), so the values must stay the same
+        long expected = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            expected ^= b;
+            expected *= 0x100000001b3L;
+        }
+
+        assertEquals(KeyHash.mix(expected), KeyHash.of(key));
+    }
+}
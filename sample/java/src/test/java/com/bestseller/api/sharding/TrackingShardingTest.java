@@ -0,0 +1,182 @@
+package com.bestseller.api.sharding;
+
+import com.bestseller.api.config.TrackingShardingProperties;
+import com.bestseller.api.repository.TrackingEventRepository;
+import com.bestseller.api.repository.TrackingRepository;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routes tracking queries over a pair of in-memory databases standing in for two shards.
+ */
+class TrackingShardingTest {
+
+    private static final List<String> SHARDS = List.of("shard-a", "shard-b");
+    private static final List<String> TRACKING_NUMBERS = IntStream.rangeClosed(1, 40)
+        .mapToObj(i -> String.format("TRK-%04d", i))
+        .toList();
+
+    private final Map<String, ConnectionFactory> databases = Map.of(
+        "shard-a", database(), "shard-b", database());
+    private TrackingShardRouter router;
+    private TrackingRepository trackingRepository;
+    private TrackingEventRepository trackingEventRepository;
+    private TrackingRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        TrackingShardConnectionFactory routing = new TrackingShardConnectionFactory(List.of());
+        routing.setDefaultTargetConnectionFactory(database());
+        routing.setTargetConnectionFactories(databases);
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(routing);
+        R2dbcRepositoryFactory repositories = new R2dbcRepositoryFactory(template);
+        trackingRepository = repositories.getRepository(TrackingRepository.class);
+        trackingEventRepository = repositories.getRepository(TrackingEventRepository.class);
+        router = router(false);
+        rebalancer = new TrackingRebalancer(router, trackingRepository, trackingEventRepository, template,
+            new R2dbcTransactionManager(routing));
+    }
+
+    @Test
+    void onShard_readsFromTheShardOwningTheTrackingNumber() {
+        TRACKING_NUMBERS.forEach(trackingNo -> insert(router.shardFor(trackingNo), trackingNo));
+        String trackingNo = TRACKING_NUMBERS.get(0);
+
+        StepVerifier.create(router.onShard(trackingNo, () -> trackingRepository.findById(trackingNo)))
+            .expectNextMatches(tracking -> tracking.trackingNo().equals(trackingNo))
+            .verifyComplete();
+        StepVerifier.create(router.onNamedShard(other(router.shardFor(trackingNo)),
+                trackingRepository.findById(trackingNo)))
+            .verifyComplete();
+    }
+
+    @Test
+    void onShard_fallsBackToTheOtherShardsOnlyWhenAsked() {
+        String trackingNo = TRACKING_NUMBERS.get(0);
+        insert(other(router.shardFor(trackingNo)), trackingNo);
+
+        StepVerifier.create(router.onShard(trackingNo, () -> trackingRepository.findById(trackingNo)))
+            .verifyComplete();
+        StepVerifier.create(router(true).onShard(trackingNo, () -> trackingRepository.findById(trackingNo)))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+
+    @Test
+    void onEachShard_mergesTheRowsOfAllShards() {
+        TRACKING_NUMBERS.forEach(trackingNo -> insert(router.shardFor(trackingNo), trackingNo));
+
+        StepVerifier.create(router.onEachShard(trackingRepository::findAllTrackingNumbers).collectList())
+            .assertNext(trackingNumbers -> assertEquals(Set.copyOf(TRACKING_NUMBERS), Set.copyOf(trackingNumbers)))
+            .verifyComplete();
+    }
+
+    @Test
+    void rebalance_movesRecordsWithTheirEventsToTheOwningShard() {
+        TRACKING_NUMBERS.forEach(trackingNo -> insert("shard-a", trackingNo));
+        long misplaced = TRACKING_NUMBERS.stream().filter(no -> router.shardFor(no).equals("shard-b")).count();
+        assertTrue(misplaced > 0 && misplaced < TRACKING_NUMBERS.size());
+
+        StepVerifier.create(rebalancer.plan())
+            .expectNext(new RebalanceReport(false, Map.of("shard-a->shard-b", misplaced), misplaced))
+            .verifyComplete();
+        StepVerifier.create(rebalancer.rebalance())
+            .expectNext(new RebalanceReport(true, Map.of("shard-a->shard-b", misplaced), misplaced))
+            .verifyComplete();
+
+        for (String shard : SHARDS) {
+            Set<String> stored = new HashSet<>(trackingNumbers(shard));
+            TRACKING_NUMBERS.forEach(trackingNo ->
+                assertEquals(router.shardFor(trackingNo).equals(shard), stored.contains(trackingNo), trackingNo));
+            assertEquals(stored.size(), eventCount(shard));
+        }
+        StepVerifier.create(rebalancer.plan())
+            .expectNext(new RebalanceReport(false, Map.of(), 0))
+            .verifyComplete();
+    }
+
+    @Test
+    void rebalance_keepsTheSourceRecordWhenTheCopyFails() {
+        TRACKING_NUMBERS.forEach(trackingNo -> insert("shard-a", trackingNo));
+        DatabaseClient.create(databases.get("shard-b")).sql("DROP TABLE tracking_events").then().block();
+
+        StepVerifier.create(rebalancer.rebalance())
+            .expectError()
+            .verify();
+
+        // The copy runs in one transaction on the target and the source is only deleted after it committed
+        assertEquals(Set.copyOf(TRACKING_NUMBERS), Set.copyOf(trackingNumbers("shard-a")));
+        assertEquals(TRACKING_NUMBERS.size(), eventCount("shard-a"));
+        assertTrue(trackingNumbers("shard-b").isEmpty());
+    }
+
+    private TrackingShardRouter router(boolean fallbackOnMiss) {
+        List<TrackingShardingProperties.Shard> shards = SHARDS.stream()
+            .map(name -> new TrackingShardingProperties.Shard(name, null, null, null, 1, 4, null))
+            .toList();
+        return new TrackingShardRouter(new TrackingShardingProperties(true, 128, fallbackOnMiss, shards));
+    }
+
+    private static String other(String shard) {
+        return shard.equals("shard-a") ? "shard-b" : "shard-a";
+    }
+
+    private void insert(String shard, String trackingNo) {
+        DatabaseClient client = DatabaseClient.create(databases.get(shard));
+        client.sql("INSERT INTO tracking (tracking_no, status, current_location) VALUES (:no, 'In Transit', 'Aarhus')")
+            .bind("no", trackingNo)
+            .then()
+            .then(client.sql("""
+                    INSERT INTO tracking_events (tracking_no, timestamp, location, status)
+                    VALUES (:no, :timestamp, 'Aarhus', 'In Transit')
+                    """)
+                .bind("no", trackingNo)
+                .bind("timestamp", Instant.now())
+                .then())
+            .block();
+    }
+
+    private List<String> trackingNumbers(String shard) {
+        return router.onNamedShard(shard, Flux.defer(trackingRepository::findAllTrackingNumbers))
+            .collectList()
+            .block();
+    }
+
+    private long eventCount(String shard) {
+        return DatabaseClient.create(databases.get(shard)).sql("SELECT COUNT(*) FROM tracking_events")
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .block();
+    }
+
+    private static ConnectionFactory database() {
+        ConnectionFactory database = ConnectionFactories.get(
+            "r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        new ResourceDatabasePopulator(new ClassPathResource("sharding/schema.sql")).populate(database).block();
+        return database;
+    }
+}
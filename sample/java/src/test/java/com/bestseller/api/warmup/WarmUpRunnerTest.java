@@ -0,0 +1,119 @@
+package com.bestseller.api.warmup;
+
+import com.bestseller.api.config.TrackingShardingProperties;
+import com.bestseller.api.config.WarmUpProperties;
+import com.bestseller.api.controller.ItemController;
+import com.bestseller.api.controller.StockController;
+import com.bestseller.api.controller.TrackingController;
+import com.bestseller.api.exception.ItemNotFoundException;
+import com.bestseller.api.hotkeys.HotKeys;
+import com.bestseller.api.model.ItemSummary;
+import com.bestseller.api.model.StockInfo;
+import com.bestseller.api.service.ItemService;
+import com.bestseller.api.service.TrackingService;
+import com.bestseller.api.sharding.TrackingShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WarmUpRunnerTest {
+
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    private final TrackingShardRouter shardRouter = mock(TrackingShardRouter.class);
+    private final ItemService itemService = mock(ItemService.class);
+    private final TrackingService trackingService = mock(TrackingService.class);
+    private final ItemController itemController = mock(ItemController.class);
+    private final StockController stockController = mock(StockController.class);
+    private final TrackingController trackingController = mock(TrackingController.class);
+    private final HotKeys hotKeys = mock(HotKeys.class);
+
+    @BeforeEach
+    void setUp() {
+        Connection connection = mock(Connection.class);
+        when(connection.close()).thenAnswer(invocation -> Mono.empty());
+        when(connectionFactory.create()).thenAnswer(invocation -> Mono.just(connection));
+        when(itemService.getAllItems()).thenReturn(Flux.empty());
+        when(trackingService.sampleTrackingNumbers(anyInt())).thenReturn(Flux.empty());
+        when(itemController.getAllItems()).thenReturn(Flux.just(new ItemSummary("item-001", "T-Shirt", BigDecimal.TEN)));
+        when(stockController.getStockByItemId(anyString()))
+            .thenAnswer(invocation -> Mono.just(new StockInfo(invocation.getArgument(0), true, 5, "DK01", Instant.now())));
+    }
+
+    @Test
+    void run_settlesOnceLatencyStopsMoving() {
+        when(itemController.getItemById(anyString(), any(HttpHeaders.class))).thenAnswer(invocation -> Mono.just(
+            ResponseEntity.ok(DefaultDataBufferFactory.sharedInstance.wrap(new byte[] {'{', '}'}))));
+        WarmUpRunner runner = runner(properties());
+
+        runner.run(new DefaultApplicationArguments());
+
+        WarmUpReport report = runner.report();
+        assertEquals("settled", report.outcome());
+        assertEquals(3, report.rounds());
+        assertEquals(0, report.errors());
+        assertEquals(10, report.connections());
+    }
+
+    @Test
+    void run_neverSettlesWhileRequestsFail() {
+        // Failing requests come back fast and evenly, which alone would look settled
+        when(itemController.getItemById(anyString(), any(HttpHeaders.class)))
+            .thenAnswer(invocation -> Mono.error(new ItemNotFoundException(invocation.getArgument(0))));
+        WarmUpRunner runner = runner(properties());
+
+        runner.run(new DefaultApplicationArguments());
+
+        WarmUpReport report = runner.report();
+        assertEquals("unsettled", report.outcome());
+        assertEquals(5, report.rounds());
+        assertEquals(5 * 2, report.errors());
+    }
+
+    @Test
+    void run_startsColdWhenNoConnectionOpens() {
+        when(connectionFactory.create()).thenAnswer(invocation -> Mono.error(new IllegalStateException("down")));
+        WarmUpRunner runner = runner(properties());
+
+        runner.run(new DefaultApplicationArguments());
+
+        assertEquals("failed", runner.report().outcome());
+        assertEquals(0, runner.report().rounds());
+    }
+
+    private WarmUpRunner runner(WarmUpProperties properties) {
+        return new WarmUpRunner(properties, connectionFactory, new R2dbcProperties(),
+            new TrackingShardingProperties(false, 128, false, List.of()), shardRouter, itemService, trackingService,
+            itemController, stockController, trackingController, hotKeys, new ObjectMapper().findAndRegisterModules(),
+            new SimpleMeterRegistry());
+    }
+
+    /**
+     * Two items to warm, three to five rounds, and a tolerance loose enough that any two healthy rounds agree.
+     */
+    private static WarmUpProperties properties() {
+        return new WarmUpProperties(true, 2, 0, List.of("item-001", "item-002"), List.of(), false, 2, 3, 5,
+            1_000_000, 0.01, Duration.ofSeconds(10));
+    }
+}
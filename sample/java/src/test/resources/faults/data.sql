@@ -0,0 +1,15 @@
+INSERT INTO items (item_id, name, price, description, category, brand, sku)
+SELECT 'item-' || LPAD(CAST(x AS VARCHAR), 3, '0'), 'Item ' || x, 19.99, 'Test item ' || x, 'Apparel', 'ONLY', 'SKU-' || x
+FROM SYSTEM_RANGE(1, 200);
+
+INSERT INTO stock (item_id, in_stock, quantity, warehouse)
+SELECT 'item-' || LPAD(CAST(x AS VARCHAR), 3, '0'), x % 5 <> 0, CASE WHEN x % 5 = 0 THEN 0 ELSE x END, 'Main Warehouse'
+FROM SYSTEM_RANGE(1, 200);
+
+INSERT INTO tracking (tracking_no, status, current_location)
+SELECT 'TRK-' || LPAD(CAST(x AS VARCHAR), 4, '0'), 'IN_TRANSIT', 'Aarhus'
+FROM SYSTEM_RANGE(1, 100);
+
+INSERT INTO tracking_events (tracking_no, timestamp, location, status, description)
+SELECT 'TRK-' || LPAD(CAST(MOD(x, 100) + 1 AS VARCHAR), 4, '0'), CURRENT_TIMESTAMP, 'Aarhus', 'IN_TRANSIT', 'Scanned'
+FROM SYSTEM_RANGE(1, 300);
@@ -0,0 +1,48 @@
+CREATE TABLE items (
+    item_id VARCHAR(50) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    description TEXT NOT NULL,
+    category VARCHAR(100),
+    brand VARCHAR(100),
+    sku VARCHAR(100),
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE stock (
+    id SERIAL PRIMARY KEY,
+    item_id VARCHAR(50) NOT NULL REFERENCES items(item_id),
+    in_stock BOOLEAN NOT NULL DEFAULT false,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    warehouse VARCHAR(255),
+    last_updated TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE tracking (
+    tracking_no VARCHAR(100) PRIMARY KEY,
+    status VARCHAR(50) NOT NULL,
+    current_location VARCHAR(255),
+    estimated_delivery TIMESTAMP WITH TIME ZONE,
+    delivery_date TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE tracking_events (
+    id SERIAL PRIMARY KEY,
+    tracking_no VARCHAR(100) NOT NULL REFERENCES tracking(tracking_no),
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    description TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE item_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    item_id VARCHAR(50) NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
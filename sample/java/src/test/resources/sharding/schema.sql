@@ -0,0 +1,19 @@
+CREATE TABLE tracking (
+    tracking_no VARCHAR(100) PRIMARY KEY,
+    status VARCHAR(50) NOT NULL,
+    current_location VARCHAR(255),
+    estimated_delivery TIMESTAMP WITH TIME ZONE,
+    delivery_date TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE tracking_events (
+    id SERIAL PRIMARY KEY,
+    tracking_no VARCHAR(100) NOT NULL REFERENCES tracking(tracking_no) ON DELETE CASCADE,
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    location VARCHAR(255) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    description TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
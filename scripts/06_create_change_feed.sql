@@ -0,0 +1,86 @@
+-- Script to support incremental change feeds for the items and stock tables
+-- Backs GET /v1/items/changes and GET /v1/stock/changes with keyset indexes and delete tombstones
+-- Prerequisites: Run scripts 02-03 first
+
+-- Drop tables if exist (uncomment if you want to recreate)
+-- DROP TABLE IF EXISTS item_tombstones CASCADE;
+-- DROP TABLE IF EXISTS stock_tombstones CASCADE;
+
+-- Keyset indexes matching the change feed ordering (timestamp, key).
+-- A sync round walks these indexes from the continuation token, so its cost
+-- is proportional to the number of changed rows rather than the table size.
+CREATE INDEX idx_items_updated_at_item_id ON items(updated_at, item_id);
+CREATE INDEX idx_stock_last_updated_id ON stock(last_updated, id);
+
+-- Tombstones for deleted items
+CREATE TABLE item_tombstones (
+    -- Primary key
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Key of the deleted item (no foreign key, the item no longer exists)
+    item_id VARCHAR(50) NOT NULL,
+
+    -- When the delete happened
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Tombstones for deleted stock records (including cascades from items)
+CREATE TABLE stock_tombstones (
+    -- Primary key
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Identity of the deleted stock record
+    stock_id INTEGER NOT NULL,
+    item_id VARCHAR(50) NOT NULL,
+    warehouse VARCHAR(255),
+
+    -- When the delete happened
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_item_tombstones_deleted_at_item_id ON item_tombstones(deleted_at, item_id);
+CREATE INDEX idx_stock_tombstones_deleted_at_stock_id ON stock_tombstones(deleted_at, stock_id);
+
+-- Add comments to document the tables and columns
+COMMENT ON TABLE item_tombstones IS 'Records deleted items so change feed clients can remove them';
+COMMENT ON COLUMN item_tombstones.item_id IS 'Identifier of the deleted item';
+COMMENT ON COLUMN item_tombstones.deleted_at IS 'Timestamp when the item was deleted';
+
+COMMENT ON TABLE stock_tombstones IS 'Records deleted stock rows so change feed clients can remove them';
+COMMENT ON COLUMN stock_tombstones.stock_id IS 'Identifier of the deleted stock record';
+COMMENT ON COLUMN stock_tombstones.item_id IS 'Item the deleted stock record belonged to';
+COMMENT ON COLUMN stock_tombstones.warehouse IS 'Warehouse of the deleted stock record';
+COMMENT ON COLUMN stock_tombstones.deleted_at IS 'Timestamp when the stock record was deleted';
+
+-- Create trigger functions that write a tombstone for every deleted row
+CREATE OR REPLACE FUNCTION record_item_tombstone()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO item_tombstones (item_id) VALUES (OLD.item_id);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_stock_tombstone()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO stock_tombstones (stock_id, item_id, warehouse) VALUES (OLD.id, OLD.item_id, OLD.warehouse);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER items_record_tombstone
+    AFTER DELETE ON items
+    FOR EACH ROW
+    EXECUTE FUNCTION record_item_tombstone();
+
+CREATE TRIGGER stock_record_tombstone
+    AFTER DELETE ON stock
+    FOR EACH ROW
+    EXECUTE FUNCTION record_stock_tombstone();
+
+-- Tombstones only need to outlive the slowest client's sync interval.
+-- Clients holding a token older than the retention window must do a full resync.
+-- Example cleanup (schedule externally, e.g. with pg_cron):
+-- DELETE FROM item_tombstones WHERE deleted_at < CURRENT_TIMESTAMP - INTERVAL '30 days';
+-- DELETE FROM stock_tombstones WHERE deleted_at < CURRENT_TIMESTAMP - INTERVAL '30 days';
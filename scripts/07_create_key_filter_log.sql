@@ -0,0 +1,86 @@
+-- Script to support the in-memory key filters that answer unknown item IDs and tracking numbers
+-- The application rebuilds its filters with a full key scan and, in between, reads the keys added since its
+-- previous refresh from key_filter_log, which triggers fill on every insert (including COPY and rows copied
+-- between tracking shards), whatever created_at the inserted row carries
+-- Prerequisites: Run scripts 02-04 first (run on every tracking shard as well)
+
+-- Drop table if exists (uncomment if you want to recreate)
+-- DROP TABLE IF EXISTS key_filter_log CASCADE;
+
+CREATE TABLE key_filter_log (
+    -- Primary key
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Filter the key belongs to: 'item' or 'tracking'
+    resource VARCHAR(20) NOT NULL,
+
+    -- The item ID or tracking number that was added
+    key VARCHAR(100) NOT NULL,
+
+    -- Transaction that added the key. Unlike created_at or the id, it orders rows by what a reader can already
+    -- see: every transaction below pg_snapshot_xmin(pg_current_snapshot()) has ended
+    txid BIGINT NOT NULL DEFAULT pg_current_xact_id()::text::bigint,
+
+    -- When the key was logged, for pruning
+    logged_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_key_filter_log_resource_txid ON key_filter_log(resource, txid);
+CREATE INDEX idx_key_filter_log_logged_at ON key_filter_log(logged_at);
+
+-- Add comments to document the table and columns
+COMMENT ON TABLE key_filter_log IS 'Keys added to items and tracking, read by the API to keep its key filters current';
+COMMENT ON COLUMN key_filter_log.resource IS 'Key filter the key belongs to: item or tracking';
+COMMENT ON COLUMN key_filter_log.key IS 'Added item ID or tracking number';
+COMMENT ON COLUMN key_filter_log.txid IS 'Adding transaction, the position refreshes continue from';
+COMMENT ON COLUMN key_filter_log.logged_at IS 'Time the key was logged; the API prunes rows older than its rebuilds';
+
+-- One statement-level trigger per table logs all inserted keys at once, so bulk loads pay one INSERT ... SELECT
+CREATE OR REPLACE FUNCTION log_added_item_keys()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO key_filter_log (resource, key) SELECT 'item', item_id FROM added;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION log_added_tracking_keys()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO key_filter_log (resource, key) SELECT 'tracking', tracking_no FROM added;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Logs the new key of a renamed row; TG_ARGV holds the resource and the key column
+CREATE OR REPLACE FUNCTION log_renamed_key()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO key_filter_log (resource, key) VALUES (TG_ARGV[0], to_jsonb(NEW) ->> TG_ARGV[1]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER items_log_added_keys
+    AFTER INSERT ON items
+    REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION log_added_item_keys();
+
+CREATE TRIGGER items_log_renamed_key
+    AFTER UPDATE OF item_id ON items
+    FOR EACH ROW
+    WHEN (OLD.item_id IS DISTINCT FROM NEW.item_id)
+    EXECUTE FUNCTION log_renamed_key('item', 'item_id');
+
+CREATE TRIGGER tracking_log_added_keys
+    AFTER INSERT ON tracking
+    REFERENCING NEW TABLE AS added
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION log_added_tracking_keys();
+
+CREATE TRIGGER tracking_log_renamed_key
+    AFTER UPDATE OF tracking_no ON tracking
+    FOR EACH ROW
+    WHEN (OLD.tracking_no IS DISTINCT FROM NEW.tracking_no)
+    EXECUTE FUNCTION log_renamed_key('tracking', 'tracking_no');
@@ -0,0 +1,127 @@
+-- Script to maintain shipment counters for GET /v1/track/stats
+-- Counts per status, per current location and per estimated delivery hour are kept up to date by triggers,
+-- so the dashboard reads a few hundred counter rows instead of aggregating the whole tracking table
+-- Prerequisites: Run scripts 02-04 first (run on every tracking shard as well)
+
+-- Drop table if exists (uncomment if you want to recreate)
+-- DROP TABLE IF EXISTS tracking_stats CASCADE;
+
+CREATE TABLE tracking_stats (
+    -- What is counted: 'status', 'location' or 'due' (open shipments by estimated delivery hour)
+    dimension VARCHAR(20) NOT NULL,
+
+    -- Status, location ('' when unknown) or UTC hour as 'YYYY-MM-DDTHH:00:00Z'
+    key VARCHAR(255) NOT NULL,
+
+    -- Each counter is spread over several rows so concurrent tracking updates rarely wait on each other
+    slot SMALLINT NOT NULL,
+
+    -- Change applied by this slot; only the sum over all slots is meaningful and a single slot may be negative
+    count BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (dimension, key, slot)
+);
+
+-- Open shipments by estimated delivery, used to count the shipments that became overdue within the current hour
+CREATE INDEX idx_tracking_open_estimated_delivery ON tracking(estimated_delivery)
+    WHERE status NOT IN ('Delivered', 'Returned');
+
+-- Add comments to document the table and columns
+COMMENT ON TABLE tracking_stats IS 'Shipment counters maintained by triggers on tracking';
+COMMENT ON COLUMN tracking_stats.dimension IS 'Counted dimension: status, location or due';
+COMMENT ON COLUMN tracking_stats.key IS 'Status, current location or estimated delivery hour';
+COMMENT ON COLUMN tracking_stats.slot IS 'Counter slot, spreads concurrent updates over several rows';
+COMMENT ON COLUMN tracking_stats.count IS 'Partial count held by this slot';
+
+-- Adds delta to the counters of one tracking row
+CREATE OR REPLACE FUNCTION bump_tracking_stats(p_status VARCHAR, p_location VARCHAR,
+                                               p_estimated_delivery TIMESTAMPTZ, p_delta INTEGER)
+RETURNS VOID AS $$
+DECLARE
+    v_slot SMALLINT := floor(random() * 16);
+BEGIN
+    INSERT INTO tracking_stats (dimension, key, slot, count)
+    VALUES ('status', p_status, v_slot, p_delta),
+           ('location', COALESCE(p_location, ''), v_slot, p_delta)
+    ON CONFLICT (dimension, key, slot) DO UPDATE SET count = tracking_stats.count + EXCLUDED.count;
+
+    IF p_estimated_delivery IS NOT NULL AND p_status NOT IN ('Delivered', 'Returned') THEN
+        INSERT INTO tracking_stats (dimension, key, slot, count)
+        VALUES ('due', to_char(date_trunc('hour', p_estimated_delivery AT TIME ZONE 'UTC'),
+                               'YYYY-MM-DD"T"HH24":00:00Z"'), v_slot, p_delta)
+        ON CONFLICT (dimension, key, slot) DO UPDATE SET count = tracking_stats.count + EXCLUDED.count;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION maintain_tracking_stats()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM bump_tracking_stats(OLD.status, OLD.current_location, OLD.estimated_delivery, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM bump_tracking_stats(NEW.status, NEW.current_location, NEW.estimated_delivery, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tracking_maintain_stats
+    AFTER INSERT OR DELETE ON tracking
+    FOR EACH ROW
+    EXECUTE FUNCTION maintain_tracking_stats();
+
+-- Updates that touch none of the counted columns (e.g. only updated_at) skip the counters
+CREATE TRIGGER tracking_maintain_stats_on_update
+    AFTER UPDATE OF status, current_location, estimated_delivery ON tracking
+    FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status
+        OR OLD.current_location IS DISTINCT FROM NEW.current_location
+        OR OLD.estimated_delivery IS DISTINCT FROM NEW.estimated_delivery)
+    EXECUTE FUNCTION maintain_tracking_stats();
+
+-- Recounts the tracking table and corrects the counters, returning the total correction applied.
+-- The recount and the counter sums are read by one statement, i.e. from one snapshot, and the difference is
+-- added rather than overwritten, so changes committed while the recount runs are neither lost nor counted twice.
+-- Called periodically by the API (bestseller.tracking-stats.reconcile-interval) and once below to seed the table.
+CREATE OR REPLACE FUNCTION reconcile_tracking_stats()
+RETURNS BIGINT AS $$
+DECLARE
+    v_drift BIGINT;
+BEGIN
+    WITH actual AS (
+        SELECT 'status' AS dimension, status AS key, COUNT(*) AS count FROM tracking GROUP BY status
+        UNION ALL
+        SELECT 'location', COALESCE(current_location, ''), COUNT(*) FROM tracking GROUP BY 2
+        UNION ALL
+        SELECT 'due', to_char(date_trunc('hour', estimated_delivery AT TIME ZONE 'UTC'),
+                              'YYYY-MM-DD"T"HH24":00:00Z"'), COUNT(*)
+        FROM tracking
+        WHERE estimated_delivery IS NOT NULL AND status NOT IN ('Delivered', 'Returned')
+        GROUP BY 2
+    ),
+    counted AS (
+        SELECT dimension, key, SUM(count) AS count FROM tracking_stats GROUP BY dimension, key
+    ),
+    drift AS (
+        SELECT dimension, key, COALESCE(a.count, 0) - COALESCE(c.count, 0) AS delta
+        FROM actual a FULL JOIN counted c USING (dimension, key)
+    ),
+    corrected AS (
+        INSERT INTO tracking_stats (dimension, key, slot, count)
+        SELECT dimension, key, 0, delta FROM drift WHERE delta <> 0
+        ON CONFLICT (dimension, key, slot) DO UPDATE SET count = tracking_stats.count + EXCLUDED.count
+        RETURNING 1
+    )
+    SELECT COALESCE(SUM(ABS(delta)), 0) INTO v_drift FROM drift WHERE delta <> 0;
+
+    -- Drop empty slots, e.g. of hours that no longer have open shipments
+    DELETE FROM tracking_stats WHERE count = 0;
+
+    RETURN v_drift;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Seed the counters from the existing rows
+SELECT reconcile_tracking_stats();
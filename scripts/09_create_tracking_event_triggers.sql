@@ -0,0 +1,23 @@
+-- Script to keep tracking.updated_at current when the shipment history changes
+-- The API uses updated_at as the version of a tracking response, which includes the event history, so adding,
+-- changing or removing a tracking event also touches its tracking record (the existing update trigger then
+-- sets updated_at). A version check is then a primary key lookup instead of an aggregate over the events
+-- Prerequisites: Run scripts 02-04 first (run on every tracking shard as well)
+
+CREATE OR REPLACE FUNCTION touch_tracking_for_event()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        UPDATE tracking SET updated_at = CURRENT_TIMESTAMP WHERE tracking_no = OLD.tracking_no;
+    END IF;
+    IF TG_OP <> 'DELETE' AND (TG_OP = 'INSERT' OR NEW.tracking_no IS DISTINCT FROM OLD.tracking_no) THEN
+        UPDATE tracking SET updated_at = CURRENT_TIMESTAMP WHERE tracking_no = NEW.tracking_no;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tracking_events_touch_tracking
+    AFTER INSERT OR UPDATE OR DELETE ON tracking_events
+    FOR EACH ROW
+    EXECUTE FUNCTION touch_tracking_for_event();